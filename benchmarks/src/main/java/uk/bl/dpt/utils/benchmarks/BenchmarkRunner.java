@@ -0,0 +1,54 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Run the benchmarks, writing the results as JSON so they can be tracked across releases
+ *
+ * Takes the usual JMH command line options, e.g. a benchmark name regex, -p entries=10000000
+ * or -rff results-0.0.3.json.
+ */
+public class BenchmarkRunner {
+
+	/**
+	 * Default results file
+	 */
+	public final static String RESULT_FILE = "jmh-result.json";
+
+	private BenchmarkRunner() {}
+
+	@SuppressWarnings("javadoc")
+	public static void main(String[] pArgs) throws Exception {
+		CommandLineOptions cmd = new CommandLineOptions(pArgs);
+		OptionsBuilder options = new OptionsBuilder();
+		options.parent(cmd);
+		// JSON by default, but the command line wins
+		if(!cmd.getResultFormat().hasValue()) {
+			options.resultFormat(ResultFormatType.JSON);
+		}
+		if(!cmd.getResult().hasValue()) {
+			options.result(RESULT_FILE);
+		}
+		new Runner(options.build()).run();
+	}
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.benchmarks;
+
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.bl.dpt.utils.checksum.cksum.CkSumProvider;
+import uk.bl.dpt.utils.checksum.crc.CRC32C;
+
+/**
+ * cksum against the other crcs, and against the original byte at a time cksum loop
+ *
+ * Scores are buffers per second; multiply by the buffer size for throughput.  The 1 GiB
+ * buffer needs the larger heap the fork is given.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class CkSumBenchmark {
+
+	@Param({ "1024", "4096", "65536", "1048576", "1073741824" })
+	int size;
+
+	private byte[] gData;
+	private MessageDigest gCkSum;
+	private CRC32 gCrc32;
+	private CRC32C gCrc32c;
+
+	/* the original cksum table, the byte loop is kept here as a baseline */
+	private final static int[] TABLE = new int[256];
+	static {
+		for(int i=0;i<256;i++) {
+			int crc = i<<24;
+			for(int j=0;j<8;j++) {
+				crc = (crc<<1) ^ (crc<0?0x04c11db7:0);
+			}
+			TABLE[i] = crc;
+		}
+	}
+
+	@SuppressWarnings("javadoc")
+	@Setup
+	public void setUp() throws Exception {
+		CkSumProvider.register();
+		gData = new byte[size];
+		new Random(size).nextBytes(gData);
+		gCkSum = MessageDigest.getInstance("cksum");
+		gCrc32 = new CRC32();
+		gCrc32c = new CRC32C();
+	}
+
+	@SuppressWarnings("javadoc")
+	@Benchmark
+	public int cksumByteLoop() {
+		int crc = 0;
+		for(int i=0;i<gData.length;i++) {
+			crc = TABLE[(crc>>24^gData[i]) &0xff] ^ crc<<8;
+		}
+		return crc;
+	}
+
+	@SuppressWarnings("javadoc")
+	@Benchmark
+	public byte[] cksum() {
+		gCkSum.update(gData, 0, gData.length);
+		byte[] digest = gCkSum.digest();
+		gCkSum.reset();
+		return digest;
+	}
+
+	@SuppressWarnings("javadoc")
+	@Benchmark
+	public long crc32() {
+		gCrc32.reset();
+		gCrc32.update(gData, 0, gData.length);
+		return gCrc32.getValue();
+	}
+
+	@SuppressWarnings("javadoc")
+	@Benchmark
+	public long crc32c() {
+		gCrc32c.reset();
+		gCrc32c.update(gData, 0, gData.length);
+		return gCrc32c.getValue();
+	}
+
+}
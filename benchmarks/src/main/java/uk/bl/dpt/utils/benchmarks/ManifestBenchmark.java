@@ -0,0 +1,173 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.bl.dpt.utils.checksum.ChecksumDiff;
+import uk.bl.dpt.utils.checksum.CompactManifest;
+
+/**
+ * Loading and diffing CRC manifests ("path,checksum" lines).
+ *
+ * The second manifest is the first with 1% of the entries changed, so there is a
+ * realistic, small, amount of output.  The report is discarded.  The 10^7 entry runs
+ * need the large heap the fork is given; leave them out with -p entries=10000,100000,1000000
+ * on smaller machines.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class ManifestBenchmark {
+
+	@Param({ "10000", "100000", "1000000", "10000000" })
+	int entries;
+
+	private File gManifestA;
+	private File gManifestB;
+	private File gReport;
+	private Map<String, ArrayList<String>> gSetA;
+	private Map<String, ArrayList<String>> gSetB;
+	private PrintStream gStdout;
+
+	@SuppressWarnings("javadoc")
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		gManifestA = File.createTempFile("dptutils-bench-a", ".txt");
+		gManifestB = File.createTempFile("dptutils-bench-b", ".txt");
+		gReport = File.createTempFile("dptutils-bench-report", ".txt");
+		Random random = new Random(entries);
+		PrintWriter a = new PrintWriter(gManifestA, "UTF-8");
+		PrintWriter b = new PrintWriter(gManifestB, "UTF-8");
+		try {
+			for(int i=0;i<entries;i++) {
+				String path = path(i);
+				String checksum = Integer.toHexString(random.nextInt()).toUpperCase();
+				a.println(path+","+checksum);
+				b.println(path+","+(random.nextInt(100)==0 ? "0"+checksum : checksum));
+			}
+		} finally {
+			a.close();
+			b.close();
+		}
+		// ChecksumDiff prints every difference to stdout as well as the report
+		gStdout = System.out;
+		System.setOut(new PrintStream(new OutputStream() {
+			@Override
+			public void write(int b) {
+				// discard
+			}
+			@Override
+			public void write(byte[] b, int off, int len) {
+				// discard
+			}
+		}));
+	}
+
+	/**
+	 * compare() consumes its input maps, so they are rebuilt (outside the timing) each time
+	 */
+	@SuppressWarnings("javadoc")
+	@Setup(Level.Invocation)
+	public void setUpSets() {
+		Random random = new Random(entries);
+		gSetA = new HashMap<String, ArrayList<String>>(entries*2);
+		gSetB = new HashMap<String, ArrayList<String>>(entries*2);
+		for(int i=0;i<entries;i++) {
+			String path = path(i);
+			String checksum = Integer.toHexString(random.nextInt()).toUpperCase();
+			add(gSetA, checksum, path);
+			add(gSetB, random.nextInt(100)==0 ? "0"+checksum : checksum, path);
+		}
+	}
+
+	private static void add(Map<String, ArrayList<String>> pSet, String pChecksum, String pPath) {
+		ArrayList<String> paths = pSet.get(pChecksum);
+		if(paths==null) {
+			paths = new ArrayList<String>(1);
+			pSet.put(pChecksum, paths);
+		}
+		paths.add(pPath);
+	}
+
+	private static String path(int pIndex) {
+		return "data/"+(pIndex/1000)+"/"+(pIndex%1000)+"/file"+pIndex+".tif";
+	}
+
+	@SuppressWarnings("javadoc")
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		System.setOut(gStdout);
+		gManifestA.delete();
+		gManifestB.delete();
+		gReport.delete();
+	}
+
+	/**
+	 * Load one manifest from disk, without diffing
+	 */
+	@SuppressWarnings("javadoc")
+	@Benchmark
+	public CompactManifest load() throws IOException {
+		return ChecksumDiff.loadCompact(gManifestA);
+	}
+
+	/**
+	 * Load both manifests from disk and diff them
+	 */
+	@SuppressWarnings("javadoc")
+	@Benchmark
+	public void loadAndDiff() throws IOException {
+		ChecksumDiff.compare(gManifestA, gManifestB, gReport);
+	}
+
+	/**
+	 * Diff two manifests that are already in memory
+	 */
+	@SuppressWarnings("javadoc")
+	@Benchmark
+	public void diff() throws IOException {
+		ChecksumDiff.compare(gSetA, gSetB, gReport);
+	}
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.benchmarks;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.bl.dpt.utils.checksum.ChecksumSpec;
+import uk.bl.dpt.utils.checksum.ChecksumUtil;
+
+/**
+ * Calculating the default checksum set (CRC32, cksum, MD5, SHA-1, SHA-256) over a file
+ *
+ * The file is written once per trial so it will be in the page cache: this measures
+ * the cost of hashing, not of the storage.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MultiDigestBenchmark {
+
+	@Param({ "4096", "1048576", "67108864" })
+	long fileSize;
+
+	private File gFile;
+
+	@SuppressWarnings("javadoc")
+	@Setup
+	public void setUp() throws IOException {
+		gFile = File.createTempFile("dptutils-bench", ".bin");
+		byte[] buffer = new byte[1024*1024];
+		Random random = new Random(fileSize);
+		FileOutputStream out = new FileOutputStream(gFile);
+		try {
+			for(long written=0;written<fileSize;written+=buffer.length) {
+				random.nextBytes(buffer);
+				out.write(buffer, 0, (int)Math.min(buffer.length, fileSize-written));
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	@SuppressWarnings("javadoc")
+	@TearDown
+	public void tearDown() {
+		gFile.delete();
+	}
+
+	/**
+	 * FileChannel/mmap path
+	 */
+	@SuppressWarnings("javadoc")
+	@Benchmark
+	public Map<String, String> file() throws IOException {
+		Map<String, String> checksums = new HashMap<String, String>();
+		ChecksumUtil.calcChecksums(gFile, checksums);
+		return checksums;
+	}
+
+	/**
+	 * InputStream path, one thread per digest
+	 */
+	@SuppressWarnings("javadoc")
+	@Benchmark
+	public Map<String, String> stream() throws IOException {
+		Map<String, String> checksums = new HashMap<String, String>();
+		ChecksumUtil.calcChecksums(new FileInputStream(gFile), ChecksumSpec.DEFAULT, checksums);
+		return checksums;
+	}
+
+	/**
+	 * A single digest, for comparison with the full set
+	 */
+	@SuppressWarnings("javadoc")
+	@Benchmark
+	public String md5Only() throws IOException {
+		return ChecksumUtil.generateChecksumOnly(gFile.getPath());
+	}
+
+}
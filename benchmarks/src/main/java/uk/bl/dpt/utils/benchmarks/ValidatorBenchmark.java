@@ -0,0 +1,113 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.transform.stream.StreamSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.bl.dpt.utils.schematron.Validator;
+import uk.bl.dpt.utils.schematron.ValidatorFactory;
+
+/**
+ * Latency of validating one document against a compiled schematron schema
+ * (the schema from ValidatorTest).  Compiling the schema is not timed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.AverageTime, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidatorBenchmark {
+
+	/**
+	 * Number of Person elements in the document
+	 */
+	@Param({ "1", "100", "10000" })
+	int people;
+
+	private File gSchema;
+	private Validator gValidator;
+	private byte[] gDocument;
+
+	@SuppressWarnings("javadoc")
+	@Setup
+	public void setUp() throws Exception {
+		gSchema = File.createTempFile("dptutils-bench-schema", ".sch");
+		PrintWriter pw = new PrintWriter(gSchema, "UTF-8");
+		try {
+			pw.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+			pw.println("<sch:schema xmlns:sch=\"http://purl.oclc.org/dsdl/schematron\">");
+			pw.println("    <sch:pattern name=\"Check structure\">");
+			pw.println("        <sch:rule context=\"Person\">");
+			pw.println("            <sch:assert test=\"@Title\">The element Person must have a Title attribute</sch:assert>");
+			pw.println("            <sch:assert test=\"count(*) = 2 and count(Name) = 1 and count(Gender) = 1\">The element Person should have the child elements Name and Gender.</sch:assert>");
+			pw.println("            <sch:assert test=\"*[1] = Name\">The element Name must appear before element Gender.</sch:assert>");
+			pw.println("        </sch:rule>");
+			pw.println("    </sch:pattern>");
+			pw.println("    <sch:pattern name=\"Check co-occurrence constraints\">");
+			pw.println("        <sch:rule context=\"Person\">");
+			pw.println("            <sch:assert test=\"(@Title = 'Mr' and Gender = 'Male') or @Title != 'Mr'\">If the Title is \"Mr\" then the Gender of the person must be \"Male\".</sch:assert>");
+			pw.println("        </sch:rule>");
+			pw.println("    </sch:pattern>");
+			pw.println("</sch:schema>");
+		} finally {
+			pw.close();
+		}
+		gValidator = new ValidatorFactory().newValidator(gSchema.getPath());
+
+		StringBuilder document = new StringBuilder("<People>");
+		for(int i=0;i<people;i++) {
+			// every tenth person fails the co-occurrence rule
+			document.append("<Person Title=\"Mr\"><Name>Eddie ").append(i).append("</Name><Gender>")
+				.append(i%10==0?"Female":"Male").append("</Gender></Person>");
+		}
+		document.append("</People>");
+		gDocument = document.toString().getBytes("UTF-8");
+	}
+
+	@SuppressWarnings("javadoc")
+	@TearDown
+	public void tearDown() {
+		gSchema.delete();
+	}
+
+	@SuppressWarnings("javadoc")
+	@Benchmark
+	public ByteArrayOutputStream validate() throws Exception {
+		return gValidator.validate(new StreamSource(new ByteArrayInputStream(gDocument)));
+	}
+
+}
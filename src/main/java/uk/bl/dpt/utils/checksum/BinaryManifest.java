@@ -0,0 +1,614 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A manifest stored in a binary, column oriented file that is read by memory mapping it,
+ * so opening one does not parse anything.
+ *
+ * The file has a small header and four columns: the checksums as fixed width binary
+ * digests, right aligned, sorted by value; a short for each entry with its number of hex
+ * digits and their case (so the original string can be given back); the offset of each
+ * path; and the UTF-8 paths themselves.  Entries with the same checksum keep the order they
+ * had in the original manifest.  As the digests are sorted, a checksum can be found with a
+ * binary search, and two binary manifests can be diffed with a merge (see
+ * {@link BinaryManifestDiff}).
+ *
+ * Binary manifests are made from a {@link CompactManifest}, or any manifest file that
+ * {@link ChecksumDiff} loads, and can be written back out as one.  Only hex checksums of a
+ * single case can be stored.  A manifest can hold at most Integer.MAX_VALUE entries, but
+ * its columns can be any size.  Once opened, a manifest can be read from several threads.
+ */
+public class BinaryManifest {
+
+	/**
+	 * File name extension for binary manifests
+	 */
+	public final static String EXTENSION = ".bman";
+
+	private final static byte[] MAGIC = "DPTBMAN\u0001".getBytes(Charset.forName("US-ASCII"));
+	private final static int VERSION = 1;
+	private final static int HEADER_SIZE = 64;
+	private final static Charset UTF8 = Charset.forName("UTF-8");
+
+	/* info column: digit count, a flag for lower case digits, and a flag for a null path */
+	private final static int LENGTH_MASK = 0x01FF;
+	private final static int LOWER = 0x4000;
+	private final static int NO_PATH = 0x8000;
+	private final static int KEY_MASK = LENGTH_MASK|LOWER;
+	private final static int MAX_WIDTH = 64;
+
+	private final static char[] UPPER_DIGITS = "0123456789ABCDEF".toCharArray();
+	private final static char[] LOWER_DIGITS = "0123456789abcdef".toCharArray();
+
+	private final String gAlgorithm;
+	private final int gWidth;
+	private final int gSize;
+	private final Column gDigests;
+	private final Column gInfo;
+	private final Column gPathIndex;
+	private final Column gPaths;
+
+	/**
+	 * Open a binary manifest
+	 * @param pFile binary manifest file
+	 * @throws IOException if the file could not be read, or is not a binary manifest
+	 */
+	public BinaryManifest(File pFile) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(pFile, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			while(header.hasRemaining()&&channel.read(header)>=0) {
+				// fill the header
+			}
+			header.flip();
+			byte[] magic = new byte[MAGIC.length];
+			if(header.remaining()<HEADER_SIZE||!Arrays.equals(MAGIC, read(header, magic))) {
+				throw new IOException("Not a binary manifest: "+pFile);
+			}
+			int version = header.getInt();
+			if(version!=VERSION) {
+				throw new IOException("Unsupported binary manifest version "+version+": "+pFile);
+			}
+			gWidth = header.getInt();
+			long size = header.getLong();
+			long digests = header.getLong();
+			long info = header.getLong();
+			long pathIndex = header.getLong();
+			long paths = header.getLong();
+			long pathsLength = header.getLong();
+			if(gWidth<1||gWidth>MAX_WIDTH||size<0||size>Integer.MAX_VALUE||paths+pathsLength>channel.size()) {
+				throw new IOException("Corrupt binary manifest header: "+pFile);
+			}
+			gSize = (int)size;
+
+			ByteBuffer name = ByteBuffer.allocate(2+255);
+			channel.read(name, HEADER_SIZE);
+			name.flip();
+			gAlgorithm = new String(read(name, new byte[name.getShort()]), UTF8);
+
+			gDigests = new Column(channel, digests, size*gWidth);
+			gInfo = new Column(channel, info, size*2);
+			gPathIndex = new Column(channel, pathIndex, (size+1)*8);
+			gPaths = new Column(channel, paths, pathsLength);
+		} finally {
+			// the mappings stay valid
+			file.close();
+		}
+	}
+
+	private static byte[] read(ByteBuffer pBuffer, byte[] pBytes) {
+		pBuffer.get(pBytes);
+		return pBytes;
+	}
+
+	/**
+	 * Convert a manifest file to a binary manifest
+	 * @param pManifest manifest (OS CRC or "ThreadingSpider" XML file)
+	 * @param pBinary binary manifest file to write
+	 * @throws IOException if the manifest could not be read, the binary manifest written,
+	 * or a checksum is not hex
+	 */
+	public static void write(File pManifest, File pBinary) throws IOException {
+		write(ChecksumDiff.loadCompact(pManifest), "cksum", pBinary);
+	}
+
+	/**
+	 * Write a compact manifest as a binary manifest.  Removed entries are included.
+	 * @param pManifest manifest to write
+	 * @param pAlgorithm algorithm of the checksums, in ChecksumUtil form
+	 * @param pBinary binary manifest file to write
+	 * @throws IOException if the file could not be written, or a checksum is not hex
+	 */
+	public static void write(final CompactManifest pManifest, String pAlgorithm, File pBinary) throws IOException {
+		byte[] algorithm = pAlgorithm.getBytes(UTF8);
+		if(algorithm.length>255) throw new IllegalArgumentException("Algorithm name too long: "+pAlgorithm);
+		int size = pManifest.size();
+		int width = 1;
+		for(int entry=0;entry<size;entry++) {
+			if(!pManifest.isPacked(entry)) {
+				throw new IOException("Checksum cannot be stored in a binary manifest: "+pManifest.getChecksum(entry));
+			}
+			width = Math.max(width, ((pManifest.packedInfo(entry)&LENGTH_MASK)+1)/2);
+		}
+
+		int[] order = new int[size];
+		for(int i=0;i<size;i++) {
+			order[i] = i;
+		}
+		sort(order, pManifest);
+
+		long digests = align(HEADER_SIZE+2+algorithm.length);
+		long info = align(digests+(long)size*width);
+		long pathIndex = align(info+(long)size*2);
+		long paths = align(pathIndex+(long)(size+1)*8);
+
+		RandomAccessFile file = new RandomAccessFile(pBinary, "rw");
+		try {
+			file.setLength(0);
+			FileChannel channel = file.getChannel();
+			ColumnWriter digestColumn = new ColumnWriter(channel, digests);
+			ColumnWriter infoColumn = new ColumnWriter(channel, info);
+			ColumnWriter indexColumn = new ColumnWriter(channel, pathIndex);
+			ColumnWriter pathColumn = new ColumnWriter(channel, paths);
+			byte[] digest = new byte[width];
+			long pathsLength = 0;
+			for(int entry:order) {
+				pManifest.getDigest(entry, digest);
+				digestColumn.put(digest);
+				String path = pManifest.getFile(entry);
+				infoColumn.putShort(pManifest.packedInfo(entry)|(path==null ? NO_PATH : 0));
+				indexColumn.putLong(pathsLength);
+				if(path!=null) {
+					byte[] bytes = path.getBytes(UTF8);
+					pathColumn.put(bytes);
+					pathsLength += bytes.length;
+				}
+			}
+			indexColumn.putLong(pathsLength);
+			digestColumn.flush();
+			infoColumn.flush();
+			indexColumn.flush();
+			pathColumn.flush();
+			file.setLength(paths+pathsLength);
+
+			// the header goes last, so a partly written file is not valid
+			ByteBuffer header = ByteBuffer.allocate((int)digests);
+			header.put(MAGIC).putInt(VERSION).putInt(width).putLong(size);
+			header.putLong(digests).putLong(info).putLong(pathIndex).putLong(paths).putLong(pathsLength);
+			header.position(HEADER_SIZE);
+			header.putShort((short)algorithm.length).put(algorithm);
+			header.rewind();
+			while(header.hasRemaining()) {
+				channel.write(header, header.position());
+			}
+		} finally {
+			file.close();
+		}
+	}
+
+	private static long align(long pOffset) {
+		return (pOffset+7)&~7L;
+	}
+
+	/**
+	 * Sort entry numbers by checksum, keeping the order of entries with the same checksum
+	 */
+	private static void sort(int[] pOrder, CompactManifest pManifest) {
+		int[] from = pOrder;
+		int[] to = new int[pOrder.length];
+		for(int run=1;run<pOrder.length;run*=2) {
+			for(int start=0;start<pOrder.length;start+=2*run) {
+				int middle = Math.min(start+run, pOrder.length);
+				int end = Math.min(start+2*run, pOrder.length);
+				int a = start;
+				int b = middle;
+				for(int i=start;i<end;i++) {
+					if(a<middle&&(b>=end||pManifest.compareChecksums(from[a], from[b])<=0)) {
+						to[i] = from[a++];
+					} else {
+						to[i] = from[b++];
+					}
+				}
+			}
+			int[] swap = from;
+			from = to;
+			to = swap;
+		}
+		if(from!=pOrder) {
+			System.arraycopy(from, 0, pOrder, 0, pOrder.length);
+		}
+	}
+
+	/**
+	 * Write the entries to a manifest file, in binary manifest order
+	 * @param pManifest manifest file to write: "ThreadingSpider" XML if the name ends in ".xml"
+	 * (or ".xml.gz"), otherwise OS CRC, gzipped if the name ends in ".gz"
+	 * @throws IOException if the file could not be written, or an entry has no path, which
+	 * the text formats cannot hold
+	 */
+	public void export(File pManifest) throws IOException {
+		String name = pManifest.getName().toLowerCase();
+		boolean xml = name.endsWith(".xml")||name.endsWith(".xml.gz");
+		final ManifestWriter writer = xml ? ThreadingSpiderWriter.open(pManifest, false) : CrcManifestWriter.open(pManifest, false);
+		try {
+			read(new ManifestEntryHandler() {
+				@Override
+				public void entry(String pChecksum, String pFile) throws IOException {
+					if(pFile==null) {
+						throw new IOException("Entry with checksum "+pChecksum+" has no path to export");
+					}
+					writer.write(pFile, Collections.singletonMap(gAlgorithm, pChecksum));
+				}
+			});
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Read all the entries, in binary manifest order
+	 * @param pHandler handler for each entry
+	 * @throws IOException if the handler failed
+	 */
+	public void read(ManifestEntryHandler pHandler) throws IOException {
+		for(int entry=0;entry<gSize;entry++) {
+			pHandler.entry(getChecksum(entry), getFile(entry));
+		}
+	}
+
+	/**
+	 * @return algorithm of the checksums, in ChecksumUtil form
+	 */
+	public String getAlgorithm() {
+		return gAlgorithm;
+	}
+
+	/**
+	 * @return number of entries
+	 */
+	public int size() {
+		return gSize;
+	}
+
+	/**
+	 * @return width of the binary digests, in bytes
+	 */
+	public int getWidth() {
+		return gWidth;
+	}
+
+	/**
+	 * Get the checksum of an entry
+	 * @param pEntry entry number
+	 * @return checksum, as it was in the original manifest
+	 */
+	public String getChecksum(int pEntry) {
+		int info = info(pEntry);
+		char[] digits = (info&LOWER)!=0 ? LOWER_DIGITS : UPPER_DIGITS;
+		char[] chars = new char[info&LENGTH_MASK];
+		long end = ((long)pEntry+1)*gWidth;
+		for(int i=0;i<chars.length;i++) {
+			// i counts digits from the right
+			int b = gDigests.get(end-1-i/2)&0xFF;
+			chars[chars.length-1-i] = digits[(i%2==0 ? b : b>>>4)&0xF];
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * Get the path of an entry
+	 * @param pEntry entry number
+	 * @return path (may be null)
+	 */
+	public String getFile(int pEntry) {
+		if((info(pEntry)&NO_PATH)!=0) {
+			return null;
+		}
+		long start = gPathIndex.getLong(pEntry*8L);
+		int length = (int)(gPathIndex.getLong(pEntry*8L+8)-start);
+		return new String(gPaths.get(start, new byte[length]), UTF8);
+	}
+
+	/**
+	 * Find the first entry with a checksum, by binary search
+	 * @param pChecksum checksum value
+	 * @return first entry with that checksum, or -1
+	 */
+	public int find(String pChecksum) {
+		int info = pack(pChecksum);
+		if(info<0) {
+			return -1;
+		}
+		byte[] key = new byte[(pChecksum.length()+1)/2];
+		for(int i=0;i<pChecksum.length();i++) {
+			int digit = Character.digit(pChecksum.charAt(pChecksum.length()-1-i), 16);
+			key[key.length-1-i/2] |= i%2==0 ? digit : digit<<4;
+		}
+		int entry = lowerBound(0, gSize, key, info);
+		return entry<gSize&&compare(entry, key, info)==0 ? entry : -1;
+	}
+
+	/**
+	 * @return info for a hex checksum of a single case, or -1
+	 */
+	private static int pack(String pChecksum) {
+		int length = pChecksum.length();
+		if(length==0||length>MAX_WIDTH*2) {
+			return -1;
+		}
+		boolean upper = false;
+		boolean lower = false;
+		for(int i=0;i<length;i++) {
+			char c = pChecksum.charAt(i);
+			if(c>='A'&&c<='F') {
+				upper = true;
+			} else if(c>='a'&&c<='f') {
+				lower = true;
+			} else if(c<'0'||c>'9') {
+				return -1;
+			}
+		}
+		if(upper&&lower) {
+			return -1;
+		}
+		return length|(lower ? LOWER : 0);
+	}
+
+	/**
+	 * Copy the digest of an entry
+	 * @param pEntry entry number
+	 * @param pDigest getWidth() bytes
+	 * @return the digest
+	 */
+	byte[] getDigest(int pEntry, byte[] pDigest) {
+		return gDigests.get((long)pEntry*gWidth, pDigest);
+	}
+
+	/**
+	 * @return digit count and case of an entry's checksum, as compared
+	 */
+	int key(int pEntry) {
+		return info(pEntry)&KEY_MASK;
+	}
+
+	private int info(int pEntry) {
+		return gInfo.getShort(pEntry*2L)&0xFFFF;
+	}
+
+	/**
+	 * Compare an entry's checksum with a digest, by value and then by digit count and case
+	 * @param pEntry entry number
+	 * @param pDigest right aligned digest, of any width
+	 * @param pKey digit count and case, as from {@link #key(int)}
+	 * @return negative, zero or positive as the entry sorts before, with or after the digest
+	 */
+	int compare(int pEntry, byte[] pDigest, int pKey) {
+		int width = Math.max(gWidth, pDigest.length);
+		long start = (long)pEntry*gWidth;
+		for(int i=0;i<width;i++) {
+			int a = i<width-gWidth ? 0 : gDigests.get(start+i-(width-gWidth))&0xFF;
+			int b = i<width-pDigest.length ? 0 : pDigest[i-(width-pDigest.length)]&0xFF;
+			if(a!=b) {
+				return a-b;
+			}
+		}
+		return key(pEntry)-pKey;
+	}
+
+	/**
+	 * @return first entry from pFrom to pTo that does not sort before the digest
+	 */
+	int lowerBound(int pFrom, int pTo, byte[] pDigest, int pKey) {
+		int low = pFrom;
+		int high = pTo;
+		while(low<high) {
+			int middle = (low+high)>>>1;
+			if(compare(middle, pDigest, pKey)<0) {
+				low = middle+1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * @return first entry from pFrom to pTo that sorts after the digest
+	 */
+	int upperBound(int pFrom, int pTo, byte[] pDigest, int pKey) {
+		int low = pFrom;
+		int high = pTo;
+		while(low<high) {
+			int middle = (low+high)>>>1;
+			if(compare(middle, pDigest, pKey)<=0) {
+				low = middle+1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Compare the UTF-8 paths of two entries, in this and another manifest, without decoding them
+	 * @return true if the paths are the same
+	 */
+	boolean samePath(int pEntry, BinaryManifest pOther, int pOtherEntry) {
+		boolean none = (info(pEntry)&NO_PATH)!=0;
+		if(none||(pOther.info(pOtherEntry)&NO_PATH)!=0) {
+			return none&&(pOther.info(pOtherEntry)&NO_PATH)!=0;
+		}
+		long start = gPathIndex.getLong(pEntry*8L);
+		long length = gPathIndex.getLong(pEntry*8L+8)-start;
+		long otherStart = pOther.gPathIndex.getLong(pOtherEntry*8L);
+		if(pOther.gPathIndex.getLong(pOtherEntry*8L+8)-otherStart!=length) {
+			return false;
+		}
+		for(long i=0;i<length;i++) {
+			if(gPaths.get(start+i)!=pOther.gPaths.get(otherStart+i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * The entries that are not set in a BitSet, in binary manifest order
+	 */
+	Iterable<DiffResult.Entry> remaining(final BitSet pMatched) {
+		return new Iterable<DiffResult.Entry>() {
+			@Override
+			public Iterator<DiffResult.Entry> iterator() {
+				return new Iterator<DiffResult.Entry>() {
+
+					private int gNext = pMatched.nextClearBit(0);
+
+					@Override
+					public boolean hasNext() {
+						return gNext<gSize;
+					}
+
+					@Override
+					public DiffResult.Entry next() {
+						if(!hasNext()) throw new NoSuchElementException();
+						DiffResult.Entry entry = new DiffResult.Entry(getChecksum(gNext), getFile(gNext));
+						gNext = pMatched.nextClearBit(gNext+1);
+						return entry;
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+
+				};
+			}
+		};
+	}
+
+	/**
+	 * A region of the file, mapped in chunks so that it can be larger than 2GB.  Chunk
+	 * sizes are a multiple of 8, so aligned shorts and longs never cross a chunk.
+	 */
+	private static class Column {
+
+		private final static int CHUNK_BITS = 30;
+		private final static long CHUNK_MASK = (1L<<CHUNK_BITS)-1;
+
+		private final MappedByteBuffer[] gChunks;
+
+		Column(FileChannel pChannel, long pStart, long pLength) throws IOException {
+			gChunks = new MappedByteBuffer[(int)((pLength+CHUNK_MASK)>>>CHUNK_BITS)];
+			for(int i=0;i<gChunks.length;i++) {
+				long offset = (long)i<<CHUNK_BITS;
+				gChunks[i] = pChannel.map(FileChannel.MapMode.READ_ONLY, pStart+offset, Math.min(CHUNK_MASK+1, pLength-offset));
+			}
+		}
+
+		byte get(long pPosition) {
+			return gChunks[(int)(pPosition>>>CHUNK_BITS)].get((int)(pPosition&CHUNK_MASK));
+		}
+
+		short getShort(long pPosition) {
+			return gChunks[(int)(pPosition>>>CHUNK_BITS)].getShort((int)(pPosition&CHUNK_MASK));
+		}
+
+		long getLong(long pPosition) {
+			return gChunks[(int)(pPosition>>>CHUNK_BITS)].getLong((int)(pPosition&CHUNK_MASK));
+		}
+
+		byte[] get(long pPosition, byte[] pBytes) {
+			int done = 0;
+			while(done<pBytes.length) {
+				long position = pPosition+done;
+				ByteBuffer chunk = gChunks[(int)(position>>>CHUNK_BITS)].duplicate();
+				chunk.position((int)(position&CHUNK_MASK));
+				int length = Math.min(pBytes.length-done, chunk.remaining());
+				chunk.get(pBytes, done, length);
+				done += length;
+			}
+			return pBytes;
+		}
+
+	}
+
+	/**
+	 * Writes one column of the file through its own buffer
+	 */
+	private static class ColumnWriter {
+
+		private final FileChannel gChannel;
+		private final ByteBuffer gBuffer = ByteBuffer.allocate(64*1024);
+		private long gPosition;
+
+		ColumnWriter(FileChannel pChannel, long pStart) {
+			gChannel = pChannel;
+			gPosition = pStart;
+		}
+
+		void put(byte[] pBytes) throws IOException {
+			int done = 0;
+			while(done<pBytes.length) {
+				if(!gBuffer.hasRemaining()) {
+					flush();
+				}
+				int length = Math.min(gBuffer.remaining(), pBytes.length-done);
+				gBuffer.put(pBytes, done, length);
+				done += length;
+			}
+		}
+
+		void putShort(int pValue) throws IOException {
+			if(gBuffer.remaining()<2) {
+				flush();
+			}
+			gBuffer.putShort((short)pValue);
+		}
+
+		void putLong(long pValue) throws IOException {
+			if(gBuffer.remaining()<8) {
+				flush();
+			}
+			gBuffer.putLong(pValue);
+		}
+
+		void flush() throws IOException {
+			gBuffer.flip();
+			while(gBuffer.hasRemaining()) {
+				gPosition += gChannel.write(gBuffer, gPosition);
+			}
+			gBuffer.clear();
+		}
+
+	}
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Calculate differences between two {@link BinaryManifest}s with a merge over their sorted
+ * digests, matching entries in the same way as {@link ManifestDiffer}.
+ *
+ * Nothing is parsed or loaded: the merge reads the mapped digest columns directly, and
+ * skips over runs of checksums that are only in one manifest by galloping (an exponential
+ * then binary search), so a small manifest is diffed against a large one in time
+ * proportional to the small one.  Paths are only decoded where checksums match and the
+ * UTF-8 bytes of the paths differ.  The unique entries are returned in binary manifest
+ * (checksum) order.
+ */
+public class BinaryManifestDiff {
+
+	/**
+	 * Compare two binary manifest files
+	 * @param pManifestA first binary manifest
+	 * @param pManifestB second binary manifest
+	 * @return result
+	 * @throws IOException if a manifest could not be opened
+	 */
+	public DiffResult diff(File pManifestA, File pManifestB) throws IOException {
+		return diff(new BinaryManifest(pManifestA), new BinaryManifest(pManifestB));
+	}
+
+	/**
+	 * Compare two binary manifests
+	 * @param pManifestA first manifest
+	 * @param pManifestB second manifest
+	 * @return result, reading the unique entries from the manifests
+	 */
+	public DiffResult diff(BinaryManifest pManifestA, BinaryManifest pManifestB) {
+		BitSet matchedA = new BitSet(pManifestA.size());
+		BitSet matchedB = new BitSet(pManifestB.size());
+		byte[] digestA = new byte[pManifestA.getWidth()];
+		byte[] digestB = new byte[pManifestB.getWidth()];
+		int sizeA = pManifestA.size();
+		int sizeB = pManifestB.size();
+		long matches = 0;
+
+		int a = 0;
+		int b = 0;
+		while(a<sizeA&&b<sizeB) {
+			pManifestB.getDigest(b, digestB);
+			int keyB = pManifestB.key(b);
+			int compare = pManifestA.compare(a, digestB, keyB);
+			if(compare<0) {
+				// A is behind, skip to B's checksum
+				a = gallop(pManifestA, a, sizeA, digestB, keyB, false);
+				continue;
+			}
+			pManifestA.getDigest(a, digestA);
+			int keyA = pManifestA.key(a);
+			if(compare>0) {
+				b = gallop(pManifestB, b, sizeB, digestA, keyA, false);
+				continue;
+			}
+			// the same checksum, find the end of each run
+			int endA = gallop(pManifestA, a, sizeA, digestA, keyA, true);
+			int endB = gallop(pManifestB, b, sizeB, digestB, keyB, true);
+			matches += match(pManifestA, a, endA, matchedA, pManifestB, b, endB, matchedB);
+			a = endA;
+			b = endB;
+		}
+
+		return new DiffResult(sizeA, sizeB, sizeA-matches, sizeB-matches,
+				pManifestA.remaining(matchedA), pManifestB.remaining(matchedB));
+	}
+
+	/**
+	 * Find the first entry from pFrom that does not sort before a digest (or, if pAfter,
+	 * that sorts after it), looking 1, 2, 4... entries ahead before searching
+	 */
+	private static int gallop(BinaryManifest pManifest, int pFrom, int pTo, byte[] pDigest, int pKey, boolean pAfter) {
+		int low = pFrom;
+		int step = 1;
+		while(true) {
+			int probe = (int)Math.min((long)low+step, pTo);
+			if(probe==pTo) {
+				break;
+			}
+			int compare = pManifest.compare(probe, pDigest, pKey);
+			if(pAfter ? compare>0 : compare>=0) {
+				return bound(pManifest, low, probe, pDigest, pKey, pAfter);
+			}
+			low = probe;
+			step <<= 1;
+		}
+		return bound(pManifest, low, pTo, pDigest, pKey, pAfter);
+	}
+
+	private static int bound(BinaryManifest pManifest, int pFrom, int pTo, byte[] pDigest, int pKey, boolean pAfter) {
+		return pAfter ? pManifest.upperBound(pFrom, pTo, pDigest, pKey) : pManifest.lowerBound(pFrom, pTo, pDigest, pKey);
+	}
+
+	/**
+	 * Match entries with the same checksum by name, each entry in A with the first
+	 * remaining one in B, as {@link ManifestDiffer#removeDuplicates(CompactManifest, CompactManifest)}
+	 * @return number of matches
+	 */
+	private static int match(BinaryManifest pManifestA, int pStartA, int pEndA, BitSet pMatchedA,
+			BinaryManifest pManifestB, int pStartB, int pEndB, BitSet pMatchedB) {
+		// the common case, one file per checksum
+		if(pEndA-pStartA==1&&pEndB-pStartB==1) {
+			if(pManifestA.samePath(pStartA, pManifestB, pStartB)||sameName(pManifestA.getFile(pStartA), pManifestB.getFile(pStartB))) {
+				pMatchedA.set(pStartA);
+				pMatchedB.set(pStartB);
+				return 1;
+			}
+			return 0;
+		}
+
+		Map<String, ArrayDeque<Integer>> namesB = new HashMap<String, ArrayDeque<Integer>>();
+		for(int entry=pStartB;entry<pEndB;entry++) {
+			String name = ManifestDiffer.nameKey(pManifestB.getFile(entry));
+			ArrayDeque<Integer> indexes = namesB.get(name);
+			if(indexes==null) {
+				indexes = new ArrayDeque<Integer>(1);
+				namesB.put(name, indexes);
+			}
+			indexes.add(entry);
+		}
+		int matches = 0;
+		for(int entry=pStartA;entry<pEndA;entry++) {
+			ArrayDeque<Integer> indexes = namesB.get(ManifestDiffer.nameKey(pManifestA.getFile(entry)));
+			if(indexes!=null&&!indexes.isEmpty()) {
+				pMatchedB.set(indexes.poll());
+				pMatchedA.set(entry);
+				matches++;
+			}
+		}
+		return matches;
+	}
+
+	private static boolean sameName(String pFileA, String pFileB) {
+		String a = ManifestDiffer.nameKey(pFileA);
+		String b = ManifestDiffer.nameKey(pFileB);
+		return a==null ? b==null : a.equals(b);
+	}
+
+}
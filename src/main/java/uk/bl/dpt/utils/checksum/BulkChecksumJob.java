@@ -0,0 +1,529 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+/**
+ * Checksum a directory tree into a manifest file (OS CRC, or "ThreadingSpider" XML if the
+ * name ends in ".xml"), in a way that can be stopped and resumed.
+ *
+ * Alongside the manifest the job keeps a checkpoint log (the manifest name plus
+ * ".checkpoint"), which is only ever appended to.  Each finished file adds an "F" line
+ * with its path.  Every so many entries, or so many milliseconds, the manifest is flushed
+ * and synced, then a "C" line records the manifest length and entry count, and the log is
+ * synced: a batch of files is only complete once its "C" line is on disk.  When the run
+ * finishes an "E" line is added, with the same fields as a "C" line.  A file that was read
+ * but whose entry the manifest cannot hold (e.g. a control character in its name, for an
+ * XML manifest) is logged and left out, and adds an "E" line with just its path instead of
+ * an "F" line, so that it is not tried again.
+ *
+ * A run with an existing log resumes: the manifest and the log are cut back to the last
+ * "C" line, which removes any entries written after it (including a half written one),
+ * and the files listed before it are skipped, without being read.  Every other file is
+ * checksummed again, so the manifest never has a duplicate or truncated entry.  A run
+ * whose log has an "E" line does nothing; delete the log to start again.  Files that
+ * fail are logged and left out, and are tried again by a resumed run.
+ *
+ * Paths in the manifest are relative to the directory.  On resume the completed files are
+ * held in memory as a 64 bit hash of each path and the offset of its "F" line, 20 to 40
+ * bytes a file, and a file whose hash matches is only skipped once its path has been
+ * checked against the log.  Manifests cannot be gzipped, as a compressed stream cannot
+ * be cut back to a checkpoint.
+ */
+public class BulkChecksumJob {
+
+	private static Logger gLogger = LoggerFactory.getLogger(BulkChecksumJob.class);
+
+	/**
+	 * Default number of entries between checkpoints
+	 */
+	public final static long DEFAULT_CHECKPOINT_ENTRIES = 10000;
+
+	/**
+	 * Default time between checkpoints
+	 */
+	public final static long DEFAULT_CHECKPOINT_MILLIS = 60*1000;
+
+	/**
+	 * Checkpoint log name suffix
+	 */
+	public final static String CHECKPOINT_SUFFIX = ".checkpoint";
+
+	private final static Charset UTF8 = Charset.forName("UTF-8");
+	private final static HashFunction gHash = Hashing.murmur3_128();
+
+	private final File gDirectory;
+	private final File gManifest;
+	private final File gLog;
+	private final ChecksumSpec gSpec;
+	private final int gSmallThreads;
+	private final int gLargeThreads;
+	private final int gQueueDepth;
+	private long gCheckpointEntries = DEFAULT_CHECKPOINT_ENTRIES;
+	private long gCheckpointMillis = DEFAULT_CHECKPOINT_MILLIS;
+
+	private long gWritten = 0;
+	private long gSkipped = 0;
+	private long gFailed = 0;
+
+	/**
+	 * Create a job with one small file thread per core, a quarter as many large file
+	 * threads, and a queue depth of twice the number of threads
+	 * @param pDirectory directory to checksum
+	 * @param pManifest manifest file to write
+	 * @param pSpec checksums to calculate, which must include cksum for an OS CRC manifest
+	 */
+	public BulkChecksumJob(File pDirectory, File pManifest, ChecksumSpec pSpec) {
+		this(pDirectory, pManifest, pSpec, Runtime.getRuntime().availableProcessors(),
+				Math.max(1, Runtime.getRuntime().availableProcessors()/4),
+				2*Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Create a job
+	 * @param pDirectory directory to checksum
+	 * @param pManifest manifest file to write
+	 * @param pSpec checksums to calculate, which must include cksum for an OS CRC manifest
+	 * @param pSmallThreads number of threads for small files
+	 * @param pLargeThreads number of threads for large files
+	 * @param pQueueDepth number of files that can wait for a thread, in each pool
+	 */
+	public BulkChecksumJob(File pDirectory, File pManifest, ChecksumSpec pSpec, int pSmallThreads, int pLargeThreads, int pQueueDepth) {
+		if(ManifestWriter.isGzip(pManifest)) throw new IllegalArgumentException("Resumable manifests cannot be gzipped: "+pManifest);
+		if(!ChecksumDiff.isXML(pManifest)&&!pSpec.getAlgorithms().contains("cksum")) {
+			throw new IllegalArgumentException("OS CRC manifests need a cksum checksum");
+		}
+		gDirectory = pDirectory;
+		gManifest = pManifest;
+		gLog = new File(pManifest.getPath()+CHECKPOINT_SUFFIX);
+		gSpec = pSpec;
+		gSmallThreads = pSmallThreads;
+		gLargeThreads = pLargeThreads;
+		gQueueDepth = pQueueDepth;
+	}
+
+	/**
+	 * Set how often to checkpoint, whichever comes first
+	 * @param pEntries number of entries between checkpoints
+	 * @param pMillis time between checkpoints
+	 */
+	public void setCheckpointInterval(long pEntries, long pMillis) {
+		if(pEntries<1||pMillis<0) throw new IllegalArgumentException("Invalid checkpoint interval: "+pEntries+", "+pMillis);
+		gCheckpointEntries = pEntries;
+		gCheckpointMillis = pMillis;
+	}
+
+	/**
+	 * @return the checkpoint log file
+	 */
+	public File getCheckpointFile() {
+		return gLog;
+	}
+
+	/**
+	 * @return number of entries written by the last run
+	 */
+	public long getWritten() {
+		return gWritten;
+	}
+
+	/**
+	 * @return number of files skipped by the last run, as they were checkpointed by an earlier one
+	 */
+	public long getSkipped() {
+		return gSkipped;
+	}
+
+	/**
+	 * @return number of files that could not be checksummed in the last run
+	 */
+	public long getFailed() {
+		return gFailed;
+	}
+
+	/**
+	 * The state recorded in a checkpoint log
+	 */
+	private static class Checkpoint {
+		final CompletedPaths completed = new CompletedPaths();
+		long logLength = 0;
+		long manifestLength = -1;
+		long entries = 0;
+		boolean finished = false;
+	}
+
+	/**
+	 * The completed files in a checkpoint log: an open addressing table of the hashes of
+	 * their escaped paths, each with the offset of its "F" line in the log
+	 */
+	private static class CompletedPaths {
+		private long[] gHashes = new long[16];
+		/* offset of the "F" line plus one, 0 for an empty slot */
+		private long[] gOffsets = new long[16];
+		private int gSize = 0;
+
+		void add(long pHash, long pOffset) {
+			if((gSize+1)*4L>gHashes.length*3L) {
+				long[] hashes = gHashes;
+				long[] offsets = gOffsets;
+				gHashes = new long[hashes.length*2];
+				gOffsets = new long[hashes.length*2];
+				for(int i=0;i<hashes.length;i++) {
+					if(offsets[i]!=0) {
+						insert(hashes[i], offsets[i]);
+					}
+				}
+			}
+			insert(pHash, pOffset+1);
+			gSize++;
+		}
+
+		private void insert(long pHash, long pOffset) {
+			int mask = gHashes.length-1;
+			int slot = (int)pHash&mask;
+			while(gOffsets[slot]!=0) {
+				slot = (slot+1)&mask;
+			}
+			gHashes[slot] = pHash;
+			gOffsets[slot] = pOffset;
+		}
+
+		/**
+		 * @param pPath relative path
+		 * @param pLog checkpoint log, to check matching hashes against
+		 * @return true if the path is in the log
+		 */
+		boolean contains(String pPath, FileChannel pLog) throws IOException {
+			if(gSize==0) {
+				return false;
+			}
+			byte[] path = escape(pPath).getBytes(UTF8);
+			long hash = hash(path, 0, path.length);
+			int mask = gHashes.length-1;
+			for(int slot=(int)hash&mask;gOffsets[slot]!=0;slot=(slot+1)&mask) {
+				if(gHashes[slot]==hash&&isLine(pLog, gOffsets[slot]-1, path)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * @return true if the log has the "F" (or "E") line for a path at an offset
+		 */
+		private static boolean isLine(FileChannel pLog, long pOffset, byte[] pPath) throws IOException {
+			ByteBuffer line = ByteBuffer.allocate(pPath.length+3);
+			while(line.hasRemaining()) {
+				if(pLog.read(line, pOffset+line.position())<0) {
+					return false;
+				}
+			}
+			byte[] bytes = line.array();
+			if((bytes[0]!='F'&&bytes[0]!='E')||bytes[1]!='\t'||bytes[bytes.length-1]!='\n') {
+				return false;
+			}
+			for(int i=0;i<pPath.length;i++) {
+				if(bytes[i+2]!=pPath[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	private static long hash(byte[] pBytes, int pOffset, int pLength) {
+		return gHash.hashBytes(pBytes, pOffset, pLength).asLong();
+	}
+
+	/**
+	 * Run the job, resuming from the checkpoint log if there is one
+	 * @return number of entries in the manifest
+	 * @throws IOException if the manifest or log could not be written, or the log is
+	 * inconsistent with the manifest
+	 */
+	public long run() throws IOException {
+		gWritten = 0;
+		gSkipped = 0;
+		gFailed = 0;
+		final Checkpoint checkpoint = gLog.exists() ? readLog(gLog) : new Checkpoint();
+		if(checkpoint.finished) {
+			gLogger.info("Already finished: "+gManifest);
+			return checkpoint.entries;
+		}
+
+		boolean resume = checkpoint.manifestLength>=0;
+		if(resume) {
+			if(gManifest.length()<checkpoint.manifestLength) {
+				throw new IOException("Manifest is shorter than its checkpoint, "+checkpoint.manifestLength+" bytes: "+gManifest);
+			}
+			truncate(gManifest, checkpoint.manifestLength);
+			gLogger.info("Resuming "+gManifest+" from "+checkpoint.entries+" entries");
+		}
+		truncate(gLog, checkpoint.logLength);
+
+		final ManifestWriter writer = ChecksumDiff.isXML(gManifest) ? ThreadingSpiderWriter.open(gManifest, resume) : CrcManifestWriter.open(gManifest, resume);
+		RandomAccessFile manifestFile = null;
+		FileOutputStream logStream = null;
+		FileInputStream logInput = null;
+		try {
+			manifestFile = new RandomAccessFile(gManifest, "rw");
+			logStream = new FileOutputStream(gLog, true);
+			logInput = new FileInputStream(gLog);
+			final FileChannel manifestChannel = manifestFile.getChannel();
+			final FileChannel logChannel = logStream.getChannel();
+			final FileChannel logReader = logInput.getChannel();
+			final Writer log = new BufferedWriter(new OutputStreamWriter(logStream, UTF8), 64*1024);
+			final long[] entries = { checkpoint.entries };
+			final String root = ManifestPaths.root(gDirectory);
+			final File manifest = gManifest.getAbsoluteFile();
+			final File logFile = gLog.getAbsoluteFile();
+
+			DirectoryChecksummer checksummer = new DirectoryChecksummer(gSpec, gSmallThreads, gLargeThreads,
+					DirectoryChecksummer.DEFAULT_LARGE_FILE_THRESHOLD, gQueueDepth) {
+				@Override
+				protected boolean accept(File pFile) {
+					File file = pFile.getAbsoluteFile();
+					if(file.equals(manifest)||file.equals(logFile)) {
+						return false;
+					}
+					boolean completed;
+					try {
+						completed = checkpoint.completed.contains(ManifestPaths.relativePath(pFile, root), logReader);
+					} catch(IOException e) {
+						gLogger.warn("Could not check the checkpoint log, checksumming again: "+pFile, e);
+						completed = false;
+					}
+					if(completed) {
+						gSkipped++;
+						return false;
+					}
+					return true;
+				}
+			};
+			checksummer.checksum(gDirectory, new ChecksumSink() {
+
+				private long gSince = 0;
+				private long gLast = System.currentTimeMillis();
+
+				@Override
+				public void checksummed(File pFile, Map<String, String> pChecksums) throws IOException {
+					String path = ManifestPaths.relativePath(pFile, root);
+					try {
+						writer.write(path, pChecksums);
+					} catch(IOException e) {
+						// left out for good, rather than failing every resume
+						gLogger.warn("Not in manifest, entry could not be written: "+pFile, e);
+						gFailed++;
+						log.write("E\t");
+						log.write(escape(path));
+						log.write('\n');
+						return;
+					}
+					log.write("F\t");
+					log.write(escape(path));
+					log.write('\n');
+					entries[0]++;
+					gWritten++;
+					gSince++;
+					if(gSince>=gCheckpointEntries||System.currentTimeMillis()-gLast>=gCheckpointMillis) {
+						checkpoint(writer, manifestChannel, log, logChannel, "C", entries[0]);
+						gSince = 0;
+						gLast = System.currentTimeMillis();
+					}
+				}
+
+				@Override
+				public void failed(File pFile, IOException pError) {
+					gFailed++;
+					writer.failed(pFile, pError);
+				}
+
+			});
+
+			checkpoint(writer, manifestChannel, log, logChannel, "C", entries[0]);
+			// the XML closing element is written after the last checkpoint, so a resume removes it
+			writer.close();
+			checkpoint(null, manifestChannel, log, logChannel, "E", entries[0]);
+			log.close();
+			return entries[0];
+		} finally {
+			// anything after the last checkpoint is cut off by a resume
+			writer.close();
+			if(manifestFile!=null) {
+				manifestFile.close();
+			}
+			if(logStream!=null) {
+				logStream.close();
+			}
+			if(logInput!=null) {
+				logInput.close();
+			}
+		}
+	}
+
+	/**
+	 * Make the manifest durable, then record its length in the log and make that durable
+	 * @param pWriter manifest writer to flush (null if closed)
+	 */
+	private static void checkpoint(ManifestWriter pWriter, FileChannel pManifest, Writer pLog, FileChannel pLogChannel, String pType, long pEntries) throws IOException {
+		if(pWriter!=null) {
+			pWriter.flush();
+		}
+		pManifest.force(false);
+		pLog.write(pType+"\t"+pManifest.size()+"\t"+pEntries+"\n");
+		pLog.flush();
+		pLogChannel.force(false);
+	}
+
+	private static void truncate(File pFile, long pLength) throws IOException {
+		if(!pFile.exists()) {
+			return;
+		}
+		RandomAccessFile file = new RandomAccessFile(pFile, "rw");
+		try {
+			file.setLength(pLength);
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Read a checkpoint log, up to its last complete "C" or "E" line.  Reading stops at a
+	 * line that cannot be parsed, as only the end of the log can be torn by a crash.
+	 */
+	private static Checkpoint readLog(File pLog) throws IOException {
+		Checkpoint checkpoint = new Checkpoint();
+		// hashes and offsets of the "F" and path "E" lines since the last checkpoint
+		long[] pending = new long[64];
+		int pendingCount = 0;
+		InputStream input = new FileInputStream(pLog);
+		try {
+			byte[] buffer = new byte[64*1024];
+			byte[] line = new byte[256];
+			int lineLength = 0;
+			long position = 0;
+			read:
+			for(int read=input.read(buffer);read>=0;read=input.read(buffer)) {
+				for(int i=0;i<read;i++) {
+					if(buffer[i]!='\n') {
+						if(lineLength==line.length) {
+							line = Arrays.copyOf(line, line.length*2);
+						}
+						line[lineLength++] = buffer[i];
+						continue;
+					}
+					long start = position+i-lineLength;
+					int tab = indexOf(line, 2, lineLength, (byte)'\t');
+					if(lineLength>=2&&(line[0]=='F'||line[0]=='E')&&line[1]=='\t'&&tab<0) {
+						// a completed file, or one left out of the manifest
+						if(pendingCount==pending.length) {
+							pending = Arrays.copyOf(pending, pending.length*2);
+						}
+						pending[pendingCount++] = hash(line, 2, lineLength-2);
+						pending[pendingCount++] = start;
+					} else if(lineLength>=2&&(line[0]=='C'||line[0]=='E')&&line[1]=='\t'&&tab>=0&&indexOf(line, tab+1, lineLength, (byte)'\t')<0) {
+						for(int j=0;j<pendingCount;j+=2) {
+							checkpoint.completed.add(pending[j], pending[j+1]);
+						}
+						pendingCount = 0;
+						checkpoint.manifestLength = parseLong(line, 2, tab, pLog);
+						checkpoint.entries = parseLong(line, tab+1, lineLength, pLog);
+						checkpoint.logLength = position+i+1;
+						checkpoint.finished = line[0]=='E';
+					} else {
+						gLogger.warn("Ignoring the checkpoint log after offset "+checkpoint.logLength+": "+pLog);
+						break read;
+					}
+					lineLength = 0;
+				}
+				position += read;
+			}
+		} finally {
+			input.close();
+		}
+		return checkpoint;
+	}
+
+	private static int indexOf(byte[] pBytes, int pFrom, int pTo, byte pByte) {
+		for(int i=pFrom;i<pTo;i++) {
+			if(pBytes[i]==pByte) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static long parseLong(byte[] pBytes, int pFrom, int pTo, File pLog) throws IOException {
+		if(pFrom>=pTo||pTo-pFrom>18) throw new IOException("Corrupt checkpoint log: "+pLog);
+		long value = 0;
+		for(int i=pFrom;i<pTo;i++) {
+			if(pBytes[i]<'0'||pBytes[i]>'9') throw new IOException("Corrupt checkpoint log: "+pLog);
+			value = value*10+pBytes[i]-'0';
+		}
+		return value;
+	}
+
+	/**
+	 * Escape a path for the log, so it is one line with no tabs
+	 */
+	static String escape(String pPath) {
+		StringBuilder escaped = null;
+		for(int i=0;i<pPath.length();i++) {
+			char c = pPath.charAt(i);
+			String replacement;
+			switch(c) {
+			case '\\': replacement = "\\\\"; break;
+			case '\n': replacement = "\\n"; break;
+			case '\r': replacement = "\\r"; break;
+			case '\t': replacement = "\\t"; break;
+			default: replacement = null;
+			}
+			if(replacement!=null&&escaped==null) {
+				escaped = new StringBuilder(pPath.length()+8).append(pPath, 0, i);
+			}
+			if(escaped!=null) {
+				if(replacement!=null) {
+					escaped.append(replacement);
+				} else {
+					escaped.append(c);
+				}
+			}
+		}
+		return escaped==null ? pPath : escaped.toString();
+	}
+
+}
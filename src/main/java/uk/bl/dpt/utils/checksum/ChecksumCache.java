@@ -0,0 +1,378 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persistent cache of file checksums, so unchanged files do not have to be read again.
+ *
+ * Each entry is keyed by absolute path and stores the size, modification time and
+ * (where the filesystem has one) the file key/inode seen when the file was checksummed.
+ * A lookup only returns the stored checksums if all three still match and every
+ * requested algorithm is present; checking that costs one stat and no data I/O.
+ *
+ * Modification times are only as fine as the filesystem keeps them (2 seconds on FAT), so
+ * a file rewritten with the same size within that time of being read could keep its old
+ * time.  As git does for its index, a file whose modification time is that close to (or
+ * after) the start of the read is checksummed but not cached; it is cached once it is older.
+ *
+ * The cache is an append-only log on disk, replayed into memory when it is opened.  When
+ * the log holds a lot of superseded records, or there are more entries than the limit,
+ * it is compacted: the least recently used entries are dropped and the live entries are
+ * written to a new log which replaces the old one.
+ *
+ * All methods are safe to call from several checksum workers at once.
+ */
+public class ChecksumCache implements Closeable {
+
+	private static Logger gLogger = LoggerFactory.getLogger(ChecksumCache.class);
+
+	/**
+	 * Default maximum number of entries
+	 */
+	public final static int DEFAULT_MAX_ENTRIES = 1000000;
+
+	private final static String MAGIC = "dptutils-checksum-cache-1";
+
+	/**
+	 * Compact once the log holds this many times more records than there are entries
+	 */
+	private final static int COMPACT_RATIO = 2;
+	private final static int COMPACT_MINIMUM = 10000;
+
+	/**
+	 * Coarsest modification time granularity allowed for (FAT), in microseconds
+	 */
+	private final static long RACY_MICROS = TimeUnit.SECONDS.toMicros(2);
+
+	/**
+	 * A cached file
+	 */
+	private static class Entry {
+		final long size;
+		final long mtime;
+		final String fileKey;
+		final Map<String, String> checksums;
+		volatile long lastUsed;
+		Entry(long pSize, long pMtime, String pFileKey, Map<String, String> pChecksums, long pLastUsed) {
+			size = pSize;
+			mtime = pMtime;
+			fileKey = pFileKey;
+			checksums = pChecksums;
+			lastUsed = pLastUsed;
+		}
+		boolean matches(BasicFileAttributes pAttributes) {
+			return size==pAttributes.size() && mtime==mtime(pAttributes) && fileKey.equals(fileKey(pAttributes));
+		}
+	}
+
+	private final File gFile;
+	private final int gMaxEntries;
+	private final ConcurrentMap<String, Entry> gEntries = new ConcurrentHashMap<String, Entry>();
+	/* logical clock for least recently used eviction */
+	private final AtomicLong gClock = new AtomicLong();
+	private final FileDigestEngine gEngine = new FileDigestEngine();
+
+	/* guarded by this */
+	private DataOutputStream gLog;
+	private long gLogRecords = 0;
+
+	/**
+	 * Open (or create) a cache with the default maximum number of entries
+	 * @param pFile cache file
+	 * @throws IOException if the cache file cannot be read or written
+	 */
+	public ChecksumCache(File pFile) throws IOException {
+		this(pFile, DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * Open (or create) a cache
+	 * @param pFile cache file
+	 * @param pMaxEntries maximum number of entries kept when the cache is compacted
+	 * @throws IOException if the cache file cannot be read or written
+	 */
+	public ChecksumCache(File pFile, int pMaxEntries) throws IOException {
+		if(pMaxEntries<1) throw new IllegalArgumentException("Maximum entries must be positive: "+pMaxEntries);
+		gFile = pFile;
+		gMaxEntries = pMaxEntries;
+		boolean clean = load();
+		synchronized(this) {
+			if(clean&&gFile.exists()) {
+				gLog = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(gFile, true)));
+			} else {
+				// new cache, or the end of the log was damaged (e.g. by a crash) so it can't be appended to
+				rewrite();
+			}
+		}
+	}
+
+	/**
+	 * Get the checksums of a file, from the cache if the file has not changed, otherwise by
+	 * reading the file (and then storing the result in the cache)
+	 * @param pFile file to checksum
+	 * @param pSpec checksums required
+	 * @param pForceVerify if true the cache is not consulted and the file is always read
+	 * @return algorithm name to checksum, in ChecksumUtil form
+	 * @throws IOException if the file cannot be read
+	 */
+	public Map<String, String> checksum(File pFile, ChecksumSpec pSpec, boolean pForceVerify) throws IOException {
+		BasicFileAttributes before = Files.readAttributes(pFile.toPath(), BasicFileAttributes.class);
+		if(!pForceVerify) {
+			Map<String, String> cached = get(pFile, before, pSpec);
+			if(cached!=null) {
+				return cached;
+			}
+		}
+
+		long start = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+		Digester[] digesters = pSpec.newDigesters();
+		gEngine.digest(pFile, digesters);
+		Map<String, String> checksums = new LinkedHashMap<String, String>();
+		for(Digester digester:digesters) {
+			checksums.put(digester.getAlgorithm(), digester.digestString());
+		}
+
+		// only cache the result if the file did not change while it was being read, and its
+		// mtime is old enough that a later change in the same tick would have altered it
+		BasicFileAttributes after = Files.readAttributes(pFile.toPath(), BasicFileAttributes.class);
+		if(before.size()==after.size()&&mtime(before)==mtime(after)&&mtime(before)<start-RACY_MICROS) {
+			put(pFile, before, checksums);
+		}
+		return checksums;
+	}
+
+	/**
+	 * Look up the checksums of a file without reading it
+	 * @param pFile file to look up
+	 * @param pSpec checksums required
+	 * @return cached checksums (only those in pSpec), or null if the file has changed or is not cached
+	 * @throws IOException if the file's attributes cannot be read
+	 */
+	public Map<String, String> get(File pFile, ChecksumSpec pSpec) throws IOException {
+		return get(pFile, Files.readAttributes(pFile.toPath(), BasicFileAttributes.class), pSpec);
+	}
+
+	private Map<String, String> get(File pFile, BasicFileAttributes pAttributes, ChecksumSpec pSpec) {
+		Entry entry = gEntries.get(key(pFile));
+		if(entry==null||!entry.matches(pAttributes)) {
+			return null;
+		}
+		Map<String, String> checksums = new LinkedHashMap<String, String>();
+		for(String algorithm:pSpec.getAlgorithms()) {
+			String value = entry.checksums.get(algorithm);
+			if(value==null) {
+				return null;
+			}
+			checksums.put(algorithm, value);
+		}
+		entry.lastUsed = gClock.incrementAndGet();
+		return checksums;
+	}
+
+	/**
+	 * Store the checksums of a file.  Any algorithms already cached for the same
+	 * version of the file are kept.
+	 * @param pFile file that was checksummed
+	 * @param pAttributes attributes of the file, read before it was checksummed
+	 * @param pChecksums algorithm name to checksum
+	 * @throws IOException if the cache file cannot be written
+	 */
+	public void put(File pFile, BasicFileAttributes pAttributes, Map<String, String> pChecksums) throws IOException {
+		String key = key(pFile);
+		Map<String, String> checksums = new LinkedHashMap<String, String>();
+		synchronized(this) {
+			if(gLog==null) throw new IOException("Cache is closed: "+gFile);
+			Entry old = gEntries.get(key);
+			if(old!=null&&old.matches(pAttributes)) {
+				checksums.putAll(old.checksums);
+			}
+			checksums.putAll(pChecksums);
+			Entry entry = new Entry(pAttributes.size(), mtime(pAttributes), fileKey(pAttributes),
+					Collections.unmodifiableMap(checksums), gClock.incrementAndGet());
+			gEntries.put(key, entry);
+			write(gLog, key, entry);
+			gLogRecords++;
+			if(gEntries.size()>gMaxEntries||gLogRecords>Math.max(COMPACT_MINIMUM, COMPACT_RATIO*gEntries.size())) {
+				compact();
+			}
+		}
+	}
+
+	/**
+	 * Get the number of cached files
+	 * @return number of entries
+	 */
+	public int size() {
+		return gEntries.size();
+	}
+
+	/**
+	 * Drop the least recently used entries if there are more than the limit, and rewrite the
+	 * cache file with only the live entries
+	 * @throws IOException if the cache file cannot be written
+	 */
+	public synchronized void compact() throws IOException {
+		if(gLog==null) throw new IOException("Cache is closed: "+gFile);
+		if(gEntries.size()>gMaxEntries) {
+			List<Map.Entry<String, Entry>> entries = new ArrayList<Map.Entry<String, Entry>>(gEntries.entrySet());
+			Collections.sort(entries, new Comparator<Map.Entry<String, Entry>>() {
+				@Override
+				public int compare(Map.Entry<String, Entry> pA, Map.Entry<String, Entry> pB) {
+					return Long.compare(pA.getValue().lastUsed, pB.getValue().lastUsed);
+				}
+			});
+			// evict a tenth more than needed so that every new file doesn't cause a rewrite
+			int keep = Math.max(1, gMaxEntries-gMaxEntries/10);
+			for(int i=0;i<entries.size()-keep;i++) {
+				gEntries.remove(entries.get(i).getKey());
+			}
+		}
+		gLog.close();
+		rewrite();
+	}
+
+	/**
+	 * Write all the entries to a new log and replace the cache file with it
+	 */
+	private void rewrite() throws IOException {
+		File temp = new File(gFile.getAbsoluteFile().getParentFile(), gFile.getName()+".tmp");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+		try {
+			out.writeUTF(MAGIC);
+			for(Map.Entry<String, Entry> entry:gEntries.entrySet()) {
+				write(out, entry.getKey(), entry.getValue());
+			}
+		} finally {
+			out.close();
+		}
+		Files.move(temp.toPath(), gFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		gLogRecords = gEntries.size();
+		gLog = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(gFile, true)));
+	}
+
+	/**
+	 * Write buffered entries to the cache file
+	 * @throws IOException if the cache file cannot be written
+	 */
+	public synchronized void flush() throws IOException {
+		if(gLog!=null) {
+			gLog.flush();
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if(gLog!=null) {
+			gLog.close();
+			gLog = null;
+		}
+	}
+
+	/**
+	 * Replay the log into memory
+	 * @return false if the log was damaged and needs rewriting
+	 */
+	private boolean load() throws IOException {
+		if(!gFile.exists()) {
+			return true;
+		}
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(gFile)));
+		try {
+			if(!MAGIC.equals(in.readUTF())) {
+				gLogger.warn("Not a checksum cache, it will be replaced: "+gFile);
+				return false;
+			}
+			while(true) {
+				// only the end of the file between records is a clean end of the log
+				in.mark(1);
+				if(in.read()<0) {
+					return true;
+				}
+				in.reset();
+				String key = in.readUTF();
+				long size = in.readLong();
+				long mtime = in.readLong();
+				String fileKey = in.readUTF();
+				int count = in.readInt();
+				Map<String, String> checksums = new LinkedHashMap<String, String>();
+				for(int i=0;i<count;i++) {
+					checksums.put(in.readUTF(), in.readUTF());
+				}
+				gEntries.put(key, new Entry(size, mtime, fileKey, Collections.unmodifiableMap(checksums), gClock.incrementAndGet()));
+				gLogRecords++;
+			}
+		} catch(IOException e) {
+			gLogger.warn("Checksum cache is damaged, keeping "+gEntries.size()+" entries: "+gFile);
+			return false;
+		} finally {
+			in.close();
+		}
+	}
+
+	private static void write(DataOutputStream pOut, String pKey, Entry pEntry) throws IOException {
+		pOut.writeUTF(pKey);
+		pOut.writeLong(pEntry.size);
+		pOut.writeLong(pEntry.mtime);
+		pOut.writeUTF(pEntry.fileKey);
+		pOut.writeInt(pEntry.checksums.size());
+		for(Map.Entry<String, String> checksum:pEntry.checksums.entrySet()) {
+			pOut.writeUTF(checksum.getKey());
+			pOut.writeUTF(checksum.getValue());
+		}
+	}
+
+	private static String key(File pFile) {
+		return pFile.getAbsolutePath();
+	}
+
+	private static long mtime(BasicFileAttributes pAttributes) {
+		// as fine grained as the filesystem allows
+		return pAttributes.lastModifiedTime().to(TimeUnit.MICROSECONDS);
+	}
+
+	private static String fileKey(BasicFileAttributes pAttributes) {
+		Object fileKey = pAttributes.fileKey();
+		return fileKey==null ? "" : fileKey.toString();
+	}
+
+}
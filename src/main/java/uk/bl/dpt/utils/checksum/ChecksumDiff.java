@@ -17,96 +17,55 @@
 
 package uk.bl.dpt.utils.checksum;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.Map;
-import java.util.TreeMap;
-
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
-import org.xml.sax.XMLReader;
-
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 
 /**
- * Calculate differences between two file manifests
+ * Calculate differences between two file manifests, printing progress and counts to stdout
+ * and writing a report (see {@link DiffReports}).
+ * See {@link ManifestDiffer} for the results as objects.
  * Created by wpalmer on 28/05/2014.
  */
 public class ChecksumDiff {
 
-	private static Map<String, ArrayList<String>> checksumSetA;
-	private static Map<String, ArrayList<String>> checksumSetB;
-	private static PrintWriter printWriter;
-
 	private ChecksumDiff() { }
 
 	/**
-	 * Print String to stdout and to a report file
+	 * Print String to stdout and to a report
+	 * @param pReport report (may be null)
 	 * @param s String to print
+	 * @throws IOException if the report could not be written
 	 */
-	private static void out(String s) {
+	private static void out(DiffReportSink pReport, String s) throws IOException {
 		System.out.println(s);
-		if(printWriter!=null) {
-			printWriter.println(s);
+		if(pReport!=null) {
+			pReport.message(s);
 		}
 	}
 
 	/**
-	 * Load checksums from an OS CRC file
+	 * Read checksums from an OS CRC file (see {@link CrcManifestReader})
 	 * @param pFile OS CRC file
-	 * @param pChecksumSet Map in which to load CRC values
-	 * @return true if loaded ok, false if not
+	 * @param pHandler handler for each entry
+	 * @throws IOException if the file could not be read
 	 */
-	private static boolean loadOSChecksums(File pFile, Map<String, ArrayList<String>> pChecksumSet) {
-
-		try {
-			BufferedReader buf = new BufferedReader(new FileReader(pFile));
-			while(buf.ready()) {
-				String[] line = buf.readLine().split(",");
-				//pChecksumSet.put(line[1], line[0]);
-				addChecksum(line[1], line[0], pChecksumSet);
-			}
-			buf.close();
-			return true;
-		} catch(IOException e) {
-			e.printStackTrace();
-		}
-		return false;
-
+	private static void readOSChecksums(File pFile, ManifestEntryHandler pHandler) throws IOException {
+		CrcManifestReader.read(pFile, pHandler);
 	}
 
 	/**
-	 * Load checksums from a "ThreadingSpider" XML file
+	 * Read checksums from a "ThreadingSpider" XML file (see {@link ThreadingSpiderReader})
 	 * @param pFile "ThreadingSpider" XML file
-	 * @param pChecksumSet Map in which to load checksum values (note hardcoded checksum type in method)
-	 * @return true if loaded ok, false if not
+	 * @param pHandler handler for each entry (note hardcoded checksum type in method)
+	 * @throws IOException if the file could not be read or parsed
 	 */
-	private static boolean loadXMLChecksums(File pFile, Map<String, ArrayList<String>> pChecksumSet) {
-		try {
-			SAXParserFactory spf = SAXParserFactory.newInstance();
-			SAXParser saxParser = spf.newSAXParser();
-			XMLReader xmlReader = saxParser.getXMLReader();
-			final String CHECKSUM_TYPE = "cksum";
-			xmlReader.setContentHandler(new ChecksumSaxLoader(pChecksumSet, CHECKSUM_TYPE));
-			xmlReader.parse(new InputSource(new FileInputStream(pFile)));
-			return true;
-		} catch(IOException e) {
-			e.printStackTrace();
-		} catch (ParserConfigurationException e) {
-			e.printStackTrace();
-		} catch (SAXException e) {
-			e.printStackTrace();
-		}
-		return false;
+	private static void readXMLChecksums(File pFile, ManifestEntryHandler pHandler) throws IOException {
+		final String CHECKSUM_TYPE = "cksum";
+		ThreadingSpiderReader.read(pFile, CHECKSUM_TYPE, pHandler);
 	}
 
 	/**
@@ -131,106 +90,86 @@ public class ChecksumDiff {
 	}
 
 	/**
-	 * Entry point for loading checksums from files of different formats
-	 * @param pFile file to load data from
-	 * @param pChecksumSet Map in which to load checksum values
-	 * @return true if loaded ok, false if not
+	 * Is a file a "ThreadingSpider" XML file, rather than an OS CRC file
+	 * @param pFile file to check
+	 * @return true if the file is XML
 	 */
-	private static boolean loadChecksums(File pFile, Map<String, ArrayList<String>> pChecksumSet) {
-		if(pFile.getName().toLowerCase().endsWith(".xml")) {
-			return loadXMLChecksums(pFile, pChecksumSet);
+	static boolean isXML(File pFile) {
+		return pFile.getName().toLowerCase().endsWith(".xml");
+	}
+
+	/**
+	 * Entry point for reading checksums from files of different formats
+	 * @param pFile file to read data from
+	 * @param pHandler handler for each entry
+	 * @throws IOException if the file could not be read
+	 */
+	static void readChecksums(File pFile, ManifestEntryHandler pHandler) throws IOException {
+		if(isXML(pFile)) {
+			readXMLChecksums(pFile, pHandler);
 		} else {
-			return loadOSChecksums(pFile, pChecksumSet);
+			readOSChecksums(pFile, pHandler);
 		}
-
 	}
 
 	/**
-	 * Remove the duplicate values (checksum & filename pairs) from two Maps
-	 * @param pChecksumSetA Master set
-	 * @param pChecksumSetB Secondary set
+	 * Load checksums from a file of any supported format into a compact manifest
+	 * @param pFile file to load data from
+	 * @return manifest
+	 * @throws IOException if the file could not be read
 	 */
-	private static void removeDuplicates(Map<String, ArrayList<String>> pChecksumSetA, Map<String, ArrayList<String>> pChecksumSetB) {
-		Iterator<String> it = pChecksumSetA.keySet().iterator();
-		while(it.hasNext()) {
-			String key = (String)it.next();
-			if(pChecksumSetB.containsKey(key)) {
-				// At this point we know we have a matching checksum
-				// Therefore - check to see if we have any matching filenames, with the same checksum
-				Iterator<String> valuesA = pChecksumSetA.get(key).iterator();
-				while(valuesA.hasNext()) {
-					String a = valuesA.next();
-					Iterator<String> valuesB = pChecksumSetB.get(key).iterator();
-					while(valuesB.hasNext()) {
-						String b = valuesB.next();
-						if(a==null||b==null) {
-							if(a==null&&b==null) {
-								// we have a match - remove filenames from both lists and continue
-								valuesA.remove();
-								valuesB.remove();		
-							} else {
-								// names don't match - one is null, continue
-							}
-						} else {
-							if(new File(a).getName().equalsIgnoreCase(new File(b).getName())) {
-								// we have a match - remove filenames from both lists and continue
-								valuesA.remove();
-								valuesB.remove();
-							}
-						}
-					}
-				}
-				// If no files are listed against the checksum then remove the checksum from the sets
-				if(pChecksumSetA.get(key).size()==0) {
-					it.remove();
-				}
-				if(pChecksumSetB.get(key).size()==0) {
-					pChecksumSetB.remove(key);
-				}
+	public static CompactManifest loadCompact(File pFile) throws IOException {
+		return new ManifestLoader().load(pFile);
+	}
 
+	/**
+	 * Report the unique entries of a diff, and the counts
+	 * @param pReport report (may be null)
+	 * @param pNameA name of the first data set
+	 * @param pNameB name of the second data set
+	 * @param pResult result of the diff
+	 * @throws IOException if the report could not be written
+	 */
+	private static void report(DiffReportSink pReport, String pNameA, String pNameB, DiffResult pResult) throws IOException {
+		if(pReport!=null) {
+			Iterator<DiffResult.Entry> unique = pResult.uniqueToA();
+			while(unique.hasNext()) {
+				DiffResult.Entry entry = unique.next();
+				pReport.uniqueToA(entry.getChecksum(), entry.getFile());
+			}
+			unique = pResult.uniqueToB();
+			while(unique.hasNext()) {
+				DiffResult.Entry entry = unique.next();
+				pReport.uniqueToB(entry.getChecksum(), entry.getFile());
 			}
 		}
+		summary(pReport, pNameA, pNameB, pResult.getEntriesA(), pResult.getEntriesB(), pResult.getUniqueCountA(), pResult.getUniqueCountB());
 	}
 
 	/**
-	 * Print the entries in a dataset
-	 * @param pFile Data file for data set
-	 * @param pChecksumSet Map containing remaining checksums for dataset
+	 * Print the counts to stdout and to a report
+	 * @param pReport report (may be null)
+	 * @throws IOException if the report could not be written
 	 */
-	private static void printEntries(File pFile, Map<String, ArrayList<String>> pChecksumSet) {
-
-		out("Unique files in "+pFile.getName()+": "+pChecksumSet.keySet().size());
-
-		for(String k:pChecksumSet.keySet()) {
-			//System.out.println(k+": "+pChecksumSet.get(k));
-			// just to the report file for these
-			if(printWriter!=null) {
-				printWriter.println(k+": "+pChecksumSet.get(k));
-			}
+	private static void summary(DiffReportSink pReport, String pNameA, String pNameB, long pEntriesA, long pEntriesB, long pUniqueA, long pUniqueB) throws IOException {
+		System.out.println("Unique files in "+pNameA+": "+pUniqueA);
+		System.out.println("Unique files in "+pNameB+": "+pUniqueB);
+		if(pReport!=null) {
+			pReport.summary(pEntriesA, pEntriesB, pUniqueA, pUniqueB);
 		}
-
 	}
 
-	private static void cleanup() {
-		if(printWriter!=null) {
-			printWriter.close();
+	private static DiffReportSink openReport(File pReportFile) throws IOException {
+		if(pReportFile!=null) {
+			return DiffReports.open(pReportFile, DiffReports.TEXT);
 		}
-		checksumSetA = null;
-		checksumSetB = null;
-
+		return null;
 	}
 
-	private static void diff(File pFileA, File pFileB) {
-		out("Removing duplicates (1)");
-		removeDuplicates(checksumSetA, checksumSetB);
-		// Is this step strictly necessary?
-		// -> Unit testing says it's not (yay for unit testing!)
-		//		out("Removing duplicates (2)");
-		//		removeDuplicates(checksumSetB, checksumSetA);
-
-		out("Finished");
-		printEntries(pFileA, checksumSetA);
-		printEntries(pFileB, checksumSetB);
+	private static void closeReport(DiffReportSink pReport) throws IOException {
+		if(pReport!=null) {
+			pReport.close();
+		}
 	}
 
 	/**
@@ -240,86 +179,298 @@ public class ChecksumDiff {
 	 */
 	public static void compare(Map<String, ArrayList<String>> pChecksumSetA,  Map<String, ArrayList<String>> pChecksumSetB) {
 		try {
-			compare(pChecksumSetA, pChecksumSetB, null);
+			compare(pChecksumSetA, pChecksumSetB, (DiffReportSink)null);
 		} catch (IOException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			// there is no report to fail writing to
+			throw new UncheckedIOException(e);
 		}
 	}
 
 	/**
-	 * Compare two sets of prepared checksum data and output a report to file
+	 * Compare two sets of prepared checksum data and output a text report to file
 	 * @param pChecksumSetA
 	 * @param pChecksumSetB
 	 * @param pReportFile
 	 * @throws IOException
 	 */
 	public static void compare(Map<String, ArrayList<String>> pChecksumSetA,  Map<String, ArrayList<String>> pChecksumSetB, File pReportFile) throws IOException {
-		checksumSetA = pChecksumSetA;
-		checksumSetB = pChecksumSetB;
-
-		if(pReportFile!=null) {
-			printWriter = new PrintWriter(new FileWriter(pReportFile));
-		} else {
-			printWriter = null;
+		DiffReportSink report = openReport(pReportFile);
+		try {
+			compare(pChecksumSetA, pChecksumSetB, report);
+		} finally {
+			closeReport(report);
 		}
+	}
 
-		out("Entries in Set 1: "+checksumSetA.keySet().size());
-		out("Entries in Set 2: "+checksumSetB.keySet().size());
+	/**
+	 * Compare two sets of prepared checksum data
+	 * @param pChecksumSetA first set
+	 * @param pChecksumSetB second set
+	 * @param pReport report (may be null), not closed
+	 * @throws IOException if the report could not be written
+	 */
+	public static void compare(Map<String, ArrayList<String>> pChecksumSetA,  Map<String, ArrayList<String>> pChecksumSetB, DiffReportSink pReport) throws IOException {
+		if(pReport!=null) {
+			pReport.start("Set 1", "Set 2");
+		}
+		out(pReport, "Entries in Set 1: "+pChecksumSetA.keySet().size());
+		out(pReport, "Entries in Set 2: "+pChecksumSetB.keySet().size());
 
-		// FIXME: Hack
-		diff(new File("Set 1"), new File("Set 1"));
+		out(pReport, "Removing duplicates (1)");
+		DiffResult result = new ManifestDiffer().diff(pChecksumSetA, pChecksumSetB);
+		out(pReport, "Finished");
 
-		cleanup();
+		report(pReport, "Set 1", "Set 2", result);
 	}
 
 	/**
 	 * Compare checksum values from two files
 	 * @param pFileA First file to check
 	 * @param pFileB Second file to check
+	 * @throws UncheckedIOException if the files could not be read
 	 */
 	public static void compare(File pFileA, File pFileB) {
 		try {
-			compare(pFileA, pFileB, null);
+			compare(pFileA, pFileB, (DiffReportSink)null);
 		} catch (IOException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			throw new UncheckedIOException(e);
 		}
 	}
 
 	/**
-	 * Compare checksum values from two files
+	 * Compare checksum values from two files and output a text report to file
 	 * @param pFileA First file to check
 	 * @param pFileB Second file to check
 	 * @param pReportFile 
 	 * @throws IOException 
 	 */
 	public static void compare(File pFileA, File pFileB, File pReportFile) throws IOException {
-		checksumSetA = new TreeMap<String, ArrayList<String>>();
-		checksumSetB = new TreeMap<String, ArrayList<String>>();
+		DiffReportSink report = openReport(pReportFile);
+		try {
+			compare(pFileA, pFileB, report);
+		} finally {
+			closeReport(report);
+		}
+	}
 
-		if(pReportFile!=null) {
-			printWriter = new PrintWriter(new FileWriter(pReportFile));
-		} else {
-			printWriter = null;
+	/**
+	 * Compare checksum values from two files.  Unique files are reported once the two
+	 * manifests have been matched, in the order they are in the files.
+	 * @param pFileA First file to check
+	 * @param pFileB Second file to check
+	 * @param pReport report (may be null), not closed
+	 * @throws IOException if the files could not be read, or the report written
+	 */
+	public static void compare(File pFileA, File pFileB, DiffReportSink pReport) throws IOException {
+		if(pReport!=null) {
+			pReport.start(pFileA.getName(), pFileB.getName());
 		}
+		// both sets are loaded at once
+		out(pReport, "Loading checksum sets 1 and 2");
+		CompactManifest[] manifests = new ManifestLoader().load(pFileA, pFileB);
+		CompactManifest manifestA = manifests[0];
+		CompactManifest manifestB = manifests[1];
+		out(pReport, "Entries: "+manifestA.checksumCount());
+		out(pReport, "Entries: " + manifestB.checksumCount());
+
+		out(pReport, "Removing duplicates (1)");
+		DiffResult result = new ManifestDiffer().diff(manifestA, manifestB);
+		out(pReport, "Finished");
+
+		report(pReport, pFileA.getName(), pFileB.getName(), result);
+	}
 
-		out("Loading checksum set 1");
-		if(!loadChecksums(pFileA, checksumSetA)) {
-			System.out.println("Can't load data: "+pFileA);
+	/**
+	 * Compare checksum values from two files that are expected to be the same, and output
+	 * a text report to file
+	 * @param pFileA First file to check
+	 * @param pFileB Second file to check
+	 * @param pReportFile report file (or null for none)
+	 * @throws IOException if the files could not be read, or the report written
+	 */
+	public static void compareHashed(File pFileA, File pFileB, File pReportFile) throws IOException {
+		DiffReportSink report = openReport(pReportFile);
+		try {
+			compareHashed(pFileA, pFileB, report);
+		} finally {
+			closeReport(report);
 		}
-		out("Entries: "+checksumSetA.keySet().size());
+	}
+
+	/**
+	 * Compare checksum values from two files that are expected to be the same (see
+	 * {@link SetHashDiff}).  Identical files are read once each; otherwise only the entries
+	 * that may differ are loaded.  Unique files are reported in the order they are in the files.
+	 * @param pFileA First file to check
+	 * @param pFileB Second file to check
+	 * @param pReport report (may be null), not closed
+	 * @throws IOException if the files could not be read, or the report written
+	 */
+	public static void compareHashed(File pFileA, File pFileB, DiffReportSink pReport) throws IOException {
+		if(pReport!=null) {
+			pReport.start(pFileA.getName(), pFileB.getName());
+		}
+		out(pReport, "Hashing checksum sets 1 and 2");
+		DiffResult result = new SetHashDiff().diff(pFileA, pFileB);
+		out(pReport, result.isIdentical() ? "Identical" : "Finished");
+
+		report(pReport, pFileA.getName(), pFileB.getName(), result);
+	}
+
+	/**
+	 * Compare checksum values from two binary manifests, and output a text report to file
+	 * @param pFileA First binary manifest to check
+	 * @param pFileB Second binary manifest to check
+	 * @param pReportFile report file (or null for none)
+	 * @throws IOException if the files could not be read, or the report written
+	 */
+	public static void compareBinary(File pFileA, File pFileB, File pReportFile) throws IOException {
+		DiffReportSink report = openReport(pReportFile);
+		try {
+			compareBinary(pFileA, pFileB, report);
+		} finally {
+			closeReport(report);
+		}
+	}
+
+	/**
+	 * Compare checksum values from two binary manifests (see {@link BinaryManifest}) with a
+	 * merge of the mapped files.  Unique files are reported in checksum order.
+	 * @param pFileA First binary manifest to check
+	 * @param pFileB Second binary manifest to check
+	 * @param pReport report (may be null), not closed
+	 * @throws IOException if the files could not be read, or the report written
+	 */
+	public static void compareBinary(File pFileA, File pFileB, DiffReportSink pReport) throws IOException {
+		if(pReport!=null) {
+			pReport.start(pFileA.getName(), pFileB.getName());
+		}
+		out(pReport, "Merging checksum sets 1 and 2");
+		DiffResult result = new BinaryManifestDiff().diff(pFileA, pFileB);
+		out(pReport, "Finished");
+
+		report(pReport, pFileA.getName(), pFileB.getName(), result);
+	}
+
+	/**
+	 * Compare two files by path and checksum, and output a text report to file
+	 * @param pFileA First file to check
+	 * @param pFileB Second file to check
+	 * @param pReportFile report file (or null for none)
+	 * @throws IOException if the files could not be read, or the report written
+	 */
+	public static void comparePaths(File pFileA, File pFileB, File pReportFile) throws IOException {
+		DiffReportSink report = openReport(pReportFile);
+		try {
+			comparePaths(pFileA, pFileB, new PathDiff(), report);
+		} finally {
+			closeReport(report);
+		}
+	}
 
-		out("Loading checksum set 2");
-		if(!loadChecksums(pFileB, checksumSetB)) {
-			System.out.println("Can't load data: "+pFileA);
+	/**
+	 * Compare two files by path and checksum (see {@link PathDiff}).  Removed and added
+	 * files are reported as unique to the first and second files; moved, renamed and changed
+	 * files are reported as messages, "CHANGE: fileA -&gt; fileB".  Unchanged files are only counted.
+	 * @param pFileA First file to check
+	 * @param pFileB Second file to check
+	 * @param pDiff diff to use, with the roots of the files
+	 * @param pReport report (may be null), not closed
+	 * @throws IOException if the files could not be read, or the report written
+	 */
+	public static void comparePaths(File pFileA, File pFileB, PathDiff pDiff, final DiffReportSink pReport) throws IOException {
+		if(pReport!=null) {
+			pReport.start(pFileA.getName(), pFileB.getName());
+		}
+		out(pReport, "Loading and comparing paths of checksum sets 1 and 2");
+		final long[] entries = new long[2];
+		Map<PathDiff.Change, Long> counts = pDiff.diff(pFileA, pFileB, new PathDiff.ChangeHandler() {
+			@Override
+			public void change(PathDiff.Change pChange, String pChecksumA, String pFileA, String pChecksumB, String pFileB) throws IOException {
+				if(pChecksumA!=null) {
+					entries[0]++;
+				}
+				if(pChecksumB!=null) {
+					entries[1]++;
+				}
+				if(pReport==null) {
+					return;
+				}
+				switch(pChange) {
+				case UNCHANGED:
+					break;
+				case REMOVED:
+					pReport.uniqueToA(pChecksumA, pFileA);
+					break;
+				case ADDED:
+					pReport.uniqueToB(pChecksumB, pFileB);
+					break;
+				default:
+					pReport.message(pChange+": "+pFileA+" -> "+pFileB);
+				}
+			}
+		});
+		for(Map.Entry<PathDiff.Change, Long> count:counts.entrySet()) {
+			out(pReport, count.getKey()+": "+count.getValue());
 		}
-		out("Entries: " + checksumSetB.keySet().size());
+		summary(pReport, pFileA.getName(), pFileB.getName(), entries[0], entries[1],
+				counts.get(PathDiff.Change.REMOVED), counts.get(PathDiff.Change.ADDED));
+	}
 
-		diff(pFileA, pFileB);
+	/**
+	 * Compare checksum values from two files without loading them into memory, for
+	 * manifests that are too large for the heap, and output a text report to file
+	 * @param pFileA First file to check
+	 * @param pFileB Second file to check
+	 * @param pReportFile report file (or null for none)
+	 * @throws IOException if the files could not be read, or the report written
+	 */
+	public static void compareExternal(File pFileA, File pFileB, File pReportFile) throws IOException {
+		DiffReportSink report = openReport(pReportFile);
+		try {
+			compareExternal(pFileA, pFileB, report);
+		} finally {
+			closeReport(report);
+		}
+	}
 
-		cleanup();
+	/**
+	 * Compare checksum values from two files without loading them into memory, for
+	 * manifests that are too large for the heap (see {@link ExternalChecksumDiff}).
+	 * Unique files are reported as they are found, ordered by checksum.
+	 * @param pFileA First file to check
+	 * @param pFileB Second file to check
+	 * @param pReport report (may be null), not closed
+	 * @throws IOException if the files could not be read, or the report written
+	 */
+	public static void compareExternal(File pFileA, File pFileB, final DiffReportSink pReport) throws IOException {
+		if(pReport!=null) {
+			pReport.start(pFileA.getName(), pFileB.getName());
+		}
+		final long[] counts = new long[2];
+		ManifestEntryHandler uniqueA = new ManifestEntryHandler() {
+			@Override
+			public void entry(String pChecksum, String pFile) throws IOException {
+				counts[0]++;
+				if(pReport!=null) {
+					pReport.uniqueToA(pChecksum, pFile);
+				}
+			}
+		};
+		ManifestEntryHandler uniqueB = new ManifestEntryHandler() {
+			@Override
+			public void entry(String pChecksum, String pFile) throws IOException {
+				counts[1]++;
+				if(pReport!=null) {
+					pReport.uniqueToB(pChecksum, pFile);
+				}
+			}
+		};
 
+		out(pReport, "Sorting and merging checksum sets");
+		new ExternalChecksumDiff().diff(pFileA, pFileB, uniqueA, uniqueB);
+		out(pReport, "Finished");
+		summary(pReport, pFileA.getName(), pFileB.getName(), -1, -1, counts[0], counts[1]);
 	}
 
 	@SuppressWarnings("javadoc")
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+import uk.bl.dpt.utils.checksum.crc.CRC32C;
+import uk.bl.dpt.utils.util.Hex;
+
+/**
+ * Digester backed by a java.util.zip.Checksum (CRC32 etc)
+ */
+public class ChecksumDigester implements Digester {
+
+	private final String gAlgorithm;
+	private final Checksum gChecksum;
+
+	/**
+	 * @param pAlgorithm name to report the checksum as
+	 * @param pChecksum Checksum to wrap
+	 */
+	public ChecksumDigester(String pAlgorithm, Checksum pChecksum) {
+		gAlgorithm = pAlgorithm;
+		gChecksum = pChecksum;
+	}
+
+	@Override
+	public String getAlgorithm() {
+		return gAlgorithm;
+	}
+
+	@Override
+	public void update(byte[] pBuffer, int pOffset, int pLength) {
+		gChecksum.update(pBuffer, pOffset, pLength);
+	}
+
+	@Override
+	public void update(ByteBuffer pBuffer) {
+		if(gChecksum instanceof CRC32) {
+			((CRC32)gChecksum).update(pBuffer);
+		} else if(gChecksum instanceof CRC32C) {
+			((CRC32C)gChecksum).update(pBuffer);
+		} else if(pBuffer.hasArray()) {
+			gChecksum.update(pBuffer.array(), pBuffer.arrayOffset()+pBuffer.position(), pBuffer.remaining());
+			pBuffer.position(pBuffer.limit());
+		} else {
+			// other Checksums only take arrays, copy through a small buffer
+			byte[] buf = new byte[Math.min(pBuffer.remaining(), 8192)];
+			while(pBuffer.hasRemaining()) {
+				int length = Math.min(pBuffer.remaining(), buf.length);
+				pBuffer.get(buf, 0, length);
+				gChecksum.update(buf, 0, length);
+			}
+		}
+	}
+
+	@Override
+	public String digestString() {
+		// NOTE: not zero padded, this is how CRC32 values have always been reported
+		String value = Hex.toHex(gChecksum.getValue(), true);
+		gChecksum.reset();
+		return value;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * java.util.zip Checksums are 32 bit, so this is 4 bytes unless the value does not fit
+	 * in 32 bits, in which case it is 8 bytes.
+	 */
+	@Override
+	public byte[] digest() {
+		long value = gChecksum.getValue();
+		gChecksum.reset();
+		int length = (value>>>32)==0 ? 4 : 8;
+		byte[] digest = new byte[length];
+		for(int i=length-1;i>=0;i--) {
+			digest[i] = (byte)value;
+			value >>>= 8;
+		}
+		return digest;
+	}
+
+	@Override
+	public long[] digestLongs() {
+		long value = gChecksum.getValue();
+		gChecksum.reset();
+		return new long[] { value };
+	}
+
+	@Override
+	public void reset() {
+		gChecksum.reset();
+	}
+
+}
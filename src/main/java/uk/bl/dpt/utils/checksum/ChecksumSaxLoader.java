@@ -21,25 +21,37 @@ import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Map;
 
 /**
+ * SAX handler for "ThreadingSpider" XML files.
+ * See {@link ThreadingSpiderReader} for a faster reader that can read several digest types at once.
  * Created by wpalmer on 28/05/2014.
  */
 public class ChecksumSaxLoader extends DefaultHandler {
 
     private Map<String, ArrayList<String>> gChecksumMap;
+    private ManifestEntryHandler gHandler;
     private String gFile = null;
-    private String gText = null;
+    /* reused for the text of each element; gCapturing is set while it is wanted */
+    private final StringBuilder gText = new StringBuilder();
+    private boolean gCapturing = false;
     private String gChecksum = "SHA-256";
     private final String NAMEKEY = "file";
 
     /**
      * @param pChecksumMap
      */
-    public ChecksumSaxLoader(Map<String, ArrayList<String>> pChecksumMap) {
+    public ChecksumSaxLoader(final Map<String, ArrayList<String>> pChecksumMap) {
         gChecksumMap = pChecksumMap;
+        gHandler = new ManifestEntryHandler() {
+            @Override
+            public void entry(String pChecksum, String pFile) {
+                ChecksumDiff.addChecksum(pChecksum, pFile, pChecksumMap);
+            }
+        };
     }
 
     /**
@@ -51,9 +63,20 @@ public class ChecksumSaxLoader extends DefaultHandler {
         gChecksum = pChecksum;
     }
 
+    /**
+     * Pass each entry to a handler rather than loading them into a map
+     * @param pHandler handler for each entry
+     * @param pChecksum checksum type to read
+     */
+    public ChecksumSaxLoader(ManifestEntryHandler pHandler, String pChecksum) {
+        gChecksumMap = null;
+        gHandler = pHandler;
+        gChecksum = pChecksum;
+    }
+
     /**
      * Get the checksums that have been loaded from the XML file
-     * @return map of checksums loaded from the XML file
+     * @return map of checksums loaded from the XML file (null if a handler was given)
      */
     public Map<String, ArrayList<String>> getChecksumMap() {
         return gChecksumMap;
@@ -62,42 +85,52 @@ public class ChecksumSaxLoader extends DefaultHandler {
     @Override
     public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
         super.startElement(uri, localName, qName, attributes);
-        if(qName.equals(NAMEKEY)) {
-            gText = "";
+        if(NAMEKEY.equals(qName)) {
+            startText();
             return;
         }
-        if(qName.equals("checksum")) {
-            if(attributes.getValue("digest").startsWith(gChecksum)) {
-                gText = "";
+        if("checksum".equals(qName)) {
+            String digest = attributes.getValue("digest");
+            if(digest!=null&&digest.startsWith(gChecksum)) {
+                startText();
             }
         }
     }
 
+    private void startText() {
+        gText.setLength(0);
+        gCapturing = true;
+    }
+
     @Override
     public void characters(char[] ch, int start, int length) throws SAXException {
         super.characters(ch, start, length);
-        if(gText!=null) {
-            gText += new String(ch, start, length);
+        if(gCapturing) {
+            gText.append(ch, start, length);
         }
     }
 
     @Override
     public void endElement(String uri, String localName, String qName) throws SAXException {
         super.endElement(uri, localName, qName);
-        if(gText!=null) {
-        	if(qName.equals(NAMEKEY)) {
+        if(gCapturing) {
+        	if(NAMEKEY.equals(qName)) {
         		// set filename key and continue
-        		gFile = gText.trim();
-        		gText = null;
+        		gFile = gText.toString().trim();
+        		gCapturing = false;
         		return;
         	} else {
-        		if(qName.equals("checksum")) {
+        		if("checksum".equals(qName)) {
         			// we should have a filename and checksum at this point
         			if(gFile==null) {
         				System.err.println("filename null");
         			}
-        			ChecksumDiff.addChecksum(gText.trim(), gFile, gChecksumMap);
-        			gText = null;
+        			try {
+        				gHandler.entry(gText.toString().trim(), gFile);
+        			} catch(IOException e) {
+        				throw new SAXException(e);
+        			}
+        			gCapturing = false;
         			gFile = null;
         		}
         	}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Receives checksum results as each file is finished (see {@link DirectoryChecksummer})
+ */
+public interface ChecksumSink {
+
+	/**
+	 * A file has been checksummed
+	 * @param pFile file that was checksummed
+	 * @param pChecksums algorithm name to checksum, in ChecksumUtil form
+	 * @throws IOException if the result could not be stored, this stops the run
+	 */
+	public void checksummed(File pFile, Map<String, String> pChecksums) throws IOException;
+
+	/**
+	 * A file could not be checksummed
+	 * @param pFile file that failed
+	 * @param pError reason
+	 * @throws IOException if the failure could not be stored, this stops the run
+	 */
+	public void failed(File pFile, IOException pError) throws IOException;
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The set of checksum algorithms to calculate, e.g.
+ * <pre>
+ * ChecksumSpec spec = ChecksumSpec.of("MD5", "CRC32C");
+ * ChecksumSpec spec = ChecksumSpec.builder().add("SHA-512").add("cksum").build();
+ * </pre>
+ * Algorithms are checked against the {@link DigestRegistry} when they are added,
+ * so an unknown algorithm fails straight away rather than part way through a checksum run.
+ * Only the algorithms in the spec are calculated.
+ *
+ * Instances are immutable and can be shared between threads.
+ */
+public class ChecksumSpec {
+
+	/**
+	 * The checksums that ChecksumUtil has always generated: CRC32, "cksum CRC", MD5, SHA-1 and SHA-256
+	 */
+	public final static ChecksumSpec DEFAULT;
+	static {
+		try {
+			DEFAULT = of("CRC32", "cksum", "MD5", "SHA-1", "SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// these have to be implemented by every JRE, cksum & CRC32 are ours
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private final List<String> gAlgorithms;
+	private final DigesterFactory[] gFactories;
+
+	private ChecksumSpec(Map<String, DigesterFactory> pFactories) {
+		gAlgorithms = Collections.unmodifiableList(new ArrayList<String>(pFactories.keySet()));
+		gFactories = pFactories.values().toArray(new DigesterFactory[pFactories.size()]);
+	}
+
+	/**
+	 * Create a spec for a set of algorithms
+	 * @param pAlgorithms names of the algorithms to calculate
+	 * @return new spec
+	 * @throws NoSuchAlgorithmException if any of the algorithms are not available
+	 */
+	public static ChecksumSpec of(String... pAlgorithms) throws NoSuchAlgorithmException {
+		Builder builder = builder();
+		for(String algorithm:pAlgorithms) {
+			builder.add(algorithm);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Start building a new spec
+	 * @return new builder
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Get the canonical names of the algorithms in this spec, in the order they were added
+	 * @return algorithm names (these are the keys used in the checksum Map)
+	 */
+	public List<String> getAlgorithms() {
+		return gAlgorithms;
+	}
+
+	/**
+	 * Does this spec contain an algorithm?
+	 * @param pAlgorithm name of the algorithm
+	 * @return true if the algorithm is in this spec
+	 */
+	public boolean contains(String pAlgorithm) {
+		try {
+			return gAlgorithms.contains(DigestRegistry.getCanonicalName(pAlgorithm));
+		} catch (NoSuchAlgorithmException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Create a new set of Digesters, one for each algorithm in this spec
+	 * @return new Digesters
+	 */
+	public Digester[] newDigesters() {
+		Digester[] digesters = new Digester[gFactories.length];
+		for(int i=0;i<gFactories.length;i++) {
+			digesters[i] = gFactories[i].newDigester();
+		}
+		return digesters;
+	}
+
+	@Override
+	public String toString() {
+		return gAlgorithms.toString();
+	}
+
+	/**
+	 * Builds a ChecksumSpec
+	 */
+	public static class Builder {
+
+		private final Map<String, DigesterFactory> gFactories = new LinkedHashMap<String, DigesterFactory>();
+
+		private Builder() {}
+
+		/**
+		 * Add an algorithm to the spec (adding the same algorithm twice has no effect)
+		 * @param pAlgorithm name of the algorithm
+		 * @return this builder
+		 * @throws NoSuchAlgorithmException if the algorithm is not available
+		 */
+		public Builder add(String pAlgorithm) throws NoSuchAlgorithmException {
+			String name = DigestRegistry.getCanonicalName(pAlgorithm);
+			if(!gFactories.containsKey(name)) {
+				gFactories.put(name, DigestRegistry.getFactory(pAlgorithm));
+			}
+			return this;
+		}
+
+		/**
+		 * Create the spec
+		 * @return new spec
+		 */
+		public ChecksumSpec build() {
+			if(gFactories.isEmpty()) {
+				throw new IllegalStateException("No checksum algorithms specified");
+			}
+			return new ChecksumSpec(gFactories);
+		}
+
+	}
+
+}
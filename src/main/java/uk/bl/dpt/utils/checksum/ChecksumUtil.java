@@ -17,8 +17,6 @@
 
 package uk.bl.dpt.utils.checksum;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -26,17 +24,13 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.security.DigestInputStream;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.zip.CRC32;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import uk.bl.dpt.utils.checksum.cksum.CkSumProvider;
-
 /**
  * Go through a file contents to generate multiple checksums
  * @author wpalmer
@@ -47,7 +41,8 @@ public class ChecksumUtil {
 	@SuppressWarnings("unused")
 	private static Logger gLogger = LoggerFactory.getLogger(ChecksumUtil.class);
 	
-	private final static int BUFSIZE = 32768;
+	private final static MultiDigestEngine gEngine = new MultiDigestEngine();
+	private final static FileDigestEngine gFileEngine = new FileDigestEngine();
 	
 	private ChecksumUtil() {}
 	
@@ -60,7 +55,35 @@ public class ChecksumUtil {
 	 * @throws FileNotFoundException 
 	 */
 	public static void calcChecksums(File pFile, Map<String, String> pChecksums) throws FileNotFoundException {
-			calcChecksums(new FileInputStream(pFile), pChecksums);
+			calcChecksums(pFile, ChecksumSpec.DEFAULT, pChecksums);
+	}
+	
+	/**
+	 * Calculate a set of checksums for a file
+	 * This method only needs to read through the file once to generate all the checksums,
+	 * the data is read with a FileChannel or memory mapped (see {@link FileDigestEngine}).
+	 * @param pFile File to check
+	 * @param pSpec checksums to generate
+	 * @param pChecksums List that calculated checksums will be stored in
+	 * @throws FileNotFoundException 
+	 */
+	public static void calcChecksums(File pFile, ChecksumSpec pSpec, Map<String, String> pChecksums) throws FileNotFoundException {
+		FileInputStream input = new FileInputStream(pFile);
+		try {
+			Digester[] digesters = pSpec.newDigesters();
+			gFileEngine.digest(input.getChannel(), digesters);
+			for(Digester digester:digesters) {
+				pChecksums.put(digester.getAlgorithm(), digester.digestString());
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		} finally {
+			try {
+				input.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
 	}
 	
 
@@ -72,8 +95,19 @@ public class ChecksumUtil {
 	 * @param pChecksums List that calculated checksums will be stored in
 	 */
 	public static void calcChecksums(InputStream pInputStream, Map<String, String> pChecksums) {
+		calcChecksums(pInputStream, ChecksumSpec.DEFAULT, pChecksums);
+	}
+
+	/**
+	 * Calculate a set of checksums for a stream
+	 * This method only needs to read through the stream once to generate all the checksums.
+	 * @param pInputStream File to check
+	 * @param pSpec checksums to generate
+	 * @param pChecksums List that calculated checksums will be stored in
+	 */
+	public static void calcChecksums(InputStream pInputStream, ChecksumSpec pSpec, Map<String, String> pChecksums) {
 		try {
-			copyAndChecksum(pInputStream, pChecksums, null);
+			copyAndChecksum(pInputStream, pSpec, pChecksums, null);
 		} catch (IOException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
@@ -104,7 +138,8 @@ public class ChecksumUtil {
 	
 	/**
 	 * Calculate a set of checksums for a file just using JDK libraries (and some classes in this package)
-	 * This method only needs to read through the file once to generate all the checksums.
+	 * This method only needs to read through the file once to generate all the checksums,
+	 * each checksum is calculated in its own thread (see {@link MultiDigestEngine}).
 	 * Currently generates: "cksum CRC", CRC32, MD5, SHA-1 and SHA-256
 	 * @param pInputStream File to check
 	 * @param pChecksums List that calculated checksums will be stored in
@@ -112,103 +147,89 @@ public class ChecksumUtil {
 	 * @throws IOException if there is an issue flushing the output stream
 	 */
 	public static void copyAndChecksum(InputStream pInputStream, Map<String, String> pChecksums, OutputStream pOutputStream) throws IOException {
+		copyAndChecksum(pInputStream, ChecksumSpec.DEFAULT, pChecksums, pOutputStream);
+	}
+
+	/**
+	 * Calculate a set of checksums for a stream, copying the data to an output stream
+	 * This method only needs to read through the stream once to generate all the checksums,
+	 * each checksum is calculated in its own thread (see {@link MultiDigestEngine}).
+	 * @param pInputStream File to check
+	 * @param pSpec checksums to generate
+	 * @param pChecksums List that calculated checksums will be stored in
+	 * @param pOutputStream output stream to write data to
+	 * @throws IOException if there is an issue flushing the output stream
+	 */
+	public static void copyAndChecksum(InputStream pInputStream, ChecksumSpec pSpec, Map<String, String> pChecksums, OutputStream pOutputStream) throws IOException {
 		
-		CkSumProvider.register();
-		
-		CRC32 crc32 = new CRC32();
-		
-		MessageDigest[] digests = null;
-		try {
-			// Add new digest types here and the rest of the method should just work
-			// NOTE: MD5, SHA1 and SHA256 have to be implemented by each JRE/JDK.
-			//       other digest types may not be available at runtime.
-			// See note: http://docs.oracle.com/javase/7/docs/api/java/security/MessageDigest.html
-			
-			digests = new MessageDigest[] { //MessageDigest.getInstance("CRC"),
-											MessageDigest.getInstance("cksum"),
-											MessageDigest.getInstance("MD5"), 
-											MessageDigest.getInstance("SHA-1"),
-											MessageDigest.getInstance("SHA-256") };
-		} catch (NoSuchAlgorithmException e) {
-			e.printStackTrace();
-		}
-		
+		Digester[] digesters = pSpec.newDigesters();
 		
-		// Open an InputStream for pFile
+		// Read the stream once, each digest is calculated in its own thread
 		boolean readError = false;
-		InputStream original = null;
-		original = new BufferedInputStream(pInputStream);
-		OutputStream bos = null;
-		if(pOutputStream!=null) {
-			bos = new BufferedOutputStream(pOutputStream);
-		}
-		
-		// Create a chain of DigestInputStreams that consume the original InputStream.
-		// Ensure a reference is kept to each DigestInputStream so the digests can be
-		// recovered.
-		DigestInputStream[] streams = null;
-		streams = new DigestInputStream[digests.length];
-		// initialise input stream digests
-		for(int i=0;i<digests.length;i++) {
-			if(0==i) {
-				streams[0] = new DigestInputStream(original, digests[i]);
-			} else {
-				streams[i] = new DigestInputStream(streams[i-1], digests[i]);
-			}
-		}
-
-		// drain the input stream
 		try {
-			byte[] buf = new byte[BUFSIZE];
-			InputStream top = streams[digests.length-1];
-			while(top.available()>0) {
-				// update the CRC - we can do this because only one non-MessageDigest
-				// digest needs to be calculated
-				int read = top.read(buf);
-				crc32.update(buf, 0, read);
-				if(bos!=null) {
-					bos.write(buf, 0, read);
-				}
-			}
+			gEngine.digest(pInputStream, pOutputStream, digesters);
 		} catch (IOException e) {
 			readError = true;
 			e.printStackTrace();
 		} 
 		
-		// Recover the digests and add them to a List
+		// Recover the digests and add them to the Map
 		if(!readError) {
-			String hash = "";
-			
-			pChecksums.put("CRC32",Long.toHexString(crc32.getValue()).toUpperCase());
-			
-			//recover the digests
-			for(DigestInputStream stream:streams) {
-				try {
-					stream.close();
-				} catch (IOException e) {
-					e.printStackTrace();
-				}
-				hash = "";
-				for(byte b : stream.getMessageDigest().digest()) hash+=String.format("%02x", b);
-				pChecksums.put(stream.getMessageDigest().getAlgorithm(),hash.toUpperCase());
+			for(Digester digester:digesters) {
+				pChecksums.put(digester.getAlgorithm(), digester.digestString());
 			}
 		}
 
-		if(bos!=null) {
-			bos.flush();
+		if(pOutputStream!=null) {
+			pOutputStream.flush();
 		}
 		
 		// Clean up, close original inputstream if it is still open
-		if(original!=null) {
-			try {
-				original.close();
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
+		try {
+			pInputStream.close();
+		} catch (IOException e) {
+			e.printStackTrace();
 		}
 		
 	}
 	
+	/**
+	 * Pack a digest into longs, big endian and right aligned: the last long holds the
+	 * last 8 bytes and the first long is zero padded on the left if the digest is not a
+	 * multiple of 8 bytes.  A 4 byte CRC therefore packs to its numeric value.
+	 * @param pDigest digest bytes
+	 * @return packed digest
+	 */
+	public static long[] toLongs(byte[] pDigest) {
+		long[] longs = new long[(pDigest.length+7)/8];
+		// number of zero bytes of left padding
+		int pad = longs.length*8-pDigest.length;
+		for(int i=0;i<pDigest.length;i++) {
+			int j = (i+pad)/8;
+			longs[j] = longs[j]<<8 | (pDigest[i]&0xff);
+		}
+		return longs;
+	}
+
+	/**
+	 * Unpack a digest packed by {@link #toLongs(byte[])}
+	 * @param pLongs packed digest
+	 * @param pLength length of the digest in bytes
+	 * @return digest bytes
+	 */
+	public static byte[] toBytes(long[] pLongs, int pLength) {
+		byte[] digest = new byte[pLength];
+		int i = pLength-1;
+		for(int j=pLongs.length-1;j>=0&&i>=0;j--) {
+			long value = pLongs[j];
+			for(int k=0;k<8&&i>=0;k++) {
+				digest[i--] = (byte)value;
+				value >>>= 8;
+			}
+		}
+		return digest;
+	}
+
 	/**
 	 * Print out the checksums from a List
 	 * @param pFile file that the checksums relate to
@@ -227,37 +248,45 @@ public class ChecksumUtil {
 	 * @param pInFile file to checksum
 	 * @return A String with the format MD5:XXXXXX or SHA1:XXXXXX
 	 * @throws IOException file access error
+	 * @throws IllegalArgumentException if the checksum type is not available from {@link DigestRegistry}
 	 */
 	public static String generateChecksum(String pType, String pInFile) throws IOException {
 
-		if(!new File(pInFile).exists()) throw new IOException("File not found: "+pInFile);
-		
-		MessageDigest md;
+		ChecksumSpec spec;
 		try {
-			md = MessageDigest.getInstance(pType.toUpperCase());
+			spec = ChecksumSpec.of(pType);
 		} catch (NoSuchAlgorithmException e) {
-			return null;
+			throw new IllegalArgumentException(e.getMessage(), e);
 		}
 		
-		FileInputStream input;
+		Map<String, String> checksums = generateChecksum(spec, pInFile);
+		return checksums.get(spec.getAlgorithms().get(0)).toLowerCase();
+	}	
+	
+	/**
+	 * Generates a set of checksums for a file 
+	 * @param pSpec checksums to generate
+	 * @param pInFile file to checksum
+	 * @return A Map of algorithm name to checksum
+	 * @throws IOException file access error
+	 */
+	public static Map<String, String> generateChecksum(ChecksumSpec pSpec, String pInFile) throws IOException {
+
+		if(!new File(pInFile).exists()) throw new IOException("File not found: "+pInFile);
+		
+		Digester[] digesters = pSpec.newDigesters();
+		FileInputStream input = new FileInputStream(pInFile);
 		try {
-			input = new FileInputStream(pInFile);
-			byte[] readBuffer = new byte[BUFSIZE];
-			int bytesRead = 0;
-			while(input.available()>0) {
-				bytesRead = input.read(readBuffer);
-				md.update(readBuffer, 0, bytesRead);
-			}
+			gFileEngine.digest(input.getChannel(), digesters);
+		} finally {
 			input.close();
-		} catch (FileNotFoundException e) {
-			e.printStackTrace();
-		} catch (IOException e) {
-			e.printStackTrace();
 		}
 
-		String hash = "";
-		for(byte b : md.digest()) hash+=String.format("%02x", b);
-		return hash;
+		Map<String, String> checksums = new HashMap<String, String>();
+		for(Digester digester:digesters) {
+			checksums.put(digester.getAlgorithm(), digester.digestString());
+		}
+		return checksums;
 	}	
 	
 	/**
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * OutputStream that calculates a set of checksums of everything written through it.
+ *
+ * Unlike {@link ChecksumUtil#copyAndChecksum(java.io.InputStream, ChecksumSpec, Map, OutputStream)}
+ * the caller owns the write loop, so data can be hashed as it is pushed to disk.
+ * The checksums are available once the stream is closed.
+ */
+public class ChecksummingOutputStream extends FilterOutputStream {
+
+	private final Digester[] gDigesters;
+	private final byte[] gSingle = new byte[1];
+	private long gLength = 0;
+	private Map<String, String> gChecksums = null;
+
+	/**
+	 * @param pOutputStream stream to write to
+	 * @param pSpec checksums to calculate
+	 */
+	public ChecksummingOutputStream(OutputStream pOutputStream, ChecksumSpec pSpec) {
+		super(pOutputStream);
+		gDigesters = pSpec.newDigesters();
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		gSingle[0] = (byte)b;
+		write(gSingle, 0, 1);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		if(gChecksums!=null) throw new IOException("Stream closed");
+		out.write(b, off, len);
+		// only hash what was written successfully
+		for(Digester digester:gDigesters) {
+			digester.update(b, off, len);
+		}
+		gLength += len;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if(gChecksums!=null) {
+			return;
+		}
+		try {
+			super.close();
+		} finally {
+			Map<String, String> checksums = new LinkedHashMap<String, String>();
+			for(Digester digester:gDigesters) {
+				checksums.put(digester.getAlgorithm(), digester.digestString());
+			}
+			gChecksums = Collections.unmodifiableMap(checksums);
+		}
+	}
+
+	/**
+	 * Get the number of bytes written
+	 * @return length
+	 */
+	public long getLength() {
+		return gLength;
+	}
+
+	/**
+	 * Get the checksums of the data written
+	 * @return algorithm name to checksum, in ChecksumUtil form
+	 * @throws IllegalStateException if the stream has not been closed
+	 */
+	public Map<String, String> getChecksums() {
+		if(gChecksums==null) throw new IllegalStateException("Checksums are only available after close()");
+		return gChecksums;
+	}
+
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonReadableChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * WritableByteChannel that calculates a set of checksums of everything written through it.
+ *
+ * When the target is a FileChannel that can also be read (e.g. opened with READ and WRITE,
+ * or from a RandomAccessFile in "rw" mode) {@link #transferFrom(ReadableByteChannel, long)}
+ * uses FileChannel.transferFrom, so the kernel can move the data without it passing
+ * through the JVM, and then hashes the region that was written by memory mapping it.
+ * This hashes the bytes as they landed in the file.  Otherwise data is copied through a
+ * direct buffer.
+ *
+ * The checksums are available once the channel is closed.
+ */
+public class ChecksummingWritableByteChannel implements WritableByteChannel {
+
+	/**
+	 * Size of the windows mapped to hash transferred data, and of the copy buffer
+	 */
+	private final static int WINDOWSIZE = 16*1024*1024;
+	private final static int BUFSIZE = 128*1024;
+
+	private final WritableByteChannel gChannel;
+	/* the target as a FileChannel, if it is one that can be mapped for reading */
+	private final FileChannel gFileChannel;
+	private final Digester[] gDigesters;
+	private long gLength = 0;
+	private ByteBuffer gBuffer = null;
+	private Map<String, String> gChecksums = null;
+
+	/**
+	 * @param pChannel channel to write to
+	 * @param pSpec checksums to calculate
+	 */
+	public ChecksummingWritableByteChannel(WritableByteChannel pChannel, ChecksumSpec pSpec) {
+		gChannel = pChannel;
+		gFileChannel = readableFileChannel(pChannel);
+		gDigesters = pSpec.newDigesters();
+	}
+
+	private static FileChannel readableFileChannel(WritableByteChannel pChannel) {
+		if(!(pChannel instanceof FileChannel)) {
+			return null;
+		}
+		FileChannel channel = (FileChannel)pChannel;
+		try {
+			// a zero length read is the only way to find out if the channel was opened for reading
+			channel.read(ByteBuffer.allocate(0), 0);
+			return channel;
+		} catch(NonReadableChannelException e) {
+			return null;
+		} catch(IOException e) {
+			return null;
+		}
+	}
+
+	@Override
+	public int write(ByteBuffer pSource) throws IOException {
+		if(gChecksums!=null) throw new ClosedChannelException();
+		ByteBuffer written = pSource.duplicate();
+		int length = gChannel.write(pSource);
+		// only hash what was written
+		written.limit(written.position()+length);
+		update(written);
+		gLength += length;
+		return length;
+	}
+
+	/**
+	 * Copy data from a channel, at the current position of the target
+	 * @param pSource channel to read from
+	 * @param pCount maximum number of bytes to copy
+	 * @return number of bytes copied, fewer than pCount only at the end of pSource
+	 * @throws IOException if there is an error reading or writing
+	 */
+	public long transferFrom(ReadableByteChannel pSource, long pCount) throws IOException {
+		if(gChecksums!=null) throw new ClosedChannelException();
+		if(gFileChannel!=null) {
+			return transferFromFile(pSource, pCount);
+		}
+		if(gBuffer==null) {
+			gBuffer = ByteBuffer.allocateDirect(BUFSIZE);
+		}
+		long total = 0;
+		while(total<pCount) {
+			gBuffer.clear();
+			gBuffer.limit((int)Math.min(gBuffer.capacity(), pCount-total));
+			if(pSource.read(gBuffer)<0) {
+				break;
+			}
+			gBuffer.flip();
+			while(gBuffer.hasRemaining()) {
+				total += write(gBuffer);
+			}
+		}
+		return total;
+	}
+
+	private long transferFromFile(ReadableByteChannel pSource, long pCount) throws IOException {
+		long start = gFileChannel.position();
+		long total = 0;
+		while(total<pCount) {
+			// FileChannel.transferFrom doesn't move the position, and may transfer less than asked
+			long transferred = gFileChannel.transferFrom(pSource, start+total, pCount-total);
+			if(transferred<=0) {
+				// 0 can mean the end of the source, check there is really nothing left
+				ByteBuffer probe = ByteBuffer.allocate(1);
+				if(pSource.read(probe)<=0) {
+					break;
+				}
+				probe.flip();
+				gFileChannel.write(probe, start+total);
+				transferred = 1;
+			}
+			total += transferred;
+		}
+		gFileChannel.position(start+total);
+
+		// hash the region as it is in the file
+		for(long offset=0;offset<total;offset+=WINDOWSIZE) {
+			update(gFileChannel.map(FileChannel.MapMode.READ_ONLY, start+offset, Math.min(WINDOWSIZE, total-offset)));
+		}
+		gLength += total;
+		return total;
+	}
+
+	private void update(ByteBuffer pBuffer) {
+		for(Digester digester:gDigesters) {
+			digester.update(pBuffer.duplicate());
+		}
+	}
+
+	@Override
+	public boolean isOpen() {
+		return gChannel.isOpen();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if(gChecksums!=null) {
+			return;
+		}
+		try {
+			gChannel.close();
+		} finally {
+			Map<String, String> checksums = new LinkedHashMap<String, String>();
+			for(Digester digester:gDigesters) {
+				checksums.put(digester.getAlgorithm(), digester.digestString());
+			}
+			gChecksums = Collections.unmodifiableMap(checksums);
+		}
+	}
+
+	/**
+	 * Get the number of bytes written
+	 * @return length
+	 */
+	public long getLength() {
+		return gLength;
+	}
+
+	/**
+	 * Get the checksums of the data written
+	 * @return algorithm name to checksum, in ChecksumUtil form
+	 * @throws IllegalStateException if the channel has not been closed
+	 */
+	public Map<String, String> getChecksums() {
+		if(gChecksums==null) throw new IllegalStateException("Checksums are only available after close()");
+		return gChecksums;
+	}
+
+}
@@ -0,0 +1,729 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A manifest (checksum and filename pairs) held in primitive arrays rather than as
+ * Strings in Maps, for loading manifests with tens of millions of entries.
+ *
+ * Hex checksums are packed into longs, right aligned, with as many longs per entry as the
+ * longest checksum needs (one for a CRC, four for SHA-256).  The number of digits and
+ * their case are kept so the original string can be given back.  Anything else (mixed case,
+ * non-hex, or over 128 digits) is interned and stored by number.  Filenames are stored
+ * as UTF-8 in a shared arena of 1MB pages.  Entries with the same checksum are chained in
+ * the order they were added, and the first of each is found through an open addressing
+ * table keyed on the packed checksum.
+ *
+ * Entries are numbered from 0 in the order they are added.  A manifest can be read from
+ * several threads once it is loaded, but adding entries is not thread safe.
+ */
+public class CompactManifest implements ManifestEntryHandler {
+
+	/**
+	 * Returned when there is no such entry
+	 */
+	public final static int NONE = -1;
+
+	private final static Charset UTF8 = Charset.forName("UTF-8");
+	/* longest checksum packed, in longs (SHA-512) */
+	private final static int MAX_WORDS = 8;
+	private final static int PAGE_SIZE = 1024*1024;
+
+	/* gInfo: digit count, a flag for lower case digits, and a flag for interned checksums */
+	private final static int LENGTH_MASK = 0x01FF;
+	private final static int LOWER = 0x4000;
+	/* only used while packing */
+	private final static int UPPER = 0x2000;
+	private final static int INTERNED = 0x8000;
+
+	private final static char[] UPPER_DIGITS = "0123456789ABCDEF".toCharArray();
+	private final static char[] LOWER_DIGITS = "0123456789abcdef".toCharArray();
+
+	private int gWords = 1;
+	private int gSize = 0;
+	private long[] gDigests;
+	private short[] gInfo;
+	private long[] gPaths;
+	/* next entry with the same checksum, or ~first for the last */
+	private int[] gNext;
+
+	/* the last entry added for each checksum */
+	private int[] gTable;
+	private int gChecksums = 0;
+
+	private byte[][] gArena = new byte[16][];
+	private int gPages = 0;
+	private int gPagePosition = PAGE_SIZE;
+
+	private final Map<String, Integer> gInterned = new HashMap<String, Integer>();
+	private final ArrayList<String> gInternedStrings = new ArrayList<String>();
+
+	private final BitSet gRemoved = new BitSet();
+	private final long[] gScratch = new long[MAX_WORDS];
+
+	/**
+	 * Create an empty manifest
+	 */
+	public CompactManifest() {
+		this(1024);
+	}
+
+	/**
+	 * Create an empty manifest
+	 * @param pExpectedEntries number of entries expected, to save resizing
+	 */
+	public CompactManifest(int pExpectedEntries) {
+		int capacity = Math.max(16, pExpectedEntries);
+		gDigests = new long[capacity];
+		gInfo = new short[capacity];
+		gPaths = new long[capacity];
+		gNext = new int[capacity];
+		gTable = new int[tableSize(capacity)];
+		Arrays.fill(gTable, NONE);
+	}
+
+	private static int tableSize(int pEntries) {
+		// power of two, at most three quarters full
+		return Integer.highestOneBit(Math.max(16, pEntries+pEntries/3)-1)<<1;
+	}
+
+	@Override
+	public void entry(String pChecksum, String pFile) {
+		add(pChecksum, pFile);
+	}
+
+	/**
+	 * Add an entry
+	 * @param pChecksum checksum value
+	 * @param pFile filename relating to checksum (may be null)
+	 * @return number of the new entry
+	 */
+	public int add(String pChecksum, String pFile) {
+		int info = pack(pChecksum, gScratch);
+		if(info<0) {
+			info = intern(pChecksum, gScratch);
+		}
+		long path = NONE;
+		if(pFile!=null) {
+			byte[] bytes = pFile.getBytes(UTF8);
+			path = store(bytes, 0, bytes.length);
+		}
+		return append(info, path);
+	}
+
+	/**
+	 * Add an entry from bytes, e.g. in a mapped manifest file, without making Strings
+	 * unless the checksum can't be packed
+	 * @param pChecksum ASCII checksum between the position and limit
+	 * @param pFile UTF-8 filename between the position and limit (or null), which is read
+	 * @return number of the new entry
+	 */
+	int add(ByteBuffer pChecksum, ByteBuffer pFile) {
+		int info = pack(pChecksum, gScratch);
+		if(info<0) {
+			byte[] bytes = new byte[pChecksum.remaining()];
+			pChecksum.duplicate().get(bytes);
+			info = intern(new String(bytes, UTF8), gScratch);
+		}
+		long path = NONE;
+		if(pFile!=null) {
+			path = store(pFile);
+		}
+		return append(info, path);
+	}
+
+	/**
+	 * Add all the entries of another manifest that have not been removed, in the order they
+	 * were added there.  This copies the packed form, so is faster than adding each entry.
+	 * @param pOther manifest to add
+	 */
+	public void addAll(CompactManifest pOther) {
+		for(int entry=0;entry<pOther.gSize;entry++) {
+			if(pOther.gRemoved.get(entry)) {
+				continue;
+			}
+			int info = pOther.info(entry);
+			if((info&INTERNED)!=0) {
+				// interned numbers are local to each manifest
+				info = intern(pOther.getChecksum(entry), gScratch);
+			} else {
+				Arrays.fill(gScratch, 0);
+				System.arraycopy(pOther.gDigests, entry*pOther.gWords, gScratch, MAX_WORDS-pOther.gWords, pOther.gWords);
+			}
+			long path = NONE;
+			long position = pOther.gPaths[entry];
+			if(position>=0) {
+				byte[] page = pOther.gArena[(int)(position>>>32)];
+				int length = readLength(page, (int)position);
+				path = store(page, (int)position+lengthSize(length), length);
+			}
+			append(info, path);
+		}
+	}
+
+	private int intern(String pChecksum, long[] pWords) {
+		Integer id = gInterned.get(pChecksum);
+		if(id==null) {
+			id = gInternedStrings.size();
+			gInterned.put(pChecksum, id);
+			gInternedStrings.add(pChecksum);
+		}
+		Arrays.fill(pWords, 0);
+		pWords[MAX_WORDS-1] = id;
+		return INTERNED;
+	}
+
+	/**
+	 * Add an entry for the checksum in gScratch
+	 */
+	private int append(int pInfo, long pPath) {
+		int words = words(pInfo);
+		if(words>gWords) {
+			widen(words);
+		}
+		if(gSize==gInfo.length) {
+			grow();
+		}
+
+		int entry = gSize++;
+		System.arraycopy(gScratch, MAX_WORDS-gWords, gDigests, entry*gWords, gWords);
+		gInfo[entry] = (short)pInfo;
+		gPaths[entry] = pPath;
+
+		int slot = find(gScratch, pInfo);
+		int last = gTable[slot];
+		if(last==NONE) {
+			gNext[entry] = ~entry;
+			gChecksums++;
+		} else {
+			// append to the chain, the new entry points back to the first
+			gNext[entry] = gNext[last];
+			gNext[last] = entry;
+		}
+		gTable[slot] = entry;
+		if(gChecksums>gTable.length-gTable.length/4) {
+			rehash(gTable.length*2);
+		}
+		return entry;
+	}
+
+	/**
+	 * Get the number of entries
+	 * @return number of entries
+	 */
+	public int size() {
+		return gSize;
+	}
+
+	/**
+	 * Get the number of distinct checksums
+	 * @return number of distinct checksums
+	 */
+	public int checksumCount() {
+		return gChecksums;
+	}
+
+	/**
+	 * Get the checksum of an entry
+	 * @param pEntry entry number
+	 * @return checksum, as it was added
+	 */
+	public String getChecksum(int pEntry) {
+		int info = info(pEntry);
+		int offset = pEntry*gWords;
+		if((info&INTERNED)!=0) {
+			return gInternedStrings.get((int)gDigests[offset+gWords-1]);
+		}
+		char[] digits = (info&LOWER)!=0 ? LOWER_DIGITS : UPPER_DIGITS;
+		char[] chars = new char[info&LENGTH_MASK];
+		for(int i=0;i<chars.length;i++) {
+			// i counts digits from the right
+			long word = gDigests[offset+gWords-1-i/16];
+			chars[chars.length-1-i] = digits[(int)(word>>>((i%16)*4))&0xF];
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * Get the filename of an entry
+	 * @param pEntry entry number
+	 * @return filename (may be null)
+	 */
+	public String getFile(int pEntry) {
+		long position = gPaths[pEntry];
+		if(position<0) {
+			return null;
+		}
+		byte[] page = gArena[(int)(position>>>32)];
+		int length = readLength(page, (int)position);
+		return new String(page, (int)position+lengthSize(length), length, UTF8);
+	}
+
+	/**
+	 * Compare the names of two entries the same way as {@link ManifestDiffer#nameKey(String)},
+	 * without decoding them if they are ASCII
+	 * @param pEntry entry number
+	 * @param pOther manifest holding the other entry
+	 * @param pOtherEntry entry number in pOther
+	 * @return true if the names match
+	 */
+	boolean sameName(int pEntry, CompactManifest pOther, int pOtherEntry) {
+		long position = gPaths[pEntry];
+		long otherPosition = pOther.gPaths[pOtherEntry];
+		if(position<0||otherPosition<0) {
+			return position<0&&otherPosition<0;
+		}
+		byte[] page = gArena[(int)(position>>>32)];
+		int length = readLength(page, (int)position);
+		int end = (int)position+lengthSize(length)+length;
+		int name = nameStart(page, end-length, end);
+		byte[] otherPage = pOther.gArena[(int)(otherPosition>>>32)];
+		int otherLength = readLength(otherPage, (int)otherPosition);
+		int otherEnd = (int)otherPosition+lengthSize(otherLength)+otherLength;
+		int otherName = nameStart(otherPage, otherEnd-otherLength, otherEnd);
+		if(name<0||otherName<0) {
+			return ManifestDiffer.nameKey(getFile(pEntry)).equals(ManifestDiffer.nameKey(pOther.getFile(pOtherEntry)));
+		}
+		if(end-name!=otherEnd-otherName) {
+			return false;
+		}
+		for(int i=name, j=otherName;i<end;i++, j++) {
+			if(page[i]!=otherPage[j]&&lowerAscii(page[i])!=lowerAscii(otherPage[j])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return where the name starts in a path, after its last separator, or -1 if it has to
+	 * be decoded to compare it: not ASCII, a possible drive prefix or a trailing separator
+	 */
+	private static int nameStart(byte[] pPage, int pStart, int pEnd) {
+		int name = pStart;
+		for(int i=pStart;i<pEnd;i++) {
+			byte b = pPage[i];
+			if(b<0||b==':') {
+				return -1;
+			}
+			if(b=='/'||b==File.separatorChar) {
+				name = i+1;
+			}
+		}
+		return name==pEnd&&pEnd>pStart ? -1 : name;
+	}
+
+	private static int lowerAscii(byte pByte) {
+		return pByte>='A'&&pByte<='Z' ? pByte+('a'-'A') : pByte;
+	}
+
+	/**
+	 * Find the first entry with a checksum
+	 * @param pChecksum checksum value
+	 * @return first entry with that checksum, or NONE
+	 */
+	public int first(String pChecksum) {
+		long[] words = new long[MAX_WORDS];
+		int info = pack(pChecksum, words);
+		if(info<0) {
+			Integer id = gInterned.get(pChecksum);
+			if(id==null) {
+				return NONE;
+			}
+			Arrays.fill(words, 0);
+			words[MAX_WORDS-1] = id;
+			info = INTERNED;
+		}
+		return firstInChain(gTable[find(words, info)]);
+	}
+
+	/**
+	 * Find the first entry with the same checksum as an entry in another manifest
+	 * @param pOther another manifest
+	 * @param pEntry entry number in pOther
+	 * @return first entry in this manifest with that checksum, or NONE
+	 */
+	public int first(CompactManifest pOther, int pEntry) {
+		int info = pOther.info(pEntry);
+		if((info&INTERNED)!=0) {
+			return first(pOther.getChecksum(pEntry));
+		}
+		long[] words = new long[MAX_WORDS];
+		System.arraycopy(pOther.gDigests, pEntry*pOther.gWords, words, MAX_WORDS-pOther.gWords, pOther.gWords);
+		return firstInChain(gTable[find(words, info)]);
+	}
+
+	/**
+	 * Get the next entry with the same checksum
+	 * @param pEntry entry number
+	 * @return next entry with the same checksum, in the order added, or NONE
+	 */
+	public int next(int pEntry) {
+		int next = gNext[pEntry];
+		return next<0 ? NONE : next;
+	}
+
+	/**
+	 * Mark an entry as removed, e.g. when it has been matched
+	 * @param pEntry entry number
+	 */
+	public void remove(int pEntry) {
+		gRemoved.set(pEntry);
+	}
+
+	/**
+	 * @param pEntry entry number
+	 * @return true if the entry has been removed
+	 */
+	public boolean isRemoved(int pEntry) {
+		return gRemoved.get(pEntry);
+	}
+
+	/**
+	 * Get the number of entries that have not been removed
+	 * @return number of entries
+	 */
+	public int remaining() {
+		return gSize-gRemoved.cardinality();
+	}
+
+	/**
+	 * Add the entries that have not been removed to a map, in the order added
+	 * @param pChecksumSet Map in which to load checksum values
+	 */
+	public void addTo(Map<String, ArrayList<String>> pChecksumSet) {
+		for(int entry=0;entry<gSize;entry++) {
+			if(!gRemoved.get(entry)) {
+				ChecksumDiff.addChecksum(getChecksum(entry), getFile(entry), pChecksumSet);
+			}
+		}
+	}
+
+	/**
+	 * Number of slots in the checksum table, for {@link #firstInSlot(int)}
+	 */
+	int tableLength() {
+		return gTable.length;
+	}
+
+	/**
+	 * Get the first entry of the checksum in a slot of the table, to visit each checksum once
+	 * @param pSlot slot number
+	 * @return first entry, or NONE if the slot is empty
+	 */
+	int firstInSlot(int pSlot) {
+		return firstInChain(gTable[pSlot]);
+	}
+
+	private int firstInChain(int pLast) {
+		return pLast==NONE ? NONE : ~gNext[pLast];
+	}
+
+	/**
+	 * @param pEntry entry number
+	 * @return true if the checksum of an entry is packed hex, rather than interned
+	 */
+	boolean isPacked(int pEntry) {
+		return (info(pEntry)&INTERNED)==0;
+	}
+
+	/**
+	 * @param pEntry entry number, with a packed checksum
+	 * @return number of digits in the checksum, plus 0x4000 if they are lower case
+	 */
+	int packedInfo(int pEntry) {
+		return info(pEntry)&(LENGTH_MASK|LOWER);
+	}
+
+	/**
+	 * Copy the value of a packed checksum into bytes, right aligned
+	 * @param pEntry entry number, with a packed checksum
+	 * @param pBytes bytes to fill, long enough for the checksum
+	 */
+	void getDigest(int pEntry, byte[] pBytes) {
+		int offset = pEntry*gWords;
+		for(int i=0;i<pBytes.length;i++) {
+			// i counts bytes from the right
+			long word = i<gWords*8 ? gDigests[offset+gWords-1-i/8] : 0;
+			pBytes[pBytes.length-1-i] = (byte)(word>>>((i%8)*8));
+		}
+	}
+
+	/**
+	 * Compare the packed checksums of two entries, by value and then by {@link #packedInfo(int)}
+	 * @param pEntryA entry number, with a packed checksum
+	 * @param pEntryB entry number, with a packed checksum
+	 * @return negative, zero or positive as A sorts before, with or after B
+	 */
+	int compareChecksums(int pEntryA, int pEntryB) {
+		int offsetA = pEntryA*gWords;
+		int offsetB = pEntryB*gWords;
+		for(int i=0;i<gWords;i++) {
+			int compare = Long.compareUnsigned(gDigests[offsetA+i], gDigests[offsetB+i]);
+			if(compare!=0) {
+				return compare;
+			}
+		}
+		return packedInfo(pEntryA)-packedInfo(pEntryB);
+	}
+
+	/**
+	 * Pack a hex checksum into longs, right aligned
+	 * @param pChecksum checksum value
+	 * @param pWords MAX_WORDS longs to pack into
+	 * @return info for the checksum, or -1 if it can't be packed
+	 */
+	private static int pack(String pChecksum, long[] pWords) {
+		int length = pChecksum.length();
+		if(length==0||length>MAX_WORDS*16) {
+			return -1;
+		}
+		Arrays.fill(pWords, 0);
+		int cases = 0;
+		for(int i=0;i<length;i++) {
+			int digit = digit(pChecksum.charAt(length-1-i));
+			if(digit<0) {
+				return -1;
+			}
+			cases |= digit;
+			pWords[MAX_WORDS-1-i/16] |= ((long)(digit&0xF))<<((i%16)*4);
+		}
+		return info(length, cases);
+	}
+
+	/**
+	 * Pack a hex checksum held as ASCII bytes, between the position and limit of a buffer
+	 * @see #pack(String, long[])
+	 */
+	private static int pack(ByteBuffer pChecksum, long[] pWords) {
+		int start = pChecksum.position();
+		int length = pChecksum.remaining();
+		if(length==0||length>MAX_WORDS*16) {
+			return -1;
+		}
+		Arrays.fill(pWords, 0);
+		int cases = 0;
+		for(int i=0;i<length;i++) {
+			int digit = digit(pChecksum.get(start+length-1-i)&0xFF);
+			if(digit<0) {
+				return -1;
+			}
+			cases |= digit;
+			pWords[MAX_WORDS-1-i/16] |= ((long)(digit&0xF))<<((i%16)*4);
+		}
+		return info(length, cases);
+	}
+
+	/**
+	 * @return value of a hex digit, with UPPER or LOWER set for letters, or -1
+	 */
+	private static int digit(int pChar) {
+		if(pChar>='0'&&pChar<='9') {
+			return pChar-'0';
+		}
+		if(pChar>='A'&&pChar<='F') {
+			return (pChar-'A'+10)|UPPER;
+		}
+		if(pChar>='a'&&pChar<='f') {
+			return (pChar-'a'+10)|LOWER;
+		}
+		return -1;
+	}
+
+	private static int info(int pLength, int pCases) {
+		if((pCases&UPPER)!=0&&(pCases&LOWER)!=0) {
+			// mixed case can't be given back
+			return -1;
+		}
+		return pLength|(pCases&LOWER);
+	}
+
+	private int info(int pEntry) {
+		return gInfo[pEntry]&0xFFFF;
+	}
+
+	private static int words(int pInfo) {
+		if((pInfo&INTERNED)!=0) {
+			return 1;
+		}
+		return ((pInfo&LENGTH_MASK)+15)/16;
+	}
+
+	private static int hash(long[] pWords, int pInfo) {
+		long hash = pInfo;
+		for(int i=MAX_WORDS-words(pInfo);i<MAX_WORDS;i++) {
+			hash = hash*31+pWords[i];
+		}
+		// murmur3 finaliser, packed digests are not well spread in the low bits
+		hash ^= hash>>>33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash>>>33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash>>>33;
+		return (int)hash;
+	}
+
+	/**
+	 * Find the table slot for a checksum
+	 * @return slot holding the checksum, or the empty slot where it would go
+	 */
+	private int find(long[] pWords, int pInfo) {
+		int mask = gTable.length-1;
+		int slot = hash(pWords, pInfo)&mask;
+		while(true) {
+			int entry = gTable[slot];
+			if(entry==NONE||matches(entry, pWords, pInfo)) {
+				return slot;
+			}
+			slot = (slot+1)&mask;
+		}
+	}
+
+	private boolean matches(int pEntry, long[] pWords, int pInfo) {
+		if(gInfo[pEntry]!=(short)pInfo) {
+			return false;
+		}
+		int offset = pEntry*gWords;
+		for(int i=0;i<gWords;i++) {
+			if(gDigests[offset+i]!=pWords[MAX_WORDS-gWords+i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void rehash(int pLength) {
+		int[] old = gTable;
+		gTable = new int[pLength];
+		Arrays.fill(gTable, NONE);
+		long[] words = new long[MAX_WORDS];
+		for(int last:old) {
+			if(last!=NONE) {
+				Arrays.fill(words, 0);
+				System.arraycopy(gDigests, last*gWords, words, MAX_WORDS-gWords, gWords);
+				gTable[find(words, info(last))] = last;
+			}
+		}
+	}
+
+	/**
+	 * Use more longs per entry, for a longer checksum
+	 */
+	private void widen(int pWords) {
+		long[] digests = new long[gInfo.length*pWords];
+		for(int i=0;i<gSize;i++) {
+			System.arraycopy(gDigests, i*gWords, digests, i*pWords+pWords-gWords, gWords);
+		}
+		gDigests = digests;
+		gWords = pWords;
+	}
+
+	private void grow() {
+		int capacity = gInfo.length+(gInfo.length>>1);
+		gDigests = Arrays.copyOf(gDigests, capacity*gWords);
+		gInfo = Arrays.copyOf(gInfo, capacity);
+		gPaths = Arrays.copyOf(gPaths, capacity);
+		gNext = Arrays.copyOf(gNext, capacity);
+	}
+
+	/* filename lengths are stored as varints */
+	private static int readLength(byte[] pPage, int pOffset) {
+		int length = 0;
+		for(int shift=0;;shift+=7) {
+			byte b = pPage[pOffset++];
+			length |= (b&0x7F)<<shift;
+			if(b>=0) {
+				return length;
+			}
+		}
+	}
+
+	private static int lengthSize(int pLength) {
+		int size = 1;
+		for(int length=pLength;length>0x7F;length>>>=7) {
+			size++;
+		}
+		return size;
+	}
+
+	/**
+	 * Store a UTF-8 filename in the arena
+	 * @return page number and offset of the filename
+	 */
+	private long store(byte[] pBytes, int pOffset, int pLength) {
+		long position = reserve(pLength);
+		System.arraycopy(pBytes, pOffset, gArena[gPages-1], gPagePosition, pLength);
+		advance(pLength);
+		return position;
+	}
+
+	/**
+	 * Store a UTF-8 filename from between the position and limit of a buffer, moving its
+	 * position to the limit
+	 * @return page number and offset of the filename
+	 */
+	private long store(ByteBuffer pBytes) {
+		int length = pBytes.remaining();
+		long position = reserve(length);
+		pBytes.get(gArena[gPages-1], gPagePosition, length);
+		advance(length);
+		return position;
+	}
+
+	/**
+	 * Make room for a filename and write its length, leaving gPagePosition where the
+	 * bytes go
+	 */
+	private long reserve(int pLength) {
+		// length as a varint, then the bytes
+		int needed = pLength+5;
+		if(gPagePosition+needed>PAGE_SIZE) {
+			if(gPages==gArena.length) {
+				gArena = Arrays.copyOf(gArena, gPages*2);
+			}
+			gArena[gPages++] = new byte[Math.max(PAGE_SIZE, needed)];
+			gPagePosition = 0;
+		}
+		byte[] page = gArena[gPages-1];
+		long position = (((long)gPages-1)<<32)|gPagePosition;
+		int length = pLength;
+		while(length>0x7F) {
+			page[gPagePosition++] = (byte)(length|0x80);
+			length >>>= 7;
+		}
+		page[gPagePosition++] = (byte)length;
+		return position;
+	}
+
+	private void advance(int pLength) {
+		gPagePosition += pLength;
+		if(gArena[gPages-1].length>PAGE_SIZE) {
+			// an outsize page is only used for one filename
+			gPagePosition = PAGE_SIZE;
+		}
+	}
+
+}
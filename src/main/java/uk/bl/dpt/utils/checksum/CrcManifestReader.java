@@ -0,0 +1,308 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Reads an OS CRC manifest file (lines of "path,checksum") by memory mapping it.
+ *
+ * The reader is a cursor: {@link #next()} moves to the next line, finding the delimiters
+ * without decoding anything, and the checksum and path are only made into Strings when
+ * asked for.  The path is everything before the last comma on the line, so it may contain
+ * commas.  A path may also be quoted, CSV style, with a doubled quote for a quote; a quoted
+ * path can contain anything, including line endings.  Backslashes are not escapes, as they
+ * are Windows path separators.  Empty lines are skipped.  The file is read as UTF-8.
+ *
+ * Files are mapped in windows, so there is no limit on the size of a file, but a single
+ * line must fit in a window.
+ */
+public class CrcManifestReader implements Closeable {
+
+	private final static Charset UTF8 = Charset.forName("UTF-8");
+	private final static int DEFAULT_WINDOWSIZE = 256*1024*1024;
+
+	private final FileInputStream gInput;
+	private final FileChannel gChannel;
+	private final long gEnd;
+	private final int gWindowSize;
+
+	/* the mapped window, and the file position of its start */
+	private ByteBuffer gBuffer = null;
+	private long gBufferStart;
+	/* start of the next line in the window */
+	private int gPosition = 0;
+
+	/* the current line */
+	private int gChecksumStart;
+	private int gChecksumEnd;
+	private int gPathStart;
+	private int gPathEnd;
+	private boolean gQuoted;
+	private byte[] gUnquoted = new byte[256];
+	private int gUnquotedLength;
+	private long gLineOffset = -1;
+	private ByteBuffer gChecksumView;
+	private ByteBuffer gPathView;
+
+	/**
+	 * Read a whole file
+	 * @param pFile OS CRC file
+	 * @throws IOException if the file could not be opened
+	 */
+	public CrcManifestReader(File pFile) throws IOException {
+		this(pFile, 0, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Read part of a file, which must start at the start of a line
+	 * @param pFile OS CRC file
+	 * @param pStart offset to start at
+	 * @param pLength number of bytes to read
+	 * @throws IOException if the file could not be opened
+	 */
+	public CrcManifestReader(File pFile, long pStart, long pLength) throws IOException {
+		this(pFile, pStart, pLength, DEFAULT_WINDOWSIZE);
+	}
+
+	CrcManifestReader(File pFile, long pStart, long pLength, int pWindowSize) throws IOException {
+		gInput = new FileInputStream(pFile);
+		gChannel = gInput.getChannel();
+		long size = gChannel.size();
+		gBufferStart = Math.min(pStart, size);
+		gEnd = pLength>size-gBufferStart ? size : gBufferStart+pLength;
+		gWindowSize = pWindowSize;
+	}
+
+	/**
+	 * Read all the entries of a file
+	 * @param pFile OS CRC file
+	 * @param pHandler handler for each entry.  A {@link CompactManifest} is given the bytes
+	 * directly, without making Strings.
+	 * @throws IOException if the file could not be read or is malformed
+	 */
+	public static void read(File pFile, ManifestEntryHandler pHandler) throws IOException {
+		CrcManifestReader reader = new CrcManifestReader(pFile);
+		try {
+			if(pHandler instanceof CompactManifest) {
+				CompactManifest manifest = (CompactManifest)pHandler;
+				while(reader.next()) {
+					reader.addTo(manifest);
+				}
+			} else {
+				while(reader.next()) {
+					pHandler.entry(reader.getChecksum(), reader.getPath());
+				}
+			}
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Move to the next line
+	 * @return false at the end of the file
+	 * @throws IOException if the file could not be read, or the line is malformed
+	 */
+	public boolean next() throws IOException {
+		while(true) {
+			if(gBuffer==null) {
+				map(gBufferStart);
+			}
+			if(gBufferStart+gPosition>=gEnd) {
+				return false;
+			}
+			int next = parse(gPosition);
+			if(next<0) {
+				// the line runs past the window
+				if(gPosition==0) {
+					throw new IOException("Line longer than "+gWindowSize+" bytes at offset "+gBufferStart);
+				}
+				map(gBufferStart+gPosition);
+				continue;
+			}
+			gLineOffset = gBufferStart+gPosition;
+			gPosition = next;
+			if(gChecksumStart>=0) {
+				return true;
+			}
+			// an empty line
+		}
+	}
+
+	private void map(long pStart) throws IOException {
+		gBufferStart = pStart;
+		gBuffer = gChannel.map(FileChannel.MapMode.READ_ONLY, pStart, Math.min(gWindowSize, gEnd-pStart));
+		gChecksumView = gBuffer.duplicate();
+		gPathView = gBuffer.duplicate();
+		gPosition = 0;
+	}
+
+	/**
+	 * Find the parts of the line starting at pStart
+	 * @return start of the next line, or -1 if this line does not end in the window
+	 */
+	private int parse(int pStart) throws IOException {
+		ByteBuffer buffer = gBuffer;
+		int limit = buffer.limit();
+		boolean last = gBufferStart+limit>=gEnd;
+		int i = pStart;
+		gChecksumStart = -1;
+		gQuoted = i<limit&&buffer.get(i)=='"';
+		if(gQuoted) {
+			gUnquotedLength = 0;
+			i++;
+			while(true) {
+				if(i>=limit) {
+					if(last) throw new IOException("Unterminated quoted path at offset "+(gBufferStart+pStart));
+					return -1;
+				}
+				byte b = buffer.get(i++);
+				if(b=='"') {
+					if(i<limit&&buffer.get(i)=='"') {
+						i++;
+					} else if(i>=limit&&!last) {
+						// can't tell if the quote is doubled
+						return -1;
+					} else {
+						break;
+					}
+				}
+				if(gUnquotedLength==gUnquoted.length) {
+					gUnquoted = Arrays.copyOf(gUnquoted, gUnquotedLength*2);
+				}
+				gUnquoted[gUnquotedLength++] = b;
+			}
+			if(i>=limit&&!last) {
+				return -1;
+			}
+			if(i>=limit||buffer.get(i)!=',') {
+				throw new IOException("Expected a comma after the quoted path at offset "+(gBufferStart+pStart));
+			}
+			gChecksumStart = ++i;
+			while(i<limit) {
+				byte b = buffer.get(i);
+				if(b=='\n'||b=='\r') {
+					break;
+				}
+				i++;
+			}
+			if(i>=limit&&!last) {
+				return -1;
+			}
+		} else {
+			int comma = -1;
+			while(i<limit) {
+				byte b = buffer.get(i);
+				if(b=='\n'||b=='\r') {
+					break;
+				}
+				if(b==',') {
+					comma = i;
+				}
+				i++;
+			}
+			if(i>=limit&&!last) {
+				return -1;
+			}
+			if(comma>=0) {
+				gPathStart = pStart;
+				gPathEnd = comma;
+				gChecksumStart = comma+1;
+			} else if(i>pStart) {
+				throw new IOException("No checksum on line at offset "+(gBufferStart+pStart));
+			}
+		}
+		gChecksumEnd = i;
+
+		// skip the line ending
+		if(i<limit&&buffer.get(i)=='\r') {
+			i++;
+		}
+		if(i<limit&&buffer.get(i)=='\n') {
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * Get the checksum on the current line
+	 * @return checksum
+	 */
+	public String getChecksum() {
+		return decode(gChecksumStart, gChecksumEnd);
+	}
+
+	/**
+	 * Get the path on the current line
+	 * @return path, without any quotes
+	 */
+	public String getPath() {
+		if(gQuoted) {
+			return new String(gUnquoted, 0, gUnquotedLength, UTF8);
+		}
+		return decode(gPathStart, gPathEnd);
+	}
+
+	/**
+	 * Get the file offset of the current line
+	 * @return offset of the start of the line
+	 */
+	public long getLineOffset() {
+		return gLineOffset;
+	}
+
+	/**
+	 * Add the current line to a manifest, straight from the mapped bytes
+	 * @param pManifest manifest to add to
+	 */
+	void addTo(CompactManifest pManifest) {
+		gChecksumView.limit(gChecksumEnd).position(gChecksumStart);
+		ByteBuffer path;
+		if(gQuoted) {
+			path = ByteBuffer.wrap(gUnquoted, 0, gUnquotedLength);
+		} else {
+			gPathView.limit(gPathEnd).position(gPathStart);
+			path = gPathView;
+		}
+		pManifest.add(gChecksumView, path);
+	}
+
+	private String decode(int pStart, int pEnd) {
+		byte[] bytes = new byte[pEnd-pStart];
+		ByteBuffer view = gBuffer.duplicate();
+		view.position(pStart);
+		view.get(bytes);
+		return new String(bytes, UTF8);
+	}
+
+	@Override
+	public void close() throws IOException {
+		gBuffer = null;
+		gChecksumView = null;
+		gPathView = null;
+		gInput.close();
+	}
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * Writes an OS CRC manifest file: lines of "path,checksum", as read by {@link CrcManifestReader}.
+ *
+ * Paths are written as they are, commas included, unless they start with a quote or contain
+ * a line ending, in which case they are quoted CSV style.  The checksum written is the cksum
+ * one by default.
+ */
+public class CrcManifestWriter extends ManifestWriter {
+
+	private final String gAlgorithm;
+
+	/**
+	 * Write cksum checksums to a writer
+	 * @param pWriter writer for the manifest
+	 */
+	public CrcManifestWriter(Writer pWriter) {
+		this(pWriter, "cksum");
+	}
+
+	/**
+	 * Write checksums to a writer
+	 * @param pWriter writer for the manifest
+	 * @param pAlgorithm algorithm of the checksum to write, in ChecksumUtil form
+	 */
+	public CrcManifestWriter(Writer pWriter, String pAlgorithm) {
+		super(pWriter);
+		gAlgorithm = pAlgorithm;
+	}
+
+	/**
+	 * Open a manifest file, gzipped if its name ends in ".gz".  When appending, any
+	 * incomplete last line (e.g. from a crash) is removed first.  A gzipped manifest
+	 * cannot be appended to, as a member torn by a crash would hide everything after it.
+	 * @param pFile manifest file
+	 * @param pAppend true to add to the end of the file, false to replace it
+	 * @return writer for cksum checksums
+	 * @throws IOException if the file could not be opened
+	 */
+	public static CrcManifestWriter open(File pFile, boolean pAppend) throws IOException {
+		boolean gzip = isGzip(pFile);
+		boolean append = pAppend&&pFile.exists()&&pFile.length()>0;
+		if(append) {
+			if(gzip) {
+				throw new IOException("Cannot append to a gzipped OS CRC manifest: "+pFile);
+			}
+			truncateToLastLine(pFile, null);
+		}
+		return new CrcManifestWriter(open(pFile, append, gzip));
+	}
+
+	@Override
+	protected void writeEntry(String pPath, Map<String, String> pChecksums) throws IOException {
+		String checksum = pChecksums.get(gAlgorithm);
+		if(checksum==null) {
+			throw new IOException("No "+gAlgorithm+" checksum for "+pPath);
+		}
+		write(pPath, checksum);
+	}
+
+	/**
+	 * Write an entry
+	 * @param pPath path of the file
+	 * @param pChecksum checksum of the file
+	 * @throws IOException if the entry could not be written
+	 */
+	public void write(String pPath, String pChecksum) throws IOException {
+		if(needsQuotes(pPath)) {
+			gWriter.write('"');
+			int start = 0;
+			for(int i=0;i<pPath.length();i++) {
+				if(pPath.charAt(i)=='"') {
+					gWriter.write(pPath, start, i+1-start);
+					gWriter.write('"');
+					start = i+1;
+				}
+			}
+			gWriter.write(pPath, start, pPath.length()-start);
+			gWriter.write('"');
+		} else {
+			gWriter.write(pPath);
+		}
+		gWriter.write(',');
+		gWriter.write(pChecksum);
+		gWriter.write('\n');
+	}
+
+	private static boolean needsQuotes(String pPath) {
+		if(pPath.length()>0&&pPath.charAt(0)=='"') {
+			return true;
+		}
+		for(int i=0;i<pPath.length();i++) {
+			char c = pPath.charAt(i);
+			if(c=='\n'||c=='\r') {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
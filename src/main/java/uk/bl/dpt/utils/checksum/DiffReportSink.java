@@ -0,0 +1,71 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Receives a diff report as the diff runs (see {@link ChecksumDiff} and {@link DiffReports}).
+ *
+ * {@link #start(String, String)} is called first, then any number of messages and unique
+ * entries, as they are found, then {@link #summary(long, long, long, long)}.
+ */
+public interface DiffReportSink extends Closeable {
+
+	/**
+	 * A diff has started
+	 * @param pNameA name of the first manifest
+	 * @param pNameB name of the second manifest
+	 * @throws IOException if the report could not be written
+	 */
+	public void start(String pNameA, String pNameB) throws IOException;
+
+	/**
+	 * A progress message
+	 * @param pMessage message
+	 * @throws IOException if the report could not be written
+	 */
+	public void message(String pMessage) throws IOException;
+
+	/**
+	 * An entry only in the first manifest has been found
+	 * @param pChecksum checksum value
+	 * @param pFile filename (may be null)
+	 * @throws IOException if the report could not be written, this stops the diff
+	 */
+	public void uniqueToA(String pChecksum, String pFile) throws IOException;
+
+	/**
+	 * An entry only in the second manifest has been found
+	 * @param pChecksum checksum value
+	 * @param pFile filename (may be null)
+	 * @throws IOException if the report could not be written, this stops the diff
+	 */
+	public void uniqueToB(String pChecksum, String pFile) throws IOException;
+
+	/**
+	 * The diff has finished
+	 * @param pEntriesA number of entries in the first manifest (-1 if not known)
+	 * @param pEntriesB number of entries in the second manifest (-1 if not known)
+	 * @param pUniqueA number of entries only in the first manifest
+	 * @param pUniqueB number of entries only in the second manifest
+	 * @throws IOException if the report could not be written
+	 */
+	public void summary(long pEntriesA, long pEntriesB, long pUniqueA, long pUniqueB) throws IOException;
+
+}
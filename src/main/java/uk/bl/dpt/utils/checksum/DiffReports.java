@@ -0,0 +1,397 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Diff report writers (see {@link DiffReportSink}).  All of them buffer their output, and
+ * write each unique entry as it is reported.
+ * <ul>
+ * <li>{@link #TEXT}: progress messages, then a line per unique entry, "&lt; checksum: file"
+ * for the first manifest and "&gt; checksum: file" for the second, then the counts</li>
+ * <li>{@link #CSV}: a "set,checksum,file" header, then a row per unique entry, with set
+ * A or B.  Fields are quoted when needed, with a doubled quote for a quote.</li>
+ * <li>{@link #JSON}: a JSON object per line, with a type of "start", "unique" or "summary"</li>
+ * <li>{@link #QUIET}: the counts only</li>
+ * </ul>
+ */
+public class DiffReports {
+
+	/**
+	 * Plain text report format
+	 */
+	public final static String TEXT = "text";
+	/**
+	 * CSV report format
+	 */
+	public final static String CSV = "csv";
+	/**
+	 * JSON lines report format
+	 */
+	public final static String JSON = "json";
+	/**
+	 * Summary only report format
+	 */
+	public final static String QUIET = "quiet";
+
+	private final static Charset UTF8 = Charset.forName("UTF-8");
+	private final static int BUFSIZE = 64*1024;
+
+	private DiffReports() { }
+
+	/**
+	 * Open a report file, gzipped if the name ends in ".gz"
+	 * @param pFile report file
+	 * @param pFormat report format ({@link #TEXT}, {@link #CSV}, {@link #JSON} or {@link #QUIET})
+	 * @return report
+	 * @throws IOException if the file could not be created
+	 */
+	public static DiffReportSink open(File pFile, String pFormat) throws IOException {
+		return open(pFile, pFormat, pFile.getName().toLowerCase().endsWith(".gz"));
+	}
+
+	/**
+	 * Open a report file
+	 * @param pFile report file
+	 * @param pFormat report format ({@link #TEXT}, {@link #CSV}, {@link #JSON} or {@link #QUIET})
+	 * @param pGzip true to gzip the report
+	 * @return report
+	 * @throws IOException if the file could not be created
+	 */
+	public static DiffReportSink open(File pFile, String pFormat, boolean pGzip) throws IOException {
+		if(!(TEXT.equals(pFormat)||CSV.equals(pFormat)||JSON.equals(pFormat)||QUIET.equals(pFormat))) {
+			throw new IllegalArgumentException("Unknown report format: "+pFormat);
+		}
+		OutputStream output = new FileOutputStream(pFile);
+		try {
+			if(pGzip) {
+				output = new GZIPOutputStream(output, BUFSIZE);
+			}
+			return create(pFormat, new OutputStreamWriter(output, UTF8));
+		} catch(IOException e) {
+			output.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Create a report
+	 * @param pFormat report format ({@link #TEXT}, {@link #CSV}, {@link #JSON} or {@link #QUIET})
+	 * @param pWriter writer for the report, closed with the report
+	 * @return report
+	 */
+	public static DiffReportSink create(String pFormat, Writer pWriter) {
+		if(TEXT.equals(pFormat)) {
+			return text(pWriter);
+		}
+		if(CSV.equals(pFormat)) {
+			return csv(pWriter);
+		}
+		if(JSON.equals(pFormat)) {
+			return jsonLines(pWriter);
+		}
+		if(QUIET.equals(pFormat)) {
+			return quiet(pWriter);
+		}
+		throw new IllegalArgumentException("Unknown report format: "+pFormat);
+	}
+
+	/**
+	 * @param pWriter writer for the report, closed with the report
+	 * @return a plain text report
+	 */
+	public static DiffReportSink text(Writer pWriter) {
+		return new TextReport(pWriter);
+	}
+
+	/**
+	 * @param pWriter writer for the report, closed with the report
+	 * @return a CSV report of the unique entries
+	 */
+	public static DiffReportSink csv(Writer pWriter) {
+		return new CsvReport(pWriter);
+	}
+
+	/**
+	 * @param pWriter writer for the report, closed with the report
+	 * @return a JSON lines report
+	 */
+	public static DiffReportSink jsonLines(Writer pWriter) {
+		return new JsonReport(pWriter);
+	}
+
+	/**
+	 * @param pWriter writer for the report, closed with the report
+	 * @return a report of the counts only
+	 */
+	public static DiffReportSink quiet(Writer pWriter) {
+		return new QuietReport(pWriter);
+	}
+
+	/**
+	 * Common parts of the reports: buffering, and the counts in text
+	 */
+	private static abstract class Report implements DiffReportSink {
+
+		protected final Writer gWriter;
+		protected String gNameA = "A";
+		protected String gNameB = "B";
+
+		Report(Writer pWriter) {
+			gWriter = pWriter instanceof BufferedWriter ? pWriter : new BufferedWriter(pWriter, BUFSIZE);
+		}
+
+		@Override
+		public void start(String pNameA, String pNameB) throws IOException {
+			gNameA = pNameA;
+			gNameB = pNameB;
+		}
+
+		@Override
+		public void message(String pMessage) throws IOException {
+			// not reported
+		}
+
+		@Override
+		public void uniqueToA(String pChecksum, String pFile) throws IOException {
+			// not reported
+		}
+
+		@Override
+		public void uniqueToB(String pChecksum, String pFile) throws IOException {
+			// not reported
+		}
+
+		@Override
+		public void summary(long pEntriesA, long pEntriesB, long pUniqueA, long pUniqueB) throws IOException {
+			if(pEntriesA>=0) {
+				line("Entries in "+gNameA+": "+pEntriesA);
+			}
+			if(pEntriesB>=0) {
+				line("Entries in "+gNameB+": "+pEntriesB);
+			}
+			line("Unique files in "+gNameA+": "+pUniqueA);
+			line("Unique files in "+gNameB+": "+pUniqueB);
+		}
+
+		protected void line(String pLine) throws IOException {
+			gWriter.write(pLine);
+			gWriter.write('\n');
+		}
+
+		@Override
+		public void close() throws IOException {
+			gWriter.close();
+		}
+
+	}
+
+	private static class TextReport extends Report {
+
+		TextReport(Writer pWriter) {
+			super(pWriter);
+		}
+
+		@Override
+		public void start(String pNameA, String pNameB) throws IOException {
+			super.start(pNameA, pNameB);
+			line("< "+pNameA);
+			line("> "+pNameB);
+		}
+
+		@Override
+		public void message(String pMessage) throws IOException {
+			line(pMessage);
+		}
+
+		@Override
+		public void uniqueToA(String pChecksum, String pFile) throws IOException {
+			line("< "+pChecksum+": "+pFile);
+		}
+
+		@Override
+		public void uniqueToB(String pChecksum, String pFile) throws IOException {
+			line("> "+pChecksum+": "+pFile);
+		}
+
+	}
+
+	private static class QuietReport extends Report {
+
+		QuietReport(Writer pWriter) {
+			super(pWriter);
+		}
+
+	}
+
+	private static class CsvReport extends Report {
+
+		CsvReport(Writer pWriter) {
+			super(pWriter);
+		}
+
+		@Override
+		public void start(String pNameA, String pNameB) throws IOException {
+			super.start(pNameA, pNameB);
+			line("set,checksum,file");
+		}
+
+		@Override
+		public void uniqueToA(String pChecksum, String pFile) throws IOException {
+			row("A", pChecksum, pFile);
+		}
+
+		@Override
+		public void uniqueToB(String pChecksum, String pFile) throws IOException {
+			row("B", pChecksum, pFile);
+		}
+
+		@Override
+		public void summary(long pEntriesA, long pEntriesB, long pUniqueA, long pUniqueB) throws IOException {
+			// rows only
+		}
+
+		private void row(String pSet, String pChecksum, String pFile) throws IOException {
+			gWriter.write(pSet);
+			gWriter.write(',');
+			field(pChecksum);
+			gWriter.write(',');
+			field(pFile);
+			gWriter.write('\n');
+		}
+
+		private void field(String pValue) throws IOException {
+			if(pValue==null) {
+				return;
+			}
+			boolean quote = false;
+			for(int i=0;i<pValue.length()&&!quote;i++) {
+				char c = pValue.charAt(i);
+				quote = c==','||c=='"'||c=='\n'||c=='\r';
+			}
+			if(!quote) {
+				gWriter.write(pValue);
+				return;
+			}
+			gWriter.write('"');
+			for(int i=0;i<pValue.length();i++) {
+				char c = pValue.charAt(i);
+				if(c=='"') {
+					gWriter.write('"');
+				}
+				gWriter.write(c);
+			}
+			gWriter.write('"');
+		}
+
+	}
+
+	private static class JsonReport extends Report {
+
+		JsonReport(Writer pWriter) {
+			super(pWriter);
+		}
+
+		@Override
+		public void start(String pNameA, String pNameB) throws IOException {
+			super.start(pNameA, pNameB);
+			gWriter.write("{\"type\":\"start\",\"a\":");
+			string(pNameA);
+			gWriter.write(",\"b\":");
+			string(pNameB);
+			gWriter.write("}\n");
+		}
+
+		@Override
+		public void uniqueToA(String pChecksum, String pFile) throws IOException {
+			unique("A", pChecksum, pFile);
+		}
+
+		@Override
+		public void uniqueToB(String pChecksum, String pFile) throws IOException {
+			unique("B", pChecksum, pFile);
+		}
+
+		private void unique(String pSet, String pChecksum, String pFile) throws IOException {
+			gWriter.write("{\"type\":\"unique\",\"set\":\"");
+			gWriter.write(pSet);
+			gWriter.write("\",\"checksum\":");
+			string(pChecksum);
+			gWriter.write(",\"file\":");
+			string(pFile);
+			gWriter.write("}\n");
+		}
+
+		@Override
+		public void summary(long pEntriesA, long pEntriesB, long pUniqueA, long pUniqueB) throws IOException {
+			gWriter.write("{\"type\":\"summary\"");
+			if(pEntriesA>=0) {
+				gWriter.write(",\"entriesA\":"+pEntriesA);
+			}
+			if(pEntriesB>=0) {
+				gWriter.write(",\"entriesB\":"+pEntriesB);
+			}
+			gWriter.write(",\"uniqueA\":"+pUniqueA+",\"uniqueB\":"+pUniqueB+"}\n");
+		}
+
+		private void string(String pValue) throws IOException {
+			if(pValue==null) {
+				gWriter.write("null");
+				return;
+			}
+			gWriter.write('"');
+			for(int i=0;i<pValue.length();i++) {
+				char c = pValue.charAt(i);
+				switch(c) {
+				case '"':
+					gWriter.write("\\\"");
+					break;
+				case '\\':
+					gWriter.write("\\\\");
+					break;
+				case '\n':
+					gWriter.write("\\n");
+					break;
+				case '\r':
+					gWriter.write("\\r");
+					break;
+				case '\t':
+					gWriter.write("\\t");
+					break;
+				default:
+					if(c<0x20) {
+						gWriter.write(String.format("\\u%04x", (int)c));
+					} else {
+						gWriter.write(c);
+					}
+				}
+			}
+			gWriter.write('"');
+		}
+
+	}
+
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * The result of comparing two manifests (see {@link ManifestDiffer})
+ */
+public class DiffResult {
+
+	/**
+	 * A manifest entry that was only found in one manifest
+	 */
+	public static class Entry {
+
+		private final String gChecksum;
+		private final String gFile;
+
+		/**
+		 * @param pChecksum checksum value
+		 * @param pFile filename relating to checksum (may be null)
+		 */
+		public Entry(String pChecksum, String pFile) {
+			gChecksum = pChecksum;
+			gFile = pFile;
+		}
+
+		/**
+		 * @return checksum value
+		 */
+		public String getChecksum() {
+			return gChecksum;
+		}
+
+		/**
+		 * @return filename (may be null)
+		 */
+		public String getFile() {
+			return gFile;
+		}
+
+		@Override
+		public String toString() {
+			return gChecksum+": "+gFile;
+		}
+
+	}
+
+	private final long gEntriesA;
+	private final long gEntriesB;
+	private final long gUniqueCountA;
+	private final long gUniqueCountB;
+	private final Iterable<Entry> gUniqueA;
+	private final Iterable<Entry> gUniqueB;
+
+	DiffResult(long pEntriesA, long pEntriesB, long pUniqueCountA, long pUniqueCountB, Iterable<Entry> pUniqueA, Iterable<Entry> pUniqueB) {
+		gEntriesA = pEntriesA;
+		gEntriesB = pEntriesB;
+		gUniqueCountA = pUniqueCountA;
+		gUniqueCountB = pUniqueCountB;
+		gUniqueA = pUniqueA;
+		gUniqueB = pUniqueB;
+	}
+
+	/**
+	 * @return number of entries in the first manifest
+	 */
+	public long getEntriesA() {
+		return gEntriesA;
+	}
+
+	/**
+	 * @return number of entries in the second manifest
+	 */
+	public long getEntriesB() {
+		return gEntriesB;
+	}
+
+	/**
+	 * @return number of entries only in the first manifest
+	 */
+	public long getUniqueCountA() {
+		return gUniqueCountA;
+	}
+
+	/**
+	 * @return number of entries only in the second manifest
+	 */
+	public long getUniqueCountB() {
+		return gUniqueCountB;
+	}
+
+	/**
+	 * @return true if every entry was matched
+	 */
+	public boolean isIdentical() {
+		return gUniqueCountA==0&&gUniqueCountB==0;
+	}
+
+	/**
+	 * Get the entries only in the first manifest.  This can be called more than once.
+	 * @return entries only in the first manifest
+	 */
+	public Iterator<Entry> uniqueToA() {
+		return gUniqueA.iterator();
+	}
+
+	/**
+	 * Get the entries only in the second manifest.  This can be called more than once.
+	 * @return entries only in the second manifest
+	 */
+	public Iterator<Entry> uniqueToB() {
+		return gUniqueB.iterator();
+	}
+
+	@Override
+	public String toString() {
+		return "DiffResult [entriesA="+gEntriesA+", entriesB="+gEntriesB+", uniqueA="+gUniqueCountA+", uniqueB="+gUniqueCountB+"]";
+	}
+
+	/**
+	 * The entries remaining in a compact manifest, in the order they were added
+	 */
+	static Iterable<Entry> remaining(final CompactManifest pManifest) {
+		return new Iterable<Entry>() {
+			@Override
+			public Iterator<Entry> iterator() {
+				return new Iterator<Entry>() {
+
+					private int gNext = skip(0);
+
+					private int skip(int pEntry) {
+						int entry = pEntry;
+						while(entry<pManifest.size()&&pManifest.isRemoved(entry)) {
+							entry++;
+						}
+						return entry;
+					}
+
+					@Override
+					public boolean hasNext() {
+						return gNext<pManifest.size();
+					}
+
+					@Override
+					public Entry next() {
+						if(!hasNext()) throw new NoSuchElementException();
+						Entry entry = new Entry(pManifest.getChecksum(gNext), pManifest.getFile(gNext));
+						gNext = skip(gNext+1);
+						return entry;
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+
+				};
+			}
+		};
+	}
+
+	/**
+	 * The entries remaining in a map, grouped by checksum
+	 */
+	static Iterable<Entry> remaining(final Map<String, ArrayList<String>> pChecksumSet) {
+		return new Iterable<Entry>() {
+			@Override
+			public Iterator<Entry> iterator() {
+				return new Iterator<Entry>() {
+
+					private final Iterator<Map.Entry<String, ArrayList<String>>> gChecksums = pChecksumSet.entrySet().iterator();
+					private String gChecksum = null;
+					private Iterator<String> gFiles = Collections.<String>emptyList().iterator();
+
+					@Override
+					public boolean hasNext() {
+						while(!gFiles.hasNext()&&gChecksums.hasNext()) {
+							Map.Entry<String, ArrayList<String>> entry = gChecksums.next();
+							gChecksum = entry.getKey();
+							gFiles = entry.getValue().iterator();
+						}
+						return gFiles.hasNext();
+					}
+
+					@Override
+					public Entry next() {
+						if(!hasNext()) throw new NoSuchElementException();
+						return new Entry(gChecksum, gFiles.next());
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+
+				};
+			}
+		};
+	}
+
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.bl.dpt.utils.checksum.cksum.CkSumProvider;
+import uk.bl.dpt.utils.checksum.crc.CRC32C;
+
+/**
+ * Registry of the checksum algorithms that can be used in a {@link ChecksumSpec}
+ *
+ * CRC32, CRC32C and cksum are built in.  Any other name is looked up as a
+ * JCA MessageDigest (MD5, SHA-1, SHA-256, SHA-512 etc) the first time it is used.
+ * Further algorithms can be added with {@link #register(String, DigesterFactory)}.
+ *
+ * Names are not case sensitive, the canonical name of an algorithm is the key that
+ * its value will be stored under in the checksum Map.
+ */
+public class DigestRegistry {
+
+	private static Logger gLogger = LoggerFactory.getLogger(DigestRegistry.class);
+
+	/**
+	 * A registered algorithm
+	 */
+	private static class Entry {
+		final String name;
+		final DigesterFactory factory;
+		Entry(String pName, DigesterFactory pFactory) {
+			name = pName;
+			factory = pFactory;
+		}
+	}
+
+	/* keyed on upper case name */
+	private final static ConcurrentMap<String, Entry> gEntries = new ConcurrentHashMap<String, Entry>();
+
+	/* standard JCA names and their common aliases, keyed on upper case name */
+	private final static Map<String, String> gCanonicalNames = new HashMap<String, String>();
+
+	static {
+		CkSumProvider.register();
+
+		for(String name:new String[] { "MD2", "MD5", "SHA-1", "SHA-224", "SHA-256", "SHA-384", "SHA-512",
+				"SHA-512/224", "SHA-512/256", "SHA3-224", "SHA3-256", "SHA3-384", "SHA3-512" }) {
+			gCanonicalNames.put(key(name), name);
+			// SHA1, SHA256 etc
+			gCanonicalNames.put(key(name.replace("-", "")), name);
+		}
+		gCanonicalNames.put("SHA", "SHA-1");
+
+		register("CRC32", new DigesterFactory() {
+			@Override
+			public Digester newDigester() {
+				return new ChecksumDigester("CRC32", new CRC32());
+			}
+		});
+		register("CRC32C", new DigesterFactory() {
+			@Override
+			public Digester newDigester() {
+				return new ChecksumDigester("CRC32C", new CRC32C());
+			}
+		});
+		gEntries.put(key("cksum"), new Entry("cksum", new MessageDigestFactory("cksum", newMessageDigest("cksum"))));
+	}
+
+	private DigestRegistry() {}
+
+	private static String key(String pName) {
+		return pName.trim().toUpperCase(Locale.ENGLISH);
+	}
+
+	private static MessageDigest newMessageDigest(String pName) {
+		try {
+			return MessageDigest.getInstance(pName);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Register (or replace) an algorithm
+	 * @param pName canonical name of the algorithm
+	 * @param pFactory factory to create Digesters for the algorithm
+	 */
+	public static void register(String pName, DigesterFactory pFactory) {
+		gEntries.put(key(pName), new Entry(pName, pFactory));
+	}
+
+	/**
+	 * Is an algorithm available?
+	 * @param pName name of the algorithm
+	 * @return true if a Digester can be created for the algorithm
+	 */
+	public static boolean isAvailable(String pName) {
+		try {
+			lookup(pName);
+			return true;
+		} catch (NoSuchAlgorithmException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Get the canonical name of an algorithm (e.g. "sha256" gives "SHA-256")
+	 * @param pName name of the algorithm
+	 * @return canonical name
+	 * @throws NoSuchAlgorithmException if the algorithm is not available
+	 */
+	public static String getCanonicalName(String pName) throws NoSuchAlgorithmException {
+		return lookup(pName).name;
+	}
+
+	/**
+	 * Get the factory for an algorithm
+	 * @param pName name of the algorithm
+	 * @return factory for the algorithm
+	 * @throws NoSuchAlgorithmException if the algorithm is not available
+	 */
+	public static DigesterFactory getFactory(String pName) throws NoSuchAlgorithmException {
+		return lookup(pName).factory;
+	}
+
+	private static Entry lookup(String pName) throws NoSuchAlgorithmException {
+		if(pName==null) {
+			throw new NoSuchAlgorithmException("null algorithm");
+		}
+		Entry entry = gEntries.get(key(pName));
+		if(entry!=null) {
+			return entry;
+		}
+
+		// Not registered yet - see if the JRE can provide it
+		String name = gCanonicalNames.get(key(pName));
+		if(name==null) {
+			name = pName.trim();
+		}
+		MessageDigest prototype = MessageDigest.getInstance(name);
+		gLogger.debug("Using JCA MessageDigest for {} from {}", name, prototype.getProvider());
+		entry = new Entry(name, new MessageDigestFactory(name, prototype));
+		Entry existing = gEntries.putIfAbsent(key(pName), entry);
+		return existing==null?entry:existing;
+	}
+
+	/**
+	 * Creates MessageDigestDigesters by cloning a prototype where possible, as this
+	 * is cheaper than asking the providers each time
+	 */
+	private static class MessageDigestFactory implements DigesterFactory {
+
+		private final String gName;
+		private final MessageDigest gPrototype;
+		private final boolean gCloneable;
+
+		MessageDigestFactory(String pName, MessageDigest pPrototype) {
+			gName = pName;
+			gPrototype = pPrototype;
+			boolean cloneable = true;
+			try {
+				pPrototype.clone();
+			} catch (CloneNotSupportedException e) {
+				cloneable = false;
+			}
+			gCloneable = cloneable;
+		}
+
+		@Override
+		public Digester newDigester() {
+			MessageDigest digest = null;
+			if(gCloneable) {
+				try {
+					// the prototype is never updated so cloning it is thread safe
+					digest = (MessageDigest)gPrototype.clone();
+				} catch (CloneNotSupportedException e) {
+					// checked in the constructor
+				}
+			}
+			if(digest==null) {
+				digest = newMessageDigest(gPrototype.getAlgorithm());
+			}
+			return new MessageDigestDigester(gName, digest);
+		}
+
+	}
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A single checksum/digest calculation that can be fed with data
+ *
+ * This hides the differences between a MessageDigest and a java.util.zip.Checksum
+ * so that all the checksum types can be handled in the same way.
+ * Instances are not thread safe - each Digester should only be updated by one thread at a time.
+ */
+public interface Digester {
+
+	/**
+	 * Get the name of the algorithm, this is used as the key in the checksum Map
+	 * @return algorithm name
+	 */
+	public String getAlgorithm();
+
+	/**
+	 * Update the calculation with some data
+	 * @param pBuffer buffer containing data
+	 * @param pOffset offset of the data in the buffer
+	 * @param pLength length of the data
+	 */
+	public void update(byte[] pBuffer, int pOffset, int pLength);
+
+	/**
+	 * Update the calculation with the remaining data in a buffer (which may be direct
+	 * or memory mapped).  The buffer's position is advanced to its limit.
+	 * @param pBuffer buffer containing data
+	 */
+	public void update(ByteBuffer pBuffer);
+
+	/**
+	 * Complete the calculation and return the checksum as a String in the
+	 * form that ChecksumUtil reports it.  The Digester is reset afterwards.
+	 * @return checksum value
+	 */
+	public String digestString();
+
+	/**
+	 * Complete the calculation and return the raw digest value, for callers that never
+	 * need it as text.  The Digester is reset afterwards.
+	 * @return digest bytes (big endian)
+	 */
+	public byte[] digest();
+
+	/**
+	 * Complete the calculation and return the digest value packed into longs
+	 * (see {@link ChecksumUtil#toLongs(byte[])}).  The Digester is reset afterwards.
+	 * @return packed digest
+	 */
+	public long[] digestLongs();
+
+	/**
+	 * Reset the calculation
+	 */
+	public void reset();
+
+}
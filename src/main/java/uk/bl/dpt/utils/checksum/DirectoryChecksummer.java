@@ -0,0 +1,313 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Checksum every file in a directory tree.
+ *
+ * The tree is walked on the calling thread and each file is handed to a worker pool as
+ * soon as it is found, there is no list of files built up first.  Small and large files
+ * go to separate pools so that one huge file cannot hold up thousands of small ones.
+ * Each pool only accepts a bounded number of files (threads plus queue depth); once that
+ * is reached the walk waits for a worker to finish.
+ *
+ * Results are passed to a {@link ChecksumSink} as each file is finished, so they arrive
+ * in completion order rather than walk order.  Calls to the sink are serialised, it does
+ * not need to be thread safe.
+ *
+ * For local SSDs the thread counts should be around the core count, for network storage
+ * a larger queue depth keeps more requests in flight.
+ */
+public class DirectoryChecksummer {
+
+	private static Logger gLogger = LoggerFactory.getLogger(DirectoryChecksummer.class);
+
+	/**
+	 * Default size at which files go to the large file pool
+	 */
+	public final static long DEFAULT_LARGE_FILE_THRESHOLD = 64*1024*1024;
+
+	private final ChecksumSpec gSpec;
+	private final int gSmallThreads;
+	private final int gLargeThreads;
+	private final long gLargeFileThreshold;
+	private final int gQueueDepth;
+	private final FileDigestEngine gEngine = new FileDigestEngine();
+	private volatile ChecksumCache gCache = null;
+	private volatile boolean gForceVerify = false;
+
+	/**
+	 * Create a new checksummer with one small file thread per core, a quarter as many
+	 * large file threads, and a queue depth of twice the number of threads
+	 * @param pSpec checksums to calculate
+	 */
+	public DirectoryChecksummer(ChecksumSpec pSpec) {
+		this(pSpec, Runtime.getRuntime().availableProcessors(),
+				Math.max(1, Runtime.getRuntime().availableProcessors()/4),
+				DEFAULT_LARGE_FILE_THRESHOLD,
+				2*Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Create a new checksummer
+	 * @param pSpec checksums to calculate
+	 * @param pSmallThreads number of threads for small files
+	 * @param pLargeThreads number of threads for large files
+	 * @param pLargeFileThreshold files of at least this size are large
+	 * @param pQueueDepth number of files that can wait for each pool
+	 */
+	public DirectoryChecksummer(ChecksumSpec pSpec, int pSmallThreads, int pLargeThreads, long pLargeFileThreshold, int pQueueDepth) {
+		if(pSmallThreads<1||pLargeThreads<1) throw new IllegalArgumentException("Thread counts must be positive");
+		if(pQueueDepth<0) throw new IllegalArgumentException("Queue depth must not be negative: "+pQueueDepth);
+		gSpec = pSpec;
+		gSmallThreads = pSmallThreads;
+		gLargeThreads = pLargeThreads;
+		gLargeFileThreshold = pLargeFileThreshold;
+		gQueueDepth = pQueueDepth;
+	}
+
+	/**
+	 * Use a cache so that files that have not changed since they were last checksummed
+	 * are not read again
+	 * @param pCache cache to use (or null for none)
+	 * @param pForceVerify if true every file is read, and the cache is only updated
+	 */
+	public void setCache(ChecksumCache pCache, boolean pForceVerify) {
+		gCache = pCache;
+		gForceVerify = pForceVerify;
+	}
+
+	/**
+	 * Checksum all the files under a directory (or a single file)
+	 * @param pRoot directory to walk
+	 * @param pSink receives the results
+	 * @return number of files checksummed (not including failures)
+	 * @throws IOException if the sink fails or the walk is interrupted
+	 */
+	public long checksum(File pRoot, ChecksumSink pSink) throws IOException {
+		Run run = new Run(pSink);
+		try {
+			Files.walkFileTree(pRoot.toPath(), run);
+		} finally {
+			run.finish();
+		}
+		return run.gCount.get();
+	}
+
+	/**
+	 * One walk of a tree and the pools that work on it
+	 */
+	private class Run extends SimpleFileVisitor<Path> {
+
+		private final ChecksumSink gSink;
+		private final Pool gSmall;
+		private final Pool gLarge;
+		private final AtomicLong gCount = new AtomicLong();
+		private final AtomicReference<IOException> gFailure = new AtomicReference<IOException>();
+
+		Run(ChecksumSink pSink) {
+			gSink = pSink;
+			gSmall = new Pool("small", gSmallThreads);
+			gLarge = new Pool("large", gLargeThreads);
+		}
+
+		@Override
+		public FileVisitResult visitFile(Path pFile, BasicFileAttributes pAttributes) throws IOException {
+			checkFailure();
+			if(pAttributes.isRegularFile()&&accept(pFile.toFile())) {
+				Pool pool = pAttributes.size()>=gLargeFileThreshold ? gLarge : gSmall;
+				pool.submit(pFile.toFile());
+			}
+			return FileVisitResult.CONTINUE;
+		}
+
+		@Override
+		public FileVisitResult visitFileFailed(Path pFile, IOException pError) throws IOException {
+			checkFailure();
+			synchronized(gSink) {
+				gSink.failed(pFile.toFile(), pError);
+			}
+			return FileVisitResult.CONTINUE;
+		}
+
+		private void checkFailure() throws IOException {
+			IOException failure = gFailure.get();
+			if(failure!=null) {
+				throw failure;
+			}
+		}
+
+		/**
+		 * Checksum a file and pass the result to the sink, on a worker thread
+		 */
+		private void process(File pFile) {
+			if(gFailure.get()!=null) {
+				return;
+			}
+			try {
+				Map<String, String> checksums = null;
+				IOException error = null;
+				try {
+					checksums = digest(pFile);
+				} catch(IOException e) {
+					error = e;
+				} catch(RuntimeException e) {
+					// e.g. a bug in a digester, the file is still reported
+					error = new IOException("Checksum failed for "+pFile, e);
+				}
+				synchronized(gSink) {
+					if(error==null) {
+						gSink.checksummed(pFile, checksums);
+						gCount.incrementAndGet();
+					} else {
+						gSink.failed(pFile, error);
+					}
+				}
+			} catch(IOException e) {
+				gLogger.error("Checksum sink failed for "+pFile, e);
+				gFailure.compareAndSet(null, e);
+			} catch(RuntimeException e) {
+				gLogger.error("Checksum sink failed for "+pFile, e);
+				gFailure.compareAndSet(null, new IOException("Checksum sink failed for "+pFile, e));
+			} catch(Error e) {
+				// stop the run rather than drop the file, then let the pool see the error
+				gFailure.compareAndSet(null, new IOException("Checksum failed for "+pFile, e));
+				throw e;
+			}
+		}
+
+		/**
+		 * Wait for the pools to finish the queued work
+		 */
+		void finish() throws IOException {
+			boolean interrupted = false;
+			interrupted |= gSmall.shutdown();
+			interrupted |= gLarge.shutdown();
+			if(interrupted) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for checksums");
+			}
+			checkFailure();
+		}
+
+		/**
+		 * A fixed pool that will only accept a bounded number of files
+		 */
+		private class Pool {
+
+			private final ExecutorService gExecutor;
+			private final Semaphore gPermits;
+
+			Pool(String pName, int pThreads) {
+				gExecutor = Executors.newFixedThreadPool(pThreads,
+						new ThreadFactoryBuilder().setDaemon(true).setNameFormat("dptutils-"+pName+"-%d").build());
+				gPermits = new Semaphore(pThreads+gQueueDepth);
+			}
+
+			void submit(final File pFile) throws IOException {
+				try {
+					// back-pressure: wait for a worker to finish if this pool is full
+					gPermits.acquire();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while waiting for a worker");
+				}
+				gExecutor.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							process(pFile);
+						} finally {
+							gPermits.release();
+						}
+					}
+				});
+			}
+
+			/**
+			 * @return true if interrupted while waiting
+			 */
+			boolean shutdown() {
+				gExecutor.shutdown();
+				try {
+					while(!gExecutor.awaitTermination(1, TimeUnit.MINUTES)) {
+						gLogger.debug("Waiting for checksum workers");
+					}
+					return false;
+				} catch (InterruptedException e) {
+					gExecutor.shutdownNow();
+					return true;
+				}
+			}
+
+		}
+
+	}
+
+	/**
+	 * Decide whether to checksum a file, on the walking thread.  All files are accepted
+	 * unless this is overridden.
+	 * @param pFile file found by the walk
+	 * @return true to checksum the file, false to skip it
+	 */
+	protected boolean accept(File pFile) {
+		return true;
+	}
+
+	/**
+	 * Checksum a single file
+	 * @param pFile file to checksum
+	 * @return algorithm name to checksum, in ChecksumUtil form
+	 * @throws IOException if the file could not be read
+	 */
+	protected Map<String, String> digest(File pFile) throws IOException {
+		ChecksumCache cache = gCache;
+		if(cache!=null) {
+			return cache.checksum(pFile, gSpec, gForceVerify);
+		}
+		Digester[] digesters = gSpec.newDigesters();
+		gEngine.digest(pFile, digesters);
+		Map<String, String> checksums = new LinkedHashMap<String, String>();
+		for(Digester digester:digesters) {
+			checksums.put(digester.getAlgorithm(), digester.digestString());
+		}
+		return checksums;
+	}
+
+}
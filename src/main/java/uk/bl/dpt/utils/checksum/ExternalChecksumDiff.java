@@ -0,0 +1,433 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Calculate differences between two file manifests that are too large to hold in memory.
+ *
+ * Each manifest is read in turn and sorted into runs on disk, each run no larger than the
+ * memory budget.  The runs are then merged (in several passes if there are a lot of them)
+ * and the two sorted streams are walked together to find the entries that are only in one
+ * of them.  The heap used depends on the memory budget, not on the size of the manifests.
+ *
+ * Entries are matched in the same way as {@link ManifestDiffer}: by checksum and by file name
+ * without its directory, ignoring case.  Where several entries share a checksum and name the
+ * first in one manifest matches the first in the other, and so on.  Unique entries are
+ * reported ordered by checksum.
+ */
+public class ExternalChecksumDiff {
+
+	/**
+	 * Default memory budget for sorting
+	 */
+	public final static long DEFAULT_MEMORY_BUDGET = 32*1024*1024;
+
+	/* maximum number of runs merged at once - each one has an open file and buffer */
+	private final static int MERGE_WIDTH = 64;
+	private final static int BUFSIZE = 64*1024;
+	private final static Charset UTF8 = Charset.forName("UTF-8");
+
+	private final File gTempDir;
+	private final long gMemoryBudget;
+
+	/**
+	 * Create a new diff using the default temporary directory and memory budget
+	 */
+	public ExternalChecksumDiff() {
+		this(null, DEFAULT_MEMORY_BUDGET);
+	}
+
+	/**
+	 * Create a new diff
+	 * @param pTempDir directory for the sorted runs (or null for the default temporary directory)
+	 * @param pMemoryBudget approximate number of bytes of heap to use for sorting
+	 */
+	public ExternalChecksumDiff(File pTempDir, long pMemoryBudget) {
+		if(pMemoryBudget<1) throw new IllegalArgumentException("Memory budget must be positive: "+pMemoryBudget);
+		gTempDir = pTempDir;
+		gMemoryBudget = pMemoryBudget;
+	}
+
+	/**
+	 * Find the entries that are only in one of two manifests
+	 * @param pManifestA first manifest (OS CRC or "ThreadingSpider" XML file)
+	 * @param pManifestB second manifest
+	 * @param pUniqueA receives the entries only in pManifestA
+	 * @param pUniqueB receives the entries only in pManifestB
+	 * @throws IOException if the manifests could not be read, the runs written, or a handler fails
+	 */
+	public void diff(File pManifestA, File pManifestB, ManifestEntryHandler pUniqueA, ManifestEntryHandler pUniqueB) throws IOException {
+		List<File> temp = new ArrayList<File>();
+		EntrySource sourceA = null;
+		EntrySource sourceB = null;
+		try {
+			sourceA = merge(sort(pManifestA, temp), temp);
+			sourceB = merge(sort(pManifestB, temp), temp);
+
+			Entry a = sourceA.next();
+			Entry b = sourceB.next();
+			while(a!=null||b!=null) {
+				int c = a==null ? 1 : b==null ? -1 : a.compareKey(b);
+				if(c==0) {
+					a = sourceA.next();
+					b = sourceB.next();
+				} else if(c<0) {
+					pUniqueA.entry(a.gChecksum, a.gFile);
+					a = sourceA.next();
+				} else {
+					pUniqueB.entry(b.gChecksum, b.gFile);
+					b = sourceB.next();
+				}
+			}
+		} finally {
+			if(sourceA!=null) sourceA.close();
+			if(sourceB!=null) sourceB.close();
+			for(File file:temp) {
+				file.delete();
+			}
+		}
+	}
+
+	/**
+	 * Read a manifest into sorted runs
+	 * @param pManifest manifest to read
+	 * @param pTemp list of temporary files to delete
+	 * @return sorted runs
+	 * @throws IOException if the manifest could not be read or a run written
+	 */
+	private List<File> sort(File pManifest, List<File> pTemp) throws IOException {
+		RunBuilder builder = new RunBuilder(pTemp);
+		ChecksumDiff.readChecksums(pManifest, builder);
+		builder.flush();
+		return builder.gRuns;
+	}
+
+	/**
+	 * Merge runs until there are few enough to read at once
+	 * @param pRuns sorted runs
+	 * @param pTemp list of temporary files to delete
+	 * @return all the entries in order
+	 * @throws IOException if a run could not be read or written
+	 */
+	private EntrySource merge(List<File> pRuns, List<File> pTemp) throws IOException {
+		List<File> runs = pRuns;
+		while(runs.size()>MERGE_WIDTH) {
+			List<File> merged = new ArrayList<File>();
+			for(int i=0;i<runs.size();i+=MERGE_WIDTH) {
+				List<File> group = runs.subList(i, Math.min(runs.size(), i+MERGE_WIDTH));
+				File run = createRun(pTemp);
+				EntrySource source = open(group);
+				try {
+					DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run), BUFSIZE));
+					try {
+						Entry entry;
+						while((entry=source.next())!=null) {
+							entry.write(out);
+						}
+					} finally {
+						out.close();
+					}
+				} finally {
+					source.close();
+				}
+				for(File file:group) {
+					file.delete();
+				}
+				merged.add(run);
+			}
+			runs = merged;
+		}
+		return open(runs);
+	}
+
+	private EntrySource open(List<File> pRuns) throws IOException {
+		if(pRuns.size()==1) {
+			return new RunReader(pRuns.get(0));
+		}
+		return new Merger(pRuns);
+	}
+
+	private File createRun(List<File> pTemp) throws IOException {
+		File run = File.createTempFile("dptutils-diff", ".run", gTempDir);
+		pTemp.add(run);
+		return run;
+	}
+
+	/**
+	 * Buffers entries and writes them out as sorted runs
+	 */
+	private class RunBuilder implements ManifestEntryHandler {
+
+		private final List<File> gTemp;
+		private final List<File> gRuns = new ArrayList<File>();
+		private final ArrayList<Entry> gBuffer = new ArrayList<Entry>();
+		private long gUsed = 0;
+		private long gSequence = 0;
+
+		RunBuilder(List<File> pTemp) {
+			gTemp = pTemp;
+		}
+
+		@Override
+		public void entry(String pChecksum, String pFile) throws IOException {
+			Entry entry = new Entry(pChecksum, pFile, ManifestDiffer.nameKey(pFile), gSequence++);
+			gBuffer.add(entry);
+			gUsed += entry.size();
+			if(gUsed>=gMemoryBudget) {
+				flush();
+			}
+		}
+
+		void flush() throws IOException {
+			// always write one run, even if it is empty
+			if(gBuffer.isEmpty()&&!gRuns.isEmpty()) {
+				return;
+			}
+			Collections.sort(gBuffer);
+			File run = createRun(gTemp);
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run), BUFSIZE));
+			try {
+				for(Entry entry:gBuffer) {
+					entry.write(out);
+				}
+			} finally {
+				out.close();
+			}
+			gRuns.add(run);
+			gBuffer.clear();
+			gUsed = 0;
+		}
+
+	}
+
+	/**
+	 * A sorted stream of entries
+	 */
+	private interface EntrySource {
+
+		/**
+		 * @return next entry, or null at the end
+		 */
+		Entry next() throws IOException;
+
+		void close() throws IOException;
+
+	}
+
+	/**
+	 * Reads the entries in a run
+	 */
+	private static class RunReader implements EntrySource {
+
+		private final DataInputStream gInput;
+		private Entry gCurrent = null;
+
+		RunReader(File pRun) throws IOException {
+			gInput = new DataInputStream(new BufferedInputStream(new FileInputStream(pRun), BUFSIZE));
+		}
+
+		@Override
+		public Entry next() throws IOException {
+			gCurrent = Entry.read(gInput);
+			return gCurrent;
+		}
+
+		@Override
+		public void close() throws IOException {
+			gInput.close();
+		}
+
+	}
+
+	/**
+	 * Merges several runs into one sorted stream
+	 */
+	private static class Merger implements EntrySource {
+
+		private final List<RunReader> gReaders = new ArrayList<RunReader>();
+		private final PriorityQueue<RunReader> gQueue;
+
+		Merger(List<File> pRuns) throws IOException {
+			gQueue = new PriorityQueue<RunReader>(pRuns.size(), new Comparator<RunReader>() {
+				@Override
+				public int compare(RunReader pA, RunReader pB) {
+					return pA.gCurrent.compareTo(pB.gCurrent);
+				}
+			});
+			try {
+				for(File run:pRuns) {
+					RunReader reader = new RunReader(run);
+					gReaders.add(reader);
+					if(reader.next()!=null) {
+						gQueue.add(reader);
+					}
+				}
+			} catch(IOException e) {
+				close();
+				throw e;
+			}
+		}
+
+		@Override
+		public Entry next() throws IOException {
+			RunReader reader = gQueue.poll();
+			if(reader==null) {
+				return null;
+			}
+			Entry entry = reader.gCurrent;
+			if(reader.next()!=null) {
+				gQueue.add(reader);
+			}
+			return entry;
+		}
+
+		@Override
+		public void close() throws IOException {
+			IOException error = null;
+			for(RunReader reader:gReaders) {
+				try {
+					reader.close();
+				} catch(IOException e) {
+					error = e;
+				}
+			}
+			if(error!=null) {
+				throw error;
+			}
+		}
+
+	}
+
+	/**
+	 * A manifest entry, ordered by checksum, then name, then position in the manifest
+	 */
+	private static class Entry implements Comparable<Entry> {
+
+		private final String gChecksum;
+		private final String gFile;
+		private final String gName;
+		private final long gSequence;
+
+		Entry(String pChecksum, String pFile, String pName, long pSequence) {
+			gChecksum = pChecksum;
+			gFile = pFile;
+			gName = pName;
+			gSequence = pSequence;
+		}
+
+		/**
+		 * Compare by checksum and name only
+		 */
+		int compareKey(Entry pOther) {
+			int c = gChecksum.compareTo(pOther.gChecksum);
+			if(c!=0) {
+				return c;
+			}
+			if(gName==null||pOther.gName==null) {
+				// null names sort first
+				return gName==null ? (pOther.gName==null ? 0 : -1) : 1;
+			}
+			return gName.compareTo(pOther.gName);
+		}
+
+		@Override
+		public int compareTo(Entry pOther) {
+			int c = compareKey(pOther);
+			if(c!=0) {
+				return c;
+			}
+			return gSequence<pOther.gSequence ? -1 : (gSequence==pOther.gSequence ? 0 : 1);
+		}
+
+		/**
+		 * @return approximate number of bytes of heap used by this entry
+		 */
+		long size() {
+			long chars = gChecksum.length();
+			if(gFile!=null) {
+				chars += gFile.length()+gName.length();
+			}
+			// object headers, references and a char per character
+			return 128+2*chars;
+		}
+
+		void write(DataOutputStream pOut) throws IOException {
+			writeString(pOut, gChecksum);
+			writeString(pOut, gFile);
+			writeString(pOut, gName);
+			pOut.writeLong(gSequence);
+		}
+
+		/**
+		 * @return next entry, or null at the end of the input
+		 */
+		static Entry read(DataInputStream pIn) throws IOException {
+			int length = pIn.read();
+			if(length<0) {
+				return null;
+			}
+			// the first byte of the checksum length has been read already
+			length = (length<<24)|(pIn.readUnsignedByte()<<16)|(pIn.readUnsignedByte()<<8)|pIn.readUnsignedByte();
+			String checksum = readString(pIn, length);
+			String file = readString(pIn, pIn.readInt());
+			String name = readString(pIn, pIn.readInt());
+			return new Entry(checksum, file, name, pIn.readLong());
+		}
+
+		/* strings are written as a byte count (-1 for null) and UTF-8, as writeUTF is limited to 64k */
+		private static void writeString(DataOutputStream pOut, String pString) throws IOException {
+			if(pString==null) {
+				pOut.writeInt(-1);
+				return;
+			}
+			byte[] bytes = pString.getBytes(UTF8);
+			pOut.writeInt(bytes.length);
+			pOut.write(bytes);
+		}
+
+		private static String readString(DataInputStream pIn, int pLength) throws IOException {
+			if(pLength<0) {
+				return null;
+			}
+			byte[] bytes = new byte[pLength];
+			try {
+				pIn.readFully(bytes);
+			} catch(EOFException e) {
+				throw new IOException("Truncated run file", e);
+			}
+			return new String(bytes, UTF8);
+		}
+
+	}
+
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.bl.dpt.utils.util.TransferMetrics;
+
+/**
+ * Calculate digests of a file without copying the data through heap buffers.
+ *
+ * Files smaller than the mmap threshold are read with a FileChannel into a direct
+ * ByteBuffer, larger files are memory mapped a window at a time.  The buffers are passed
+ * straight to {@link Digester#update(ByteBuffer)}, so MessageDigest.update(ByteBuffer),
+ * CRC32.update(ByteBuffer) and cksum see the data where the kernel put it.
+ *
+ * When several digests are calculated over a mapped file each one runs in its own
+ * thread, over its own view of the same window.
+ */
+public class FileDigestEngine {
+
+	@SuppressWarnings("unused")
+	private static Logger gLogger = LoggerFactory.getLogger(FileDigestEngine.class);
+
+	/**
+	 * Default size at which files are memory mapped rather than read
+	 */
+	public final static long DEFAULT_MMAP_THRESHOLD = 4*1024*1024;
+
+	/**
+	 * Default size of each mapped window
+	 */
+	public final static int DEFAULT_WINDOWSIZE = 64*1024*1024;
+
+	/**
+	 * Size of the direct buffer used to read small files
+	 */
+	public final static int READ_BUFSIZE = 128*1024;
+
+	/**
+	 * One direct buffer per thread, allocating direct buffers is expensive
+	 */
+	private final static ThreadLocal<ByteBuffer> gReadBuffer = new ThreadLocal<ByteBuffer>() {
+		@Override
+		protected ByteBuffer initialValue() {
+			return ByteBuffer.allocateDirect(READ_BUFSIZE);
+		}
+	};
+
+	private final ExecutorService gExecutor;
+	private final long gMmapThreshold;
+	private final int gWindowSize;
+
+	/**
+	 * Create a new engine using the shared digest pool and default sizes
+	 */
+	public FileDigestEngine() {
+		this(MultiDigestEngine.gSharedExecutor, DEFAULT_MMAP_THRESHOLD, DEFAULT_WINDOWSIZE);
+	}
+
+	/**
+	 * Create a new engine
+	 * @param pExecutor executor to run the digests of mapped files in
+	 * @param pMmapThreshold files of at least this size are memory mapped
+	 * @param pWindowSize size of each mapped window
+	 */
+	public FileDigestEngine(ExecutorService pExecutor, long pMmapThreshold, int pWindowSize) {
+		if(pWindowSize<1) throw new IllegalArgumentException("Window size must be positive: "+pWindowSize);
+		gExecutor = pExecutor;
+		gMmapThreshold = pMmapThreshold;
+		gWindowSize = pWindowSize;
+	}
+
+	/**
+	 * Read a file to the end, updating all the Digesters
+	 * @param pFile file to read
+	 * @param pDigesters digesters to update
+	 * @return number of bytes read
+	 * @throws IOException if there is an error reading the file
+	 */
+	public long digest(File pFile, Digester[] pDigesters) throws IOException {
+		FileInputStream input = new FileInputStream(pFile);
+		try {
+			return digest(input.getChannel(), pDigesters);
+		} finally {
+			input.close();
+		}
+	}
+
+	/**
+	 * Read a file to the end, updating all the Digesters.  The channel is read from
+	 * its start whatever its position, and is not closed.
+	 * @param pChannel channel of the file to read
+	 * @param pDigesters digesters to update
+	 * @return number of bytes read
+	 * @throws IOException if there is an error reading the file
+	 */
+	public long digest(FileChannel pChannel, Digester[] pDigesters) throws IOException {
+		long start = System.nanoTime();
+		long size = pChannel.size();
+		long total;
+		if(size>=gMmapThreshold&&size>0) {
+			total = digestMapped(pChannel, size, pDigesters);
+		} else {
+			total = digestRead(pChannel, pDigesters);
+		}
+		TransferMetrics.GLOBAL.record(total, System.nanoTime()-start);
+		return total;
+	}
+
+	private long digestRead(FileChannel pChannel, Digester[] pDigesters) throws IOException {
+		ByteBuffer buffer = gReadBuffer.get();
+		long total = 0;
+		while(true) {
+			buffer.clear();
+			int read = pChannel.read(buffer, total);
+			if(read<0) {
+				break;
+			}
+			buffer.flip();
+			for(Digester digester:pDigesters) {
+				digester.update(buffer.duplicate());
+			}
+			total += read;
+		}
+		return total;
+	}
+
+	private long digestMapped(FileChannel pChannel, long pSize, final Digester[] pDigesters) throws IOException {
+		for(long position=0;position<pSize;position+=gWindowSize) {
+			final MappedByteBuffer window = pChannel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(gWindowSize, pSize-position));
+
+			// no point in handing a single digest to another thread
+			if(pDigesters.length<2) {
+				try {
+					for(Digester digester:pDigesters) {
+						digester.update(window.duplicate());
+					}
+				} catch (InternalError e) {
+					throw mappedReadError(e);
+				}
+				continue;
+			}
+
+			List<Future<Void>> futures = new ArrayList<Future<Void>>(pDigesters.length);
+			for(final Digester digester:pDigesters) {
+				futures.add(gExecutor.submit(new Callable<Void>() {
+					@Override
+					public Void call() {
+						digester.update(window.duplicate());
+						return null;
+					}
+				}));
+			}
+			waitFor(futures);
+		}
+		return pSize;
+	}
+
+	/**
+	 * Mapped data that can't be read (e.g. the file was truncated) surfaces as an InternalError
+	 */
+	private static IOException mappedReadError(Throwable pCause) {
+		return new IOException("Error reading mapped file, changed while reading?", pCause);
+	}
+
+	private static void waitFor(List<Future<Void>> pFutures) throws IOException {
+		Throwable failure = null;
+		for(Future<Void> future:pFutures) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				for(Future<Void> f:pFutures) {
+					f.cancel(true);
+				}
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for digests");
+			} catch (ExecutionException e) {
+				if(failure==null) {
+					failure = e.getCause();
+				}
+			}
+		}
+		if(failure instanceof InternalError) {
+			throw mappedReadError(failure);
+		}
+		if(failure instanceof RuntimeException) {
+			throw (RuntimeException)failure;
+		}
+		if(failure instanceof Error) {
+			throw (Error)failure;
+		}
+	}
+
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Verify the files in a directory against a stored manifest.
+ *
+ * The manifest (OS CRC or "ThreadingSpider" XML file) is read first, keeping one checksum
+ * for each file: the first of the verifier's algorithms that the manifest records for it
+ * (an OS CRC file only records cksum).  The directory is then walked and each file is
+ * checksummed with just that algorithm, in parallel, using a {@link DirectoryChecksummer}.
+ * Files are read in walk order, a directory at a time, not in manifest order, so reads
+ * stay close together on disk.
+ *
+ * Each file gives one result as it is finished: OK, MISMATCH, EXTRA (not in the manifest)
+ * or FAILED (could not be read).  Once the walk is done, files in the manifest that were
+ * not found are reported as MISSING.  Results are passed to the handler one at a time, it
+ * does not need to be thread safe.
+ *
+ * Manifest paths are read relative to the directory, after removing an optional root
+ * prefix, with "\" read as "/".  Checksums are compared ignoring case and leading zeros.
+ * If a path is in the manifest more than once, the first entry is used.
+ */
+public class FixityVerifier {
+
+	/**
+	 * The result of verifying a file
+	 */
+	public enum Status {
+		/** the checksum matches the manifest */
+		OK,
+		/** the checksum does not match the manifest */
+		MISMATCH,
+		/** in the manifest but not in the directory */
+		MISSING,
+		/** in the directory but not in the manifest */
+		EXTRA,
+		/** the file could not be read */
+		FAILED
+	}
+
+	/**
+	 * Receives each result
+	 */
+	public interface FixityHandler {
+
+		/**
+		 * A file has been verified
+		 * @param pStatus result
+		 * @param pPath path relative to the directory, with "/" separators
+		 * @param pAlgorithm algorithm checked (null if EXTRA)
+		 * @param pExpected checksum in the manifest (null if EXTRA)
+		 * @param pActual checksum of the file (null if MISSING, EXTRA or FAILED)
+		 * @throws IOException if the result could not be handled, this stops the verification
+		 */
+		public void result(Status pStatus, String pPath, String pAlgorithm, String pExpected, String pActual) throws IOException;
+
+	}
+
+	/**
+	 * Default algorithms, in order of preference
+	 */
+	public final static List<String> DEFAULT_ALGORITHMS = Collections.unmodifiableList(Arrays.asList("SHA-256", "SHA-1", "MD5", "CRC32", "cksum"));
+
+	private final static String CKSUM = "cksum";
+
+	/* algorithm name in the manifest to a spec for it alone */
+	private final Map<String, ChecksumSpec> gSpecs = new LinkedHashMap<String, ChecksumSpec>();
+	private final int gThreads;
+	private final int gQueueDepth;
+	private final FileDigestEngine gEngine = new FileDigestEngine();
+
+	/**
+	 * Create a verifier for the default algorithms, with one thread per core
+	 */
+	public FixityVerifier() {
+		this(DEFAULT_ALGORITHMS, Runtime.getRuntime().availableProcessors(), 2*Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Create a verifier
+	 * @param pAlgorithms algorithms that can be checked, in order of preference, as named
+	 * in the manifests
+	 * @param pThreads number of threads checksumming files
+	 * @param pQueueDepth number of files that can wait for a thread
+	 */
+	public FixityVerifier(List<String> pAlgorithms, int pThreads, int pQueueDepth) {
+		if(pThreads<1) throw new IllegalArgumentException("Thread count must be positive: "+pThreads);
+		for(String algorithm:pAlgorithms) {
+			try {
+				gSpecs.put(algorithm, ChecksumSpec.of(algorithm));
+			} catch (NoSuchAlgorithmException e) {
+				throw new IllegalArgumentException("Unknown algorithm: "+algorithm, e);
+			}
+		}
+		if(gSpecs.isEmpty()) throw new IllegalArgumentException("No algorithms given");
+		gThreads = pThreads;
+		gQueueDepth = pQueueDepth;
+	}
+
+	/**
+	 * A file in the manifest
+	 */
+	private static class Expected {
+		final String algorithm;
+		final String checksum;
+		boolean found = false;
+		Expected(String pAlgorithm, String pChecksum) {
+			algorithm = pAlgorithm;
+			checksum = pChecksum;
+		}
+	}
+
+	/**
+	 * Verify a directory against a manifest
+	 * @param pManifest manifest (OS CRC or "ThreadingSpider" XML file)
+	 * @param pDirectory directory the manifest describes
+	 * @param pManifestRoot root prefix of the paths in the manifest (or null)
+	 * @param pHandler handler for each result
+	 * @return number of files with each result
+	 * @throws IOException if the manifest could not be read, or the handler failed
+	 */
+	public Map<Status, Long> verify(File pManifest, File pDirectory, String pManifestRoot, final FixityHandler pHandler) throws IOException {
+		final Map<String, Expected> expected = load(pManifest, pManifestRoot);
+		final Map<Status, Long> counts = new EnumMap<Status, Long>(Status.class);
+		for(Status status:Status.values()) {
+			counts.put(status, 0L);
+		}
+		final String root = ManifestPaths.root(pDirectory);
+
+		DirectoryChecksummer checksummer = new DirectoryChecksummer(ChecksumSpec.DEFAULT, gThreads, Math.max(1, gThreads/4),
+				DirectoryChecksummer.DEFAULT_LARGE_FILE_THRESHOLD, gQueueDepth) {
+			@Override
+			protected Map<String, String> digest(File pFile) throws IOException {
+				Expected entry = expected.get(ManifestPaths.normalise(ManifestPaths.relativePath(pFile, root), false));
+				if(entry==null) {
+					// extra, nothing to check
+					return Collections.emptyMap();
+				}
+				Digester[] digesters = gSpecs.get(entry.algorithm).newDigesters();
+				gEngine.digest(pFile, digesters);
+				return Collections.singletonMap(digesters[0].getAlgorithm(), digesters[0].digestString());
+			}
+		};
+		checksummer.checksum(pDirectory, new ChecksumSink() {
+			@Override
+			public void checksummed(File pFile, Map<String, String> pChecksums) throws IOException {
+				String path = ManifestPaths.normalise(ManifestPaths.relativePath(pFile, root), false);
+				Expected entry = expected.get(path);
+				if(entry==null) {
+					report(pHandler, counts, Status.EXTRA, path, null, null, null);
+					return;
+				}
+				entry.found = true;
+				String actual = pChecksums.get(gSpecs.get(entry.algorithm).getAlgorithms().get(0));
+				Status status = sameChecksum(entry.checksum, actual) ? Status.OK : Status.MISMATCH;
+				report(pHandler, counts, status, path, entry.algorithm, entry.checksum, actual);
+			}
+
+			@Override
+			public void failed(File pFile, IOException pError) throws IOException {
+				String path = ManifestPaths.normalise(ManifestPaths.relativePath(pFile, root), false);
+				Expected entry = expected.get(path);
+				if(entry==null) {
+					report(pHandler, counts, Status.FAILED, path, null, null, null);
+					return;
+				}
+				entry.found = true;
+				report(pHandler, counts, Status.FAILED, path, entry.algorithm, entry.checksum, null);
+			}
+		});
+
+		// the pools have finished, so every found flag is visible here
+		for(Map.Entry<String, Expected> entry:expected.entrySet()) {
+			if(!entry.getValue().found) {
+				report(pHandler, counts, Status.MISSING, entry.getKey(), entry.getValue().algorithm, entry.getValue().checksum, null);
+			}
+		}
+		return counts;
+	}
+
+	private static void report(FixityHandler pHandler, Map<Status, Long> pCounts, Status pStatus, String pPath, String pAlgorithm, String pExpected, String pActual) throws IOException {
+		pCounts.put(pStatus, pCounts.get(pStatus)+1);
+		pHandler.result(pStatus, pPath, pAlgorithm, pExpected, pActual);
+	}
+
+	/**
+	 * Read the checksum to verify for each file in a manifest
+	 * @return relative path to expected checksum, in manifest order
+	 */
+	private Map<String, Expected> load(File pManifest, String pManifestRoot) throws IOException {
+		final Map<String, Expected> expected = new LinkedHashMap<String, Expected>();
+		// normalised once here, not for every entry
+		final String root = ManifestPaths.normalise(pManifestRoot, false);
+		if(ChecksumDiff.isXML(pManifest)) {
+			final List<String> algorithms = new ArrayList<String>(gSpecs.keySet());
+			ThreadingSpiderReader reader = new ThreadingSpiderReader(algorithms.toArray(new String[algorithms.size()]));
+			reader.read(pManifest, new ThreadingSpiderReader.EntryHandler() {
+				@Override
+				public void entry(String pFile, Map<String, String> pChecksums) {
+					for(String algorithm:algorithms) {
+						String checksum = pChecksums.get(algorithm);
+						if(checksum!=null) {
+							add(expected, ManifestPaths.normalise(pFile, root, false), algorithm, checksum);
+							return;
+						}
+					}
+				}
+			});
+		} else {
+			if(!gSpecs.containsKey(CKSUM)) {
+				throw new IOException("OS CRC manifests record cksum, which is not being verified: "+pManifest);
+			}
+			CrcManifestReader.read(pManifest, new ManifestEntryHandler() {
+				@Override
+				public void entry(String pChecksum, String pFile) {
+					add(expected, ManifestPaths.normalise(pFile, root, false), CKSUM, pChecksum);
+				}
+			});
+		}
+		return expected;
+	}
+
+	private static void add(Map<String, Expected> pExpected, String pPath, String pAlgorithm, String pChecksum) {
+		if(pPath!=null&&!pExpected.containsKey(pPath)) {
+			pExpected.put(pPath, new Expected(pAlgorithm, pChecksum));
+		}
+	}
+
+	/**
+	 * Make a single manifest path relative, the same way as a manifest is read (see
+	 * {@link ManifestPaths})
+	 * @param pPath path in the manifest (may be null)
+	 * @param pRoot root prefix (or null)
+	 * @return relative path (null if pPath is null)
+	 */
+	static String manifestPath(String pPath, String pRoot) {
+		return ManifestPaths.normalise(pPath, ManifestPaths.normalise(pRoot, false), false);
+	}
+
+	/**
+	 * Compare checksums ignoring case and leading zeros
+	 */
+	static boolean sameChecksum(String pExpected, String pActual) {
+		if(pExpected==null||pActual==null) {
+			return false;
+		}
+		return stripZeros(pExpected.trim()).equalsIgnoreCase(stripZeros(pActual.trim()));
+	}
+
+	private static String stripZeros(String pChecksum) {
+		int start = 0;
+		while(start<pChecksum.length()-1&&pChecksum.charAt(start)=='0') {
+			start++;
+		}
+		return pChecksum.substring(start);
+	}
+
+}
@@ -0,0 +1,338 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Calculate differences between two file manifests.
+ *
+ * Entries are matched by checksum and by file name without its directory, ignoring case.
+ * Where several entries share a checksum and name, each entry in the first manifest is
+ * matched with the first remaining entry in the second.  The entries that are not matched
+ * are returned in a {@link DiffResult}.
+ *
+ * A ManifestDiffer holds no state between diffs, so one instance can run any number of
+ * diffs at once from different threads, as long as they do not share inputs.
+ */
+public class ManifestDiffer {
+
+	private final ManifestLoader gLoader;
+
+	/**
+	 * Create a differ that loads manifest files with the default {@link ManifestLoader}
+	 */
+	public ManifestDiffer() {
+		this(new ManifestLoader());
+	}
+
+	/**
+	 * Create a differ
+	 * @param pLoader loader for manifest files
+	 */
+	public ManifestDiffer(ManifestLoader pLoader) {
+		gLoader = pLoader;
+	}
+
+	/**
+	 * Compare two manifest files, loaded at the same time into compact manifests
+	 * @param pManifestA first manifest (OS CRC or "ThreadingSpider" XML file)
+	 * @param pManifestB second manifest
+	 * @return result
+	 * @throws IOException if a manifest could not be read
+	 */
+	public DiffResult diff(File pManifestA, File pManifestB) throws IOException {
+		CompactManifest[] manifests = gLoader.load(pManifestA, pManifestB);
+		return diff(manifests[0], manifests[1]);
+	}
+
+	/**
+	 * Compare two compact manifests.  Matched entries are marked as removed in both.
+	 * @param pManifestA first manifest
+	 * @param pManifestB second manifest
+	 * @return result, reading the remaining entries of the manifests
+	 */
+	public DiffResult diff(CompactManifest pManifestA, CompactManifest pManifestB) {
+		removeDuplicates(pManifestA, pManifestB);
+		return new DiffResult(pManifestA.size(), pManifestB.size(), pManifestA.remaining(), pManifestB.remaining(),
+				DiffResult.remaining(pManifestA), DiffResult.remaining(pManifestB));
+	}
+
+	/**
+	 * Compare two sets of prepared checksum data.  Matched entries are removed from both
+	 * maps, as are checksums with no files left.
+	 * @param pChecksumSetA first set
+	 * @param pChecksumSetB second set
+	 * @return result, reading the remaining entries of the maps
+	 */
+	public DiffResult diff(Map<String, ArrayList<String>> pChecksumSetA, Map<String, ArrayList<String>> pChecksumSetB) {
+		long entriesA = count(pChecksumSetA);
+		long entriesB = count(pChecksumSetB);
+		removeDuplicates(pChecksumSetA, pChecksumSetB);
+		return new DiffResult(entriesA, entriesB, count(pChecksumSetA), count(pChecksumSetB),
+				DiffResult.remaining(pChecksumSetA), DiffResult.remaining(pChecksumSetB));
+	}
+
+	private static long count(Map<String, ArrayList<String>> pChecksumSet) {
+		long count = 0;
+		for(ArrayList<String> values:pChecksumSet.values()) {
+			count += values.size();
+		}
+		return count;
+	}
+
+
+	/**
+	 * Remove the duplicate values (checksum & filename pairs) from two Maps
+	 * 
+	 * Filenames are compared by name only (not directory), ignoring case.  Each filename
+	 * is normalised once and the entries for a checksum are matched with a hash join, so
+	 * this is linear in the size of the sets however many files share a checksum.  Each
+	 * entry in A is matched with the first remaining entry in B with the same name.
+	 * @param pChecksumSetA Master set
+	 * @param pChecksumSetB Secondary set
+	 */
+	static void removeDuplicates(Map<String, ArrayList<String>> pChecksumSetA, Map<String, ArrayList<String>> pChecksumSetB) {
+		Iterator<Map.Entry<String, ArrayList<String>>> it = pChecksumSetA.entrySet().iterator();
+		while(it.hasNext()) {
+			Map.Entry<String, ArrayList<String>> entry = it.next();
+			ArrayList<String> valuesB = pChecksumSetB.get(entry.getKey());
+			if(valuesB==null) {
+				continue;
+			}
+			// At this point we know we have a matching checksum
+			// Therefore - remove any matching filenames, with the same checksum
+			ArrayList<String> valuesA = entry.getValue();
+			removeMatchingNames(valuesA, valuesB);
+
+			// If no files are listed against the checksum then remove the checksum from the sets
+			if(valuesA.size()==0) {
+				it.remove();
+			}
+			if(valuesB.size()==0) {
+				pChecksumSetB.remove(entry.getKey());
+			}
+		}
+	}
+
+	/**
+	 * Remove the duplicate entries (checksum & filename pairs) from two compact manifests,
+	 * matching in the same way as {@link #removeDuplicates(Map, Map)}
+	 * @param pManifestA Master set
+	 * @param pManifestB Secondary set
+	 */
+	static void removeDuplicates(final CompactManifest pManifestA, final CompactManifest pManifestB) {
+		NameMatcher matcher = new NameMatcher(pManifestA, pManifestB) {
+			@Override
+			void matched(int pEntryA, int pEntryB) {
+				// we have a match - drop the entry from both manifests
+				pManifestB.remove(pEntryB);
+				pManifestA.remove(pEntryA);
+			}
+		};
+		// visit each checksum in A once
+		for(int slot=0;slot<pManifestA.tableLength();slot++) {
+			int firstA = pManifestA.firstInSlot(slot);
+			if(firstA==CompactManifest.NONE) {
+				continue;
+			}
+			int firstB = pManifestB.first(pManifestA, firstA);
+			if(firstB!=CompactManifest.NONE) {
+				matcher.match(firstA, firstB);
+			}
+		}
+	}
+
+	/**
+	 * Matches the entries of two compact manifests that have the same checksum by name, as
+	 * {@link #removeMatchingNames(ArrayList, ArrayList)} does: each entry in A with the first
+	 * remaining entry in B with the same name.  Short chains, such as the common one file
+	 * per checksum, are compared pair by pair on the stored bytes, so they allocate nothing;
+	 * long chains are indexed by name, in a map that is reused from one checksum to the next.
+	 */
+	static abstract class NameMatcher {
+
+		/* largest number of pairs to compare without an index */
+		private final static int PAIRWISE = 64;
+
+		private final CompactManifest gManifestA;
+		private final CompactManifest gManifestB;
+		private final Map<String, ArrayDeque<Integer>> gNamesB = new HashMap<String, ArrayDeque<Integer>>();
+
+		NameMatcher(CompactManifest pManifestA, CompactManifest pManifestB) {
+			gManifestA = pManifestA;
+			gManifestB = pManifestB;
+		}
+
+		/**
+		 * @return true if an entry in A can still be matched
+		 */
+		boolean isLive(int pEntryA) {
+			return !gManifestA.isRemoved(pEntryA);
+		}
+
+		/**
+		 * Two entries match, pEntryB must be removed from B
+		 */
+		abstract void matched(int pEntryA, int pEntryB);
+
+		/**
+		 * Match the entries in two chains of entries with the same checksum
+		 */
+		void match(int pFirstA, int pFirstB) {
+			long countA = 0;
+			for(int a=pFirstA;a!=CompactManifest.NONE;a=gManifestA.next(a)) {
+				if(isLive(a)) {
+					countA++;
+				}
+			}
+			long countB = 0;
+			for(int b=pFirstB;b!=CompactManifest.NONE;b=gManifestB.next(b)) {
+				if(!gManifestB.isRemoved(b)) {
+					countB++;
+				}
+			}
+			if(countA==0||countB==0) {
+				return;
+			}
+
+			if(countA*countB<=PAIRWISE) {
+				for(int a=pFirstA;a!=CompactManifest.NONE;a=gManifestA.next(a)) {
+					if(!isLive(a)) {
+						continue;
+					}
+					for(int b=pFirstB;b!=CompactManifest.NONE;b=gManifestB.next(b)) {
+						if(!gManifestB.isRemoved(b)&&gManifestA.sameName(a, gManifestB, b)) {
+							matched(a, b);
+							break;
+						}
+					}
+				}
+				return;
+			}
+
+			// index the remaining B names, in order
+			gNamesB.clear();
+			for(int b=pFirstB;b!=CompactManifest.NONE;b=gManifestB.next(b)) {
+				if(gManifestB.isRemoved(b)) {
+					continue;
+				}
+				String name = nameKey(gManifestB.getFile(b));
+				ArrayDeque<Integer> indexes = gNamesB.get(name);
+				if(indexes==null) {
+					indexes = new ArrayDeque<Integer>(1);
+					gNamesB.put(name, indexes);
+				}
+				indexes.add(b);
+			}
+			for(int a=pFirstA;a!=CompactManifest.NONE;a=gManifestA.next(a)) {
+				if(!isLive(a)) {
+					continue;
+				}
+				ArrayDeque<Integer> indexes = gNamesB.get(nameKey(gManifestA.getFile(a)));
+				if(indexes!=null&&!indexes.isEmpty()) {
+					matched(a, indexes.poll());
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Remove the filenames that are in both lists (see {@link #nameKey(String)}), keeping
+	 * the order of the rest
+	 * @param pValuesA filenames in A with a checksum
+	 * @param pValuesB filenames in B with the same checksum
+	 */
+	static void removeMatchingNames(ArrayList<String> pValuesA, ArrayList<String> pValuesB) {
+		// the common case, one file per checksum
+		if(pValuesA.size()==1&&pValuesB.size()==1) {
+			String a = nameKey(pValuesA.get(0));
+			String b = nameKey(pValuesB.get(0));
+			if(a==null ? b==null : a.equals(b)) {
+				pValuesA.clear();
+				pValuesB.clear();
+			}
+			return;
+		}
+
+		// index the B names, in order
+		Map<String, ArrayDeque<Integer>> namesB = new HashMap<String, ArrayDeque<Integer>>(pValuesB.size()*2);
+		for(int i=0;i<pValuesB.size();i++) {
+			String name = nameKey(pValuesB.get(i));
+			ArrayDeque<Integer> indexes = namesB.get(name);
+			if(indexes==null) {
+				indexes = new ArrayDeque<Integer>(1);
+				namesB.put(name, indexes);
+			}
+			indexes.add(i);
+		}
+
+		boolean[] matchedB = new boolean[pValuesB.size()];
+		int kept = 0;
+		for(int i=0;i<pValuesA.size();i++) {
+			String a = pValuesA.get(i);
+			ArrayDeque<Integer> indexes = namesB.get(nameKey(a));
+			if(indexes!=null&&!indexes.isEmpty()) {
+				// we have a match - drop the filename from both lists
+				matchedB[indexes.poll()] = true;
+			} else {
+				pValuesA.set(kept++, a);
+			}
+		}
+		truncate(pValuesA, kept);
+
+		kept = 0;
+		for(int i=0;i<pValuesB.size();i++) {
+			if(!matchedB[i]) {
+				pValuesB.set(kept++, pValuesB.get(i));
+			}
+		}
+		truncate(pValuesB, kept);
+	}
+
+	private static void truncate(ArrayList<String> pList, int pSize) {
+		if(pSize<pList.size()) {
+			pList.subList(pSize, pList.size()).clear();
+		}
+	}
+
+	/**
+	 * Normalise a filename for matching: the name without its directory, case folded the
+	 * same way as String.equalsIgnoreCase
+	 * @param pFile filename (may be null)
+	 * @return key (null if pFile is null)
+	 */
+	static String nameKey(String pFile) {
+		if(pFile==null) {
+			return null;
+		}
+		String name = new File(pFile).getName();
+		char[] chars = new char[name.length()];
+		for(int i=0;i<chars.length;i++) {
+			chars[i] = Character.toLowerCase(Character.toUpperCase(name.charAt(i)));
+		}
+		return new String(chars);
+	}
+
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.io.IOException;
+
+/**
+ * Receives the entries of a manifest as it is read, so that a manifest does not have to
+ * be held in memory
+ */
+public interface ManifestEntryHandler {
+
+	/**
+	 * An entry has been read from a manifest
+	 * @param pChecksum checksum value
+	 * @param pFile filename relating to checksum (may be null)
+	 * @throws IOException if the entry could not be handled, this stops the read
+	 */
+	public void entry(String pChecksum, String pFile) throws IOException;
+
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Load manifests into {@link CompactManifest}s using several threads.
+ *
+ * Two manifests can be loaded at the same time.  Large OS CRC files are also split into
+ * chunks at line boundaries, each chunk is parsed into its own manifest on a separate
+ * thread, and the chunks are joined in order at the end, so entries keep the order they
+ * have in the file.  XML files are parsed on one thread.  Quoted paths in a chunked file
+ * must not contain line endings, as the chunks are split without reading the quotes.
+ *
+ * Only the leaf tasks (whole files and chunks) are run in the ExecutorService, and they
+ * never wait for each other; they are all submitted and joined from the calling thread.
+ * So any executor can be used, even one with a single thread, and a task the executor
+ * rejects is run on the calling thread instead.
+ */
+public class ManifestLoader {
+
+	/**
+	 * Default smallest chunk of an OS CRC file to parse on its own thread
+	 */
+	public final static long DEFAULT_CHUNK_SIZE = 32*1024*1024;
+
+	private final ExecutorService gExecutor;
+	private final int gThreads;
+	private final long gChunkSize;
+
+	/**
+	 * Create a loader using the shared pool, with one chunk per core
+	 */
+	public ManifestLoader() {
+		this(MultiDigestEngine.gSharedExecutor, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Create a loader
+	 * @param pExecutor executor to load in
+	 * @param pThreads maximum number of chunks to split each file into
+	 * @param pChunkSize smallest chunk to split a file into
+	 */
+	public ManifestLoader(ExecutorService pExecutor, int pThreads, long pChunkSize) {
+		if(pThreads<1) throw new IllegalArgumentException("Thread count must be positive: "+pThreads);
+		if(pChunkSize<1) throw new IllegalArgumentException("Chunk size must be positive: "+pChunkSize);
+		gExecutor = pExecutor;
+		gThreads = pThreads;
+		gChunkSize = pChunkSize;
+	}
+
+	/**
+	 * Load two manifests at the same time
+	 * @param pManifestA first manifest (OS CRC or "ThreadingSpider" XML file)
+	 * @param pManifestB second manifest
+	 * @return the two manifests, in order
+	 * @throws IOException if either manifest could not be read
+	 */
+	public CompactManifest[] load(File pManifestA, File pManifestB) throws IOException {
+		List<Future<CompactManifest>> manifestA = submit(pManifestA);
+		List<Future<CompactManifest>> manifestB;
+		try {
+			manifestB = submit(pManifestB);
+		} catch(IOException e) {
+			cancel(manifestA);
+			throw e;
+		}
+		try {
+			return new CompactManifest[] { join(manifestA), join(manifestB) };
+		} finally {
+			cancel(manifestA);
+			cancel(manifestB);
+		}
+	}
+
+	/**
+	 * Load a manifest
+	 * @param pManifest manifest file (OS CRC or "ThreadingSpider" XML file)
+	 * @return manifest
+	 * @throws IOException if the manifest could not be read
+	 */
+	public CompactManifest load(File pManifest) throws IOException {
+		List<Future<CompactManifest>> futures = submit(pManifest);
+		try {
+			return join(futures);
+		} finally {
+			cancel(futures);
+		}
+	}
+
+	/**
+	 * Start loading a manifest, as one task or a task per chunk
+	 * @return the tasks, in file order
+	 */
+	private List<Future<CompactManifest>> submit(final File pManifest) throws IOException {
+		List<Future<CompactManifest>> futures = new ArrayList<Future<CompactManifest>>();
+		int chunks = (int)Math.min(gThreads, pManifest.length()/gChunkSize);
+		if(ChecksumDiff.isXML(pManifest)||chunks<2) {
+			futures.add(submit(new Callable<CompactManifest>() {
+				@Override
+				public CompactManifest call() throws IOException {
+					CompactManifest manifest = new CompactManifest();
+					ChecksumDiff.readChecksums(pManifest, manifest);
+					return manifest;
+				}
+			}));
+			return futures;
+		}
+
+		long[] boundaries = boundaries(pManifest, chunks);
+		for(int i=0;i<chunks;i++) {
+			final long start = boundaries[i];
+			final long length = boundaries[i+1]-boundaries[i];
+			futures.add(submit(new Callable<CompactManifest>() {
+				@Override
+				public CompactManifest call() throws IOException {
+					return loadChunk(pManifest, start, length);
+				}
+			}));
+		}
+		return futures;
+	}
+
+	/**
+	 * Submit a task, running it on this thread if the executor will not take it
+	 */
+	private Future<CompactManifest> submit(Callable<CompactManifest> pTask) {
+		try {
+			return gExecutor.submit(pTask);
+		} catch(RejectedExecutionException e) {
+			FutureTask<CompactManifest> task = new FutureTask<CompactManifest>(pTask);
+			task.run();
+			return task;
+		}
+	}
+
+	/**
+	 * Wait for the tasks of a manifest and join their chunks in order
+	 */
+	private static CompactManifest join(List<Future<CompactManifest>> pFutures) throws IOException {
+		CompactManifest manifest = null;
+		for(Future<CompactManifest> future:pFutures) {
+			CompactManifest chunk = get(future);
+			if(manifest==null) {
+				manifest = chunk;
+			} else {
+				manifest.addAll(chunk);
+			}
+		}
+		return manifest;
+	}
+
+	private static void cancel(List<Future<CompactManifest>> pFutures) {
+		for(Future<CompactManifest> future:pFutures) {
+			future.cancel(true);
+		}
+	}
+
+	/**
+	 * Find where to split a file, each split just after a line ending
+	 * @return chunk start positions, and the file length
+	 */
+	private static long[] boundaries(File pFile, int pChunks) throws IOException {
+		FileInputStream input = new FileInputStream(pFile);
+		try {
+			FileChannel channel = input.getChannel();
+			long size = channel.size();
+			long[] boundaries = new long[pChunks+1];
+			boundaries[pChunks] = size;
+			ByteBuffer buffer = ByteBuffer.allocate(8192);
+			for(int i=1;i<pChunks;i++) {
+				// start looking at the byte before the even split, in case it ends a line
+				long position = Math.max(boundaries[i-1], size*i/pChunks-1);
+				long boundary = size;
+				search:
+				while(position<size) {
+					buffer.clear();
+					int read = channel.read(buffer, position);
+					if(read<=0) {
+						break;
+					}
+					for(int j=0;j<read;j++) {
+						if(buffer.get(j)=='\n') {
+							boundary = position+j+1;
+							break search;
+						}
+					}
+					position += read;
+				}
+				boundaries[i] = boundary;
+			}
+			return boundaries;
+		} finally {
+			input.close();
+		}
+	}
+
+	private static CompactManifest loadChunk(File pFile, long pStart, long pLength) throws IOException {
+		CompactManifest manifest = new CompactManifest((int)Math.min(1024*1024, pLength/64));
+		CrcManifestReader reader = new CrcManifestReader(pFile, pStart, pLength);
+		try {
+			while(reader.next()) {
+				reader.addTo(manifest);
+			}
+		} finally {
+			reader.close();
+		}
+		return manifest;
+	}
+
+	/**
+	 * Wait for a load, rethrowing its failure
+	 */
+	static <T> T get(Future<T> pFuture) throws IOException {
+		try {
+			return pFuture.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while loading manifest");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof IOException) {
+				throw (IOException)cause;
+			}
+			if(cause instanceof RuntimeException) {
+				throw (RuntimeException)cause;
+			}
+			if(cause instanceof Error) {
+				throw (Error)cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.io.File;
+
+/**
+ * The one set of rules for the paths in manifests, shared by {@link ManifestWriter},
+ * {@link FixityVerifier} and {@link PathDiff}, so a manifest written by one is read the same
+ * way by the others.
+ *
+ * Paths are written with "/" separators.  A path is read by normalising it: "\" is read as
+ * "/", empty and "." segments are dropped, and it is optionally case folded the same way
+ * as {@link ManifestDiffer#nameKey(String)}.  A root is only removed from the start of a
+ * path when a separator follows it.
+ */
+final class ManifestPaths {
+
+	private ManifestPaths() {
+	}
+
+	/**
+	 * Normalise a path
+	 * @param pPath path (may be null)
+	 * @param pFoldCase true to case fold the path
+	 * @return normalised path (null if pPath is null)
+	 */
+	static String normalise(String pPath, boolean pFoldCase) {
+		return normalise(pPath, null, pFoldCase);
+	}
+
+	/**
+	 * Normalise a path and make it relative to a root
+	 * @param pPath path (may be null)
+	 * @param pRoot root, normalised with the same pFoldCase, to remove from the start of the path (or null)
+	 * @param pFoldCase true to case fold the path
+	 * @return normalised path (null if pPath is null)
+	 */
+	static String normalise(String pPath, String pRoot, boolean pFoldCase) {
+		if(pPath==null) {
+			return null;
+		}
+		StringBuilder path = new StringBuilder(pPath.length());
+		int start = 0;
+		while(start<=pPath.length()) {
+			int end = start;
+			while(end<pPath.length()&&pPath.charAt(end)!='/'&&pPath.charAt(end)!='\\') {
+				end++;
+			}
+			boolean dot = end-start==1&&pPath.charAt(start)=='.';
+			if(end>start&&!dot) {
+				if(path.length()>0) {
+					path.append('/');
+				}
+				if(pFoldCase) {
+					for(int i=start;i<end;i++) {
+						path.append(Character.toLowerCase(Character.toUpperCase(pPath.charAt(i))));
+					}
+				} else {
+					path.append(pPath, start, end);
+				}
+			}
+			start = end+1;
+		}
+		if(pRoot!=null&&pRoot.length()>0&&path.length()>pRoot.length()&&path.charAt(pRoot.length())=='/'
+				&&path.substring(0, pRoot.length()).equals(pRoot)) {
+			return path.substring(pRoot.length()+1);
+		}
+		return path.toString();
+	}
+
+	/**
+	 * @param pDirectory directory
+	 * @return the root to pass to {@link #relativePath(File, String)} for files in the directory
+	 */
+	static String root(File pDirectory) {
+		return pDirectory.getAbsoluteFile().toPath().normalize().toString();
+	}
+
+	/**
+	 * The path to write to a manifest for a local file: relative to a root, with the
+	 * system's separator written as "/".  Other characters are kept, so a "\" in a file
+	 * name on Unix is written as it is; compare with {@link #normalise(String, boolean)}
+	 * applied to both sides.
+	 * @param pFile file
+	 * @param pRoot root from {@link #root(File)}
+	 * @return path of the file relative to the root, or its absolute path if it is not under the root
+	 */
+	static String relativePath(File pFile, String pRoot) {
+		String path = pFile.getAbsoluteFile().toPath().normalize().toString();
+		if(path.length()>pRoot.length()&&path.startsWith(pRoot)) {
+			if(pRoot.endsWith(File.separator)) {
+				path = path.substring(pRoot.length());
+			} else if(path.charAt(pRoot.length())==File.separatorChar) {
+				path = path.substring(pRoot.length()+1);
+			}
+		}
+		return File.separatorChar=='/' ? path : path.replace(File.separatorChar, '/');
+	}
+
+}
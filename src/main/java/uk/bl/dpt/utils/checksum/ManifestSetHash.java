@@ -0,0 +1,161 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.util.BitSet;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+/**
+ * An order independent hash of the entries of a manifest, split into buckets.
+ *
+ * Each entry is hashed on its checksum and its name key (see {@link ManifestDiffer#nameKey(String)}),
+ * so two entries hash the same exactly when {@link ManifestDiffer} would match them.  The
+ * 128 bit entry hashes are summed in the bucket the hash selects, so the result does not
+ * depend on the order of the entries, and duplicates count as many times as they appear.
+ * Two manifests with the same entries have the same sums in every bucket; a bucket whose
+ * sums differ holds at least one unmatched entry.  The memory used depends only on the
+ * number of buckets.
+ */
+public class ManifestSetHash implements ManifestEntryHandler {
+
+	/**
+	 * Default number of buckets
+	 */
+	public final static int DEFAULT_BUCKETS = 64*1024;
+
+	private final static HashFunction gHash = Hashing.murmur3_128();
+	/* separates the checksum from the name, and marks a null name - neither is a valid char */
+	private final static char SEPARATOR = '\uffff';
+	private final static String NULLNAME = "\ufffe";
+
+	private final long[] gSumLow;
+	private final long[] gSumHigh;
+	private final long[] gCounts;
+	private long gSize = 0;
+
+	/**
+	 * Create a hash with the default number of buckets
+	 */
+	public ManifestSetHash() {
+		this(DEFAULT_BUCKETS);
+	}
+
+	/**
+	 * Create a hash
+	 * @param pBuckets number of buckets
+	 */
+	public ManifestSetHash(int pBuckets) {
+		if(pBuckets<1) throw new IllegalArgumentException("Bucket count must be positive: "+pBuckets);
+		gSumLow = new long[pBuckets];
+		gSumHigh = new long[pBuckets];
+		gCounts = new long[pBuckets];
+	}
+
+	/**
+	 * Add an entry
+	 * @param pChecksum checksum value
+	 * @param pFile filename relating to checksum (may be null)
+	 */
+	@Override
+	public void entry(String pChecksum, String pFile) {
+		byte[] hash = hash(pChecksum, pFile);
+		int bucket = bucket(hash, gCounts.length);
+		gSumLow[bucket] += toLong(hash, 0);
+		gSumHigh[bucket] += toLong(hash, 8);
+		gCounts[bucket]++;
+		gSize++;
+	}
+
+	/**
+	 * @return number of entries added
+	 */
+	public long size() {
+		return gSize;
+	}
+
+	/**
+	 * @return number of buckets
+	 */
+	public int buckets() {
+		return gCounts.length;
+	}
+
+	/**
+	 * Get the bucket an entry is hashed into
+	 * @param pChecksum checksum value
+	 * @param pFile filename (may be null)
+	 * @return bucket
+	 */
+	public int bucket(String pChecksum, String pFile) {
+		return bucket(pChecksum, pFile, gCounts.length);
+	}
+
+	static int bucket(String pChecksum, String pFile, int pBuckets) {
+		return bucket(hash(pChecksum, pFile), pBuckets);
+	}
+
+	/**
+	 * Do two hashes have the same entries (to within the chance of a 128 bit collision)
+	 * @param pOther hash of another manifest, with the same number of buckets
+	 * @return true if every bucket is the same
+	 */
+	public boolean sameEntries(ManifestSetHash pOther) {
+		return differingBuckets(pOther).isEmpty();
+	}
+
+	/**
+	 * Find the buckets that differ between two hashes.  Every entry that is only in one
+	 * of the manifests is in one of these buckets.
+	 * @param pOther hash of another manifest, with the same number of buckets
+	 * @return the buckets that differ
+	 */
+	public BitSet differingBuckets(ManifestSetHash pOther) {
+		if(pOther.gCounts.length!=gCounts.length) throw new IllegalArgumentException("Bucket counts differ: "+gCounts.length+", "+pOther.gCounts.length);
+		BitSet differ = new BitSet(gCounts.length);
+		for(int i=0;i<gCounts.length;i++) {
+			if(gCounts[i]!=pOther.gCounts[i]||gSumLow[i]!=pOther.gSumLow[i]||gSumHigh[i]!=pOther.gSumHigh[i]) {
+				differ.set(i);
+			}
+		}
+		return differ;
+	}
+
+	private static byte[] hash(String pChecksum, String pFile) {
+		String name = ManifestDiffer.nameKey(pFile);
+		return gHash.newHasher()
+				.putUnencodedChars(pChecksum)
+				.putChar(SEPARATOR)
+				.putUnencodedChars(name==null ? NULLNAME : name)
+				.hash().asBytes();
+	}
+
+	private static int bucket(byte[] pHash, int pBuckets) {
+		// the bucket comes from the high half, so entries in a bucket still differ in the low half
+		return (int)((toLong(pHash, 8)>>>1)%pBuckets);
+	}
+
+	private static long toLong(byte[] pBytes, int pOffset) {
+		long value = 0;
+		for(int i=pOffset+7;i>=pOffset;i--) {
+			value = (value<<8)|(pBytes[i]&0xFF);
+		}
+		return value;
+	}
+
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes a manifest, an entry at a time (see {@link CrcManifestWriter} and {@link ThreadingSpiderWriter}).
+ *
+ * Entries are written straight to a buffered Writer, so memory use does not grow with the
+ * size of the manifest.  A writer is also a {@link ChecksumSink}, so a {@link DirectoryChecksummer}
+ * can write its results straight to a manifest; files that fail are logged and left out.
+ * Writers are not thread safe.
+ */
+public abstract class ManifestWriter implements ChecksumSink, Closeable, Flushable {
+
+	private static Logger gLogger = LoggerFactory.getLogger(ManifestWriter.class);
+
+	private final static Charset UTF8 = Charset.forName("UTF-8");
+	private final static int BUFSIZE = 64*1024;
+
+	/**
+	 * Writer for the manifest
+	 */
+	protected final Writer gWriter;
+	private String gRoot = null;
+	private long gCount = 0;
+
+	/**
+	 * @param pWriter writer for the manifest, buffered if it is not already
+	 */
+	protected ManifestWriter(Writer pWriter) {
+		gWriter = pWriter instanceof BufferedWriter ? pWriter : new BufferedWriter(pWriter, BUFSIZE);
+	}
+
+	/**
+	 * Write files passed to {@link #checksummed(File, Map)} relative to a directory, with
+	 * "/" separators (see {@link ManifestPaths})
+	 * @param pRoot directory (or null to write paths as they are given)
+	 */
+	public void setRoot(File pRoot) {
+		gRoot = pRoot==null ? null : ManifestPaths.root(pRoot);
+	}
+
+	/**
+	 * Write an entry
+	 * @param pPath path of the file
+	 * @param pChecksums algorithm name to checksum, in ChecksumUtil form
+	 * @throws IOException if the entry could not be written
+	 */
+	public final void write(String pPath, Map<String, String> pChecksums) throws IOException {
+		writeEntry(pPath, pChecksums);
+		gCount++;
+	}
+
+	/**
+	 * Write an entry to the writer
+	 * @param pPath path of the file
+	 * @param pChecksums algorithm name to checksum, in ChecksumUtil form
+	 * @throws IOException if the entry could not be written
+	 */
+	protected abstract void writeEntry(String pPath, Map<String, String> pChecksums) throws IOException;
+
+	/**
+	 * @return number of entries written by this writer
+	 */
+	public long getCount() {
+		return gCount;
+	}
+
+	@Override
+	public void checksummed(File pFile, Map<String, String> pChecksums) throws IOException {
+		write(gRoot==null ? pFile.getPath() : ManifestPaths.relativePath(pFile, gRoot), pChecksums);
+	}
+
+	@Override
+	public void failed(File pFile, IOException pError) {
+		gLogger.warn("Not in manifest, checksum failed: "+pFile, pError);
+	}
+
+	@Override
+	public void flush() throws IOException {
+		gWriter.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		gWriter.close();
+	}
+
+	/**
+	 * Open a manifest file for writing
+	 * @param pFile manifest file
+	 * @param pAppend true to add to the end of the file, false to replace it
+	 * @param pGzip true to gzip
+	 * @return unbuffered writer
+	 * @throws IOException if the file could not be opened
+	 */
+	static Writer open(File pFile, boolean pAppend, boolean pGzip) throws IOException {
+		OutputStream output = new FileOutputStream(pFile, pAppend);
+		try {
+			if(pGzip) {
+				output = new GZIPOutputStream(output, BUFSIZE);
+			}
+			return new OutputStreamWriter(output, UTF8);
+		} catch(IOException e) {
+			output.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return true if a manifest file name ends in ".gz"
+	 */
+	static boolean isGzip(File pFile) {
+		return pFile.getName().toLowerCase().endsWith(".gz");
+	}
+
+	/**
+	 * Cut an uncompressed manifest back to the end of its last complete line, e.g. after a
+	 * crash, so that it can be appended to
+	 * @param pFile manifest file
+	 * @param pLastLine if the last complete line is this, it is removed as well (or null)
+	 * @return new length of the file
+	 * @throws IOException if the file could not be read or truncated
+	 */
+	static long truncateToLastLine(File pFile, String pLastLine) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(pFile, "rw");
+		try {
+			long end = lineStart(file, file.length());
+			if(pLastLine!=null&&end>0) {
+				long start = lineStart(file, end-1);
+				byte[] line = new byte[(int)Math.min(end-start, pLastLine.length()*4+2)];
+				file.seek(start);
+				file.readFully(line);
+				if(new String(line, UTF8).trim().equals(pLastLine)) {
+					end = start;
+				}
+			}
+			file.setLength(end);
+			return end;
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * @return the position after the last '\n' before pEnd, or 0
+	 */
+	private static long lineStart(RandomAccessFile pFile, long pEnd) throws IOException {
+		byte[] buffer = new byte[8192];
+		long position = pEnd;
+		while(position>0) {
+			int length = (int)Math.min(buffer.length, position);
+			position -= length;
+			pFile.seek(position);
+			pFile.readFully(buffer, 0, length);
+			for(int i=length-1;i>=0;i--) {
+				if(buffer[i]=='\n') {
+					return position+i+1;
+				}
+			}
+		}
+		return 0;
+	}
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+
+import uk.bl.dpt.utils.util.Hex;
+
+/**
+ * Digester backed by a MessageDigest (MD5, SHA-1, cksum etc)
+ */
+public class MessageDigestDigester implements Digester {
+
+	private final String gAlgorithm;
+	private final MessageDigest gDigest;
+
+	/**
+	 * @param pDigest MessageDigest to wrap
+	 */
+	public MessageDigestDigester(MessageDigest pDigest) {
+		this(pDigest.getAlgorithm(), pDigest);
+	}
+
+	/**
+	 * @param pAlgorithm name to report the digest as
+	 * @param pDigest MessageDigest to wrap
+	 */
+	public MessageDigestDigester(String pAlgorithm, MessageDigest pDigest) {
+		gAlgorithm = pAlgorithm;
+		gDigest = pDigest;
+	}
+
+	@Override
+	public String getAlgorithm() {
+		return gAlgorithm;
+	}
+
+	@Override
+	public void update(byte[] pBuffer, int pOffset, int pLength) {
+		gDigest.update(pBuffer, pOffset, pLength);
+	}
+
+	@Override
+	public void update(ByteBuffer pBuffer) {
+		gDigest.update(pBuffer);
+	}
+
+	@Override
+	public String digestString() {
+		return Hex.toUpperHex(digest());
+	}
+
+	@Override
+	public byte[] digest() {
+		byte[] digest = gDigest.digest();
+		// not every MessageDigest resets itself (CkSumDigest does not)
+		gDigest.reset();
+		return digest;
+	}
+
+	@Override
+	public long[] digestLongs() {
+		return ChecksumUtil.toLongs(digest());
+	}
+
+	@Override
+	public void reset() {
+		gDigest.reset();
+	}
+
+}
@@ -0,0 +1,337 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import uk.bl.dpt.utils.util.StreamUtil;
+import uk.bl.dpt.utils.util.TransferMetrics;
+
+/**
+ * Calculate several digests over a stream in parallel.
+ *
+ * The stream is read once, into a ring of reusable buffers.  Each filled buffer is handed
+ * to one worker per Digester, and goes back into the ring once every worker has finished
+ * with it.  The time taken is therefore close to that of the slowest digest rather than
+ * the sum of all of them.
+ *
+ * Streams that fit in a single buffer are digested on the calling thread as handing
+ * them off would cost more than it saves.
+ *
+ * NOTE: the ExecutorService must be able to run one worker per Digester at the same time
+ * (the default, shared, pool grows as required).
+ */
+public class MultiDigestEngine {
+
+	@SuppressWarnings("unused")
+	private static Logger gLogger = LoggerFactory.getLogger(MultiDigestEngine.class);
+
+	/**
+	 * Default size of each buffer in the ring
+	 */
+	public final static int DEFAULT_BUFSIZE = 32768;
+
+	/**
+	 * Default number of buffers in the ring
+	 */
+	public final static int DEFAULT_RINGSIZE = 8;
+
+	final static ExecutorService gSharedExecutor = Executors.newCachedThreadPool(
+			new ThreadFactoryBuilder().setDaemon(true).setNameFormat("dptutils-digest-%d").build());
+
+	/**
+	 * Marker passed to the workers to indicate the end of the stream
+	 */
+	private final static Slot EOF = new Slot(0);
+
+	private final ExecutorService gExecutor;
+	private final int gBufSize;
+	private final int gRingSize;
+
+	/**
+	 * A buffer in the ring, along with the number of workers still to process it
+	 */
+	private static class Slot {
+		final byte[] buf;
+		int length = 0;
+		final AtomicInteger pending = new AtomicInteger();
+		Slot(int pSize) {
+			buf = new byte[pSize];
+		}
+	}
+
+	/**
+	 * Create a new engine using a shared pool of daemon threads and default buffer sizes
+	 */
+	public MultiDigestEngine() {
+		this(gSharedExecutor, DEFAULT_BUFSIZE, DEFAULT_RINGSIZE);
+	}
+
+	/**
+	 * Create a new engine
+	 * @param pExecutor executor to run the digest workers in
+	 * @param pBufSize size of each buffer in the ring
+	 * @param pRingSize number of buffers in the ring (minimum 2)
+	 */
+	public MultiDigestEngine(ExecutorService pExecutor, int pBufSize, int pRingSize) {
+		if(pBufSize<1) throw new IllegalArgumentException("Buffer size must be positive: "+pBufSize);
+		if(pRingSize<2) throw new IllegalArgumentException("Ring size must be at least 2: "+pRingSize);
+		gExecutor = pExecutor;
+		gBufSize = pBufSize;
+		gRingSize = pRingSize;
+	}
+
+	/**
+	 * Read an InputStream to the end, updating all the Digesters (and optionally copying the data
+	 * to an OutputStream).  The InputStream is not closed.
+	 * @param pInputStream stream to read
+	 * @param pOutputStream stream to copy data to (may be null)
+	 * @param pDigesters digesters to update
+	 * @return number of bytes read
+	 * @throws IOException if there is an error reading or writing the data
+	 */
+	public long digest(InputStream pInputStream, OutputStream pOutputStream, Digester[] pDigesters) throws IOException {
+		long start = System.nanoTime();
+		long total = digestStream(pInputStream, pOutputStream, pDigesters);
+		TransferMetrics.GLOBAL.record(total, System.nanoTime()-start);
+		return total;
+	}
+
+	private long digestStream(InputStream pInputStream, OutputStream pOutputStream, Digester[] pDigesters) throws IOException {
+
+		Slot first = new Slot(gBufSize);
+		fill(pInputStream, first);
+		if(first.length==0) {
+			return 0;
+		}
+
+		// no point in handing a single digest to another thread
+		if(pDigesters.length<2) {
+			return digestInline(pInputStream, pOutputStream, pDigesters, first);
+		}
+
+		// a short fill can only mean the end of the stream was reached
+		if(first.length<first.buf.length) {
+			process(first, pOutputStream, pDigesters);
+			return first.length;
+		}
+
+		Slot second = new Slot(gBufSize);
+		fill(pInputStream, second);
+		if(second.length==0) {
+			// everything fitted in one buffer
+			process(first, pOutputStream, pDigesters);
+			return first.length;
+		}
+
+		return digestParallel(pInputStream, pOutputStream, pDigesters, first, second);
+	}
+
+	/**
+	 * Digest everything on the calling thread, reusing the one buffer
+	 */
+	private long digestInline(InputStream pInputStream, OutputStream pOutputStream, Digester[] pDigesters, Slot pSlot) throws IOException {
+		long total = 0;
+		while(pSlot.length>0) {
+			process(pSlot, pOutputStream, pDigesters);
+			total += pSlot.length;
+			fill(pInputStream, pSlot);
+		}
+		return total;
+	}
+
+	/**
+	 * Fan the buffers out to one worker per Digester
+	 */
+	private long digestParallel(InputStream pInputStream, OutputStream pOutputStream, Digester[] pDigesters,
+			Slot pFirst, Slot pSecond) throws IOException {
+
+		final BlockingQueue<Slot> free = new ArrayBlockingQueue<Slot>(gRingSize);
+		for(int i=2;i<gRingSize;i++) {
+			free.add(new Slot(gBufSize));
+		}
+
+		@SuppressWarnings({"unchecked","rawtypes"})
+		BlockingQueue<Slot>[] queues = new BlockingQueue[pDigesters.length];
+		@SuppressWarnings({"unchecked","rawtypes"})
+		Future<Void>[] workers = new Future[pDigesters.length];
+		for(int i=0;i<pDigesters.length;i++) {
+			// each worker can have every slot plus the EOF marker queued
+			queues[i] = new ArrayBlockingQueue<Slot>(gRingSize+1);
+			workers[i] = gExecutor.submit(new Worker(pDigesters[i], queues[i], free));
+		}
+
+		long total = 0;
+		try {
+			publish(pFirst, queues, pOutputStream);
+			total += pFirst.length;
+			publish(pSecond, queues, pOutputStream);
+			total += pSecond.length;
+			while(true) {
+				Slot slot = free.take();
+				fill(pInputStream, slot);
+				if(slot.length==0) {
+					break;
+				}
+				publish(slot, queues, pOutputStream);
+				total += slot.length;
+			}
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for a free buffer");
+		} finally {
+			// always tell the workers to stop, even if reading failed
+			for(BlockingQueue<Slot> queue:queues) {
+				queue.add(EOF);
+			}
+			waitFor(workers);
+		}
+
+		return total;
+	}
+
+	/**
+	 * Hand a filled slot to every worker and then copy it to the output
+	 */
+	private static void publish(Slot pSlot, BlockingQueue<Slot>[] pQueues, OutputStream pOutputStream) throws IOException {
+		pSlot.pending.set(pQueues.length);
+		for(BlockingQueue<Slot> queue:pQueues) {
+			// cannot block, queue capacity is larger than the number of slots
+			queue.add(pSlot);
+		}
+		// the slot won't be reused until this thread takes it from the free queue again
+		if(pOutputStream!=null) {
+			pOutputStream.write(pSlot.buf, 0, pSlot.length);
+		}
+	}
+
+	/**
+	 * Update all the digesters with a slot and copy it to the output
+	 */
+	private static void process(Slot pSlot, OutputStream pOutputStream, Digester[] pDigesters) throws IOException {
+		for(Digester digester:pDigesters) {
+			digester.update(pSlot.buf, 0, pSlot.length);
+		}
+		if(pOutputStream!=null) {
+			pOutputStream.write(pSlot.buf, 0, pSlot.length);
+		}
+	}
+
+	/**
+	 * Fill a slot from the stream, only a length of 0 indicates the end of the stream
+	 */
+	private static void fill(InputStream pInputStream, Slot pSlot) throws IOException {
+		pSlot.length = StreamUtil.readFully(pInputStream, pSlot.buf, 0, pSlot.buf.length);
+	}
+
+	/**
+	 * Wait for all the workers to finish, rethrowing the first failure
+	 */
+	private static void waitFor(Future<Void>[] pWorkers) throws IOException {
+		boolean interrupted = false;
+		Throwable failure = null;
+		for(Future<Void> worker:pWorkers) {
+			while(true) {
+				try {
+					worker.get();
+					break;
+				} catch(InterruptedException e) {
+					// the workers will finish shortly as they have all been sent EOF
+					interrupted = true;
+				} catch(ExecutionException e) {
+					if(failure==null) {
+						failure = e.getCause();
+					}
+					break;
+				}
+			}
+		}
+		if(interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		if(failure instanceof RuntimeException) {
+			throw (RuntimeException)failure;
+		}
+		if(failure instanceof Error) {
+			throw (Error)failure;
+		}
+		if(failure!=null) {
+			throw new IOException(failure);
+		}
+	}
+
+	/**
+	 * Updates one Digester with each slot in turn, returning slots to the free queue
+	 * once all the workers have finished with them
+	 */
+	private static class Worker implements Callable<Void> {
+
+		private final Digester gDigester;
+		private final BlockingQueue<Slot> gQueue;
+		private final BlockingQueue<Slot> gFree;
+
+		Worker(Digester pDigester, BlockingQueue<Slot> pQueue, BlockingQueue<Slot> pFree) {
+			gDigester = pDigester;
+			gQueue = pQueue;
+			gFree = pFree;
+		}
+
+		@Override
+		public Void call() throws Exception {
+			RuntimeException failure = null;
+			while(true) {
+				Slot slot = gQueue.take();
+				if(slot==EOF) {
+					break;
+				}
+				// keep releasing slots after a failure so that the reader doesn't block
+				if(failure==null) {
+					try {
+						gDigester.update(slot.buf, 0, slot.length);
+					} catch(RuntimeException e) {
+						failure = e;
+					}
+				}
+				if(slot.pending.decrementAndGet()==0) {
+					gFree.add(slot);
+				}
+			}
+			if(failure!=null) {
+				throw failure;
+			}
+			return null;
+		}
+
+	}
+
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.bl.dpt.utils.checksum.cksum.CkSumState;
+import uk.bl.dpt.utils.checksum.crc.CRC32C;
+import uk.bl.dpt.utils.checksum.crc.CrcCombine;
+import uk.bl.dpt.utils.util.Hex;
+
+/**
+ * Checksum a single large file using all cores.
+ *
+ * The file is split into ranges that are checksummed on a fork/join pool, the partial
+ * results are then combined (see {@link CkSumState} and {@link CrcCombine}) to give exactly
+ * the same result as reading the file from start to end.  This only works for crc based
+ * checksums: cksum, CRC32 and CRC32C.
+ */
+public class ParallelFileHasher {
+
+	@SuppressWarnings("unused")
+	private static Logger gLogger = LoggerFactory.getLogger(ParallelFileHasher.class);
+
+	/**
+	 * The checksums that can be calculated in parallel
+	 */
+	public final static List<String> SUPPORTED = Arrays.asList("cksum", "CRC32", "CRC32C");
+
+	/**
+	 * Default size of the range checksummed by each task
+	 */
+	public final static int DEFAULT_CHUNKSIZE = 8*1024*1024;
+
+	private final static int BUFSIZE = 1024*1024;
+
+	private final static ForkJoinPool gSharedPool = new ForkJoinPool();
+
+	private final ForkJoinPool gPool;
+	private final long gChunkSize;
+
+	/**
+	 * Create a new hasher using a shared pool with one thread per core
+	 */
+	public ParallelFileHasher() {
+		this(gSharedPool, DEFAULT_CHUNKSIZE);
+	}
+
+	/**
+	 * Create a new hasher
+	 * @param pPool pool to run the tasks in
+	 * @param pChunkSize size of the range checksummed by each task
+	 */
+	public ParallelFileHasher(ForkJoinPool pPool, long pChunkSize) {
+		if(pChunkSize<1) throw new IllegalArgumentException("Chunk size must be positive: "+pChunkSize);
+		gPool = pPool;
+		gChunkSize = pChunkSize;
+	}
+
+	/**
+	 * Can all the checksums in a spec be calculated in parallel?
+	 * @param pSpec checksums to calculate
+	 * @return true if they are all crc based
+	 */
+	public static boolean isSupported(ChecksumSpec pSpec) {
+		return SUPPORTED.containsAll(pSpec.getAlgorithms());
+	}
+
+	/**
+	 * Calculate a set of checksums for a file, in the same form as {@link ChecksumUtil}
+	 * @param pFile file to check
+	 * @param pSpec checksums to generate (must be supported, see {@link #isSupported(ChecksumSpec)})
+	 * @param pChecksums Map that calculated checksums will be stored in
+	 * @throws IOException if there is an error reading the file
+	 */
+	public void calcChecksums(File pFile, ChecksumSpec pSpec, Map<String, String> pChecksums) throws IOException {
+		if(!isSupported(pSpec)) {
+			throw new IllegalArgumentException("Only "+SUPPORTED+" can be calculated in parallel, not "+pSpec);
+		}
+
+		Partial whole = hash(pFile, pSpec.contains("cksum"), pSpec.contains("CRC32"), pSpec.contains("CRC32C"));
+
+		for(String algorithm:pSpec.getAlgorithms()) {
+			if(algorithm.equals("cksum")) {
+				pChecksums.put(algorithm, Hex.toUpperHex(whole.cksum.getDigest()));
+			} else if(algorithm.equals("CRC32")) {
+				pChecksums.put(algorithm, Hex.toHex(whole.crc32, true));
+			} else {
+				pChecksums.put(algorithm, Hex.toHex(whole.crc32c, true));
+			}
+		}
+	}
+
+	/**
+	 * Calculate the cksum state of a file
+	 * @param pFile file to check
+	 * @return cksum state of the file
+	 * @throws IOException if there is an error reading the file
+	 */
+	public CkSumState cksum(File pFile) throws IOException {
+		return hash(pFile, true, false, false).cksum;
+	}
+
+	private Partial hash(File pFile, boolean pCkSum, boolean pCrc32, boolean pCrc32c) throws IOException {
+		FileInputStream input = new FileInputStream(pFile);
+		try {
+			FileChannel channel = input.getChannel();
+			RangeTask task = new RangeTask(channel, 0, channel.size(), pCkSum, pCrc32, pCrc32c);
+			try {
+				return gPool.invoke(task);
+			} catch(WrappedIOException e) {
+				throw e.getCause();
+			}
+		} finally {
+			input.close();
+		}
+	}
+
+	/**
+	 * Checksums of a range of a file
+	 */
+	private static class Partial {
+		CkSumState cksum = CkSumState.EMPTY;
+		long crc32 = 0;
+		long crc32c = 0;
+		long length = 0;
+	}
+
+	/**
+	 * Used to get an IOException out of a RecursiveTask
+	 */
+	@SuppressWarnings("serial")
+	private static class WrappedIOException extends RuntimeException {
+		WrappedIOException(IOException pCause) {
+			super(pCause);
+		}
+		@Override
+		public synchronized IOException getCause() {
+			return (IOException)super.getCause();
+		}
+	}
+
+	/**
+	 * Checksum a range, splitting it in two if it is larger than the chunk size
+	 */
+	@SuppressWarnings("serial")
+	private class RangeTask extends RecursiveTask<Partial> {
+
+		private final FileChannel gChannel;
+		private final long gStart;
+		private final long gLength;
+		private final boolean gCkSum;
+		private final boolean gCrc32;
+		private final boolean gCrc32c;
+
+		RangeTask(FileChannel pChannel, long pStart, long pLength, boolean pCkSum, boolean pCrc32, boolean pCrc32c) {
+			gChannel = pChannel;
+			gStart = pStart;
+			gLength = pLength;
+			gCkSum = pCkSum;
+			gCrc32 = pCrc32;
+			gCrc32c = pCrc32c;
+		}
+
+		@Override
+		protected Partial compute() {
+			if(gLength<=gChunkSize) {
+				try {
+					return read();
+				} catch(IOException e) {
+					throw new WrappedIOException(e);
+				}
+			}
+
+			long half = gLength/2;
+			RangeTask first = new RangeTask(gChannel, gStart, half, gCkSum, gCrc32, gCrc32c);
+			RangeTask second = new RangeTask(gChannel, gStart+half, gLength-half, gCkSum, gCrc32, gCrc32c);
+			second.fork();
+			Partial a = first.compute();
+			Partial b = second.join();
+
+			// combine the two halves
+			Partial whole = new Partial();
+			whole.length = a.length + b.length;
+			whole.cksum = a.cksum.append(b.cksum);
+			whole.crc32 = CrcCombine.crc32(a.crc32, b.crc32, b.length);
+			whole.crc32c = CrcCombine.crc32c(a.crc32c, b.crc32c, b.length);
+			return whole;
+		}
+
+		private Partial read() throws IOException {
+			ByteBuffer buffer = ByteBuffer.allocate((int)Math.min(BUFSIZE, Math.max(gLength, 1)));
+			byte[] buf = buffer.array();
+			CkSumState cksum = CkSumState.EMPTY;
+			CRC32 crc32 = new CRC32();
+			CRC32C crc32c = new CRC32C();
+
+			long position = gStart;
+			long end = gStart + gLength;
+			while(position<end) {
+				buffer.clear();
+				buffer.limit((int)Math.min(buffer.capacity(), end-position));
+				int read = gChannel.read(buffer, position);
+				if(read<0) {
+					throw new IOException("File is shorter than expected, changed while reading?");
+				}
+				if(gCkSum) cksum = cksum.update(buf, 0, read);
+				if(gCrc32) crc32.update(buf, 0, read);
+				if(gCrc32c) crc32c.update(buf, 0, read);
+				position += read;
+			}
+
+			Partial partial = new Partial();
+			partial.length = gLength;
+			partial.cksum = cksum;
+			partial.crc32 = crc32.getValue();
+			partial.crc32c = crc32c.getValue();
+			return partial;
+		}
+
+	}
+
+}
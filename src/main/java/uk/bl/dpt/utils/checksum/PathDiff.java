@@ -0,0 +1,283 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compare two file manifests by path as well as by checksum, classifying each entry.
+ *
+ * Paths are compared relative to an optional root for each manifest, with "\" read as "/",
+ * empty and "." segments dropped, and case ignored.  Entries are paired in this order:
+ * <ol>
+ * <li>{@link Change#UNCHANGED}: the same path and checksum</li>
+ * <li>{@link Change#CONTENT_CHANGED}: the same path, a different checksum</li>
+ * <li>{@link Change#MOVED}: the same checksum and file name (see {@link ManifestDiffer#nameKey(String)}),
+ * in a different directory</li>
+ * <li>{@link Change#RENAMED}: the same checksum, a different file name</li>
+ * </ol>
+ * Entries left in the first manifest are {@link Change#REMOVED}, and those left in the second
+ * are {@link Change#ADDED}.  Where several entries could pair, they pair in the order they are
+ * in the manifests.  Paths and checksums are looked up in hash indexes, so a diff is linear
+ * in the size of the manifests.
+ */
+public class PathDiff {
+
+	/**
+	 * How an entry changed between the manifests
+	 */
+	public enum Change {
+		/** same path and checksum */
+		UNCHANGED,
+		/** same checksum and file name, different directory */
+		MOVED,
+		/** same checksum, different file name */
+		RENAMED,
+		/** same path, different checksum */
+		CONTENT_CHANGED,
+		/** only in the second manifest */
+		ADDED,
+		/** only in the first manifest */
+		REMOVED
+	}
+
+	/**
+	 * Receives each classified entry
+	 */
+	public interface ChangeHandler {
+
+		/**
+		 * An entry has been classified
+		 * @param pChange how the entry changed
+		 * @param pChecksumA checksum in the first manifest (null if ADDED)
+		 * @param pFileA file in the first manifest (null if ADDED)
+		 * @param pChecksumB checksum in the second manifest (null if REMOVED)
+		 * @param pFileB file in the second manifest (null if REMOVED)
+		 * @throws IOException if the change could not be handled, this stops the diff
+		 */
+		public void change(Change pChange, String pChecksumA, String pFileA, String pChecksumB, String pFileB) throws IOException;
+
+	}
+
+	private final ManifestLoader gLoader;
+	private final String gRootA;
+	private final String gRootB;
+
+	/**
+	 * Create a diff comparing paths as they are in the manifests
+	 */
+	public PathDiff() {
+		this(new ManifestLoader(), null, null);
+	}
+
+	/**
+	 * Create a diff
+	 * @param pLoader loader for manifest files
+	 * @param pRootA root the paths in the first manifest are relative to (or null)
+	 * @param pRootB root the paths in the second manifest are relative to (or null)
+	 */
+	public PathDiff(ManifestLoader pLoader, String pRootA, String pRootB) {
+		gLoader = pLoader;
+		gRootA = pRootA==null ? null : pathKey(pRootA, null);
+		gRootB = pRootB==null ? null : pathKey(pRootB, null);
+	}
+
+	/**
+	 * Compare two manifest files, loaded at the same time
+	 * @param pManifestA first manifest (OS CRC or "ThreadingSpider" XML file)
+	 * @param pManifestB second manifest
+	 * @param pHandler handler for each entry
+	 * @return number of entries with each kind of change
+	 * @throws IOException if a manifest could not be read, or the handler failed
+	 */
+	public Map<Change, Long> diff(File pManifestA, File pManifestB, ChangeHandler pHandler) throws IOException {
+		CompactManifest[] manifests = gLoader.load(pManifestA, pManifestB);
+		return diff(manifests[0], manifests[1], pHandler);
+	}
+
+	/**
+	 * Compare two compact manifests.  Paired entries are marked as removed in both.
+	 * Entries of the first manifest are reported in order, then the added entries.
+	 * @param pManifestA first manifest
+	 * @param pManifestB second manifest
+	 * @param pHandler handler for each entry
+	 * @return number of entries with each kind of change
+	 * @throws IOException if the handler failed
+	 */
+	public Map<Change, Long> diff(CompactManifest pManifestA, CompactManifest pManifestB, ChangeHandler pHandler) throws IOException {
+		int[] pairs = new int[pManifestA.size()];
+		Arrays.fill(pairs, CompactManifest.NONE);
+		Change[] changes = new Change[pManifestA.size()];
+
+		pairByPath(pManifestA, pManifestB, pairs, changes);
+		pairByChecksum(pManifestA, pManifestB, pairs, changes);
+
+		Map<Change, Long> counts = new EnumMap<Change, Long>(Change.class);
+		for(Change change:Change.values()) {
+			counts.put(change, 0L);
+		}
+		for(int a=0;a<pairs.length;a++) {
+			if(pairs[a]!=CompactManifest.NONE) {
+				int b = pairs[a];
+				report(pHandler, counts, changes[a], pManifestA.getChecksum(a), pManifestA.getFile(a), pManifestB.getChecksum(b), pManifestB.getFile(b));
+			} else if(!pManifestA.isRemoved(a)) {
+				report(pHandler, counts, Change.REMOVED, pManifestA.getChecksum(a), pManifestA.getFile(a), null, null);
+			}
+		}
+		for(int a=0;a<pairs.length;a++) {
+			if(pairs[a]!=CompactManifest.NONE) {
+				pManifestA.remove(a);
+			}
+		}
+		for(int b=0;b<pManifestB.size();b++) {
+			if(!pManifestB.isRemoved(b)) {
+				report(pHandler, counts, Change.ADDED, null, null, pManifestB.getChecksum(b), pManifestB.getFile(b));
+			}
+		}
+		return counts;
+	}
+
+	private static void report(ChangeHandler pHandler, Map<Change, Long> pCounts, Change pChange, String pChecksumA, String pFileA, String pChecksumB, String pFileB) throws IOException {
+		pCounts.put(pChange, pCounts.get(pChange)+1);
+		pHandler.change(pChange, pChecksumA, pFileA, pChecksumB, pFileB);
+	}
+
+	/**
+	 * Pair entries with the same path, first those with the same checksum
+	 */
+	private void pairByPath(CompactManifest pManifestA, CompactManifest pManifestB, int[] pPairs, Change[] pChanges) {
+		// index the B paths: the first entry with each path, and the next entry with the same path
+		Map<String, Integer> pathsB = new HashMap<String, Integer>(pManifestB.size()*2);
+		int[] nextPathB = new int[pManifestB.size()];
+		int[] lastPathB = new int[pManifestB.size()];
+		for(int b=0;b<pManifestB.size();b++) {
+			nextPathB[b] = CompactManifest.NONE;
+			String path = pathKey(pManifestB.getFile(b), gRootB);
+			if(path==null||pManifestB.isRemoved(b)) {
+				continue;
+			}
+			Integer first = pathsB.get(path);
+			if(first==null) {
+				pathsB.put(path, b);
+				lastPathB[b] = b;
+			} else {
+				nextPathB[lastPathB[first]] = b;
+				lastPathB[first] = b;
+			}
+		}
+
+		String[] pathsA = new String[pManifestA.size()];
+		for(int pass=0;pass<2;pass++) {
+			for(int a=0;a<pManifestA.size();a++) {
+				if(pManifestA.isRemoved(a)||pPairs[a]!=CompactManifest.NONE) {
+					continue;
+				}
+				if(pass==0) {
+					pathsA[a] = pathKey(pManifestA.getFile(a), gRootA);
+				}
+				Integer first = pathsA[a]==null ? null : pathsB.get(pathsA[a]);
+				if(first==null) {
+					continue;
+				}
+				String checksum = pManifestA.getChecksum(a);
+				for(int b=first;b!=CompactManifest.NONE;b=nextPathB[b]) {
+					if(pManifestB.isRemoved(b)) {
+						continue;
+					}
+					boolean same = checksum.equals(pManifestB.getChecksum(b));
+					if(pass==0&&same||pass==1) {
+						pPairs[a] = b;
+						pChanges[a] = same ? Change.UNCHANGED : Change.CONTENT_CHANGED;
+						pManifestB.remove(b);
+						break;
+					}
+				}
+			}
+			if(pass==0) {
+				// only the unpaired paths are needed again
+				for(int a=0;a<pathsA.length;a++) {
+					if(pPairs[a]!=CompactManifest.NONE) {
+						pathsA[a] = null;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Pair the remaining entries with the same checksum, first those with the same name
+	 */
+	private static void pairByChecksum(CompactManifest pManifestA, final CompactManifest pManifestB, final int[] pPairs, final Change[] pChanges) {
+		ManifestDiffer.NameMatcher matcher = new ManifestDiffer.NameMatcher(pManifestA, pManifestB) {
+			@Override
+			boolean isLive(int pEntryA) {
+				return super.isLive(pEntryA)&&pPairs[pEntryA]==CompactManifest.NONE;
+			}
+
+			@Override
+			void matched(int pEntryA, int pEntryB) {
+				pPairs[pEntryA] = pEntryB;
+				pChanges[pEntryA] = Change.MOVED;
+				pManifestB.remove(pEntryB);
+			}
+		};
+		// visit each checksum in A once
+		for(int slot=0;slot<pManifestA.tableLength();slot++) {
+			int firstA = pManifestA.firstInSlot(slot);
+			if(firstA==CompactManifest.NONE) {
+				continue;
+			}
+			int firstB = pManifestB.first(pManifestA, firstA);
+			if(firstB==CompactManifest.NONE) {
+				continue;
+			}
+			matcher.match(firstA, firstB);
+
+			int b = firstB;
+			for(int a=firstA;a!=CompactManifest.NONE;a=pManifestA.next(a)) {
+				if(pManifestA.isRemoved(a)||pPairs[a]!=CompactManifest.NONE) {
+					continue;
+				}
+				while(b!=CompactManifest.NONE&&pManifestB.isRemoved(b)) {
+					b = pManifestB.next(b);
+				}
+				if(b==CompactManifest.NONE) {
+					break;
+				}
+				pPairs[a] = b;
+				pChanges[a] = Change.RENAMED;
+				pManifestB.remove(b);
+			}
+		}
+	}
+
+	/**
+	 * Normalise a path for matching, case folded (see {@link ManifestPaths})
+	 * @param pPath path (may be null)
+	 * @param pRoot normalised root to remove from the start of the path (or null)
+	 * @return key (null if pPath is null)
+	 */
+	static String pathKey(String pPath, String pRoot) {
+		return ManifestPaths.normalise(pPath, pRoot, true);
+	}
+
+}
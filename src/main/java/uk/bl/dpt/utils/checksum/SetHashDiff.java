@@ -0,0 +1,130 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Calculate differences between two file manifests, expecting them to be the same.
+ *
+ * Each manifest is read once, at the same time, into a {@link ManifestSetHash}.  If the
+ * hashes are the same the manifests are identical and nothing more is read.  Otherwise
+ * each manifest is read again, keeping only the entries in the buckets that differ, and
+ * those are compared exactly with {@link ManifestDiffer}.  The result is the same as
+ * ManifestDiffer's, and the memory used depends on the number of differences rather than
+ * on the size of the manifests.
+ */
+public class SetHashDiff {
+
+	private final ExecutorService gExecutor;
+	private final int gBuckets;
+
+	/**
+	 * Create a diff using the shared pool and the default number of buckets
+	 */
+	public SetHashDiff() {
+		this(MultiDigestEngine.gSharedExecutor, ManifestSetHash.DEFAULT_BUCKETS);
+	}
+
+	/**
+	 * Create a diff
+	 * @param pExecutor executor to read the first manifest in, while the second is read
+	 * on the calling thread
+	 * @param pBuckets number of buckets in each hash
+	 */
+	public SetHashDiff(ExecutorService pExecutor, int pBuckets) {
+		if(pBuckets<1) throw new IllegalArgumentException("Bucket count must be positive: "+pBuckets);
+		gExecutor = pExecutor;
+		gBuckets = pBuckets;
+	}
+
+	/**
+	 * Compare two manifest files
+	 * @param pManifestA first manifest (OS CRC or "ThreadingSpider" XML file)
+	 * @param pManifestB second manifest
+	 * @return result, unique entries in the order they are in the files
+	 * @throws IOException if a manifest could not be read
+	 */
+	public DiffResult diff(final File pManifestA, final File pManifestB) throws IOException {
+		Future<ManifestSetHash> futureA = gExecutor.submit(new Callable<ManifestSetHash>() {
+			@Override
+			public ManifestSetHash call() throws IOException {
+				return hash(pManifestA);
+			}
+		});
+		ManifestSetHash hashB;
+		try {
+			hashB = hash(pManifestB);
+		} catch(IOException e) {
+			futureA.cancel(true);
+			throw e;
+		}
+		ManifestSetHash hashA = ManifestLoader.get(futureA);
+
+		final BitSet differ = hashA.differingBuckets(hashB);
+		if(differ.isEmpty()) {
+			return new DiffResult(hashA.size(), hashB.size(), 0, 0,
+					Collections.<DiffResult.Entry>emptyList(), Collections.<DiffResult.Entry>emptyList());
+		}
+
+		// read the candidate mismatches again, and compare them exactly
+		Future<CompactManifest> futureCandidatesA = gExecutor.submit(new Callable<CompactManifest>() {
+			@Override
+			public CompactManifest call() throws IOException {
+				return candidates(pManifestA, differ);
+			}
+		});
+		CompactManifest candidatesB;
+		try {
+			candidatesB = candidates(pManifestB, differ);
+		} catch(IOException e) {
+			futureCandidatesA.cancel(true);
+			throw e;
+		}
+		CompactManifest candidatesA = ManifestLoader.get(futureCandidatesA);
+
+		ManifestDiffer.removeDuplicates(candidatesA, candidatesB);
+		return new DiffResult(hashA.size(), hashB.size(), candidatesA.remaining(), candidatesB.remaining(),
+				DiffResult.remaining(candidatesA), DiffResult.remaining(candidatesB));
+	}
+
+	private ManifestSetHash hash(File pManifest) throws IOException {
+		ManifestSetHash hash = new ManifestSetHash(gBuckets);
+		ChecksumDiff.readChecksums(pManifest, hash);
+		return hash;
+	}
+
+	private CompactManifest candidates(File pManifest, final BitSet pBuckets) throws IOException {
+		final CompactManifest candidates = new CompactManifest();
+		ChecksumDiff.readChecksums(pManifest, new ManifestEntryHandler() {
+			@Override
+			public void entry(String pChecksum, String pFile) {
+				if(pBuckets.get(ManifestSetHash.bucket(pChecksum, pFile, gBuckets))) {
+					candidates.add(pChecksum, pFile);
+				}
+			}
+		});
+		return candidates;
+	}
+
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads a "ThreadingSpider" XML manifest with a pull (StAX) parser.
+ *
+ * Each &lt;file&gt; element starts an entry, and the &lt;checksum&gt; elements that follow
+ * it, up to the next &lt;file&gt;, are its checksums.  Several digest types can be read in
+ * one pass; a checksum is selected if its digest attribute starts with one of the requested
+ * types, as in {@link ChecksumSaxLoader}.  Entries with none of the requested types are
+ * skipped.
+ *
+ * Text is gathered in one reusable buffer, and element names are checked by reference
+ * first, as the parser hands back the same String for each occurrence of a name.
+ * DTDs and external entities are not processed.
+ */
+public class ThreadingSpiderReader {
+
+	/**
+	 * Receives each entry of a manifest
+	 */
+	public interface EntryHandler {
+
+		/**
+		 * An entry has been read
+		 * @param pFile filename
+		 * @param pChecksums requested digest type to checksum value.  This map is reused,
+		 * copy it if it is needed after the call.
+		 * @throws IOException if the entry could not be handled, this stops the read
+		 */
+		public void entry(String pFile, Map<String, String> pChecksums) throws IOException;
+
+	}
+
+	private final static String FILE = "file";
+	private final static String CHECKSUM = "checksum";
+	private final static String DIGEST = "digest";
+	private final static int BUFSIZE = 64*1024;
+
+	private final static int OTHER = 0;
+	private final static int FILE_ELEMENT = 1;
+	private final static int CHECKSUM_ELEMENT = 2;
+
+	private final static XMLInputFactory gFactory = XMLInputFactory.newInstance();
+	static {
+		gFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		gFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+	}
+
+	private final String[] gDigests;
+
+	/**
+	 * Create a reader
+	 * @param pDigests digest types to read (e.g. "cksum", "SHA-256")
+	 */
+	public ThreadingSpiderReader(String... pDigests) {
+		if(pDigests.length==0) throw new IllegalArgumentException("No digest types given");
+		gDigests = pDigests.clone();
+	}
+
+	/**
+	 * Read checksums of one type from a file, in the same way as {@link ChecksumSaxLoader}
+	 * @param pFile "ThreadingSpider" XML file
+	 * @param pDigest digest type to read
+	 * @param pHandler handler for each entry
+	 * @throws IOException if the file could not be read or parsed
+	 */
+	public static void read(File pFile, final String pDigest, final ManifestEntryHandler pHandler) throws IOException {
+		new ThreadingSpiderReader(pDigest).read(pFile, new EntryHandler() {
+			@Override
+			public void entry(String pName, Map<String, String> pChecksums) throws IOException {
+				pHandler.entry(pChecksums.get(pDigest), pName);
+			}
+		});
+	}
+
+	/**
+	 * Read a manifest file
+	 * @param pFile "ThreadingSpider" XML file
+	 * @param pHandler handler for each entry
+	 * @throws IOException if the file could not be read or parsed
+	 */
+	public void read(File pFile, EntryHandler pHandler) throws IOException {
+		InputStream input = new BufferedInputStream(new FileInputStream(pFile), BUFSIZE);
+		try {
+			read(input, pHandler);
+		} finally {
+			input.close();
+		}
+	}
+
+	/**
+	 * Read a manifest.  The stream is not closed.
+	 * @param pInput "ThreadingSpider" XML
+	 * @param pHandler handler for each entry
+	 * @throws IOException if the stream could not be read or parsed
+	 */
+	public void read(InputStream pInput, EntryHandler pHandler) throws IOException {
+		try {
+			XMLStreamReader reader = gFactory.createXMLStreamReader(pInput);
+			try {
+				parse(reader, pHandler);
+			} finally {
+				reader.close();
+			}
+		} catch(XMLStreamException e) {
+			throw new IOException(e);
+		}
+	}
+
+	private void parse(XMLStreamReader pReader, EntryHandler pHandler) throws XMLStreamException, IOException {
+		StringBuilder text = new StringBuilder();
+		Map<String, String> checksums = new LinkedHashMap<String, String>();
+		Map<String, String> view = Collections.unmodifiableMap(checksums);
+		String file = null;
+		/* what the text being gathered is for: a filename, a requested digest type, or null */
+		String capture = null;
+		String lastName = null;
+		int lastType = OTHER;
+
+		while(pReader.hasNext()) {
+			switch(pReader.next()) {
+			case XMLStreamConstants.START_ELEMENT: {
+				String name = pReader.getLocalName();
+				if(name!=lastName) {
+					lastName = name;
+					lastType = FILE.equals(name) ? FILE_ELEMENT : CHECKSUM.equals(name) ? CHECKSUM_ELEMENT : OTHER;
+				}
+				if(lastType==FILE_ELEMENT) {
+					if(file!=null&&!checksums.isEmpty()) {
+						pHandler.entry(file, view);
+					}
+					file = null;
+					checksums.clear();
+					capture = FILE;
+					text.setLength(0);
+				} else if(lastType==CHECKSUM_ELEMENT) {
+					capture = select(pReader.getAttributeValue(null, DIGEST));
+					text.setLength(0);
+				}
+				break;
+			}
+			case XMLStreamConstants.CHARACTERS:
+			case XMLStreamConstants.CDATA:
+			case XMLStreamConstants.SPACE:
+				if(capture!=null) {
+					text.append(pReader.getTextCharacters(), pReader.getTextStart(), pReader.getTextLength());
+				}
+				break;
+			case XMLStreamConstants.END_ELEMENT:
+				if(capture==null) {
+					break;
+				}
+				if(capture==FILE) {
+					file = trim(text);
+				} else if(file!=null&&!checksums.containsKey(capture)) {
+					checksums.put(capture, trim(text));
+				}
+				capture = null;
+				break;
+			default:
+				break;
+			}
+		}
+		if(file!=null&&!checksums.isEmpty()) {
+			pHandler.entry(file, view);
+		}
+	}
+
+	/**
+	 * @return the requested digest type a digest attribute matches, or null
+	 */
+	private String select(String pDigest) {
+		if(pDigest==null) {
+			return null;
+		}
+		for(String digest:gDigests) {
+			if(pDigest.startsWith(digest)) {
+				return digest;
+			}
+		}
+		return null;
+	}
+
+	private static String trim(StringBuilder pText) {
+		int start = 0;
+		int end = pText.length();
+		while(start<end&&pText.charAt(start)<=' ') {
+			start++;
+		}
+		while(end>start&&pText.charAt(end-1)<=' ') {
+			end--;
+		}
+		return pText.substring(start, end);
+	}
+
+}
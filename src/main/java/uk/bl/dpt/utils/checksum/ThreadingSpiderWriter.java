@@ -0,0 +1,150 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * Writes a "ThreadingSpider" XML manifest, as read by {@link ThreadingSpiderReader} and
+ * {@link ChecksumSaxLoader}.
+ *
+ * Each file is one line: an entry element holding a file element and a checksum element for
+ * each algorithm, with the algorithm name as its digest attribute.  The closing root element
+ * is written by {@link #close()}.  Characters that XML 1.0 cannot hold, such as most control
+ * characters, cannot be written: an entry holding one is rejected with an IOException and
+ * nothing of it is written, so the writer can carry on with the next entry.
+ */
+public class ThreadingSpiderWriter extends ManifestWriter {
+
+	private final static String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>";
+	private final static String ROOT = "manifest";
+	private final static String END = "</"+ROOT+">";
+
+	private boolean gClosed = false;
+	/* the entry being built, only written once it is complete */
+	private final StringBuilder gEntry = new StringBuilder(256);
+
+	/**
+	 * Start a new manifest on a writer
+	 * @param pWriter writer for the manifest
+	 * @throws IOException if the header could not be written
+	 */
+	public ThreadingSpiderWriter(Writer pWriter) throws IOException {
+		this(pWriter, true);
+	}
+
+	private ThreadingSpiderWriter(Writer pWriter, boolean pHeader) throws IOException {
+		super(pWriter);
+		if(pHeader) {
+			gWriter.write(HEADER);
+			gWriter.write('\n');
+			gWriter.write('<');
+			gWriter.write(ROOT);
+			gWriter.write(">\n");
+		}
+	}
+
+	/**
+	 * Open a manifest file, gzipped if its name ends in ".gz".  When appending, the closing
+	 * root element and any incomplete last line (e.g. from a crash) are removed first.
+	 * A gzipped manifest cannot be appended to.
+	 * @param pFile manifest file
+	 * @param pAppend true to add to the end of the file, false to replace it
+	 * @return writer
+	 * @throws IOException if the file could not be opened
+	 */
+	public static ThreadingSpiderWriter open(File pFile, boolean pAppend) throws IOException {
+		boolean gzip = isGzip(pFile);
+		boolean resume = pAppend&&pFile.exists()&&pFile.length()>0;
+		if(resume) {
+			if(gzip) {
+				throw new IOException("Cannot append to a gzipped XML manifest: "+pFile);
+			}
+			// an empty file, or a crash in the header, starts again
+			resume = truncateToLastLine(pFile, END)>HEADER.length()+1;
+		}
+		return new ThreadingSpiderWriter(open(pFile, resume, gzip), !resume);
+	}
+
+	@Override
+	protected void writeEntry(String pPath, Map<String, String> pChecksums) throws IOException {
+		gEntry.setLength(0);
+		gEntry.append("<entry><file>");
+		escape(pPath, false);
+		gEntry.append("</file>");
+		for(Map.Entry<String, String> checksum:pChecksums.entrySet()) {
+			gEntry.append("<checksum digest=\"");
+			escape(checksum.getKey(), true);
+			gEntry.append("\">");
+			escape(checksum.getValue(), false);
+			gEntry.append("</checksum>");
+		}
+		gEntry.append("</entry>\n");
+		gWriter.append(gEntry);
+	}
+
+	/**
+	 * Add text, escaped, to the entry being built
+	 */
+	private void escape(String pText, boolean pAttribute) throws IOException {
+		int start = 0;
+		for(int i=0;i<pText.length();i++) {
+			char c = pText.charAt(i);
+			String entity;
+			switch(c) {
+			case '&': entity = "&amp;"; break;
+			case '<': entity = "&lt;"; break;
+			case '>': entity = "&gt;"; break;
+			case '"': entity = pAttribute ? "&quot;" : null; break;
+			// kept through attribute value and line ending normalisation
+			case '\t': entity = pAttribute ? "&#9;" : null; break;
+			case '\n': entity = pAttribute ? "&#10;" : null; break;
+			case '\r': entity = "&#13;"; break;
+			default:
+				if(c<0x20||c==0xfffe||c==0xffff) {
+					throw new IOException("Character 0x"+Integer.toHexString(c)+" cannot be written to XML: "+pText);
+				}
+				entity = null;
+			}
+			if(entity!=null) {
+				gEntry.append(pText, start, i).append(entity);
+				start = i+1;
+			}
+		}
+		gEntry.append(pText, start, pText.length());
+	}
+
+	/**
+	 * Write the closing root element and close the writer
+	 */
+	@Override
+	public void close() throws IOException {
+		if(!gClosed) {
+			gClosed = true;
+			try {
+				gWriter.write(END);
+				gWriter.write('\n');
+			} finally {
+				super.close();
+			}
+		}
+	}
+
+}
@@ -29,15 +29,20 @@
 
 package uk.bl.dpt.utils.checksum.cksum;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.security.MessageDigestSpi;
 
 /**
  * Implementation of `cksum` algorithm
  * From here: https://github.com/fuzxxl/digest/blob/master/cksum.c
+ * 
+ * Bulk updates use "slicing-by-8" (Intel, Kounavis &amp; Berry), processing 8 bytes per
+ * iteration with 8 lookup tables derived from cksumconst.
  * @author wpalmer
  *
  */
-public class CkSumDigest extends MessageDigestSpi {
+public class CkSumDigest extends MessageDigestSpi implements Cloneable {
 
 	/* lookup table for IEEE polynomial */
 	final static int[] cksumconst = new int[] {
@@ -107,8 +112,25 @@ public class CkSumDigest extends MessageDigestSpi {
 		0xbcb4666d, 0xb8757bda, 0xb5365d03, 0xb1f740b4,
 	};
 
+	/* 
+	 * slicing-by-8 tables: slice[k][b] is the crc of byte b followed by k zero bytes,
+	 * slice[0] is cksumconst
+	 */
+	final static int[][] slice = new int[8][];
+	static {
+		slice[0] = cksumconst;
+		for (int k = 1; k < 8; k++) {
+			slice[k] = new int[256];
+			for (int b = 0; b < 256; b++) {
+				int crc = slice[k-1][b];
+				slice[k][b] = cksumconst[crc>>>24] ^ crc<<8;
+			}
+		}
+	}
+
 	private int gCrc = 0;
-	private int gLength = 0;
+	// NOTE: long as files can be larger than 2GB
+	private long gLength = 0;
 
 	@Override
 	protected void engineUpdate(byte input) {
@@ -119,9 +141,86 @@ public class CkSumDigest extends MessageDigestSpi {
 	@Override
 	protected void engineUpdate(byte[] input, int offset, int len) {
 		gLength += len;
-		for (int i = 0; i < len; i++) {
-			gCrc = cksumconst[(gCrc>>24^input[i+offset]) &0xff] ^ gCrc<<8;
+		gCrc = update(gCrc, input, offset, len);
+	}
+
+	@Override
+	protected void engineUpdate(ByteBuffer input) {
+		int len = input.remaining();
+		if (input.hasArray()) {
+			gCrc = update(gCrc, input.array(), input.arrayOffset()+input.position(), len);
+			input.position(input.limit());
+		} else {
+			gCrc = update(gCrc, input);
+		}
+		gLength += len;
+	}
+
+	/**
+	 * Update a (raw) cksum crc value with the remaining data in a (direct or mapped) buffer,
+	 * without copying it to the heap.  The buffer's position is advanced to its limit.
+	 * @param crc crc value so far
+	 * @param input buffer containing data
+	 * @return updated crc value
+	 */
+	static int update(int crc, ByteBuffer input) {
+		final int[] t0 = slice[0], t1 = slice[1], t2 = slice[2], t3 = slice[3],
+				t4 = slice[4], t5 = slice[5], t6 = slice[6], t7 = slice[7];
+		// absolute big endian reads, whatever the buffer's byte order
+		final ByteBuffer bb = input.duplicate().order(ByteOrder.BIG_ENDIAN);
+		int i = input.position();
+		final int end = input.limit();
+		for (; i <= end - 8; i += 8) {
+			int hi = crc ^ bb.getInt(i);
+			int lo = bb.getInt(i+4);
+			crc = t7[hi>>>24] ^ t6[(hi>>>16)&0xff] ^ t5[(hi>>>8)&0xff] ^ t4[hi&0xff] ^
+				  t3[lo>>>24] ^ t2[(lo>>>16)&0xff] ^ t1[(lo>>>8)&0xff] ^ t0[lo&0xff];
+		}
+		for (; i < end; i++) {
+			crc = t0[(crc>>24^bb.get(i)) &0xff] ^ crc<<8;
 		}
+		input.position(end);
+		return crc;
+	}
+
+	/**
+	 * Update a (raw) cksum crc value with some data
+	 * @param crc crc value so far
+	 * @param input buffer containing data
+	 * @param offset offset of the data in the buffer
+	 * @param len length of the data
+	 * @return updated crc value
+	 */
+	static int update(int crc, byte[] input, int offset, int len) {
+		final int[] t0 = slice[0], t1 = slice[1], t2 = slice[2], t3 = slice[3],
+				t4 = slice[4], t5 = slice[5], t6 = slice[6], t7 = slice[7];
+		int i = offset;
+		final int end = offset + len;
+		// 8 bytes at a time
+		for (; i <= end - 8; i += 8) {
+			int hi = crc ^ ((input[i]&0xff)<<24 | (input[i+1]&0xff)<<16 | (input[i+2]&0xff)<<8 | (input[i+3]&0xff));
+			int lo = (input[i+4]&0xff)<<24 | (input[i+5]&0xff)<<16 | (input[i+6]&0xff)<<8 | (input[i+7]&0xff);
+			crc = t7[hi>>>24] ^ t6[(hi>>>16)&0xff] ^ t5[(hi>>>8)&0xff] ^ t4[hi&0xff] ^
+				  t3[lo>>>24] ^ t2[(lo>>>16)&0xff] ^ t1[(lo>>>8)&0xff] ^ t0[lo&0xff];
+		}
+		// then the remainder
+		for (; i < end; i++) {
+			crc = t0[(crc>>24^input[i]) &0xff] ^ crc<<8;
+		}
+		return crc;
+	}
+
+	/**
+	 * Calculate the final cksum value from a (raw) crc value, by appending the length
+	 * @param crc crc value of the data
+	 * @param len length of the data
+	 * @return cksum value
+	 */
+	static int finish(int crc, long len) {
+		for (; len > 0; len >>= 8) {
+			crc = cksumconst[(crc>>24^(int)len) &0xff] ^ crc<<8;
+		}
+		return ~crc;
 	}
 
 	@Override
@@ -131,14 +230,7 @@ public class CkSumDigest extends MessageDigestSpi {
 		// copy of the calculated crc so far
 		// Now more data can be updated() and a corresponding crc can be calculated
 		
-		int crc = gCrc;
-		int len = gLength;
-
-		for (; len > 0; len >>= 8) {
-			crc = cksumconst[(crc>>24^len) &0xff] ^ crc<<8;
-		}
-
-		crc = ~crc;
+		int crc = finish(gCrc, gLength);
 
 		byte[] digest = new byte[4];
 
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum.cksum;
+
+/**
+ * Immutable, combinable `cksum` state: the crc of some data and its length.
+ *
+ * As cksum is a crc it is linear, so the state for two consecutive pieces of data
+ * can be combined without looking at the data again (like zlib's crc32_combine).
+ * This means ranges of a file can be checksummed independently and then merged.
+ * <pre>
+ * CkSumState whole = CkSumState.EMPTY.update(a, 0, a.length).append(CkSumState.EMPTY.update(b, 0, b.length));
+ * </pre>
+ */
+public final class CkSumState {
+
+	/**
+	 * State for no data
+	 */
+	public final static CkSumState EMPTY = new CkSumState(0, 0);
+
+	/* non-reversed IEEE polynomial, without the x^32 term */
+	private final static int POLY = 0x04c11db7;
+
+	/* x2n[k] is x^(8*2^k) mod POLY, i.e. the operator for appending 2^k zero bytes */
+	private final static int[] x2n = new int[64];
+	static {
+		// x^8
+		x2n[0] = 1<<8;
+		for (int k = 1; k < x2n.length; k++) {
+			x2n[k] = multModP(x2n[k-1], x2n[k-1]);
+		}
+	}
+
+	private final int gCrc;
+	private final long gLength;
+
+	/**
+	 * @param pCrc raw crc register (before the length is appended)
+	 * @param pLength length of the data
+	 */
+	public CkSumState(int pCrc, long pLength) {
+		gCrc = pCrc;
+		gLength = pLength;
+	}
+
+	/**
+	 * Get the state after some more data
+	 * @param pInput buffer containing data
+	 * @param pOffset offset of the data in the buffer
+	 * @param pLength length of the data
+	 * @return new state
+	 */
+	public CkSumState update(byte[] pInput, int pOffset, int pLength) {
+		return new CkSumState(CkSumDigest.update(gCrc, pInput, pOffset, pLength), gLength + pLength);
+	}
+
+	/**
+	 * Get the state for this data followed by the data of another state
+	 * @param pNext state of the data that follows this data
+	 * @return combined state
+	 */
+	public CkSumState append(CkSumState pNext) {
+		return new CkSumState(combine(gCrc, pNext.gCrc, pNext.gLength), gLength + pNext.gLength);
+	}
+
+	/**
+	 * Combine the raw crc registers of two consecutive pieces of data
+	 * @param pCrcA raw crc of the first piece of data
+	 * @param pCrcB raw crc of the second piece of data
+	 * @param pLengthB length of the second piece of data
+	 * @return raw crc of both pieces of data
+	 */
+	public static int combine(int pCrcA, int pCrcB, long pLengthB) {
+		return shift(pCrcA, pLengthB) ^ pCrcB;
+	}
+
+	/**
+	 * Combine the state of two consecutive pieces of data
+	 * @param pA state of the first piece of data
+	 * @param pB state of the second piece of data
+	 * @param pLengthB length of the second piece of data (must match pB)
+	 * @return state of both pieces of data
+	 */
+	public static CkSumState combine(CkSumState pA, CkSumState pB, long pLengthB) {
+		if (pB.gLength != pLengthB) {
+			throw new IllegalArgumentException("Length mismatch: "+pB.gLength+" != "+pLengthB);
+		}
+		return pA.append(pB);
+	}
+
+	/**
+	 * Get the raw crc register (before the length is appended)
+	 * @return raw crc
+	 */
+	public int getCrc() {
+		return gCrc;
+	}
+
+	/**
+	 * Get the length of the data
+	 * @return length
+	 */
+	public long getLength() {
+		return gLength;
+	}
+
+	/**
+	 * Get the cksum value, as printed by `cksum`
+	 * @return cksum value (unsigned)
+	 */
+	public long getValue() {
+		return CkSumDigest.finish(gCrc, gLength)&0xffffffffL;
+	}
+
+	/**
+	 * Get the cksum value as a digest (big endian, as returned by the cksum MessageDigest)
+	 * @return digest bytes
+	 */
+	public byte[] getDigest() {
+		int crc = CkSumDigest.finish(gCrc, gLength);
+		return new byte[] { (byte)(crc>>24), (byte)(crc>>16), (byte)(crc>>8), (byte)crc };
+	}
+
+	/**
+	 * Multiply a crc by x^(8*pLength) mod POLY, i.e. append pLength zero bytes
+	 */
+	private static int shift(int pCrc, long pLength) {
+		for (int k = 0; pLength != 0 && pCrc != 0; k++, pLength >>>= 1) {
+			if ((pLength & 1) != 0) {
+				pCrc = multModP(x2n[k], pCrc);
+			}
+		}
+		return pCrc;
+	}
+
+	/**
+	 * Multiply two polynomials modulo POLY (bit n is the coefficient of x^n)
+	 */
+	private static int multModP(int pA, int pB) {
+		int product = 0;
+		for (int i = 31; i >= 0; i--) {
+			// product *= x
+			product = (product<<1) ^ (product<0?POLY:0);
+			if ((pA>>>i & 1) != 0) {
+				product ^= pB;
+			}
+		}
+		return product;
+	}
+
+	@Override
+	public boolean equals(Object pOther) {
+		if (!(pOther instanceof CkSumState)) return false;
+		CkSumState other = (CkSumState)pOther;
+		return gCrc == other.gCrc && gLength == other.gLength;
+	}
+
+	@Override
+	public int hashCode() {
+		return gCrc ^ (int)(gLength ^ (gLength>>>32));
+	}
+
+	@Override
+	public String toString() {
+		return getValue()+" "+gLength;
+	}
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum.crc;
+
+import java.nio.ByteBuffer;
+import java.util.zip.Checksum;
+
+/**
+ * CRC-32C (Castagnoli) checksum, as used by iSCSI, ext4, btrfs etc
+ *
+ * Pure Java as java.util.zip.CRC32C is not available before JDK9.
+ */
+public class CRC32C implements Checksum {
+
+	/* reversed Castagnoli polynomial */
+	final static int POLY = 0x82F63B78;
+
+	/* lookup table for reversed Castagnoli polynomial */
+	final static int[] table = new int[256];
+	static {
+		for(int i=0;i<256;i++) {
+			int crc = i;
+			for(int j=0;j<8;j++) {
+				crc = (crc>>>1) ^ ((crc&1)==0?0:POLY);
+			}
+			table[i] = crc;
+		}
+	}
+
+	private int gCrc = 0xffffffff;
+
+	@Override
+	public void update(int b) {
+		gCrc = table[(gCrc^b)&0xff] ^ (gCrc>>>8);
+	}
+
+	@Override
+	public void update(byte[] b, int off, int len) {
+		int crc = gCrc;
+		for(int i=off;i<off+len;i++) {
+			crc = table[(crc^b[i])&0xff] ^ (crc>>>8);
+		}
+		gCrc = crc;
+	}
+
+	/**
+	 * Update the checksum with an array of bytes
+	 * @param b data
+	 */
+	public void update(byte[] b) {
+		update(b, 0, b.length);
+	}
+
+	/**
+	 * Update the checksum with the remaining bytes in a buffer, the buffer's
+	 * position is advanced to its limit
+	 * @param b data
+	 */
+	public void update(ByteBuffer b) {
+		if(b.hasArray()) {
+			update(b.array(), b.arrayOffset()+b.position(), b.remaining());
+			b.position(b.limit());
+			return;
+		}
+		int crc = gCrc;
+		for(int i=b.position();i<b.limit();i++) {
+			crc = table[(crc^b.get(i))&0xff] ^ (crc>>>8);
+		}
+		gCrc = crc;
+		b.position(b.limit());
+	}
+
+	@Override
+	public long getValue() {
+		return (~gCrc)&0xffffffffL;
+	}
+
+	@Override
+	public void reset() {
+		gCrc = 0xffffffff;
+	}
+
+}
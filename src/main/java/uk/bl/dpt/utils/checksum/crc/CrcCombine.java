@@ -0,0 +1,112 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum.crc;
+
+/**
+ * Combine the CRC32/CRC32C values of two consecutive pieces of data, without
+ * looking at the data again.  This is zlib's crc32_combine (multmodp/x2nmodp).
+ * <pre>
+ * crc(A+B) == CrcCombine.crc32(crc(A), crc(B), B.length)
+ * </pre>
+ * Values are the final values as returned by Checksum.getValue().
+ */
+public class CrcCombine {
+
+	private final static CrcCombine gCrc32 = new CrcCombine(0xedb88320);
+	private final static CrcCombine gCrc32c = new CrcCombine(CRC32C.POLY);
+
+	/* reversed polynomial */
+	private final int gPoly;
+	/* gX2n[k] is x^(2^k) mod gPoly (reversed), enough entries for any byte length */
+	private final int[] gX2n = new int[64+3];
+
+	private CrcCombine(int pPoly) {
+		gPoly = pPoly;
+		// x^1
+		int p = 1<<30;
+		gX2n[0] = p;
+		for (int k = 1; k < gX2n.length; k++) {
+			p = multModP(p, p);
+			gX2n[k] = p;
+		}
+	}
+
+	/**
+	 * Combine two CRC32 (java.util.zip.CRC32) values
+	 * @param pCrcA crc of the first piece of data
+	 * @param pCrcB crc of the second piece of data
+	 * @param pLengthB length of the second piece of data
+	 * @return crc of both pieces of data
+	 */
+	public static long crc32(long pCrcA, long pCrcB, long pLengthB) {
+		return gCrc32.combine(pCrcA, pCrcB, pLengthB);
+	}
+
+	/**
+	 * Combine two CRC32C values
+	 * @param pCrcA crc of the first piece of data
+	 * @param pCrcB crc of the second piece of data
+	 * @param pLengthB length of the second piece of data
+	 * @return crc of both pieces of data
+	 */
+	public static long crc32c(long pCrcA, long pCrcB, long pLengthB) {
+		return gCrc32c.combine(pCrcA, pCrcB, pLengthB);
+	}
+
+	private long combine(long pCrcA, long pCrcB, long pLengthB) {
+		// append pLengthB zero bytes to A, i.e. multiply by x^(8*pLengthB)
+		return (multModP(x2nModP(pLengthB, 3), (int)pCrcA) ^ (int)pCrcB)&0xffffffffL;
+	}
+
+	/**
+	 * x^(n*2^k) mod gPoly
+	 */
+	private int x2nModP(long pN, int pK) {
+		int p = 1<<31; // x^0 == 1
+		while (pN != 0) {
+			if ((pN & 1) != 0) {
+				p = multModP(gX2n[pK], p);
+			}
+			pN >>>= 1;
+			pK++;
+		}
+		return p;
+	}
+
+	/**
+	 * pA * pB mod gPoly, reflected (bit 31 is x^0)
+	 */
+	private int multModP(int pA, int pB) {
+		if (pA == 0) {
+			return 0;
+		}
+		int m = 1<<31;
+		int p = 0;
+		while (true) {
+			if ((pA & m) != 0) {
+				p ^= pB;
+				if ((pA & (m-1)) == 0) {
+					break;
+				}
+			}
+			m >>>= 1;
+			pB = (pB & 1) != 0 ? (pB>>>1) ^ gPoly : pB>>>1;
+		}
+		return p;
+	}
+
+}
@@ -102,13 +102,12 @@ public class FileUtil {
 	 */
 	public static void writeReaderToFile(Reader pBuffer, File pFile) throws IOException {
 		BufferedWriter out = new BufferedWriter(new FileWriter(pFile));
-		char[] readBuffer = new char[32768];
-		int bytesRead = 0;
-		while(pBuffer.ready()) {
-			bytesRead = pBuffer.read(readBuffer);
-			out.write(readBuffer, 0, bytesRead);
+		try {
+			// NOTE: ready() is false when a read might block, not just at the end
+			StreamUtil.copy(pBuffer, out);
+		} finally {
+			out.close();
 		}
-		out.close();
 	}
 	
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.util;
+
+/**
+ * Table based hex encoding, for rendering digests without String.format()
+ *
+ * The char[] and StringBuilder methods write into caller supplied storage so that
+ * they can be reused from one digest to the next.
+ */
+public class Hex {
+
+	private final static char[] UPPER = "0123456789ABCDEF".toCharArray();
+	private final static char[] LOWER = "0123456789abcdef".toCharArray();
+
+	private Hex() {}
+
+	/**
+	 * Encode bytes as hex into a char array
+	 * @param pBytes bytes to encode
+	 * @param pOffset offset of the first byte
+	 * @param pLength number of bytes to encode
+	 * @param pDest array to write to, needs space for pLength*2 chars
+	 * @param pDestOffset offset in pDest to start writing at
+	 * @param pUpperCase true for A-F, false for a-f
+	 * @return offset in pDest after the last char written
+	 */
+	public static int encode(byte[] pBytes, int pOffset, int pLength, char[] pDest, int pDestOffset, boolean pUpperCase) {
+		final char[] digits = pUpperCase ? UPPER : LOWER;
+		int j = pDestOffset;
+		for(int i=pOffset;i<pOffset+pLength;i++) {
+			int b = pBytes[i]&0xff;
+			pDest[j++] = digits[b>>>4];
+			pDest[j++] = digits[b&0x0f];
+		}
+		return j;
+	}
+
+	/**
+	 * Append bytes as hex to a StringBuilder
+	 * @param pBuilder builder to append to
+	 * @param pBytes bytes to encode
+	 * @param pUpperCase true for A-F, false for a-f
+	 * @return pBuilder
+	 */
+	public static StringBuilder append(StringBuilder pBuilder, byte[] pBytes, boolean pUpperCase) {
+		final char[] digits = pUpperCase ? UPPER : LOWER;
+		pBuilder.ensureCapacity(pBuilder.length()+pBytes.length*2);
+		for(byte b:pBytes) {
+			pBuilder.append(digits[(b>>>4)&0x0f]).append(digits[b&0x0f]);
+		}
+		return pBuilder;
+	}
+
+	/**
+	 * Encode bytes as an upper case hex String
+	 * @param pBytes bytes to encode
+	 * @return hex string
+	 */
+	public static String toUpperHex(byte[] pBytes) {
+		char[] chars = new char[pBytes.length*2];
+		encode(pBytes, 0, pBytes.length, chars, 0, true);
+		return new String(chars);
+	}
+
+	/**
+	 * Encode bytes as a lower case hex String
+	 * @param pBytes bytes to encode
+	 * @return hex string
+	 */
+	public static String toLowerHex(byte[] pBytes) {
+		char[] chars = new char[pBytes.length*2];
+		encode(pBytes, 0, pBytes.length, chars, 0, false);
+		return new String(chars);
+	}
+
+	/**
+	 * Encode an unsigned value as hex, without leading zeros (like Long.toHexString())
+	 * @param pValue value to encode
+	 * @param pUpperCase true for A-F, false for a-f
+	 * @return hex string
+	 */
+	public static String toHex(long pValue, boolean pUpperCase) {
+		final char[] digits = pUpperCase ? UPPER : LOWER;
+		char[] chars = new char[16];
+		int i = chars.length;
+		do {
+			chars[--i] = digits[(int)(pValue&0x0f)];
+			pValue >>>= 4;
+		} while(pValue!=0);
+		return new String(chars, i, chars.length-i);
+	}
+
+	/**
+	 * Decode a hex string (either case) to bytes
+	 * @param pHex hex string, with an even number of digits
+	 * @return decoded bytes
+	 * @throws IllegalArgumentException if the string is not valid hex
+	 */
+	public static byte[] decode(CharSequence pHex) {
+		if(pHex.length()%2!=0) throw new IllegalArgumentException("Odd number of hex digits: "+pHex);
+		byte[] bytes = new byte[pHex.length()/2];
+		for(int i=0;i<bytes.length;i++) {
+			bytes[i] = (byte)(digit(pHex, i*2)<<4 | digit(pHex, i*2+1));
+		}
+		return bytes;
+	}
+
+	private static int digit(CharSequence pHex, int pIndex) {
+		int d = Character.digit(pHex.charAt(pIndex), 16);
+		if(d<0) throw new IllegalArgumentException("Not a hex digit at "+pIndex+": "+pHex);
+		return d;
+	}
+
+}
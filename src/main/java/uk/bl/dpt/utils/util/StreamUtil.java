@@ -23,6 +23,9 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
 import java.util.zip.GZIPInputStream;
 
 import org.slf4j.Logger;
@@ -38,7 +41,107 @@ public class StreamUtil {
 	@SuppressWarnings("unused")
 	private static Logger gLogger = LoggerFactory.getLogger(StreamUtil.class);
 	
+	/**
+	 * Size of the pooled transfer buffers
+	 */
+	public final static int BUFSIZE = 65536;
+
+	/**
+	 * One transfer buffer per thread, so copying does not allocate
+	 */
+	private final static ThreadLocal<byte[]> gBuffer = new ThreadLocal<byte[]>() {
+		@Override
+		protected byte[] initialValue() {
+			return new byte[BUFSIZE];
+		}
+	};
+
+	private final static ThreadLocal<char[]> gCharBuffer = new ThreadLocal<char[]>() {
+		@Override
+		protected char[] initialValue() {
+			return new char[BUFSIZE/2];
+		}
+	};
+	
 	private StreamUtil() {}
+
+	/**
+	 * Copy an InputStream to an OutputStream until the end of the input is reached, using this
+	 * thread's pooled buffer.  Neither stream is closed.
+	 * The transfer is recorded in {@link TransferMetrics#GLOBAL}.
+	 * @param pInputStream stream to read
+	 * @param pOutputStream stream to write to
+	 * @return number of bytes copied
+	 * @throws IOException if there is an error reading or writing
+	 */
+	public static long copy(InputStream pInputStream, OutputStream pOutputStream) throws IOException {
+		return copy(pInputStream, pOutputStream, gBuffer.get());
+	}
+
+	/**
+	 * Copy an InputStream to an OutputStream until the end of the input is reached.  Neither
+	 * stream is closed.
+	 * The transfer is recorded in {@link TransferMetrics#GLOBAL}.
+	 * @param pInputStream stream to read
+	 * @param pOutputStream stream to write to
+	 * @param pBuffer buffer to copy through
+	 * @return number of bytes copied
+	 * @throws IOException if there is an error reading or writing
+	 */
+	public static long copy(InputStream pInputStream, OutputStream pOutputStream, byte[] pBuffer) throws IOException {
+		if(pBuffer.length==0) throw new IllegalArgumentException("Buffer must not be empty");
+		long start = System.nanoTime();
+		long total = 0;
+		int read;
+		// NOTE: available() is only an estimate, only -1 means the end of the stream
+		while((read = pInputStream.read(pBuffer, 0, pBuffer.length))>=0) {
+			pOutputStream.write(pBuffer, 0, read);
+			total += read;
+		}
+		TransferMetrics.GLOBAL.record(total, System.nanoTime()-start);
+		return total;
+	}
+
+	/**
+	 * Copy a Reader to a Writer until the end of the input is reached, using this
+	 * thread's pooled buffer.  Neither is closed.
+	 * The transfer is not recorded in {@link TransferMetrics#GLOBAL}, which counts bytes.
+	 * @param pReader reader to read
+	 * @param pWriter writer to write to
+	 * @return number of chars copied
+	 * @throws IOException if there is an error reading or writing
+	 */
+	public static long copy(Reader pReader, Writer pWriter) throws IOException {
+		char[] buffer = gCharBuffer.get();
+		long total = 0;
+		int read;
+		while((read = pReader.read(buffer, 0, buffer.length))>=0) {
+			pWriter.write(buffer, 0, read);
+			total += read;
+		}
+		return total;
+	}
+
+	/**
+	 * Read from a stream until a buffer is full or the end of the stream is reached
+	 * @param pInputStream stream to read
+	 * @param pBuffer buffer to read into
+	 * @param pOffset offset in the buffer to start at
+	 * @param pLength maximum number of bytes to read
+	 * @return number of bytes read, less than pLength only at the end of the stream
+	 * @throws IOException if there is an error reading
+	 */
+	public static int readFully(InputStream pInputStream, byte[] pBuffer, int pOffset, int pLength) throws IOException {
+		int length = 0;
+		while(length<pLength) {
+			int read = pInputStream.read(pBuffer, pOffset+length, pLength-length);
+			if(read<0) {
+				break;
+			}
+			length += read;
+		}
+		return length;
+	}
 	
 	/**
 	 * Gets an InputStream for the contents of a file - if the file is .gz it will return
@@ -87,17 +190,11 @@ public class StreamUtil {
 		FileOutputStream fos = null;
 		try {
 			fos = new FileOutputStream(pFile);
-		} catch (FileNotFoundException e1) {
-			// TODO Auto-generated catch block
-			e1.printStackTrace();
-		}
-		byte[] buffer = new byte[32768];
-		int read = 0;
-		try {
-			while(pInputStream.available()>0) {
-				read = pInputStream.read(buffer, 0, buffer.length);
-				fos.write(buffer, 0, read);
-			}
+			copy(pInputStream, fos);
+			// a failure to flush to disk can show up on close
+			fos.close();
+			fos = null;
+			return true;
 		} catch (IOException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
@@ -106,6 +203,11 @@ public class StreamUtil {
 				if(pInputStream!=null) {
 					pInputStream.close();
 				}
+			} catch (IOException e) {
+				// TODO Auto-generated catch block
+				e.printStackTrace();
+			}
+			try {
 				if(fos!=null) {
 					fos.close();
 				}
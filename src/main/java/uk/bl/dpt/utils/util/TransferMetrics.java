@@ -0,0 +1,100 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Running totals of data moved by stream transfers, for throughput reporting.
+ *
+ * Safe to update from several threads at once.  Every byte stream transfer done through
+ * {@link StreamUtil} and the checksum engines is recorded in {@link #GLOBAL}.
+ */
+public class TransferMetrics {
+
+	/**
+	 * Metrics for all transfers in this JVM
+	 */
+	public final static TransferMetrics GLOBAL = new TransferMetrics();
+
+	private final AtomicLong gTransfers = new AtomicLong();
+	private final AtomicLong gBytes = new AtomicLong();
+	private final AtomicLong gNanos = new AtomicLong();
+
+	/**
+	 * Record a completed transfer
+	 * @param pBytes number of bytes moved
+	 * @param pNanos time taken, in nanoseconds
+	 */
+	public void record(long pBytes, long pNanos) {
+		gTransfers.incrementAndGet();
+		gBytes.addAndGet(pBytes);
+		gNanos.addAndGet(pNanos);
+	}
+
+	/**
+	 * Get the number of transfers recorded
+	 * @return number of transfers
+	 */
+	public long getTransfers() {
+		return gTransfers.get();
+	}
+
+	/**
+	 * Get the total number of bytes moved
+	 * @return bytes
+	 */
+	public long getBytes() {
+		return gBytes.get();
+	}
+
+	/**
+	 * Get the total time spent moving data (summed over all threads)
+	 * @return time in nanoseconds
+	 */
+	public long getNanos() {
+		return gNanos.get();
+	}
+
+	/**
+	 * Get the average throughput of the recorded transfers
+	 * @return bytes per second (0 if nothing has been recorded)
+	 */
+	public double getBytesPerSecond() {
+		long nanos = gNanos.get();
+		if(nanos==0) {
+			return 0;
+		}
+		return gBytes.get()*1e9/nanos;
+	}
+
+	/**
+	 * Clear all the totals
+	 */
+	public void reset() {
+		gTransfers.set(0);
+		gBytes.set(0);
+		gNanos.set(0);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d transfers, %d bytes, %.3fs, %.1f MiB/s",
+				getTransfers(), getBytes(), getNanos()/1e9, getBytesPerSecond()/(1024*1024));
+	}
+
+}
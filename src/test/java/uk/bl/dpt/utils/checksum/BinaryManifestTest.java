@@ -0,0 +1,197 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+@SuppressWarnings("javadoc")
+public class BinaryManifestTest {
+
+	@Rule
+	public TemporaryFolder gFolder = new TemporaryFolder();
+
+	private File gDir;
+
+	@Before
+	public void setUp() {
+		gDir = gFolder.getRoot();
+	}
+
+	private File writeManifest(String pName, List<String[]> pEntries) throws IOException {
+		return TestFiles.writeManifest(new File(gDir, pName), pEntries);
+	}
+
+	private File binary(File pManifest) throws IOException {
+		File binary = new File(gDir, pManifest.getName()+BinaryManifest.EXTENSION);
+		BinaryManifest.write(pManifest, binary);
+		return binary;
+	}
+
+	private static List<String> sorted(Iterator<DiffResult.Entry> pEntries) {
+		List<String> entries = new ArrayList<String>();
+		while(pEntries.hasNext()) {
+			entries.add(pEntries.next().toString());
+		}
+		Collections.sort(entries);
+		return entries;
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		List<String[]> entries = new ArrayList<String[]>();
+		entries.add(new String[] { "ff", "b/lower.txt" });
+		entries.add(new String[] { "00AB", "a/leading zeros.txt" });
+		entries.add(new String[] { "AB", "a/no zeros.txt" });
+		entries.add(new String[] { "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef", "sha256.bin" });
+		entries.add(new String[] { "AB", "a/second.txt" });
+		File text = writeManifest("a.txt", entries);
+
+		BinaryManifest manifest = new BinaryManifest(binary(text));
+		assertEquals(5, manifest.size());
+		assertEquals(32, manifest.getWidth());
+		assertEquals("cksum", manifest.getAlgorithm());
+		// sorted by value, then digit count, keeping the order of duplicates
+		assertEquals("AB", manifest.getChecksum(0));
+		assertEquals("a/no zeros.txt", manifest.getFile(0));
+		assertEquals("a/second.txt", manifest.getFile(1));
+		assertEquals("00AB", manifest.getChecksum(2));
+		assertEquals("ff", manifest.getChecksum(3));
+		assertEquals(0, manifest.find("AB"));
+		assertEquals(2, manifest.find("00AB"));
+		assertEquals(-1, manifest.find("ab"));
+		assertEquals(-1, manifest.find("FF"));
+		assertEquals(-1, manifest.find("not hex"));
+
+		// and back to the text and XML formats
+		for(String name:new String[] { "copy.txt", "copy.xml" }) {
+			File copy = new File(gDir, name);
+			manifest.export(copy);
+			DiffResult result = new ManifestDiffer().diff(text, copy);
+			assertTrue(name, result.isIdentical());
+			assertEquals(5, result.getEntriesB());
+		}
+
+		CompactManifest compact = new CompactManifest();
+		compact.add("ABC", null);
+		File nullPath = new File(gDir, "null.bman");
+		BinaryManifest.write(compact, "MD5", nullPath);
+		manifest = new BinaryManifest(nullPath);
+		assertNull(manifest.getFile(0));
+		assertEquals("MD5", manifest.getAlgorithm());
+		try {
+			// a text manifest has no way to say there is no path
+			manifest.export(new File(gDir, "null.txt"));
+			fail("Exported an entry without a path");
+		} catch(IOException e) {
+			// expected
+		}
+
+		compact.add("not hex", "a.txt");
+		try {
+			BinaryManifest.write(compact, "MD5", nullPath);
+			fail("Wrote a checksum that is not hex");
+		} catch(IOException e) {
+			// expected
+		}
+		try {
+			new BinaryManifest(text);
+			fail("Opened a text manifest");
+		} catch(IOException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testMatchesManifestDiffer() throws IOException {
+		Random random = new Random(3);
+		for(int round=0;round<10;round++) {
+			List<String[]> entriesA = new ArrayList<String[]>();
+			List<String[]> entriesB = new ArrayList<String[]>();
+			// some rounds have a small A, to gallop over B
+			int rate = round%2==0 ? 20 : 200;
+			for(int i=0;i<2000;i++) {
+				String checksum = Integer.toHexString(random.nextInt(300));
+				if(random.nextBoolean()) {
+					checksum = checksum.toUpperCase();
+				}
+				if(random.nextInt(10)==0) {
+					checksum = "0"+checksum;
+				}
+				String[] entry = { checksum, "d"+random.nextInt(3)+"/f"+random.nextInt(5)+".txt" };
+				int where = random.nextInt(rate);
+				if(where==0||(rate==20&&where!=1)) {
+					entriesA.add(entry);
+				}
+				if(where!=0) {
+					entriesB.add(entry);
+				}
+			}
+			File a = writeManifest("a.txt", entriesA);
+			File b = writeManifest("b.txt", entriesB);
+
+			DiffResult expected = new ManifestDiffer().diff(a, b);
+			DiffResult actual = new BinaryManifestDiff().diff(binary(a), binary(b));
+			assertEquals(expected.getEntriesA(), actual.getEntriesA());
+			assertEquals(expected.getEntriesB(), actual.getEntriesB());
+			assertEquals(expected.getUniqueCountA(), actual.getUniqueCountA());
+			assertEquals(expected.getUniqueCountB(), actual.getUniqueCountB());
+			assertEquals(sorted(expected.uniqueToA()), sorted(actual.uniqueToA()));
+			assertEquals(sorted(expected.uniqueToB()), sorted(actual.uniqueToB()));
+		}
+	}
+
+	@Test
+	public void testCompareBinary() throws IOException {
+		List<String[]> entries = new ArrayList<String[]>();
+		entries.add(new String[] { "1234", "a/one.txt" });
+		entries.add(new String[] { "5678", "a/two.txt" });
+		File a = binary(writeManifest("a.txt", entries));
+		entries.remove(1);
+		entries.add(new String[] { "9ABC", "b/three.txt" });
+		File b = binary(writeManifest("b.txt", entries));
+
+		File report = new File(gDir, "report.txt");
+		ChecksumDiff.compareBinary(a, b, report);
+		List<String> lines = Files.readAllLines(report.toPath(), Charset.forName("UTF-8"));
+		assertTrue(lines.contains("< 5678: a/two.txt"));
+		assertTrue(lines.contains("> 9ABC: b/three.txt"));
+		assertTrue(lines.contains("Entries in a.txt.bman: 2"));
+		assertTrue(lines.contains("Unique files in b.txt.bman: 1"));
+
+		// an empty manifest
+		File empty = binary(writeManifest("empty.txt", new ArrayList<String[]>()));
+		DiffResult result = new BinaryManifestDiff().diff(empty, a);
+		assertEquals(0, result.getEntriesA());
+		assertEquals(2, result.getUniqueCountB());
+	}
+
+}
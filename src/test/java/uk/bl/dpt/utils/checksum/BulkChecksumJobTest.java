@@ -0,0 +1,223 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+@SuppressWarnings("javadoc")
+public class BulkChecksumJobTest {
+
+	private final static Charset UTF8 = Charset.forName("UTF-8");
+
+	@Rule
+	public TemporaryFolder gFolder = new TemporaryFolder();
+
+	private File gDir;
+	private File gData;
+
+	@Before
+	public void setUp() throws IOException {
+		gDir = gFolder.getRoot();
+		gData = new File(gDir, "data");
+		for(int i=0;i<25;i++) {
+			TestFiles.write(new File(gData, "dir"+(i%3)+"/file"+i+".bin"), "contents of file "+i);
+		}
+	}
+
+	private static String cksum(File pFile) throws Exception {
+		return ChecksumUtil.generateChecksum(ChecksumSpec.of("cksum"), pFile.getPath()).values().iterator().next();
+	}
+
+	/**
+	 * Check each file is in a manifest exactly once, with the right checksum
+	 */
+	private void assertManifest(File pManifest, int pFiles) throws Exception {
+		final Map<String, String> entries = new TreeMap<String, String>();
+		ManifestEntryHandler handler = new ManifestEntryHandler() {
+			@Override
+			public void entry(String pChecksum, String pFile) {
+				assertNull("Duplicate entry: "+pFile, entries.put(pFile, pChecksum));
+			}
+		};
+		if(ChecksumDiff.isXML(pManifest)) {
+			ThreadingSpiderReader.read(pManifest, "cksum", handler);
+		} else {
+			CrcManifestReader.read(pManifest, handler);
+		}
+		assertEquals(pFiles, entries.size());
+		for(Map.Entry<String, String> entry:entries.entrySet()) {
+			assertEquals(entry.getKey(), cksum(new File(gData, entry.getKey())), entry.getValue());
+		}
+	}
+
+	/**
+	 * @return offset after the nth line of a log starting with a prefix
+	 */
+	private static long after(File pLog, String pPrefix, int pCount) throws IOException {
+		long offset = 0;
+		int count = 0;
+		for(String line:Files.readAllLines(pLog.toPath(), UTF8)) {
+			offset += line.getBytes(UTF8).length+1;
+			if(line.startsWith(pPrefix)&&++count==pCount) {
+				return offset;
+			}
+		}
+		throw new AssertionError("Not enough "+pPrefix+" lines");
+	}
+
+	@Test
+	public void testRunAndFinish() throws Exception {
+		// the manifest can be in the directory, it is not checksummed
+		File manifest = new File(gData, "manifest.txt");
+		BulkChecksumJob job = new BulkChecksumJob(gData, manifest, ChecksumSpec.of("cksum", "MD5"), 2, 1, 2);
+		job.setCheckpointInterval(4, Long.MAX_VALUE);
+		assertEquals(25, job.run());
+		assertEquals(25, job.getWritten());
+		assertEquals(0, job.getSkipped());
+		assertManifest(manifest, 25);
+
+		List<String> log = Files.readAllLines(job.getCheckpointFile().toPath(), UTF8);
+		assertEquals("E\t"+manifest.length()+"\t25", log.get(log.size()-1));
+		assertEquals(25+6+1+1, log.size());
+
+		// a finished job does nothing
+		TestFiles.write(new File(gData, "new.bin"), "new");
+		assertEquals(25, job.run());
+		assertEquals(0, job.getWritten());
+		assertManifest(manifest, 25);
+	}
+
+	@Test
+	public void testResumeAfterCrash() throws Exception {
+		for(String name:new String[] { "manifest.txt", "manifest.xml" }) {
+			File manifest = new File(gDir, name);
+			BulkChecksumJob job = new BulkChecksumJob(gData, manifest, ChecksumSpec.of("cksum"), 3, 1, 1);
+			job.setCheckpointInterval(3, Long.MAX_VALUE);
+			job.run();
+
+			// a crash after the third checkpoint: more entries were written, the last one
+			// only half, and the log was torn mid line
+			File log = job.getCheckpointFile();
+			RandomAccessFile file = new RandomAccessFile(log, "rw");
+			file.setLength(after(log, "C", 3));
+			file.close();
+			TestFiles.append(log, "F\tdir1/fi");
+			TestFiles.append(manifest, "dir1/half");
+
+			// files added before the resume are picked up
+			File added = new File(gData, "dir0/new.bin");
+			TestFiles.write(added, "a new file");
+			assertEquals(26, job.run());
+			assertEquals(name, 9, job.getSkipped());
+			assertEquals(name, 17, job.getWritten());
+			assertManifest(manifest, 26);
+			added.delete();
+		}
+	}
+
+	@Test
+	public void testResumeEscapedPaths() throws Exception {
+		TestFiles.write(new File(gData, "dir0/tab\tname.bin"), "tab");
+		TestFiles.write(new File(gData, "dir0/back\\slash.bin"), "backslash");
+		File manifest = new File(gDir, "manifest.txt");
+		BulkChecksumJob job = new BulkChecksumJob(gData, manifest, ChecksumSpec.of("cksum"), 2, 1, 2);
+		job.setCheckpointInterval(1, Long.MAX_VALUE);
+		assertEquals(27, job.run());
+
+		// stopped just after every file was checkpointed: all are matched in the log and skipped
+		File log = job.getCheckpointFile();
+		RandomAccessFile file = new RandomAccessFile(log, "rw");
+		file.setLength(after(log, "C", 27));
+		file.close();
+		assertEquals(27, job.run());
+		assertEquals(27, job.getSkipped());
+		assertEquals(0, job.getWritten());
+	}
+
+	@Test
+	public void testUnwritableEntry() throws Exception {
+		// read fine, but an XML manifest cannot hold the name
+		TestFiles.write(new File(gData, "dir0/bell\u0007.bin"), "bell");
+		File manifest = new File(gDir, "manifest.xml");
+		BulkChecksumJob job = new BulkChecksumJob(gData, manifest, ChecksumSpec.of("cksum"), 2, 1, 2);
+		job.setCheckpointInterval(4, Long.MAX_VALUE);
+		assertEquals(25, job.run());
+		assertEquals(1, job.getFailed());
+		assertManifest(manifest, 25);
+
+		// stopped before the end: the left out file is not tried again
+		File log = job.getCheckpointFile();
+		int checkpoints = 0;
+		for(String line:Files.readAllLines(log.toPath(), UTF8)) {
+			if(line.startsWith("C\t")) {
+				checkpoints++;
+			}
+		}
+		RandomAccessFile file = new RandomAccessFile(log, "rw");
+		file.setLength(after(log, "C", checkpoints));
+		file.close();
+		assertEquals(25, job.run());
+		assertEquals(26, job.getSkipped());
+		assertEquals(0, job.getWritten());
+		assertEquals(0, job.getFailed());
+		assertManifest(manifest, 25);
+	}
+
+	@Test
+	public void testLogAndArguments() throws Exception {
+		assertEquals("plain/path.txt", BulkChecksumJob.escape("plain/path.txt"));
+		assertEquals("c:\\\\windows\\\\path.txt", BulkChecksumJob.escape("c:\\windows\\path.txt"));
+		assertEquals("tab\\there", BulkChecksumJob.escape("tab\there"));
+		assertEquals("new\\nline\\r\\\\n", BulkChecksumJob.escape("new\nline\r\\n"));
+
+		try {
+			new BulkChecksumJob(gData, new File(gDir, "manifest.txt.gz"), ChecksumSpec.DEFAULT);
+			fail("Resumable gzipped manifest");
+		} catch(IllegalArgumentException e) {
+			// expected
+		}
+		try {
+			new BulkChecksumJob(gData, new File(gDir, "manifest.txt"), ChecksumSpec.of("MD5"));
+			fail("OS CRC manifest without cksum");
+		} catch(IllegalArgumentException e) {
+			// expected
+		}
+
+		// a log with no checkpoint starts again
+		File manifest = new File(gDir, "manifest.xml");
+		TestFiles.write(manifest, "partial manifest");
+		BulkChecksumJob job = new BulkChecksumJob(gData, manifest, ChecksumSpec.of("SHA-256"), 1, 1, 0);
+		TestFiles.write(job.getCheckpointFile(), "F\tdir0/file0.bin\n");
+		assertEquals(25, job.run());
+		assertEquals(0, job.getSkipped());
+	}
+
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.bl.dpt.utils.util.FileUtil;
+
+/**
+ * Test the persistent checksum cache
+ */
+@SuppressWarnings("javadoc")
+public class ChecksumCacheTest {
+
+	private final static ChecksumSpec SPEC;
+	static {
+		try {
+			SPEC = ChecksumSpec.of("MD5", "CRC32");
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private File gDir;
+	private File gCacheFile;
+
+	@Before
+	public void setUp() throws IOException {
+		gDir = Files.createTempDirectory("checksumcache").toFile();
+		gCacheFile = new File(gDir, "cache.bin");
+	}
+
+	@After
+	public void tearDown() {
+		FileUtil.deleteDirectory(gDir);
+	}
+
+	private File write(String pName, String pContent, long pMtime) throws IOException {
+		File file = new File(gDir, pName);
+		FileOutputStream out = new FileOutputStream(file);
+		out.write(pContent.getBytes("UTF-8"));
+		out.close();
+		file.setLastModified(pMtime);
+		return file;
+	}
+
+	@Test
+	public void testCacheHitAndForceVerify() throws Exception {
+		File file = write("a.txt", "hello world", 1000000000000L);
+		Map<String, String> original;
+		ChecksumCache cache = new ChecksumCache(gCacheFile);
+		try {
+			original = cache.checksum(file, SPEC, false);
+			assertEquals(ChecksumUtil.generateChecksum(SPEC, file.getPath()), original);
+		} finally {
+			cache.close();
+		}
+
+		// same size and mtime, different content: only a re-read notices
+		write("a.txt", "HELLO WORLD", 1000000000000L);
+
+		cache = new ChecksumCache(gCacheFile);
+		try {
+			assertEquals(1, cache.size());
+			assertEquals(original, cache.checksum(file, SPEC, false));
+			Map<String, String> verified = cache.checksum(file, SPEC, true);
+			assertFalse(original.equals(verified));
+			assertEquals(ChecksumUtil.generateChecksum(SPEC, file.getPath()), verified);
+			// the cache now has the new values
+			assertEquals(verified, cache.get(file, SPEC));
+			// an algorithm that was never calculated is a miss
+			assertNull(cache.get(file, ChecksumSpec.of("SHA-256")));
+		} finally {
+			cache.close();
+		}
+
+		// a changed mtime is a miss
+		file.setLastModified(1000000005000L);
+		cache = new ChecksumCache(gCacheFile);
+		try {
+			assertNull(cache.get(file, SPEC));
+		} finally {
+			cache.close();
+		}
+	}
+
+	@Test
+	public void testRecentlyModified() throws Exception {
+		// modified now: a same size rewrite in the same mtime tick would go unnoticed
+		File file = write("a.txt", "hello world", System.currentTimeMillis());
+		ChecksumCache cache = new ChecksumCache(gCacheFile);
+		try {
+			assertEquals(ChecksumUtil.generateChecksum(SPEC, file.getPath()), cache.checksum(file, SPEC, false));
+			assertNull(cache.get(file, SPEC));
+			assertEquals(0, cache.size());
+
+			// once it is older than the granularity it is cached
+			file.setLastModified(System.currentTimeMillis()-10000);
+			cache.checksum(file, SPEC, false);
+			assertNotNull(cache.get(file, SPEC));
+		} finally {
+			cache.close();
+		}
+	}
+
+	@Test
+	public void testEviction() throws Exception {
+		ChecksumCache cache = new ChecksumCache(gCacheFile, 10);
+		try {
+			for(int i=0;i<30;i++) {
+				cache.checksum(write("f"+i, "file "+i, 1000000000000L), SPEC, false);
+				assertTrue(cache.size()<=10);
+			}
+			// the most recent file is always kept
+			assertNotNull(cache.get(new File(gDir, "f29"), SPEC));
+			assertNull(cache.get(new File(gDir, "f0"), SPEC));
+		} finally {
+			cache.close();
+		}
+		cache = new ChecksumCache(gCacheFile, 10);
+		try {
+			assertTrue(cache.size()<=10);
+			assertNotNull(cache.get(new File(gDir, "f29"), SPEC));
+		} finally {
+			cache.close();
+		}
+	}
+
+	@Test
+	public void testDamagedLog() throws Exception {
+		File file = write("a.txt", "hello world", 1000000000000L);
+		ChecksumCache cache = new ChecksumCache(gCacheFile);
+		cache.checksum(file, SPEC, false);
+		cache.close();
+
+		// simulate a crash part way through writing a record
+		FileOutputStream out = new FileOutputStream(gCacheFile, true);
+		out.write(new byte[] { 0, 10, 'p', 'a' });
+		out.close();
+
+		cache = new ChecksumCache(gCacheFile);
+		try {
+			assertNotNull(cache.get(file, SPEC));
+			cache.checksum(write("b.txt", "more", 1000000000000L), SPEC, false);
+		} finally {
+			cache.close();
+		}
+		cache = new ChecksumCache(gCacheFile);
+		try {
+			assertEquals(2, cache.size());
+		} finally {
+			cache.close();
+		}
+	}
+
+}
@@ -574,4 +574,79 @@ public class ChecksumDiffTest {
 
     }
 
+    /**
+     * Test names are matched without their directory and ignoring case
+     */
+    @Test
+    public void testCompareNamesIgnoreDirectoryAndCase() {
+        Map<String, ArrayList<String>> setA = new HashMap<String, ArrayList<String>>();
+        Map<String, ArrayList<String>> setB = new HashMap<String, ArrayList<String>>();
+
+        final String checksumOne = "DEADBEEF";
+
+        setA.put(checksumOne, new ArrayList<String>() {{ add("a/Test1.TXT"); add("a/test2.txt"); }});
+        setB.put(checksumOne, new ArrayList<String>() {{ add("b/c/test1.txt"); }});
+
+        ChecksumDiff.compare(setA, setB);
+
+        assertTrue(setB.isEmpty());
+        assertTrue(setA.get(checksumOne).size()==1);
+        assertTrue(setA.get(checksumOne).get(0).equals("a/test2.txt"));
+
+    }
+
+    /**
+     * Test many files with the same checksum and name are matched one for one, in order
+     */
+    @Test
+    public void testCompareDuplicateNames() {
+        Map<String, ArrayList<String>> setA = new HashMap<String, ArrayList<String>>();
+        Map<String, ArrayList<String>> setB = new HashMap<String, ArrayList<String>>();
+
+        final String checksumOne = "DEADBEEF";
+        final int count = 100000;
+
+        ArrayList<String> valuesA = new ArrayList<String>();
+        ArrayList<String> valuesB = new ArrayList<String>();
+        for(int i=0;i<count;i++) {
+            valuesA.add("a/"+i+"/same.txt");
+            valuesA.add("a/"+i+".txt");
+            valuesB.add("b/"+i+"/SAME.txt");
+        }
+        valuesB.add("b/extra/same.txt");
+        setA.put(checksumOne, valuesA);
+        setB.put(checksumOne, valuesB);
+
+        ChecksumDiff.compare(setA, setB);
+
+        assertTrue(setA.get(checksumOne).size()==count);
+        assertTrue(setA.get(checksumOne).get(0).equals("a/0.txt"));
+        assertTrue(setA.get(checksumOne).get(count-1).equals("a/"+(count-1)+".txt"));
+        assertTrue(setB.get(checksumOne).size()==1);
+        assertTrue(setB.get(checksumOne).get(0).equals("b/extra/same.txt"));
+
+    }
+
+    /**
+     * Test null filenames only match each other
+     */
+    @Test
+    public void testCompareNullNames() {
+        Map<String, ArrayList<String>> setA = new HashMap<String, ArrayList<String>>();
+        Map<String, ArrayList<String>> setB = new HashMap<String, ArrayList<String>>();
+
+        final String checksumOne = "DEADBEEF";
+
+        setA.put(checksumOne, new ArrayList<String>() {{ add(null); add("null"); }});
+        setB.put(checksumOne, new ArrayList<String>() {{ add("test.txt"); add(null); }});
+
+        ChecksumDiff.compare(setA, setB);
+
+        assertTrue(setA.get(checksumOne).size()==1);
+        assertTrue(setA.get(checksumOne).get(0).equals("null"));
+        assertTrue(setB.get(checksumOne).size()==1);
+        assertTrue(setB.get(checksumOne).get(0).equals("test.txt"));
+
+    }
+
 }
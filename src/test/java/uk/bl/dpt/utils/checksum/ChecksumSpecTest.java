@@ -0,0 +1,109 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Checksum;
+
+import org.junit.Test;
+
+/**
+ * Test selecting checksum algorithms with a ChecksumSpec
+ */
+@SuppressWarnings("javadoc")
+public class ChecksumSpecTest {
+
+	private final static String res = "src/test/resources/";
+
+	private final static byte[] CHECK = "123456789".getBytes();
+
+	@Test
+	public void testOnlySelectedAlgorithms() throws NoSuchAlgorithmException {
+		Map<String, String> checksums = new HashMap<String, String>();
+		ChecksumUtil.calcChecksums(new ByteArrayInputStream(CHECK), ChecksumSpec.of("crc32c", "sha512"), checksums);
+		assertEquals(2, checksums.size());
+		// standard check value for CRC-32C
+		assertEquals("E3069283", checksums.get("CRC32C"));
+		assertTrue(checksums.get("SHA-512").startsWith("D9E6762DD1C8EAF6"));
+	}
+
+	@Test
+	public void testCanonicalNames() throws NoSuchAlgorithmException {
+		ChecksumSpec spec = ChecksumSpec.builder().add("sha1").add("SHA-1").add("CKSUM").add("md5").build();
+		assertEquals(Arrays.asList("SHA-1", "cksum", "MD5"), spec.getAlgorithms());
+		assertTrue(spec.contains("sha-1"));
+		assertFalse(spec.contains("CRC32"));
+	}
+
+	@Test(expected=NoSuchAlgorithmException.class)
+	public void testUnknownAlgorithm() throws NoSuchAlgorithmException {
+		ChecksumSpec.of("MD5", "no-such-digest");
+	}
+
+	@Test
+	public void testRegisteredAlgorithm() throws NoSuchAlgorithmException {
+		DigestRegistry.register("length", new DigesterFactory() {
+			@Override
+			public Digester newDigester() {
+				return new ChecksumDigester("length", new Checksum() {
+					long length = 0;
+					@Override
+					public void update(int b) { length++; }
+					@Override
+					public void update(byte[] b, int off, int len) { length += len; }
+					@Override
+					public long getValue() { return length; }
+					@Override
+					public void reset() { length = 0; }
+				});
+			}
+		});
+		Map<String, String> checksums = new HashMap<String, String>();
+		ChecksumUtil.calcChecksums(new ByteArrayInputStream(CHECK), ChecksumSpec.of("LENGTH"), checksums);
+		assertEquals("9", checksums.get("length"));
+	}
+
+	@Test
+	public void testGenerateChecksum() throws Exception {
+		String file = new File(res+"cksum/test.txt").getPath();
+		assertEquals("b75d6a42", ChecksumUtil.generateChecksum("cksum", file));
+		try {
+			ChecksumUtil.generateChecksum("no-such-digest", file);
+			fail("unknown algorithm accepted");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getCause() instanceof NoSuchAlgorithmException);
+		}
+		Map<String, String> checksums = ChecksumUtil.generateChecksum(ChecksumSpec.of("cksum", "MD5"), file);
+		assertEquals("B75D6A42", checksums.get("cksum"));
+		assertEquals(ChecksumUtil.generateChecksumOnly(file).toUpperCase(), checksums.get("MD5"));
+	}
+
+	@Test(expected=IOException.class)
+	public void testGenerateChecksumUnreadable() throws Exception {
+		// a directory exists but cannot be read as a file
+		ChecksumUtil.generateChecksum(ChecksumSpec.of("MD5"), new File(res).getPath());
+	}
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test hashing data as it is written
+ */
+@SuppressWarnings("javadoc")
+public class ChecksummingOutputTest {
+
+	private final static int SIZE = 300001;
+
+	private static byte[] data() {
+		byte[] data = new byte[SIZE];
+		new Random(SIZE).nextBytes(data);
+		return data;
+	}
+
+	private static Map<String, String> expected(byte[] pData) throws Exception {
+		Map<String, String> expected = new HashMap<String, String>();
+		ChecksumUtil.calcChecksums(new ByteArrayInputStream(pData), ChecksumSpec.DEFAULT, expected);
+		return expected;
+	}
+
+	@Test
+	public void testOutputStream() throws Exception {
+		byte[] data = data();
+		ByteArrayOutputStream target = new ByteArrayOutputStream();
+		ChecksummingOutputStream out = new ChecksummingOutputStream(target, ChecksumSpec.DEFAULT);
+		out.write(data[0]);
+		out.write(data, 1, 1000);
+		out.write(data, 1001, data.length-1001);
+		try {
+			out.getChecksums();
+			fail("checksums available before close");
+		} catch(IllegalStateException e) {
+			// expected
+		}
+		out.close();
+		assertTrue(Arrays.equals(data, target.toByteArray()));
+		assertEquals(data.length, out.getLength());
+		assertEquals(expected(data), out.getChecksums());
+	}
+
+	@Test
+	public void testChannelWrite() throws Exception {
+		byte[] data = data();
+		ByteArrayOutputStream target = new ByteArrayOutputStream();
+		ChecksummingWritableByteChannel channel = new ChecksummingWritableByteChannel(Channels.newChannel(target), ChecksumSpec.DEFAULT);
+		ByteBuffer direct = ByteBuffer.allocateDirect(1000);
+		direct.put(data, 0, 1000).flip();
+		channel.write(direct);
+		channel.write(ByteBuffer.wrap(data, 1000, data.length-1000));
+		channel.close();
+		assertTrue(Arrays.equals(data, target.toByteArray()));
+		assertEquals(expected(data), channel.getChecksums());
+	}
+
+	@Test
+	public void testTransferFrom() throws Exception {
+		byte[] data = data();
+		File file = File.createTempFile("checksumming", ".bin");
+		file.deleteOnExit();
+
+		// readable FileChannel: zero copy transfer then hash the mapped region
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		ChecksummingWritableByteChannel channel = new ChecksummingWritableByteChannel(raf.getChannel(), ChecksumSpec.DEFAULT);
+		channel.write(ByteBuffer.wrap(data, 0, 10));
+		assertEquals(data.length-10, channel.transferFrom(Channels.newChannel(new ByteArrayInputStream(data, 10, data.length-10)), Long.MAX_VALUE));
+		channel.close();
+		assertEquals(data.length, file.length());
+		assertEquals(expected(data), channel.getChecksums());
+		assertEquals(expected(data), ChecksumUtil.generateChecksum(ChecksumSpec.DEFAULT, file.getPath()));
+
+		// write only FileChannel: copied through a buffer
+		channel = new ChecksummingWritableByteChannel(new FileOutputStream(file).getChannel(), ChecksumSpec.DEFAULT);
+		assertEquals(1000, channel.transferFrom(Channels.newChannel(new ByteArrayInputStream(data)), 1000));
+		channel.close();
+		assertEquals(expected(Arrays.copyOf(data, 1000)), channel.getChecksums());
+		assertEquals(1000, file.length());
+	}
+
+}
@@ -21,8 +21,11 @@ import static org.junit.Assert.*;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.security.MessageDigest;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Random;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -71,4 +74,73 @@ public class CkSumDigestTest {
 		
 	}
 
+	@Test
+	public void checkValueTest() throws Exception {
+		// `printf 123456789 | cksum` gives 930766865
+		MessageDigest md = MessageDigest.getInstance("cksum");
+		byte[] digest = md.digest("123456789".getBytes("US-ASCII"));
+		assertTrue(Arrays.equals(new byte[] { 0x37, 0x7a, 0x60, 0x11 }, digest));
+	}
+
+	/**
+	 * The original byte at a time cksum loop, with the table generated from the polynomial
+	 */
+	private static byte[] referenceCkSum(byte[] data, int offset, int len) {
+		final int[] table = new int[256];
+		for (int i = 0; i < 256; i++) {
+			int c = i << 24;
+			for (int j = 0; j < 8; j++) {
+				c = (c << 1) ^ (c < 0 ? 0x04c11db7 : 0);
+			}
+			table[i] = c;
+		}
+		int crc = 0;
+		for (int i = 0; i < len; i++) {
+			crc = table[(crc>>24^data[i+offset]) &0xff] ^ crc<<8;
+		}
+		for (long l = len; l > 0; l >>= 8) {
+			crc = table[(crc>>24^(int)l) &0xff] ^ crc<<8;
+		}
+		crc = ~crc;
+		return new byte[] { (byte)(crc>>24), (byte)(crc>>16), (byte)(crc>>8), (byte)crc };
+	}
+
+	@Test
+	public void slicingMatchesReferenceTest() throws Exception {
+		Random random = new Random(42);
+		byte[] data = new byte[4096+17];
+		random.nextBytes(data);
+		MessageDigest md = MessageDigest.getInstance("cksum");
+		for (int offset = 0; offset < 9; offset++) {
+			for (int len = 0; len < 100; len++) {
+				// NOTE: CkSumDigest does not reset itself after digest()
+				md.reset();
+				md.update(data, offset, len);
+				assertTrue(Arrays.equals(referenceCkSum(data, offset, len), md.digest()));
+			}
+			md.reset();
+			md.update(data, offset, data.length-offset);
+			assertTrue(Arrays.equals(referenceCkSum(data, offset, data.length-offset), md.digest()));
+		}
+	}
+
+	@Test
+	public void mixedUpdateTest() throws Exception {
+		Random random = new Random(7);
+		byte[] data = new byte[1000];
+		random.nextBytes(data);
+		MessageDigest md = MessageDigest.getInstance("cksum");
+		int pos = 0;
+		while (pos < data.length) {
+			int len = Math.min(random.nextInt(20), data.length-pos);
+			if (len == 0) {
+				md.update(data[pos++]);
+			} else {
+				md.update(data, pos, len);
+				pos += len;
+			}
+		}
+		assertTrue(Arrays.equals(referenceCkSum(data, 0, data.length), md.digest()));
+	}
+
 }
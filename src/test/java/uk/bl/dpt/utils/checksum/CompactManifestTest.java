@@ -0,0 +1,142 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class CompactManifestTest {
+
+	final static String SHA256 = "E3B0C44298FC1C149AFBF4C8996FB92427AE41E4649B934CA495991B7852B855";
+
+	@Test
+	public void testRoundTrip() {
+		char[] longPath = new char[3*1024*1024];
+		Arrays.fill(longPath, 'x');
+		List<String[]> entries = Arrays.asList(new String[][] {
+				{ "DEADBEEF", "a/test.txt" },
+				{ "deadbeef", "b/test.txt" },
+				{ "00AB", "leading zeros" },
+				{ "ABC", "odd length" },
+				{ "4294967295", "decimal cksum" },
+				{ "DeadBeef", "mixed case" },
+				{ "not a checksum", "\u00e9t\u00e9/\u65e5\u672c.txt" },
+				{ "", "empty" },
+				{ SHA256, "widened" },
+				{ SHA256+SHA256+SHA256, "too long to pack" },
+				{ "DEADBEEF", null },
+				{ "DEADBEEF", new String(longPath) },
+				{ "DEADBEEF", "after long path" },
+		});
+
+		CompactManifest manifest = new CompactManifest(4);
+		for(String[] entry:entries) {
+			manifest.add(entry[0], entry[1]);
+		}
+
+		assertEquals(entries.size(), manifest.size());
+		assertEquals(entries.size()-3, manifest.checksumCount());
+		for(int i=0;i<entries.size();i++) {
+			assertEquals(entries.get(i)[0], manifest.getChecksum(i));
+			assertEquals(entries.get(i)[1], manifest.getFile(i));
+			assertTrue(manifest.first(entries.get(i)[0])<=i);
+		}
+		assertEquals(CompactManifest.NONE, manifest.first("CAFEBABE"));
+		assertEquals(CompactManifest.NONE, manifest.first("unknown"));
+		assertEquals(CompactManifest.NONE, manifest.first("0DEADBEEF"));
+
+		// duplicates are chained in order
+		int entry = manifest.first("DEADBEEF");
+		assertEquals(0, entry);
+		entry = manifest.next(entry);
+		assertEquals(10, entry);
+		entry = manifest.next(entry);
+		assertEquals(11, entry);
+		entry = manifest.next(entry);
+		assertEquals(12, entry);
+		assertEquals(CompactManifest.NONE, manifest.next(entry));
+
+		CompactManifest other = new CompactManifest();
+		other.add("deadbeef", "x");
+		other.add("not a checksum", "y");
+		assertEquals(1, manifest.first(other, 0));
+		assertEquals(6, manifest.first(other, 1));
+		assertEquals(CompactManifest.NONE, other.first(manifest, 8));
+	}
+
+	@Test
+	public void testGrowth() {
+		CompactManifest manifest = new CompactManifest(1);
+		Map<String, ArrayList<String>> expected = new LinkedHashMap<String, ArrayList<String>>();
+		for(int i=0;i<200000;i++) {
+			String checksum = Integer.toHexString(i%150000).toUpperCase();
+			manifest.add(checksum, "file"+i);
+			ChecksumDiff.addChecksum(checksum, "file"+i, expected);
+		}
+		assertEquals(200000, manifest.size());
+		assertEquals(150000, manifest.checksumCount());
+
+		Map<String, ArrayList<String>> actual = new LinkedHashMap<String, ArrayList<String>>();
+		manifest.addTo(actual);
+		assertEquals(expected, actual);
+
+		manifest.remove(5);
+		assertTrue(manifest.isRemoved(5));
+		assertEquals(199999, manifest.remaining());
+	}
+
+	@Test
+	public void testDiffMatchesMaps() {
+		Random random = new Random(7);
+		Map<String, ArrayList<String>> setA = new HashMap<String, ArrayList<String>>();
+		Map<String, ArrayList<String>> setB = new HashMap<String, ArrayList<String>>();
+		CompactManifest manifestA = new CompactManifest();
+		CompactManifest manifestB = new CompactManifest();
+		for(int i=0;i<20000;i++) {
+			String checksum = Integer.toHexString(random.nextInt(500));
+			String file = "dir"+random.nextInt(10)+"/file"+random.nextInt(50)+(random.nextBoolean() ? ".txt" : ".TXT");
+			if(random.nextBoolean()) {
+				ChecksumDiff.addChecksum(checksum, file, setA);
+				manifestA.add(checksum, file);
+			} else {
+				ChecksumDiff.addChecksum(checksum, file, setB);
+				manifestB.add(checksum, file);
+			}
+		}
+		ChecksumDiff.compare(setA, setB);
+		ManifestDiffer.removeDuplicates(manifestA, manifestB);
+
+		Map<String, ArrayList<String>> remainingA = new HashMap<String, ArrayList<String>>();
+		Map<String, ArrayList<String>> remainingB = new HashMap<String, ArrayList<String>>();
+		manifestA.addTo(remainingA);
+		manifestB.addTo(remainingB);
+		assertFalse(remainingA.isEmpty());
+		assertEquals(setA, remainingA);
+		assertEquals(setB, remainingB);
+	}
+
+}
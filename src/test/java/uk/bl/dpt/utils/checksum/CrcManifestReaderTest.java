@@ -0,0 +1,150 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class CrcManifestReaderTest {
+
+	private final static String MANIFEST =
+			"a/simple.txt,DEADBEEF\n"+
+			"b/with,commas,in.txt,CAFEBABE\r\n"+
+			"\n"+
+			"\"c/quoted \"\"name\"\", with comma.txt\",BEEFCAFE\n"+
+			"\"d/line\nbreak.txt\",12345678\r"+
+			"e\\windows\\path.txt,0\n"+
+			"f/unicode \u00e9t\u00e9.txt,ABCDEF\n"+
+			"g/no newline.txt,FFFFFFFF";
+
+	private final static String[][] EXPECTED = {
+			{ "a/simple.txt", "DEADBEEF" },
+			{ "b/with,commas,in.txt", "CAFEBABE" },
+			{ "c/quoted \"name\", with comma.txt", "BEEFCAFE" },
+			{ "d/line\nbreak.txt", "12345678" },
+			{ "e\\windows\\path.txt", "0" },
+			{ "f/unicode \u00e9t\u00e9.txt", "ABCDEF" },
+			{ "g/no newline.txt", "FFFFFFFF" },
+	};
+
+	private File gFile;
+
+	@Before
+	public void setUp() throws IOException {
+		gFile = File.createTempFile("crcmanifest", ".txt");
+	}
+
+	@After
+	public void tearDown() {
+		gFile.delete();
+	}
+
+	private void write(String pContents) throws IOException {
+		FileOutputStream output = new FileOutputStream(gFile);
+		output.write(pContents.getBytes(Charset.forName("UTF-8")));
+		output.close();
+	}
+
+	private List<String[]> readAll(CrcManifestReader pReader) throws IOException {
+		List<String[]> lines = new ArrayList<String[]>();
+		try {
+			while(pReader.next()) {
+				lines.add(new String[] { pReader.getPath(), pReader.getChecksum() });
+			}
+		} finally {
+			pReader.close();
+		}
+		return lines;
+	}
+
+	private static void assertLines(String[][] pExpected, List<String[]> pActual) {
+		assertEquals(pExpected.length, pActual.size());
+		for(int i=0;i<pExpected.length;i++) {
+			assertArrayEquals(pExpected[i], pActual.get(i));
+		}
+	}
+
+	@Test
+	public void testParse() throws IOException {
+		write(MANIFEST);
+		assertLines(EXPECTED, readAll(new CrcManifestReader(gFile)));
+
+		// small windows, so lines cross the end of a window
+		for(int window=48;window<64;window++) {
+			assertLines(EXPECTED, readAll(new CrcManifestReader(gFile, 0, Long.MAX_VALUE, window)));
+		}
+
+		// the same through a compact manifest
+		CompactManifest manifest = new CompactManifest();
+		CrcManifestReader.read(gFile, manifest);
+		assertEquals(EXPECTED.length, manifest.size());
+		for(int i=0;i<EXPECTED.length;i++) {
+			assertEquals(EXPECTED[i][0], manifest.getFile(i));
+			assertEquals(EXPECTED[i][1], manifest.getChecksum(i));
+		}
+	}
+
+	@Test
+	public void testRegion() throws IOException {
+		write(MANIFEST);
+		int start = MANIFEST.indexOf("b/");
+		int end = MANIFEST.indexOf("\"c/");
+		List<String[]> lines = readAll(new CrcManifestReader(gFile, start, end-start));
+		assertEquals(1, lines.size());
+		assertArrayEquals(EXPECTED[1], lines.get(0));
+
+		assertTrue(readAll(new CrcManifestReader(gFile, gFile.length(), 100)).isEmpty());
+	}
+
+	@Test
+	public void testMalformed() throws IOException {
+		String[] malformed = {
+				"a/ok.txt,DEADBEEF\nno checksum here\n",
+				"\"a/unterminated.txt,DEADBEEF\n",
+				"\"a/quoted.txt\"DEADBEEF\n",
+		};
+		for(String contents:malformed) {
+			write(contents);
+			try {
+				readAll(new CrcManifestReader(gFile));
+				fail("Malformed manifest read: "+contents);
+			} catch(IOException e) {
+				// expected
+			}
+		}
+
+		write("a/a/long/line.txt,DEADBEEF\n");
+		try {
+			readAll(new CrcManifestReader(gFile, 0, Long.MAX_VALUE, 8));
+			fail("Line longer than the window read");
+		} catch(IOException e) {
+			assertTrue(e.getMessage().startsWith("Line longer"));
+		}
+	}
+
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class DiffReportsTest {
+
+	private static String write(DiffReportSink pReport, StringWriter pOutput) throws IOException {
+		pReport.start("a.txt", "b.txt");
+		pReport.message("Finished");
+		pReport.uniqueToA("1234", "dir/plain.txt");
+		pReport.uniqueToB("5678", "dir/\"quoted\", with comma.txt");
+		pReport.uniqueToB("9ABC", null);
+		pReport.summary(3, -1, 1, 2);
+		pReport.close();
+		return pOutput.toString();
+	}
+
+	@Test
+	public void testFormats() throws IOException {
+		StringWriter output = new StringWriter();
+		assertEquals("< a.txt\n> b.txt\nFinished\n"+
+				"< 1234: dir/plain.txt\n"+
+				"> 5678: dir/\"quoted\", with comma.txt\n"+
+				"> 9ABC: null\n"+
+				"Entries in a.txt: 3\nUnique files in a.txt: 1\nUnique files in b.txt: 2\n",
+				write(DiffReports.text(output), output));
+
+		output = new StringWriter();
+		assertEquals("set,checksum,file\n"+
+				"A,1234,dir/plain.txt\n"+
+				"B,5678,\"dir/\"\"quoted\"\", with comma.txt\"\n"+
+				"B,9ABC,\n",
+				write(DiffReports.csv(output), output));
+
+		output = new StringWriter();
+		assertEquals("{\"type\":\"start\",\"a\":\"a.txt\",\"b\":\"b.txt\"}\n"+
+				"{\"type\":\"unique\",\"set\":\"A\",\"checksum\":\"1234\",\"file\":\"dir/plain.txt\"}\n"+
+				"{\"type\":\"unique\",\"set\":\"B\",\"checksum\":\"5678\",\"file\":\"dir/\\\"quoted\\\", with comma.txt\"}\n"+
+				"{\"type\":\"unique\",\"set\":\"B\",\"checksum\":\"9ABC\",\"file\":null}\n"+
+				"{\"type\":\"summary\",\"entriesA\":3,\"uniqueA\":1,\"uniqueB\":2}\n",
+				write(DiffReports.jsonLines(output), output));
+
+		output = new StringWriter();
+		assertEquals("Entries in a.txt: 3\nUnique files in a.txt: 1\nUnique files in b.txt: 2\n",
+				write(DiffReports.quiet(output), output));
+
+		try {
+			DiffReports.create("xml", new StringWriter());
+			fail("Unknown format created");
+		} catch(IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testCompareCountsEntries() throws IOException {
+		Map<String, ArrayList<String>> setA = new HashMap<String, ArrayList<String>>();
+		Map<String, ArrayList<String>> setB = new HashMap<String, ArrayList<String>>();
+		setA.put("1234", new ArrayList<String>(Arrays.asList("a/one.txt", "a/two.txt")));
+		setA.put("5678", new ArrayList<String>(Arrays.asList("a/three.txt")));
+		setB.put("5678", new ArrayList<String>(Arrays.asList("b/three.txt")));
+
+		// each unique file is a line, and counted, even when they share a checksum
+		StringWriter output = new StringWriter();
+		DiffReportSink report = DiffReports.text(output);
+		ChecksumDiff.compare(setA, setB, report);
+		report.close();
+		String text = output.toString();
+		assertTrue(text, text.contains("< 1234: a/one.txt\n< 1234: a/two.txt\n"));
+		assertTrue(text, text.endsWith("Unique files in Set 1: 2\nUnique files in Set 2: 0\n"));
+	}
+
+	@Test
+	public void testCompareToGzip() throws IOException {
+		File dir = File.createTempFile("diffreports", "");
+		dir.delete();
+		dir.mkdirs();
+		try {
+			File a = new File(dir, "a.txt");
+			PrintWriter writer = new PrintWriter(new FileWriter(a));
+			writer.println("x/one.txt,1234");
+			writer.println("x/two.txt,5678");
+			writer.close();
+			File b = new File(dir, "b.txt");
+			writer = new PrintWriter(new FileWriter(b));
+			writer.println("y/two.txt,5678");
+			writer.println("y/three.txt,9ABC");
+			writer.close();
+
+			File report = new File(dir, "report.json.gz");
+			DiffReportSink sink = DiffReports.open(report, DiffReports.JSON);
+			try {
+				ChecksumDiff.compare(a, b, sink);
+			} finally {
+				sink.close();
+			}
+
+			List<String> lines = new ArrayList<String>();
+			BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(report)), Charset.forName("UTF-8")));
+			try {
+				String line;
+				while((line = reader.readLine())!=null) {
+					lines.add(line);
+				}
+			} finally {
+				reader.close();
+			}
+			assertEquals(4, lines.size());
+			assertEquals("{\"type\":\"unique\",\"set\":\"A\",\"checksum\":\"1234\",\"file\":\"x/one.txt\"}", lines.get(1));
+			assertEquals("{\"type\":\"unique\",\"set\":\"B\",\"checksum\":\"9ABC\",\"file\":\"y/three.txt\"}", lines.get(2));
+			assertEquals("{\"type\":\"summary\",\"entriesA\":2,\"entriesB\":2,\"uniqueA\":1,\"uniqueB\":1}", lines.get(3));
+		} finally {
+			for(File file:dir.listFiles()) {
+				file.delete();
+			}
+			dir.delete();
+		}
+	}
+
+	@Test
+	public void testExternalStreams() throws IOException {
+		// unique entries reach the report while the diff runs, before the summary
+		final List<String> events = new ArrayList<String>();
+		DiffReportSink sink = new DiffReportSink() {
+			@Override
+			public void start(String pNameA, String pNameB) {
+				events.add("start");
+			}
+			@Override
+			public void message(String pMessage) {
+				// ignored
+			}
+			@Override
+			public void uniqueToA(String pChecksum, String pFile) {
+				events.add("A "+pChecksum);
+			}
+			@Override
+			public void uniqueToB(String pChecksum, String pFile) {
+				events.add("B "+pChecksum);
+			}
+			@Override
+			public void summary(long pEntriesA, long pEntriesB, long pUniqueA, long pUniqueB) {
+				events.add("summary "+pEntriesA+" "+pUniqueA+" "+pUniqueB);
+			}
+			@Override
+			public void close() {
+				events.add("close");
+			}
+		};
+		File a = File.createTempFile("diffreports", ".txt");
+		File b = File.createTempFile("diffreports", ".txt");
+		try {
+			PrintWriter writer = new PrintWriter(new FileWriter(a));
+			writer.println("x/one.txt,0002");
+			writer.println("x/two.txt,0003");
+			writer.close();
+			writer = new PrintWriter(new FileWriter(b));
+			writer.println("y/three.txt,0001");
+			writer.println("y/two.txt,0003");
+			writer.close();
+			ChecksumDiff.compareExternal(a, b, sink);
+		} finally {
+			a.delete();
+			b.delete();
+		}
+		List<String> expected = new ArrayList<String>();
+		expected.add("start");
+		expected.add("B 0001");
+		expected.add("A 0002");
+		expected.add("summary -1 1 1");
+		assertEquals(expected, events);
+	}
+
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.bl.dpt.utils.util.FileUtil;
+
+/**
+ * Test checksumming a directory tree
+ */
+@SuppressWarnings("javadoc")
+public class DirectoryChecksummerTest {
+
+	private File gRoot;
+
+	@Before
+	public void setUp() throws IOException {
+		gRoot = Files.createTempDirectory("dirchecksum").toFile();
+		Random random = new Random(1);
+		for(int d=0;d<4;d++) {
+			File dir = new File(gRoot, "dir"+d);
+			dir.mkdirs();
+			for(int f=0;f<20;f++) {
+				byte[] data = new byte[random.nextInt(d==3?100000:2000)];
+				random.nextBytes(data);
+				FileOutputStream out = new FileOutputStream(new File(dir, "file"+f));
+				out.write(data);
+				out.close();
+			}
+		}
+	}
+
+	@After
+	public void tearDown() {
+		FileUtil.deleteDirectory(gRoot);
+	}
+
+	@Test
+	public void testChecksumTree() throws Exception {
+		final ChecksumSpec spec = ChecksumSpec.of("MD5", "cksum");
+		final Map<File, Map<String, String>> results = new HashMap<File, Map<String, String>>();
+		// large files are anything over 50k, no queueing so the walk has to wait
+		DirectoryChecksummer checksummer = new DirectoryChecksummer(spec, 3, 2, 50000, 0);
+		long count = checksummer.checksum(gRoot, new ChecksumSink() {
+			@Override
+			public void checksummed(File pFile, Map<String, String> pChecksums) {
+				assertNull(results.put(pFile, pChecksums));
+			}
+			@Override
+			public void failed(File pFile, IOException pError) {
+				fail(pFile+": "+pError);
+			}
+		});
+		assertEquals(80, count);
+		assertEquals(80, results.size());
+		for(Map.Entry<File, Map<String, String>> result:results.entrySet()) {
+			Map<String, String> expected = new HashMap<String, String>();
+			ChecksumUtil.calcChecksums(result.getKey(), spec, expected);
+			assertEquals(expected, result.getValue());
+		}
+	}
+
+	@Test
+	public void testSinkFailureStops() throws Exception {
+		DirectoryChecksummer checksummer = new DirectoryChecksummer(ChecksumSpec.of("CRC32"), 2, 1, 50000, 0);
+		try {
+			checksummer.checksum(gRoot, new ChecksumSink() {
+				@Override
+				public void checksummed(File pFile, Map<String, String> pChecksums) throws IOException {
+					throw new IOException("disk full");
+				}
+				@Override
+				public void failed(File pFile, IOException pError) {
+					// ignore
+				}
+			});
+			fail("sink failure was not reported");
+		} catch(IOException e) {
+			assertEquals("disk full", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testRuntimeExceptions() throws Exception {
+		final File bad = new File(new File(gRoot, "dir1"), "file7");
+		final Map<File, IOException> failures = new HashMap<File, IOException>();
+		DirectoryChecksummer checksummer = new DirectoryChecksummer(ChecksumSpec.of("CRC32"), 2, 1, 50000, 0) {
+			@Override
+			protected Map<String, String> digest(File pFile) throws IOException {
+				if(pFile.equals(bad)) {
+					throw new IllegalStateException("digester bug");
+				}
+				return super.digest(pFile);
+			}
+		};
+		long count = checksummer.checksum(gRoot, new ChecksumSink() {
+			@Override
+			public void checksummed(File pFile, Map<String, String> pChecksums) {
+				// ignore
+			}
+			@Override
+			public void failed(File pFile, IOException pError) {
+				failures.put(pFile, pError);
+			}
+		});
+		// the file is reported as failed, not dropped
+		assertEquals(79, count);
+		assertEquals(1, failures.size());
+		assertTrue(failures.get(bad).getCause() instanceof IllegalStateException);
+
+		// a sink that throws stops the run
+		try {
+			checksummer.checksum(gRoot, new ChecksumSink() {
+				@Override
+				public void checksummed(File pFile, Map<String, String> pChecksums) {
+					throw new IllegalStateException("sink bug");
+				}
+				@Override
+				public void failed(File pFile, IOException pError) {
+					// ignore
+				}
+			});
+			fail("sink failure was not reported");
+		} catch(IOException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+	}
+
+	@Test
+	public void testMissingRoot() throws Exception {
+		final Map<File, IOException> failures = new HashMap<File, IOException>();
+		File missing = new File(gRoot, "missing");
+		long count = new DirectoryChecksummer(ChecksumSpec.DEFAULT).checksum(missing, new ChecksumSink() {
+			@Override
+			public void checksummed(File pFile, Map<String, String> pChecksums) {
+				fail();
+			}
+			@Override
+			public void failed(File pFile, IOException pError) {
+				failures.put(pFile, pError);
+			}
+		});
+		assertEquals(0, count);
+		assertTrue(failures.containsKey(missing));
+	}
+
+}
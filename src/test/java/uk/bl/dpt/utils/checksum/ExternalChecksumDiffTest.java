@@ -0,0 +1,163 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+@SuppressWarnings("javadoc")
+public class ExternalChecksumDiffTest {
+
+	@Rule
+	public TemporaryFolder gFolder = new TemporaryFolder();
+
+	private File gDir;
+
+	@Before
+	public void setUp() {
+		gDir = gFolder.getRoot();
+	}
+
+	/**
+	 * Collects entries as "checksum,file" strings
+	 */
+	private static class Collector implements ManifestEntryHandler {
+		final List<String> gEntries = new ArrayList<String>();
+		@Override
+		public void entry(String pChecksum, String pFile) {
+			gEntries.add(pChecksum+","+pFile);
+		}
+	}
+
+	private static List<String> remaining(Map<String, ArrayList<String>> pSet) {
+		List<String> entries = new ArrayList<String>();
+		for(Map.Entry<String, ArrayList<String>> entry:pSet.entrySet()) {
+			for(String file:entry.getValue()) {
+				entries.add(entry.getKey()+","+file);
+			}
+		}
+		Collections.sort(entries);
+		return entries;
+	}
+
+	private File writeManifest(String pName, List<String[]> pEntries) throws IOException {
+		return TestFiles.writeManifest(new File(gDir, pName), pEntries);
+	}
+
+	@Test
+	public void testMatchesInMemoryDiff() throws IOException {
+		Random random = new Random(42);
+		List<String[]> entriesA = new ArrayList<String[]>();
+		List<String[]> entriesB = new ArrayList<String[]>();
+		Map<String, ArrayList<String>> setA = new HashMap<String, ArrayList<String>>();
+		Map<String, ArrayList<String>> setB = new HashMap<String, ArrayList<String>>();
+		for(int i=0;i<20000;i++) {
+			// few distinct checksums and names, so there are lots of duplicates
+			String checksum = Integer.toHexString(random.nextInt(500)).toUpperCase();
+			String name = "file"+random.nextInt(50)+(random.nextBoolean() ? ".txt" : ".TXT");
+			String[] entry = new String[] { checksum, "dir"+random.nextInt(10)+"/"+name };
+			if(random.nextBoolean()) {
+				entriesA.add(entry);
+				ChecksumDiff.addChecksum(entry[0], entry[1], setA);
+			} else {
+				entriesB.add(entry);
+				ChecksumDiff.addChecksum(entry[0], entry[1], setB);
+			}
+		}
+		ChecksumDiff.compare(setA, setB);
+
+		Collector uniqueA = new Collector();
+		Collector uniqueB = new Collector();
+		// a tiny budget forces hundreds of runs and more than one merge pass
+		new ExternalChecksumDiff(gDir, 4096).diff(writeManifest("a.txt", entriesA), writeManifest("b.txt", entriesB), uniqueA, uniqueB);
+
+		Collections.sort(uniqueA.gEntries);
+		Collections.sort(uniqueB.gEntries);
+		assertFalse(uniqueA.gEntries.isEmpty());
+		assertEquals(remaining(setA), uniqueA.gEntries);
+		assertEquals(remaining(setB), uniqueB.gEntries);
+
+		// only the manifests are left behind
+		assertEquals(2, gDir.listFiles().length);
+	}
+
+	@Test
+	public void testXMLAndEmpty() throws IOException {
+		File xml = new File(gDir, "a.xml");
+		PrintWriter writer = new PrintWriter(new FileWriter(xml));
+		writer.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+		writer.println("<files>");
+		writer.println("<entry><file>a/one.txt</file><checksum digest=\"cksum\">1234</checksum></entry>");
+		writer.println("<entry><file>a/two.txt</file><checksum digest=\"cksum\">5678</checksum></entry>");
+		writer.println("</files>");
+		writer.close();
+		File empty = writeManifest("b.txt", new ArrayList<String[]>());
+
+		Collector uniqueA = new Collector();
+		Collector uniqueB = new Collector();
+		new ExternalChecksumDiff(gDir, ExternalChecksumDiff.DEFAULT_MEMORY_BUDGET).diff(xml, empty, uniqueA, uniqueB);
+		assertEquals(2, uniqueA.gEntries.size());
+		assertEquals("1234,a/one.txt", uniqueA.gEntries.get(0));
+		assertTrue(uniqueB.gEntries.isEmpty());
+
+		List<String[]> entries = new ArrayList<String[]>();
+		entries.add(new String[] { "5678", "b/TWO.txt" });
+		File crc = writeManifest("c.txt", entries);
+		uniqueA = new Collector();
+		uniqueB = new Collector();
+		new ExternalChecksumDiff(gDir, ExternalChecksumDiff.DEFAULT_MEMORY_BUDGET).diff(xml, crc, uniqueA, uniqueB);
+		assertEquals(1, uniqueA.gEntries.size());
+		assertEquals("1234,a/one.txt", uniqueA.gEntries.get(0));
+		assertTrue(uniqueB.gEntries.isEmpty());
+	}
+
+	@Test
+	public void testReport() throws IOException {
+		List<String[]> entries = new ArrayList<String[]>();
+		entries.add(new String[] { "1234", "a/one.txt" });
+		entries.add(new String[] { "5678", "a/two.txt" });
+		File a = writeManifest("a.txt", entries);
+		entries.remove(0);
+		File b = writeManifest("b.txt", entries);
+		File report = new File(gDir, "report.txt");
+
+		ChecksumDiff.compareExternal(a, b, report);
+
+		List<String> lines = Files.readAllLines(report.toPath(), Charset.forName("UTF-8"));
+		assertTrue(lines.contains("Unique files in a.txt: 1"));
+		assertTrue(lines.contains("< 1234: a/one.txt"));
+		assertTrue(lines.contains("Unique files in b.txt: 0"));
+	}
+
+}
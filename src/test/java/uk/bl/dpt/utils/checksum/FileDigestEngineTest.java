@@ -0,0 +1,80 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+/**
+ * Test checksumming files through FileChannels and memory mapped windows
+ */
+@SuppressWarnings("javadoc")
+public class FileDigestEngineTest {
+
+	private static Map<String, String> digest(FileDigestEngine pEngine, ChecksumSpec pSpec, File pFile) throws Exception {
+		Digester[] digesters = pSpec.newDigesters();
+		assertEquals(pFile.length(), pEngine.digest(pFile, digesters));
+		Map<String, String> checksums = new HashMap<String, String>();
+		for(Digester digester:digesters) {
+			checksums.put(digester.getAlgorithm(), digester.digestString());
+		}
+		return checksums;
+	}
+
+	@Test
+	public void testReadAndMapped() throws Exception {
+		ChecksumSpec spec = ChecksumSpec.of("CRC32", "cksum", "MD5", "SHA-1", "SHA-256", "CRC32C");
+		ExecutorService executor = Executors.newCachedThreadPool();
+		try {
+			FileDigestEngine read = new FileDigestEngine(executor, Long.MAX_VALUE, FileDigestEngine.DEFAULT_WINDOWSIZE);
+			// map everything, with windows that don't line up with the 8 byte cksum stride
+			FileDigestEngine mapped = new FileDigestEngine(executor, 0, 1001);
+			for(int size:new int[] { 0, 1, 1000, 1001, 1002, FileDigestEngine.READ_BUFSIZE+3, 300000 }) {
+				byte[] data = new byte[size];
+				new Random(size).nextBytes(data);
+				File file = File.createTempFile("filedigest", ".bin");
+				file.deleteOnExit();
+				FileOutputStream out = new FileOutputStream(file);
+				out.write(data);
+				out.close();
+
+				Map<String, String> expected = new HashMap<String, String>();
+				ChecksumUtil.calcChecksums(new ByteArrayInputStream(data), spec, expected);
+				assertEquals(6, expected.size());
+				assertEquals(expected, digest(read, spec, file));
+				assertEquals(expected, digest(mapped, spec, file));
+
+				Map<String, String> viaUtil = new HashMap<String, String>();
+				ChecksumUtil.calcChecksums(file, spec, viaUtil);
+				assertEquals(expected, viaUtil);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+@SuppressWarnings("javadoc")
+public class FixityVerifierTest {
+
+	@Rule
+	public TemporaryFolder gFolder = new TemporaryFolder();
+
+	private File gDir;
+	private File gData;
+
+	/**
+	 * Collects results as path to "STATUS algorithm"
+	 */
+	private static class Results implements FixityVerifier.FixityHandler {
+
+		final Map<String, String> gResults = new TreeMap<String, String>();
+
+		@Override
+		public void result(FixityVerifier.Status pStatus, String pPath, String pAlgorithm, String pExpected, String pActual) {
+			assertNull("Reported twice: "+pPath, gResults.put(pPath, pStatus+" "+pAlgorithm));
+		}
+
+	}
+
+	@Before
+	public void setUp() throws IOException {
+		gDir = gFolder.getRoot();
+		gData = new File(gDir, "data");
+		for(int i=0;i<20;i++) {
+			write("dir"+(i%4)+"/file"+i+".bin", "contents of file "+i);
+		}
+	}
+
+	private void write(String pPath, String pContents) throws IOException {
+		TestFiles.write(new File(gData, pPath), pContents);
+	}
+
+	private static String checksum(String pAlgorithm, File pFile) throws Exception {
+		return ChecksumUtil.generateChecksum(ChecksumSpec.of(pAlgorithm), pFile.getPath()).values().iterator().next();
+	}
+
+	/**
+	 * Change the data after the manifest was made: one changed, one missing, one extra
+	 */
+	private void change() throws IOException {
+		write("dir1/file5.bin", "changed");
+		assertTrue(new File(gData, "dir2/file6.bin").delete());
+		write("dir3/extra.bin", "extra");
+	}
+
+	private static void assertChanges(Map<String, String> pResults, String pAlgorithm) {
+		assertEquals(21, pResults.size());
+		assertEquals("MISMATCH "+pAlgorithm, pResults.get("dir1/file5.bin"));
+		assertEquals("MISSING "+pAlgorithm, pResults.get("dir2/file6.bin"));
+		assertEquals("EXTRA null", pResults.get("dir3/extra.bin"));
+		assertEquals("OK "+pAlgorithm, pResults.get("dir0/file0.bin"));
+	}
+
+	@Test
+	public void testCrcManifest() throws Exception {
+		File manifest = new File(gDir, "manifest.txt");
+		PrintWriter writer = new PrintWriter(new FileWriter(manifest));
+		for(int i=0;i<20;i++) {
+			String path = "dir"+(i%4)+"/file"+i+".bin";
+			// the OS listing has a root, and Windows separators
+			writer.println("F:\\archive\\"+path.replace('/', '\\')+","+checksum("cksum", new File(gData, path)));
+		}
+		writer.close();
+		change();
+
+		Results results = new Results();
+		Map<FixityVerifier.Status, Long> counts = new FixityVerifier(FixityVerifier.DEFAULT_ALGORITHMS, 3, 2).verify(manifest, gData, "F:\\archive", results);
+		assertChanges(results.gResults, "cksum");
+		assertEquals(Long.valueOf(18), counts.get(FixityVerifier.Status.OK));
+		assertEquals(Long.valueOf(1), counts.get(FixityVerifier.Status.EXTRA));
+		assertEquals(Long.valueOf(0), counts.get(FixityVerifier.Status.FAILED));
+	}
+
+	@Test
+	public void testXmlManifest() throws Exception {
+		File manifest = new File(gDir, "manifest.xml");
+		PrintWriter writer = new PrintWriter(new FileWriter(manifest));
+		writer.println("<manifest>");
+		for(int i=0;i<20;i++) {
+			String path = "dir"+(i%4)+"/file"+i+".bin";
+			File file = new File(gData, path);
+			writer.println("<entry><file>"+path+"</file>"
+					+"<checksum digest=\"MD5\">"+checksum("MD5", file)+"</checksum>"
+					+"<checksum digest=\"SHA-256\">"+checksum("SHA-256", file).toUpperCase()+"</checksum></entry>");
+		}
+		writer.println("</manifest>");
+		writer.close();
+		change();
+
+		// the preferred algorithm is used, in any case
+		Results results = new Results();
+		new FixityVerifier().verify(manifest, gData, null, results);
+		assertChanges(results.gResults, "SHA-256");
+
+		results = new Results();
+		new FixityVerifier(Arrays.asList("CRC32", "MD5"), 2, 0).verify(manifest, gData, null, results);
+		assertChanges(results.gResults, "MD5");
+
+		// a manifest with none of the algorithms
+		results = new Results();
+		new FixityVerifier(Arrays.asList("SHA-1"), 2, 0).verify(manifest, gData, null, results);
+		assertEquals(20, results.gResults.size());
+		assertEquals("EXTRA null", results.gResults.get("dir0/file0.bin"));
+	}
+
+	@Test
+	public void testPaths() throws IOException {
+		assertEquals("a/b/c.txt", FixityVerifier.manifestPath("./a//b\\c.txt", null));
+		assertEquals("b/c.txt", FixityVerifier.manifestPath("/root/a/b/c.txt", "/root/a/"));
+		assertEquals("other/c.txt", FixityVerifier.manifestPath("other/c.txt", "root"));
+		assertTrue(FixityVerifier.sameChecksum("00ABCDEF", "abcdef"));
+		assertTrue(FixityVerifier.sameChecksum("0", "00000000"));
+		assertFalse(FixityVerifier.sameChecksum("ABCDEF", "ABCDE0"));
+
+		File manifest = new File(gDir, "manifest.txt");
+		manifest.createNewFile();
+		try {
+			new FixityVerifier(Arrays.asList("MD5"), 1, 0).verify(manifest, gData, null, new Results());
+			fail("CRC manifest read without cksum");
+		} catch(IOException e) {
+			// expected
+		}
+	}
+
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class ManifestDifferTest {
+
+	@Test
+	public void testResult() {
+		Map<String, ArrayList<String>> setA = new HashMap<String, ArrayList<String>>();
+		Map<String, ArrayList<String>> setB = new HashMap<String, ArrayList<String>>();
+		ChecksumDiff.addChecksum("DEADBEEF", "a/test1.txt", setA);
+		ChecksumDiff.addChecksum("DEADBEEF", "a/test2.txt", setA);
+		ChecksumDiff.addChecksum("CAFEBABE", "a/test3.txt", setA);
+		ChecksumDiff.addChecksum("DEADBEEF", "b/TEST1.txt", setB);
+		ChecksumDiff.addChecksum("BEEFCAFE", "b/test4.txt", setB);
+
+		DiffResult result = new ManifestDiffer().diff(setA, setB);
+		assertEquals(3, result.getEntriesA());
+		assertEquals(2, result.getEntriesB());
+		assertEquals(2, result.getUniqueCountA());
+		assertEquals(1, result.getUniqueCountB());
+		assertFalse(result.isIdentical());
+
+		List<String> uniqueA = new ArrayList<String>();
+		for(Iterator<DiffResult.Entry> it=result.uniqueToA();it.hasNext();) {
+			uniqueA.add(it.next().toString());
+		}
+		assertEquals(2, uniqueA.size());
+		assertTrue(uniqueA.contains("DEADBEEF: a/test2.txt"));
+		assertTrue(uniqueA.contains("CAFEBABE: a/test3.txt"));
+
+		Iterator<DiffResult.Entry> uniqueB = result.uniqueToB();
+		DiffResult.Entry entry = uniqueB.next();
+		assertEquals("BEEFCAFE", entry.getChecksum());
+		assertEquals("b/test4.txt", entry.getFile());
+		assertFalse(uniqueB.hasNext());
+	}
+
+	@Test
+	public void testCompactResult() {
+		CompactManifest manifestA = new CompactManifest();
+		CompactManifest manifestB = new CompactManifest();
+		manifestA.add("DEADBEEF", "a/test1.txt");
+		manifestA.add("CAFEBABE", "a/test2.txt");
+		manifestB.add("CAFEBABE", "b/test2.txt");
+		manifestB.add("DEADBEEF", "b/test1.txt");
+
+		DiffResult result = new ManifestDiffer().diff(manifestA, manifestB);
+		assertTrue(result.isIdentical());
+		assertEquals(2, result.getEntriesA());
+		assertFalse(result.uniqueToA().hasNext());
+		assertFalse(result.uniqueToB().hasNext());
+	}
+
+	@Test
+	public void testCompactMatchesMapNames() {
+		// ASCII and non-ASCII names in varying case, short and long chains per checksum
+		String[] names = { "a.txt", "A.TXT", "b.txt", "\u00e9t\u00e9.txt", "\u00c9T\u00c9.txt", "dir/", "c:d.txt", "", null };
+		Random random = new Random(15);
+		for(int round=0;round<20;round++) {
+			Map<String, ArrayList<String>> setA = new HashMap<String, ArrayList<String>>();
+			Map<String, ArrayList<String>> setB = new HashMap<String, ArrayList<String>>();
+			CompactManifest manifestA = new CompactManifest();
+			CompactManifest manifestB = new CompactManifest();
+			for(int i=0;i<400;i++) {
+				// one checksum gets a long chain, the rest mostly one or two entries
+				String checksum = Integer.toHexString(random.nextInt(4)==0 ? 0xABC : random.nextInt(200)).toUpperCase();
+				String name = names[random.nextInt(names.length)];
+				String file = name==null ? null : (random.nextBoolean() ? "x/" : "y\\z/")+name;
+				boolean inA = random.nextBoolean();
+				Map<String, ArrayList<String>> set = inA ? setA : setB;
+				if(!set.containsKey(checksum)) {
+					set.put(checksum, new ArrayList<String>());
+				}
+				set.get(checksum).add(file);
+				(inA ? manifestA : manifestB).add(checksum, file);
+			}
+			ManifestDiffer.removeDuplicates(setA, setB);
+			ManifestDiffer.removeDuplicates(manifestA, manifestB);
+			assertEquals(setA, remaining(manifestA));
+			assertEquals(setB, remaining(manifestB));
+		}
+	}
+
+	private static Map<String, ArrayList<String>> remaining(CompactManifest pManifest) {
+		Map<String, ArrayList<String>> remaining = new HashMap<String, ArrayList<String>>();
+		for(int i=0;i<pManifest.size();i++) {
+			if(pManifest.isRemoved(i)) {
+				continue;
+			}
+			if(!remaining.containsKey(pManifest.getChecksum(i))) {
+				remaining.put(pManifest.getChecksum(i), new ArrayList<String>());
+			}
+			remaining.get(pManifest.getChecksum(i)).add(pManifest.getFile(i));
+		}
+		return remaining;
+	}
+
+	@Test
+	public void testConcurrentDiffs() throws Exception {
+		final ManifestDiffer differ = new ManifestDiffer();
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<DiffResult>> results = new ArrayList<Future<DiffResult>>();
+			for(int i=0;i<32;i++) {
+				final int unique = i;
+				results.add(pool.submit(new Callable<DiffResult>() {
+					@Override
+					public DiffResult call() {
+						CompactManifest manifestA = new CompactManifest();
+						CompactManifest manifestB = new CompactManifest();
+						for(int j=0;j<20000;j++) {
+							manifestA.add(Integer.toHexString(j), "a/file"+j);
+							// the last few in B have different names
+							manifestB.add(Integer.toHexString(j), (j<20000-unique ? "b/file" : "b/other")+j);
+						}
+						return differ.diff(manifestA, manifestB);
+					}
+				}));
+			}
+			for(int i=0;i<results.size();i++) {
+				DiffResult result = results.get(i).get();
+				assertEquals(i, result.getUniqueCountA());
+				assertEquals(i, result.getUniqueCountB());
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+@SuppressWarnings("javadoc")
+public class ManifestLoaderTest {
+
+	@Rule
+	public TemporaryFolder gFolder = new TemporaryFolder();
+
+	private File gDir;
+	private ExecutorService gExecutor;
+
+	@Before
+	public void setUp() {
+		gDir = gFolder.getRoot();
+		gExecutor = Executors.newCachedThreadPool();
+	}
+
+	@After
+	public void tearDown() {
+		gExecutor.shutdown();
+	}
+
+	private File writeManifest(String pName, long pSeed, int pEntries) throws IOException {
+		Random random = new Random(pSeed);
+		List<String[]> entries = new ArrayList<String[]>(pEntries);
+		for(int i=0;i<pEntries;i++) {
+			// varying line lengths so chunks split mid line
+			StringBuilder path = new StringBuilder("dir");
+			for(int j=random.nextInt(40);j>0;j--) {
+				path.append((char)('a'+random.nextInt(26)));
+			}
+			path.append('/').append(i).append(".txt");
+			entries.add(new String[] { Integer.toHexString(random.nextInt(1000)).toUpperCase(), path.toString() });
+		}
+		return TestFiles.writeManifest(new File(gDir, pName), entries);
+	}
+
+	private static void assertSameEntries(CompactManifest pExpected, CompactManifest pActual) {
+		assertEquals(pExpected.size(), pActual.size());
+		assertEquals(pExpected.checksumCount(), pActual.checksumCount());
+		for(int i=0;i<pExpected.size();i++) {
+			assertEquals(pExpected.getChecksum(i), pActual.getChecksum(i));
+			assertEquals(pExpected.getFile(i), pActual.getFile(i));
+		}
+	}
+
+	@Test
+	public void testChunkedMatchesSingleThread() throws IOException {
+		File file = writeManifest("a.txt", 1, 20000);
+		CompactManifest expected = new ManifestLoader(gExecutor, 1, Long.MAX_VALUE).load(file);
+		assertEquals(20000, expected.size());
+
+		for(int threads:new int[] { 2, 7, 16 }) {
+			CompactManifest actual = new ManifestLoader(gExecutor, threads, 1024).load(file);
+			assertSameEntries(expected, actual);
+			// duplicates are still chained in file order
+			int first = actual.first(actual.getChecksum(19999));
+			int last = first;
+			for(int entry=first;entry!=CompactManifest.NONE;entry=actual.next(entry)) {
+				assertTrue(entry>=last);
+				last = entry;
+			}
+			assertEquals(19999, last);
+		}
+	}
+
+	@Test
+	public void testLoadTwo() throws IOException {
+		File fileA = writeManifest("a.txt", 1, 5000);
+		File fileB = writeManifest("b.txt", 2, 7000);
+		ManifestLoader loader = new ManifestLoader(gExecutor, 4, 4096);
+
+		CompactManifest[] manifests = loader.load(fileA, fileB);
+		assertSameEntries(loader.load(fileA), manifests[0]);
+		assertSameEntries(loader.load(fileB), manifests[1]);
+
+		try {
+			loader.load(fileA, new File(gDir, "missing.txt"));
+			fail("Missing manifest loaded");
+		} catch(FileNotFoundException e) {
+			// expected
+		}
+	}
+
+	@Test(timeout=60000)
+	public void testBoundedExecutor() throws IOException {
+		File fileA = writeManifest("a.txt", 1, 5000);
+		File fileB = writeManifest("b.txt", 2, 7000);
+		CompactManifest expectedA = new ManifestLoader(gExecutor, 1, Long.MAX_VALUE).load(fileA);
+		CompactManifest expectedB = new ManifestLoader(gExecutor, 1, Long.MAX_VALUE).load(fileB);
+
+		// one thread and a one task queue: more chunks than it can hold are run by the caller
+		ExecutorService bounded = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(1));
+		try {
+			CompactManifest[] manifests = new ManifestLoader(bounded, 4, 4096).load(fileA, fileB);
+			assertSameEntries(expectedA, manifests[0]);
+			assertSameEntries(expectedB, manifests[1]);
+		} finally {
+			bounded.shutdown();
+		}
+	}
+
+	@Test
+	public void testAddAll() {
+		CompactManifest manifestA = new CompactManifest();
+		manifestA.add("DEADBEEF", "a/one.txt");
+		manifestA.add("not hex", "a/two.txt");
+		CompactManifest manifestB = new CompactManifest();
+		manifestB.add("not hex", "b/three.txt");
+		manifestB.add(CompactManifestTest.SHA256, "b/four.txt");
+		manifestB.add("DEADBEEF", null);
+		manifestB.add("CAFEBABE", "b/removed.txt");
+		manifestB.remove(3);
+
+		manifestA.addAll(manifestB);
+		assertEquals(5, manifestA.size());
+		assertEquals(3, manifestA.checksumCount());
+		assertEquals("b/three.txt", manifestA.getFile(manifestA.next(manifestA.first("not hex"))));
+		assertEquals(CompactManifestTest.SHA256, manifestA.getChecksum(3));
+		assertEquals("b/four.txt", manifestA.getFile(3));
+		assertNull(manifestA.getFile(manifestA.next(manifestA.first("DEADBEEF"))));
+		assertEquals(CompactManifest.NONE, manifestA.first("CAFEBABE"));
+	}
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+
+import org.junit.Test;
+
+/**
+ * Test the manifest path rules shared by the writers, the verifier and the path diff
+ */
+@SuppressWarnings("javadoc")
+public class ManifestPathsTest {
+
+	@Test
+	public void testNormalise() {
+		assertEquals("a/B/c.TXT", ManifestPaths.normalise("./a//B\\c.TXT/", false));
+		assertEquals("a/b/c.txt", ManifestPaths.normalise("./a//B\\c.TXT/", true));
+		assertNull(ManifestPaths.normalise(null, true));
+
+		// a root is only removed when a separator follows it
+		assertEquals("c.txt", ManifestPaths.normalise("/data/f/c.txt", "data/f", false));
+		assertEquals("data/foo/c.txt", ManifestPaths.normalise("/data/foo/c.txt", "data/f", false));
+		assertEquals("data/f", ManifestPaths.normalise("data/f", "data/f", false));
+	}
+
+	@Test
+	public void testRelativePath() {
+		File directory = new File("dir").getAbsoluteFile();
+		String root = ManifestPaths.root(directory);
+		assertEquals("a/b.txt", ManifestPaths.relativePath(new File(new File(directory, "a"), "b.txt"), root));
+		assertEquals("a/b.txt", ManifestPaths.relativePath(new File(directory, "x/../a/./b.txt"), root));
+		File sibling = new File(directory.getParentFile(), "directory/b.txt");
+		assertEquals(sibling.getPath().replace(File.separatorChar, '/'), ManifestPaths.relativePath(sibling, root));
+
+		// what a writer writes, the verifier and the path diff read back as the same path
+		String written = ManifestPaths.relativePath(new File(directory, "Sub/File.txt"), root);
+		assertEquals("Sub/File.txt", FixityVerifier.manifestPath(written, null));
+		assertEquals("sub/file.txt", PathDiff.pathKey(written, null));
+	}
+
+}
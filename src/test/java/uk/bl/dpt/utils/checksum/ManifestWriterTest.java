@@ -0,0 +1,270 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import javax.xml.parsers.SAXParserFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class ManifestWriterTest {
+
+	private final static String[] PATHS = {
+		"plain/file.txt",
+		"with,comma.txt",
+		"\"starts with a quote\".txt",
+		"line\nbreak & <angle> \"quote\".txt",
+		"caf\u00e9/\u00fc.txt"
+	};
+
+	private File gDir;
+
+	@Before
+	public void setUp() throws IOException {
+		gDir = File.createTempFile("writer", "");
+		gDir.delete();
+		gDir.mkdirs();
+	}
+
+	@After
+	public void tearDown() {
+		for(File file:gDir.listFiles()) {
+			file.delete();
+		}
+		gDir.delete();
+	}
+
+	private static Map<String, String> checksums(int pIndex) {
+		Map<String, String> checksums = new LinkedHashMap<String, String>();
+		checksums.put("cksum", Integer.toString(1000+pIndex));
+		checksums.put("SHA-256", "ab"+pIndex);
+		return checksums;
+	}
+
+	private static List<String> readCrc(File pFile) throws IOException {
+		final List<String> entries = new ArrayList<String>();
+		CrcManifestReader.read(pFile, new ManifestEntryHandler() {
+			@Override
+			public void entry(String pChecksum, String pFile) {
+				entries.add(pFile+"="+pChecksum);
+			}
+		});
+		return entries;
+	}
+
+	private static List<String> readXml(InputStream pInput) throws IOException {
+		final List<String> entries = new ArrayList<String>();
+		new ThreadingSpiderReader("cksum", "SHA-256").read(pInput, new ThreadingSpiderReader.EntryHandler() {
+			@Override
+			public void entry(String pFile, Map<String, String> pChecksums) {
+				entries.add(pFile+"="+pChecksums.get("cksum")+"/"+pChecksums.get("SHA-256"));
+			}
+		});
+		return entries;
+	}
+
+	@Test
+	public void testCrcRoundTrip() throws IOException {
+		File manifest = new File(gDir, "manifest.txt");
+		CrcManifestWriter writer = CrcManifestWriter.open(manifest, false);
+		for(int i=0;i<3;i++) {
+			writer.write(PATHS[i], checksums(i));
+		}
+		writer.close();
+
+		// append after a crash left half a line
+		FileOutputStream output = new FileOutputStream(manifest, true);
+		output.write("half/a/li".getBytes("UTF-8"));
+		output.close();
+		writer = CrcManifestWriter.open(manifest, true);
+		for(int i=3;i<PATHS.length;i++) {
+			writer.write(PATHS[i], checksums(i));
+		}
+		writer.close();
+		assertEquals(2, writer.getCount());
+
+		List<String> entries = readCrc(manifest);
+		assertEquals(PATHS.length, entries.size());
+		for(int i=0;i<PATHS.length;i++) {
+			assertEquals(PATHS[i]+"="+(1000+i), entries.get(i));
+		}
+
+		try {
+			new CrcManifestWriter(new StringWriter(), "MD5").write("a.txt", checksums(0));
+			fail("Wrote an entry without its checksum");
+		} catch(IOException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testXmlRoundTrip() throws IOException {
+		File manifest = new File(gDir, "manifest.xml");
+		ThreadingSpiderWriter writer = ThreadingSpiderWriter.open(manifest, false);
+		for(int i=0;i<3;i++) {
+			writer.write(PATHS[i], checksums(i));
+		}
+		writer.close();
+		writer.close();
+
+		// a closed manifest is reopened before its root element ends
+		writer = ThreadingSpiderWriter.open(manifest, true);
+		for(int i=3;i<PATHS.length;i++) {
+			writer.write(PATHS[i], checksums(i));
+		}
+		writer.close();
+
+		InputStream input = new FileInputStream(manifest);
+		List<String> entries;
+		try {
+			entries = readXml(input);
+		} finally {
+			input.close();
+		}
+		assertEquals(PATHS.length, entries.size());
+		for(int i=0;i<PATHS.length;i++) {
+			assertEquals(PATHS[i]+"="+(1000+i)+"/ab"+i, entries.get(i));
+		}
+
+		// the SAX loader reads it too
+		final Map<String, String> loaded = new LinkedHashMap<String, String>();
+		try {
+			SAXParserFactory.newInstance().newSAXParser().parse(manifest, new ChecksumSaxLoader(new ManifestEntryHandler() {
+				@Override
+				public void entry(String pChecksum, String pFile) {
+					loaded.put(pFile, pChecksum);
+				}
+			}, "cksum"));
+		} catch(Exception e) {
+			throw new IOException(e);
+		}
+		assertEquals(PATHS.length, loaded.size());
+		assertEquals("1004", loaded.get(PATHS[4]));
+
+		try {
+			new ThreadingSpiderWriter(new StringWriter()).write("bell\u0007.txt", checksums(0));
+			fail("Wrote a control character");
+		} catch(IOException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testXmlRejectedEntry() throws IOException {
+		StringWriter xml = new StringWriter();
+		ThreadingSpiderWriter writer = new ThreadingSpiderWriter(xml);
+		writer.write(PATHS[0], checksums(0));
+		Map<String, String> badChecksum = checksums(1);
+		badChecksum.put("SHA-256", "ab\u0001");
+		try {
+			writer.write("bell\u0007.txt", checksums(1));
+			fail("Wrote a control character");
+		} catch(IOException e) {
+			// expected
+		}
+		try {
+			writer.write(PATHS[1], badChecksum);
+			fail("Wrote a control character");
+		} catch(IOException e) {
+			// expected
+		}
+		// nothing of the rejected entries was written, so the manifest is still well formed
+		writer.write(PATHS[2], checksums(2));
+		writer.close();
+		assertEquals(2, writer.getCount());
+
+		List<String> entries = readXml(new ByteArrayInputStream(xml.toString().getBytes("UTF-8")));
+		assertEquals(2, entries.size());
+		assertEquals(PATHS[0]+"=1000/ab0", entries.get(0));
+		assertEquals(PATHS[2]+"=1002/ab2", entries.get(1));
+	}
+
+	@Test
+	public void testGzipAndSink() throws IOException {
+		File dir = new File(gDir, "data");
+		dir.mkdirs();
+		File data = new File(dir, "data.bin");
+		FileOutputStream output = new FileOutputStream(data);
+		output.write("some data".getBytes("UTF-8"));
+		output.close();
+		Map<String, String> expected = new LinkedHashMap<String, String>();
+		ChecksumUtil.calcChecksums(data, expected);
+
+		// a gzipped OS CRC manifest can be started, but not appended to
+		File manifest = new File(gDir, "manifest.txt.gz");
+		CrcManifestWriter crcWriter = CrcManifestWriter.open(manifest, true);
+		crcWriter.setRoot(dir);
+		crcWriter.checksummed(data, expected);
+		crcWriter.close();
+		try {
+			CrcManifestWriter.open(manifest, true);
+			fail("Appended to a gzipped OS CRC manifest");
+		} catch(IOException e) {
+			// expected
+		}
+		File plain = new File(gDir, "plain.txt");
+		InputStream input = new GZIPInputStream(new FileInputStream(manifest));
+		output = new FileOutputStream(plain);
+		byte[] buffer = new byte[4096];
+		for(int read=input.read(buffer);read>=0;read=input.read(buffer)) {
+			output.write(buffer, 0, read);
+		}
+		output.close();
+		input.close();
+		List<String> entries = readCrc(plain);
+		assertEquals(1, entries.size());
+		assertEquals("data.bin="+expected.get("cksum"), entries.get(0));
+
+		File xml = new File(gDir, "manifest.xml.gz");
+		ThreadingSpiderWriter writer = ThreadingSpiderWriter.open(xml, false);
+		writer.checksummed(data, expected);
+		writer.failed(new File(dir, "unreadable.bin"), new IOException("test"));
+		writer.close();
+		input = new GZIPInputStream(new FileInputStream(xml));
+		try {
+			entries = readXml(input);
+		} finally {
+			input.close();
+		}
+		assertEquals(1, entries.size());
+		assertEquals(data.getPath()+"="+expected.get("cksum")+"/"+expected.get("SHA-256"), entries.get(0));
+		try {
+			ThreadingSpiderWriter.open(xml, true);
+			fail("Appended to a gzipped XML manifest");
+		} catch(IOException e) {
+			// expected
+		}
+	}
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.bl.dpt.utils.checksum.cksum.CkSumProvider;
+
+/**
+ * Test the MultiDigestEngine gives the same results as calculating each digest in turn
+ */
+@SuppressWarnings("javadoc")
+public class MultiDigestEngineTest {
+
+	private final static String[] ALGORITHMS = new String[] { "cksum", "MD5", "SHA-1", "SHA-256" };
+
+	@Before
+	public void setUp() throws Exception {
+		CkSumProvider.register();
+	}
+
+	private static Digester[] newDigesters() throws NoSuchAlgorithmException {
+		Digester[] digesters = new Digester[ALGORITHMS.length+1];
+		digesters[0] = new ChecksumDigester("CRC32", new CRC32());
+		for(int i=0;i<ALGORITHMS.length;i++) {
+			digesters[i+1] = new MessageDigestDigester(MessageDigest.getInstance(ALGORITHMS[i]));
+		}
+		return digesters;
+	}
+
+	private static void check(MultiDigestEngine pEngine, int pSize) throws Exception {
+		byte[] data = new byte[pSize];
+		new Random(pSize).nextBytes(data);
+
+		Digester[] expected = newDigesters();
+		for(Digester d:expected) {
+			d.update(data, 0, data.length);
+		}
+
+		Digester[] actual = newDigesters();
+		ByteArrayOutputStream copy = new ByteArrayOutputStream();
+		long read = pEngine.digest(new ByteArrayInputStream(data), copy, actual);
+
+		assertEquals(pSize, read);
+		assertArrayEquals(data, copy.toByteArray());
+		for(int i=0;i<expected.length;i++) {
+			assertEquals(expected[i].getAlgorithm(), expected[i].digestString(), actual[i].digestString());
+		}
+	}
+
+	@Test
+	public void testDefaultEngine() throws Exception {
+		MultiDigestEngine engine = new MultiDigestEngine();
+		for(int size:new int[] { 0, 1, 4095, MultiDigestEngine.DEFAULT_BUFSIZE, MultiDigestEngine.DEFAULT_BUFSIZE+1, 1024*1024+17 }) {
+			check(engine, size);
+		}
+	}
+
+	@Test
+	public void testSmallRing() throws Exception {
+		// lots of small buffers to exercise slot reuse
+		MultiDigestEngine engine = new MultiDigestEngine(Executors.newCachedThreadPool(), 7, 2);
+		for(int size:new int[] { 0, 6, 7, 8, 14, 15, 10000 }) {
+			check(engine, size);
+		}
+	}
+
+	@Test
+	public void testDigesterFailure() throws Exception {
+		MultiDigestEngine engine = new MultiDigestEngine(Executors.newCachedThreadPool(), 16, 3);
+		Digester[] digesters = newDigesters();
+		digesters[2] = new ChecksumDigester("broken", new CRC32() {
+			@Override
+			public void update(byte[] b, int off, int len) {
+				throw new IllegalStateException("broken");
+			}
+		});
+		try {
+			engine.digest(new ByteArrayInputStream(new byte[1000]), null, digesters);
+			fail("expected failure");
+		} catch(IllegalStateException e) {
+			assertEquals("broken", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testDigestersReset() throws Exception {
+		byte[] data = "reused digester".getBytes("UTF-8");
+		Digester[] first = newDigesters();
+		Digester[] reused = newDigesters();
+		for(int i=0;i<first.length;i++) {
+			first[i].update(data, 0, data.length);
+			reused[i].update(new byte[] { 1, 2, 3 }, 0, 3);
+			reused[i].digest();
+			// digesting resets, so nothing of the first input is left
+			reused[i].update(data, 0, data.length);
+			assertEquals(first[i].getAlgorithm(), first[i].digestString(), reused[i].digestString());
+		}
+	}
+
+	@Test
+	public void testChecksumUtilKeys() throws IOException {
+		Map<String, String> checksums = new HashMap<String, String>();
+		ChecksumUtil.calcChecksums(new ByteArrayInputStream(new byte[100000]), checksums);
+		assertEquals(5, checksums.size());
+		for(String key:new String[] { "CRC32", "cksum", "MD5", "SHA-1", "SHA-256" }) {
+			assertTrue(key, checksums.containsKey(key));
+		}
+	}
+
+}
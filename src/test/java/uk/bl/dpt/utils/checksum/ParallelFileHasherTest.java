@@ -0,0 +1,102 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+
+import org.junit.Test;
+
+import uk.bl.dpt.utils.checksum.cksum.CkSumProvider;
+import uk.bl.dpt.utils.checksum.cksum.CkSumState;
+import uk.bl.dpt.utils.checksum.crc.CRC32C;
+import uk.bl.dpt.utils.checksum.crc.CrcCombine;
+
+/**
+ * Test combining crc states and checksumming files in parallel
+ */
+@SuppressWarnings("javadoc")
+public class ParallelFileHasherTest {
+
+	@Test
+	public void testCombine() throws Exception {
+		CkSumProvider.register();
+		Random random = new Random(1);
+		byte[] data = new byte[5000];
+		random.nextBytes(data);
+
+		MessageDigest md = MessageDigest.getInstance("cksum");
+		byte[] expected = md.digest(data);
+		CRC32 crc32 = new CRC32();
+		crc32.update(data, 0, data.length);
+		CRC32C crc32c = new CRC32C();
+		crc32c.update(data, 0, data.length);
+
+		for(int split:new int[] { 0, 1, 7, 8, 2500, 4999, 5000 }) {
+			CkSumState a = CkSumState.EMPTY.update(data, 0, split);
+			CkSumState b = CkSumState.EMPTY.update(data, split, data.length-split);
+			assertTrue(Arrays.equals(expected, CkSumState.combine(a, b, data.length-split).getDigest()));
+
+			CRC32 crcA = new CRC32();
+			crcA.update(data, 0, split);
+			CRC32 crcB = new CRC32();
+			crcB.update(data, split, data.length-split);
+			assertEquals(crc32.getValue(), CrcCombine.crc32(crcA.getValue(), crcB.getValue(), data.length-split));
+
+			CRC32C crcCA = new CRC32C();
+			crcCA.update(data, 0, split);
+			CRC32C crcCB = new CRC32C();
+			crcCB.update(data, split, data.length-split);
+			assertEquals(crc32c.getValue(), CrcCombine.crc32c(crcCA.getValue(), crcCB.getValue(), data.length-split));
+		}
+	}
+
+	@Test
+	public void testParallelFile() throws Exception {
+		ChecksumSpec spec = ChecksumSpec.of("cksum", "CRC32", "CRC32C");
+		assertTrue(ParallelFileHasher.isSupported(spec));
+		assertFalse(ParallelFileHasher.isSupported(ChecksumSpec.DEFAULT));
+
+		ParallelFileHasher hasher = new ParallelFileHasher(new ForkJoinPool(4), 1000);
+		for(int size:new int[] { 0, 1, 999, 1000, 1001, 100000 }) {
+			File file = File.createTempFile("parallel", ".bin");
+			file.deleteOnExit();
+			byte[] data = new byte[size];
+			new Random(size).nextBytes(data);
+			FileOutputStream out = new FileOutputStream(file);
+			out.write(data);
+			out.close();
+
+			Map<String, String> expected = new HashMap<String, String>();
+			ChecksumUtil.calcChecksums(file, spec, expected);
+			Map<String, String> actual = new HashMap<String, String>();
+			hasher.calcChecksums(file, spec, actual);
+			assertEquals(expected, actual);
+			assertEquals(size, hasher.cksum(file).getLength());
+		}
+	}
+
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class PathDiffTest {
+
+	/**
+	 * Collects changes as "CHANGE fileA fileB" strings
+	 */
+	private static class Changes implements PathDiff.ChangeHandler {
+
+		final List<String> gChanges = new ArrayList<String>();
+
+		@Override
+		public void change(PathDiff.Change pChange, String pChecksumA, String pFileA, String pChecksumB, String pFileB) {
+			gChanges.add(pChange+" "+pFileA+" "+pFileB);
+		}
+
+	}
+
+	private static CompactManifest manifest(String... pEntries) {
+		CompactManifest manifest = new CompactManifest();
+		for(int i=0;i<pEntries.length;i+=2) {
+			manifest.add(pEntries[i], pEntries[i+1]);
+		}
+		return manifest;
+	}
+
+	@Test
+	public void testClassify() throws IOException {
+		CompactManifest manifestA = manifest(
+				"01", "same/file.txt",
+				"02", "old/moved.txt",
+				"03", "dir/old name.txt",
+				"04", "dir/changed.txt",
+				"05", "dir/removed.txt",
+				"06", ".\\Same\\CASE.TXT");
+		CompactManifest manifestB = manifest(
+				"01", "same/file.txt",
+				"02", "new/moved.txt",
+				"03", "dir/new name.txt",
+				"FF", "dir/changed.txt",
+				"06", "same/case.txt",
+				"07", "dir/added.txt");
+		Changes changes = new Changes();
+		Map<PathDiff.Change, Long> counts = new PathDiff().diff(manifestA, manifestB, changes);
+
+		List<String> expected = new ArrayList<String>();
+		expected.add("UNCHANGED same/file.txt same/file.txt");
+		expected.add("MOVED old/moved.txt new/moved.txt");
+		expected.add("RENAMED dir/old name.txt dir/new name.txt");
+		expected.add("CONTENT_CHANGED dir/changed.txt dir/changed.txt");
+		expected.add("REMOVED dir/removed.txt null");
+		expected.add("UNCHANGED .\\Same\\CASE.TXT same/case.txt");
+		expected.add("ADDED null dir/added.txt");
+		assertEquals(expected, changes.gChanges);
+		assertEquals(Long.valueOf(2), counts.get(PathDiff.Change.UNCHANGED));
+		assertEquals(Long.valueOf(1), counts.get(PathDiff.Change.ADDED));
+
+		// only the removed and added entries are left
+		assertEquals(1, manifestA.remaining());
+		assertEquals(1, manifestB.remaining());
+	}
+
+	@Test
+	public void testOrderAndRoots() throws IOException {
+		// a path match wins over a checksum match, and duplicates pair in order
+		CompactManifest manifestA = manifest(
+				"01", "f:/data/x/a.txt",
+				"02", "f:/data/x/b.txt",
+				"02", "f:/data/y/b.txt",
+				"03", "f:/data/z/c.txt",
+				"03", "f:/data/z/d.txt");
+		CompactManifest manifestB = manifest(
+				"02", "/mnt/copy/x/a.txt",
+				"01", "/mnt/copy/w/a.txt",
+				"02", "/mnt/copy/q/b.txt",
+				"02", "/mnt/copy/r/b.txt",
+				"03", "/mnt/copy/z/e.txt");
+		Changes changes = new Changes();
+		ExecutorService executor = Executors.newCachedThreadPool();
+		try {
+			new PathDiff(new ManifestLoader(executor, 1, Long.MAX_VALUE), "F:\\Data", "/mnt/copy/").diff(manifestA, manifestB, changes);
+		} finally {
+			executor.shutdown();
+		}
+
+		List<String> expected = new ArrayList<String>();
+		expected.add("CONTENT_CHANGED f:/data/x/a.txt /mnt/copy/x/a.txt");
+		expected.add("MOVED f:/data/x/b.txt /mnt/copy/q/b.txt");
+		expected.add("MOVED f:/data/y/b.txt /mnt/copy/r/b.txt");
+		expected.add("RENAMED f:/data/z/c.txt /mnt/copy/z/e.txt");
+		expected.add("REMOVED f:/data/z/d.txt null");
+		expected.add("ADDED null /mnt/copy/w/a.txt");
+		assertEquals(expected, changes.gChanges);
+
+		assertEquals("a/b/c.txt", PathDiff.pathKey("//A/./B\\\\c.TXT/", null));
+		assertEquals("other/a.txt", PathDiff.pathKey("/other/a.txt", "root"));
+		assertEquals("rootless/a.txt", PathDiff.pathKey("rootless/a.txt", "root"));
+		assertNull(PathDiff.pathKey(null, "root"));
+	}
+
+	@Test
+	public void testComparePaths() throws IOException {
+		File dir = File.createTempFile("pathdiff", "");
+		dir.delete();
+		dir.mkdirs();
+		try {
+			File a = new File(dir, "a.txt");
+			PrintWriter writer = new PrintWriter(new FileWriter(a));
+			writer.println("x/one.txt,1234");
+			writer.println("x/two.txt,5678");
+			writer.println("x/three.txt,9ABC");
+			writer.close();
+			File b = new File(dir, "b.txt");
+			writer = new PrintWriter(new FileWriter(b));
+			writer.println("x/one.txt,1234");
+			writer.println("y/two.txt,5678");
+			writer.println("x/four.txt,DEF0");
+			writer.close();
+
+			File report = new File(dir, "report.txt");
+			ChecksumDiff.comparePaths(a, b, report);
+			List<String> lines = Files.readAllLines(report.toPath(), Charset.forName("UTF-8"));
+			assertTrue(lines.contains("MOVED: x/two.txt -> y/two.txt"));
+			assertTrue(lines.contains("< 9ABC: x/three.txt"));
+			assertTrue(lines.contains("> DEF0: x/four.txt"));
+			assertTrue(lines.contains("UNCHANGED: 1"));
+			assertTrue(lines.contains("Entries in a.txt: 3"));
+			assertTrue(lines.contains("Unique files in b.txt: 1"));
+		} finally {
+			for(File file:dir.listFiles()) {
+				file.delete();
+			}
+			dir.delete();
+		}
+	}
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+@SuppressWarnings("javadoc")
+public class SetHashDiffTest {
+
+	@Rule
+	public TemporaryFolder gFolder = new TemporaryFolder();
+
+	private File gDir;
+	private ExecutorService gExecutor;
+
+	@Before
+	public void setUp() {
+		gDir = gFolder.getRoot();
+		gExecutor = Executors.newCachedThreadPool();
+	}
+
+	@After
+	public void tearDown() {
+		gExecutor.shutdown();
+	}
+
+	private File writeManifest(String pName, List<String[]> pEntries) throws IOException {
+		return TestFiles.writeManifest(new File(gDir, pName), pEntries);
+	}
+
+	private static List<String> entries(Iterator<DiffResult.Entry> pEntries) {
+		List<String> entries = new ArrayList<String>();
+		while(pEntries.hasNext()) {
+			entries.add(pEntries.next().toString());
+		}
+		return entries;
+	}
+
+	@Test
+	public void testIdentical() throws IOException {
+		List<String[]> entries = new ArrayList<String[]>();
+		for(int i=0;i<1000;i++) {
+			entries.add(new String[] { Integer.toHexString(i%50), "dir"+i+"/file"+(i%7)+".txt" });
+		}
+		File a = writeManifest("a.txt", entries);
+		// the same entries in another order and other directories, with names in another case
+		List<String[]> shuffled = new ArrayList<String[]>();
+		for(String[] entry:entries) {
+			shuffled.add(new String[] { entry[0], "other/"+new File(entry[1]).getName().toUpperCase() });
+		}
+		Collections.shuffle(shuffled, new Random(1));
+		File b = writeManifest("b.txt", shuffled);
+
+		DiffResult result = new SetHashDiff(gExecutor, 64).diff(a, b);
+		assertTrue(result.isIdentical());
+		assertEquals(1000, result.getEntriesA());
+		assertEquals(1000, result.getEntriesB());
+
+		ManifestSetHash hashA = new ManifestSetHash(16);
+		ManifestSetHash hashB = new ManifestSetHash(16);
+		for(String[] entry:entries) {
+			hashA.entry(entry[0], entry[1]);
+		}
+		for(String[] entry:shuffled) {
+			hashB.entry(entry[0], entry[1]);
+		}
+		assertTrue(hashA.sameEntries(hashB));
+		// a duplicate is not the same as one entry
+		hashB.entry(entries.get(0)[0], entries.get(0)[1]);
+		assertEquals(1, hashA.differingBuckets(hashB).cardinality());
+	}
+
+	@Test
+	public void testMatchesManifestDiffer() throws IOException {
+		Random random = new Random(2);
+		for(int round=0;round<10;round++) {
+			List<String[]> entriesA = new ArrayList<String[]>();
+			List<String[]> entriesB = new ArrayList<String[]>();
+			for(int i=0;i<2000;i++) {
+				String checksum = Integer.toHexString(random.nextInt(300));
+				if(random.nextBoolean()) {
+					checksum = checksum.toUpperCase();
+				}
+				String[] entry = { checksum, "d"+random.nextInt(3)+"/f"+random.nextInt(5)+".txt" };
+				int where = random.nextInt(20);
+				if(where!=0) {
+					entriesA.add(entry);
+				}
+				if(where!=1) {
+					entriesB.add(entry);
+				}
+			}
+			File a = writeManifest("a.txt", entriesA);
+			File b = writeManifest("b.txt", entriesB);
+
+			DiffResult expected = new ManifestDiffer(new ManifestLoader(gExecutor, 1, Long.MAX_VALUE)).diff(a, b);
+			for(int buckets:new int[] { 1, 7, 4096 }) {
+				DiffResult actual = new SetHashDiff(gExecutor, buckets).diff(a, b);
+				assertEquals(expected.getEntriesA(), actual.getEntriesA());
+				assertEquals(expected.getEntriesB(), actual.getEntriesB());
+				assertEquals(entries(expected.uniqueToA()), entries(actual.uniqueToA()));
+				assertEquals(entries(expected.uniqueToB()), entries(actual.uniqueToB()));
+			}
+		}
+	}
+
+	@Test
+	public void testCompareHashed() throws IOException {
+		List<String[]> entries = new ArrayList<String[]>();
+		entries.add(new String[] { "1234", "a/one.txt" });
+		entries.add(new String[] { "5678", "a/two.txt" });
+		File a = writeManifest("a.txt", entries);
+		File same = writeManifest("same.txt", entries);
+		entries.remove(1);
+		File b = writeManifest("b.txt", entries);
+
+		File report = new File(gDir, "report.txt");
+		ChecksumDiff.compareHashed(a, same, report);
+		List<String> lines = Files.readAllLines(report.toPath(), Charset.forName("UTF-8"));
+		assertTrue(lines.contains("Identical"));
+		assertTrue(lines.contains("Unique files in same.txt: 0"));
+
+		ChecksumDiff.compareHashed(a, b, report);
+		lines = Files.readAllLines(report.toPath(), Charset.forName("UTF-8"));
+		assertTrue(lines.contains("< 5678: a/two.txt"));
+		assertTrue(lines.contains("Unique files in a.txt: 1"));
+		assertTrue(lines.contains("Unique files in b.txt: 0"));
+	}
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.util.List;
+
+/**
+ * Files and manifests for the tests, written in a folder from a TemporaryFolder rule
+ */
+@SuppressWarnings("javadoc")
+final class TestFiles {
+
+	private final static Charset UTF8 = Charset.forName("UTF-8");
+
+	private TestFiles() {
+	}
+
+	/**
+	 * Write a CSV manifest
+	 * @param pManifest file to write
+	 * @param pEntries entries as { checksum, path }
+	 * @return the manifest
+	 */
+	static File writeManifest(File pManifest, List<String[]> pEntries) throws IOException {
+		PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(pManifest), UTF8));
+		try {
+			for(String[] entry:pEntries) {
+				writer.println(entry[1]+","+entry[0]);
+			}
+		} finally {
+			writer.close();
+		}
+		return pManifest;
+	}
+
+	/**
+	 * Write a file, and any directories it needs
+	 * @param pFile file to write
+	 * @param pContents contents, written as UTF-8
+	 */
+	static void write(File pFile, String pContents) throws IOException {
+		write(pFile, pContents, false);
+	}
+
+	/**
+	 * Append to a file, and create any directories it needs
+	 * @param pFile file to append to
+	 * @param pContents contents, written as UTF-8
+	 */
+	static void append(File pFile, String pContents) throws IOException {
+		write(pFile, pContents, true);
+	}
+
+	private static void write(File pFile, String pContents, boolean pAppend) throws IOException {
+		pFile.getAbsoluteFile().getParentFile().mkdirs();
+		FileOutputStream output = new FileOutputStream(pFile, pAppend);
+		try {
+			output.write(pContents.getBytes(UTF8));
+		} finally {
+			output.close();
+		}
+	}
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.checksum;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.parsers.SAXParserFactory;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class ThreadingSpiderReaderTest {
+
+	private final static Charset UTF8 = Charset.forName("UTF-8");
+
+	private final static String MANIFEST =
+			"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"+
+			"<manifest>\n"+
+			"<entry>\n"+
+			"  <file> a/one.txt </file>\n"+
+			"  <checksum digest=\"cksum\">1234</checksum>\n"+
+			"  <checksum digest=\"SHA-256\">ABCD</checksum>\n"+
+			"  <checksum digest=\"MD5\">EF01</checksum>\n"+
+			"</entry>\n"+
+			"<entry><file>b/t&amp;w &#233;t&#233;.txt</file><checksum digest=\"SHA-256-hex\"><![CDATA[5678]]></checksum></entry>\n"+
+			"<entry><file>c/no checksums.txt</file><checksum>9999</checksum></entry>\n"+
+			"<entry><file>d/md5 only.txt</file><checksum digest=\"MD5\">AAAA</checksum></entry>\n"+
+			"<entry><file>e/cksum only.txt</file><checksum digest=\"cksum\">\n\t42\n</checksum></entry>\n"+
+			"</manifest>\n";
+
+	private static List<String> readAll(InputStream pInput, String... pDigests) throws IOException {
+		final List<String> entries = new ArrayList<String>();
+		new ThreadingSpiderReader(pDigests).read(pInput, new ThreadingSpiderReader.EntryHandler() {
+			@Override
+			public void entry(String pFile, Map<String, String> pChecksums) {
+				entries.add(pFile+"="+pChecksums);
+			}
+		});
+		return entries;
+	}
+
+	private static InputStream stream(String pContents) {
+		return new ByteArrayInputStream(pContents.getBytes(UTF8));
+	}
+
+	@Test
+	public void testSeveralDigests() throws IOException {
+		List<String> entries = readAll(stream(MANIFEST), "cksum", "SHA-256");
+		assertEquals(3, entries.size());
+		assertEquals("a/one.txt={cksum=1234, SHA-256=ABCD}", entries.get(0));
+		assertEquals("b/t&w \u00e9t\u00e9.txt={SHA-256=5678}", entries.get(1));
+		assertEquals("e/cksum only.txt={cksum=42}", entries.get(2));
+
+		entries = readAll(stream(MANIFEST), "MD5");
+		assertEquals(2, entries.size());
+		assertEquals("a/one.txt={MD5=EF01}", entries.get(0));
+		assertEquals("d/md5 only.txt={MD5=AAAA}", entries.get(1));
+	}
+
+	@Test
+	public void testMatchesSaxLoader() throws Exception {
+		// long text, so the parsers give it in several pieces
+		StringBuilder contents = new StringBuilder("<manifest>");
+		for(int i=0;i<200;i++) {
+			contents.append("<entry><file>dir/");
+			for(int j=0;j<i*50;j++) {
+				contents.append((char)('a'+j%26));
+			}
+			contents.append(i).append(".txt</file><checksum digest=\"cksum\">").append(i).append("</checksum></entry>\n");
+		}
+		contents.append("</manifest>");
+		File file = File.createTempFile("threadingspider", ".xml");
+		try {
+			FileOutputStream output = new FileOutputStream(file);
+			output.write(contents.toString().getBytes(UTF8));
+			output.close();
+
+			final Map<String, String> expected = new LinkedHashMap<String, String>();
+			ManifestEntryHandler saxHandler = new ManifestEntryHandler() {
+				@Override
+				public void entry(String pChecksum, String pFile) {
+					expected.put(pFile, pChecksum);
+				}
+			};
+			SAXParserFactory.newInstance().newSAXParser().parse(file, new ChecksumSaxLoader(saxHandler, "cksum"));
+
+			final Map<String, String> actual = new LinkedHashMap<String, String>();
+			ThreadingSpiderReader.read(file, "cksum", new ManifestEntryHandler() {
+				@Override
+				public void entry(String pChecksum, String pFile) {
+					actual.put(pFile, pChecksum);
+				}
+			});
+			assertEquals(200, actual.size());
+			assertEquals(new ArrayList<String>(expected.keySet()), new ArrayList<String>(actual.keySet()));
+			assertEquals(new ArrayList<String>(expected.values()), new ArrayList<String>(actual.values()));
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testErrors() throws IOException {
+		try {
+			readAll(stream("<manifest><entry><file>a.txt</file>"), "cksum");
+			fail("Truncated manifest read");
+		} catch(IOException e) {
+			// expected
+		}
+
+		// a handler failure stops the read
+		try {
+			new ThreadingSpiderReader("cksum").read(stream(MANIFEST), new ThreadingSpiderReader.EntryHandler() {
+				@Override
+				public void entry(String pFile, Map<String, String> pChecksums) throws IOException {
+					throw new IOException("stop");
+				}
+			});
+			fail("Handler failure ignored");
+		} catch(IOException e) {
+			assertEquals("stop", e.getMessage());
+		}
+
+		try {
+			new ThreadingSpiderReader();
+			fail("Reader created with no digest types");
+		} catch(IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+}
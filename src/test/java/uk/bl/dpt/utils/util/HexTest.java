@@ -0,0 +1,90 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.util;
+
+import static org.junit.Assert.*;
+
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import org.junit.Test;
+
+import uk.bl.dpt.utils.checksum.ChecksumDigester;
+import uk.bl.dpt.utils.checksum.ChecksumUtil;
+import uk.bl.dpt.utils.checksum.MessageDigestDigester;
+
+/**
+ * Test hex encoding and binary digests
+ */
+@SuppressWarnings("javadoc")
+public class HexTest {
+
+	@Test
+	public void testEncode() {
+		Random random = new Random(1);
+		for(int length=0;length<40;length++) {
+			byte[] bytes = new byte[length];
+			random.nextBytes(bytes);
+			String expected = "";
+			for(byte b:bytes) expected+=String.format("%02x", b);
+			assertEquals(expected, Hex.toLowerHex(bytes));
+			assertEquals(expected.toUpperCase(), Hex.toUpperHex(bytes));
+			assertEquals("#"+expected, Hex.append(new StringBuilder("#"), bytes, false).toString());
+			char[] chars = new char[length*2+1];
+			assertEquals(length*2+1, Hex.encode(bytes, 0, length, chars, 1, true));
+			assertEquals(expected.toUpperCase(), new String(chars, 1, length*2));
+			assertTrue(Arrays.equals(bytes, Hex.decode(expected)));
+		}
+		for(long value:new long[] { 0, 1, 0xf, 0x10, 0xcbf43926L, Long.MAX_VALUE, -1 }) {
+			assertEquals(Long.toHexString(value).toUpperCase(), Hex.toHex(value, true));
+			assertEquals(Long.toHexString(value), Hex.toHex(value, false));
+		}
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testDecodeInvalid() {
+		Hex.decode("0g");
+	}
+
+	@Test
+	public void testBinaryDigest() throws Exception {
+		byte[] data = "123456789".getBytes();
+
+		MessageDigestDigester sha1 = new MessageDigestDigester(MessageDigest.getInstance("SHA-1"));
+		sha1.update(data, 0, data.length);
+		byte[] digest = sha1.digest();
+		assertEquals(20, digest.length);
+		sha1.update(data, 0, data.length);
+		long[] longs = sha1.digestLongs();
+		assertEquals(3, longs.length);
+		// 4 bytes in the first long, 8 in the others
+		assertEquals(0, longs[0]>>>32);
+		assertTrue(Arrays.equals(digest, ChecksumUtil.toBytes(longs, digest.length)));
+		sha1.update(data, 0, data.length);
+		assertEquals(Hex.toUpperHex(digest), sha1.digestString());
+
+		ChecksumDigester crc = new ChecksumDigester("CRC32", new CRC32());
+		crc.update(data, 0, data.length);
+		assertTrue(Arrays.equals(Hex.decode("cbf43926"), crc.digest()));
+		crc.update(data, 0, data.length);
+		assertArrayEquals(new long[] { 0xcbf43926L }, crc.digestLongs());
+		assertArrayEquals(new long[] { 0xcbf43926L }, ChecksumUtil.toLongs(Hex.decode("cbf43926")));
+	}
+
+}
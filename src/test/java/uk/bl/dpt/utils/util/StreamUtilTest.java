@@ -0,0 +1,116 @@
+/*
+ * Copyright 2026 The British Library/SCAPE Project Consortium
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package uk.bl.dpt.utils.util;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test copying streams until the end, whatever available() says
+ */
+@SuppressWarnings("javadoc")
+public class StreamUtilTest {
+
+	/**
+	 * Behaves like a pipe or socket: short reads and available() always 0
+	 */
+	private static class TrickleInputStream extends FilterInputStream {
+		TrickleInputStream(byte[] pData) {
+			super(new ByteArrayInputStream(pData));
+		}
+		@Override
+		public int available() {
+			return 0;
+		}
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			return super.read(b, off, Math.min(len, 7));
+		}
+	}
+
+	private static byte[] data(int pSize) {
+		byte[] data = new byte[pSize];
+		new Random(pSize).nextBytes(data);
+		return data;
+	}
+
+	@Test
+	public void testCopy() throws IOException {
+		byte[] data = data(200000);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long transfers = TransferMetrics.GLOBAL.getTransfers();
+		assertEquals(data.length, StreamUtil.copy(new TrickleInputStream(data), out, new byte[3]));
+		assertTrue(Arrays.equals(data, out.toByteArray()));
+		assertTrue(TransferMetrics.GLOBAL.getTransfers()>transfers);
+	}
+
+	@Test
+	public void testReadFully() throws IOException {
+		byte[] data = data(100);
+		byte[] buf = new byte[64];
+		InputStream in = new TrickleInputStream(data);
+		assertEquals(64, StreamUtil.readFully(in, buf, 0, 64));
+		assertEquals(36, StreamUtil.readFully(in, buf, 0, 64));
+		assertEquals(0, StreamUtil.readFully(in, buf, 0, 64));
+	}
+
+	@Test
+	public void testCopyStreamToFile() throws IOException {
+		byte[] data = data(100000);
+		File file = File.createTempFile("streamutil", ".bin");
+		file.deleteOnExit();
+		assertTrue(StreamUtil.copyStreamToFile(new TrickleInputStream(data), file));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		FileInputStream in = new FileInputStream(file);
+		StreamUtil.copy(in, out);
+		in.close();
+		assertTrue(Arrays.equals(data, out.toByteArray()));
+	}
+
+	@Test
+	public void testWriteReaderToFile() throws IOException {
+		StringBuilder text = new StringBuilder();
+		for(int i=0;i<10000;i++) {
+			text.append("line ").append(i).append('\n');
+		}
+		Reader reader = new FilterReader(new StringReader(text.toString())) {
+			@Override
+			public boolean ready() {
+				return false;
+			}
+		};
+		File file = File.createTempFile("streamutil", ".txt");
+		file.deleteOnExit();
+		FileUtil.writeReaderToFile(reader, file);
+		assertEquals(text.length(), file.length());
+	}
+
+}